@@ -0,0 +1,47 @@
+package it.eng.idsa.dataapp.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import it.eng.idsa.dataapp.service.impl.CheckSumServiceImpl;
+
+/**
+ * CRC32C checksum of artifact payload
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CheckSumBenchmark {
+
+	@Param({ "1024", "1048576", "10485760" })
+	private int payloadSize;
+
+	private CheckSumServiceImpl checkSumService;
+	private byte[] payload;
+
+	@Setup
+	public void setup() {
+		// repository is not used for calculation
+		checkSumService = new CheckSumServiceImpl(null);
+		payload = Payloads.bytes(payloadSize);
+	}
+
+	@Benchmark
+	public Long calculateCheckSum() {
+		return checkSumService.calculateCheckSum(payload);
+	}
+}
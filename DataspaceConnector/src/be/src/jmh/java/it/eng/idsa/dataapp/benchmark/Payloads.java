@@ -0,0 +1,52 @@
+package it.eng.idsa.dataapp.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Deterministic payloads, so results of different commits are measured on the same input
+ */
+final class Payloads {
+
+	private Payloads() {
+	}
+
+	/**
+	 * @param size number of bytes
+	 * @return random bytes, same for the same size
+	 */
+	static byte[] bytes(int size) {
+		byte[] bytes = new byte[size];
+		new Random(size).nextBytes(bytes);
+		return bytes;
+	}
+
+	/**
+	 * Suspect profile archive as returned by the encryptor: info.json and one face, voice and fingerprint file.
+	 *
+	 * @param size total size of the biometric files
+	 * @return zip archive
+	 */
+	static byte[] suspectProfileZip(int size) throws IOException {
+		int fileSize = size / 3;
+		ByteArrayOutputStream out = new ByteArrayOutputStream(size + 1024);
+		try (ZipOutputStream zip = new ZipOutputStream(out)) {
+			add(zip, "info.json", "{\"suspectProfileId\":\"benchmark\",\"name\":\"John\",\"surname\":\"Doe\"}"
+					.getBytes(StandardCharsets.UTF_8));
+			add(zip, "face/face.png", bytes(fileSize));
+			add(zip, "voice/voice.flac", bytes(fileSize));
+			add(zip, "finger/finger.png", bytes(fileSize));
+		}
+		return out.toByteArray();
+	}
+
+	private static void add(ZipOutputStream zip, String name, byte[] content) throws IOException {
+		zip.putNextEntry(new ZipEntry(name));
+		zip.write(content);
+		zip.closeEntry();
+	}
+}
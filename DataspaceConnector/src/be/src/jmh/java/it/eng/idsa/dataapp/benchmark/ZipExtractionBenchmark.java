@@ -0,0 +1,106 @@
+package it.eng.idsa.dataapp.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.json.simple.JSONObject;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import it.eng.idsa.dataapp.util.ArchiveLayout;
+import it.eng.idsa.dataapp.util.BufferPool;
+import it.eng.idsa.dataapp.util.DecryptedArchive;
+
+/**
+ * Extraction of decrypted suspect profile archive into JSON with base64 encoded biometric files. <code>inMemory</code>
+ * is the previous implementation: every entry read into memory, encoded into a String and the JSON built as a String.
+ * Allocation per operation is reported with <code>-Djmh.args="-prof gc"</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ZipExtractionBenchmark {
+
+	@Param({ "1024", "1048576", "10485760" })
+	private int payloadSize;
+
+	@Param({ "SUSPECT_PROFILE", "EVIDENCE" })
+	private String layout;
+
+	private Path zipFile;
+	private Path legacyZipFile;
+	private DecryptedArchive archive;
+	private ArchiveLayout archiveLayout;
+
+	@Setup
+	public void setup() throws IOException {
+		zipFile = Files.createTempFile("benchmark_", ".zip");
+		Files.write(zipFile, Payloads.suspectProfileZip(payloadSize));
+		// DecryptedArchive deletes its file when closed
+		legacyZipFile = Files.copy(zipFile, zipFile.resolveSibling(zipFile.getFileName() + ".legacy"));
+		archive = new DecryptedArchive(zipFile, new BufferPool(64 * 1024, 4));
+		archiveLayout = "EVIDENCE".equals(layout) ? ArchiveLayout.EVIDENCE : ArchiveLayout.SUSPECT_PROFILE;
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		archive.close();
+		Files.deleteIfExists(legacyZipFile);
+	}
+
+	@Benchmark
+	public void writeJson(Blackhole blackhole) throws IOException {
+		archive.writeJson(archiveLayout, new OutputStream() {
+			@Override
+			public void write(int b) {
+				blackhole.consume(b);
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) {
+				blackhole.consume(b);
+			}
+		});
+	}
+
+	@Benchmark
+	@SuppressWarnings("unchecked")
+	public String inMemory() throws IOException {
+		JSONObject json = new JSONObject();
+		try (ZipFile zip = new ZipFile(legacyZipFile.toFile())) {
+			Enumeration<? extends ZipEntry> entries = zip.entries();
+			while (entries.hasMoreElements()) {
+				ZipEntry entry = entries.nextElement();
+				byte[] content = zip.getInputStream(entry).readAllBytes();
+				String key = entry.getName().split("/")[0];
+				List<String> files = (List<String>) json.computeIfAbsent(key, k -> new ArrayList<String>());
+				files.add("data:image/png;base64," + Base64.getEncoder().encodeToString(content));
+			}
+		}
+		return json.toJSONString();
+	}
+}
@@ -9,6 +9,10 @@ public class MatchInitRequest {
     private String faceHash;
     private String voiceHash;
     private String fingerprintHash;
+    private String consumerId;
+    private String sampleFaceUrl;
+    private String sampleFingerprintUrl;
+    private String sampleVoiceUrl;
 
     public MatchInitRequest() {
       super();
@@ -44,5 +48,47 @@ public class MatchInitRequest {
     public void setVoiceprintHash(String voiceHash) {
       this.voiceHash = voiceHash;
     }
-}
 
+    public String getConsumerId() {
+      return this.consumerId;
+    }
+
+    public void setConsumerId(String consumerId) {
+      this.consumerId = consumerId;
+    }
+
+    public String getSampleFaceUrl() {
+      return this.sampleFaceUrl;
+    }
+
+    public void setSampleFaceUrl(String sampleFaceUrl) {
+      this.sampleFaceUrl = sampleFaceUrl;
+    }
+
+    public String getSampleFingerprintUrl() {
+      return this.sampleFingerprintUrl;
+    }
+
+    public void setSampleFingerprintUrl(String sampleFingerprintUrl) {
+      this.sampleFingerprintUrl = sampleFingerprintUrl;
+    }
+
+    public String getSampleVoiceUrl() {
+      return this.sampleVoiceUrl;
+    }
+
+    public void setSampleVoiceUrl(String sampleVoiceUrl) {
+      this.sampleVoiceUrl = sampleVoiceUrl;
+    }
+
+    /**
+     * @return true if request carries at least one biometric sample to be searched on participants
+     */
+    public boolean hasSamples() {
+      return isPresent(sampleFaceUrl) || isPresent(sampleFingerprintUrl) || isPresent(sampleVoiceUrl);
+    }
+
+    private static boolean isPresent(String value) {
+      return value != null && !value.isEmpty();
+    }
+}
@@ -1,11 +1,15 @@
 package it.eng.idsa.dataapp.domain;
 
+import org.json.simple.JSONObject;
+
 public class MatchLocalRequest {
   private String providerId;
   private String consumerId;
   private String sampleFaceUrl;
   private String sampleVoiceUrl;
   private String sampleFingerprintUrl;
+  // hash of the samples calculated by the requesting connector, optional
+  private JSONObject hashData;
 
   public MatchLocalRequest() {
     super();
@@ -60,4 +64,12 @@ public class MatchLocalRequest {
   public void setSampleVoiceUrl(String sampleVoiceUrl) {
     this.sampleVoiceUrl = sampleVoiceUrl;
   }
+
+  public JSONObject getHashData() {
+    return this.hashData;
+  }
+
+  public void setHashData(JSONObject hashData) {
+    this.hashData = hashData;
+  }
 }
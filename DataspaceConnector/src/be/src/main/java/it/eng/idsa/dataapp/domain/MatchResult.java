@@ -0,0 +1,85 @@
+package it.eng.idsa.dataapp.domain;
+
+import java.util.List;
+
+import org.json.simple.JSONArray;
+
+/**
+ * Matches gathered from all participants, ranked by similarity score, with the outcome for each participant
+ */
+public class MatchResult {
+
+  public enum Status {
+    OK, FAILED, TIMEOUT
+  }
+
+  private final JSONArray matches;
+  private final List<Participant> participants;
+  private final long elapsedMillis;
+
+  public MatchResult(JSONArray matches, List<Participant> participants, long elapsedMillis) {
+    this.matches = matches;
+    this.participants = participants;
+    this.elapsedMillis = elapsedMillis;
+  }
+
+  public JSONArray getMatches() {
+    return this.matches;
+  }
+
+  public List<Participant> getParticipants() {
+    return this.participants;
+  }
+
+  public long getElapsedMillis() {
+    return this.elapsedMillis;
+  }
+
+  public long getResponded() {
+    return participants.stream().filter(participant -> participant.getStatus() == Status.OK).count();
+  }
+
+  /**
+   * @return true if some participant did not respond in time or failed
+   */
+  public boolean isPartial() {
+    return getResponded() < participants.size();
+  }
+
+  public static class Participant {
+
+    private final String connectorId;
+    private final Status status;
+    private final int matches;
+    private final long elapsedMillis;
+    private final String error;
+
+    public Participant(String connectorId, Status status, int matches, long elapsedMillis, String error) {
+      this.connectorId = connectorId;
+      this.status = status;
+      this.matches = matches;
+      this.elapsedMillis = elapsedMillis;
+      this.error = error;
+    }
+
+    public String getConnectorId() {
+      return this.connectorId;
+    }
+
+    public Status getStatus() {
+      return this.status;
+    }
+
+    public int getMatches() {
+      return this.matches;
+    }
+
+    public long getElapsedMillis() {
+      return this.elapsedMillis;
+    }
+
+    public String getError() {
+      return this.error;
+    }
+  }
+}
@@ -3,7 +3,6 @@ package it.eng.idsa.dataapp.service;
 import java.io.IOException;
 import java.net.URISyntaxException;
 
-import org.json.simple.JSONObject;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 
@@ -12,6 +11,6 @@ import it.eng.idsa.dataapp.domain.CriminalProfileRequest;
 public interface CriminalProfileService {
   CriminalProfileRequest parseIncomingCriminalProfileRequest(String suspectProfileID, String providerID);
 
-  ResponseEntity<JSONObject> createCriminalProfile(CriminalProfileRequest criminalProfileRequest,
+  ResponseEntity<?> createCriminalProfile(CriminalProfileRequest criminalProfileRequest,
       HttpHeaders httpHeaders, String solidToken) throws URISyntaxException, IOException;
 }
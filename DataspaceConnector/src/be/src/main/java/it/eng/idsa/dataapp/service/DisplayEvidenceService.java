@@ -3,7 +3,6 @@ package it.eng.idsa.dataapp.service;
 import java.io.IOException;
 import java.net.URISyntaxException;
 
-import org.json.simple.JSONObject;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 
@@ -13,7 +12,7 @@ public interface DisplayEvidenceService {
   DisplayEvidenceRequest parseIncomingDisplayEvidenceRequest(String suspectProfileID, String requestorID,
       String requestID);
 
-  ResponseEntity<JSONObject> createDisplayEvidence(DisplayEvidenceRequest displayEvidenceRequest,
+  ResponseEntity<?> createDisplayEvidence(DisplayEvidenceRequest displayEvidenceRequest,
       HttpHeaders httpHeaders, String solidToken) throws URISyntaxException, IOException;
 
 }
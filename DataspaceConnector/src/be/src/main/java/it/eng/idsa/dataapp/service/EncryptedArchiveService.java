@@ -0,0 +1,23 @@
+package it.eng.idsa.dataapp.service;
+
+import java.io.IOException;
+
+import it.eng.idsa.dataapp.util.DecryptedArchive;
+
+public interface EncryptedArchiveService {
+
+  /**
+   * Downloads encrypted archive from the DSP and streams it through the encryptor; decrypted archive is written to a
+   * temporary file.
+   *
+   * @param downloadUrl DSP resource URL
+   * @param solidToken  DSP session cookie
+   * @param endpoint    logical DSP endpoint name used for metrics
+   * @param fileName    name of the encrypted file sent to the encryptor
+   * @param user        connector whose fuzzy extractor file is used for decryption
+   * @return decrypted archive, caller must close it; null if the archive could not be downloaded
+   * @throws IOException if a call fails or the encryptor rejects the file
+   */
+  DecryptedArchive decrypt(String downloadUrl, String solidToken, String endpoint, String fileName, String user)
+      throws IOException;
+}
@@ -0,0 +1,20 @@
+package it.eng.idsa.dataapp.service;
+
+import java.io.IOException;
+
+import it.eng.idsa.dataapp.domain.MatchInitRequest;
+import it.eng.idsa.dataapp.domain.MatchResult;
+
+public interface MatchCoordinatorService {
+
+  /**
+   * Searches the biometric samples on every registered connector in parallel and ranks the gathered matches.<br>
+   * Connectors that do not respond before their deadline are cancelled and reported, matches of the others are
+   * returned.
+   *
+   * @param matchInitRequest samples and requestor
+   * @return ranked matches and outcome per connector
+   * @throws IOException if hash of the samples could not be calculated
+   */
+  MatchResult match(MatchInitRequest matchInitRequest) throws IOException;
+}
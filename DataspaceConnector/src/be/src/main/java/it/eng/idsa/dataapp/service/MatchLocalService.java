@@ -5,6 +5,7 @@ import java.io.IOException;
 import java.net.URISyntaxException;
 
 import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 
@@ -17,4 +18,13 @@ public interface MatchLocalService {
 
   ResponseEntity<JSONArray> createMatchLocal(MatchLocalRequest matchLocalRequest, HttpHeaders httpHeaders)
       throws URISyntaxException, IOException;
+
+  /**
+   * Hash of the biometric samples calculated by the local indexer, reused while the same samples are searched
+   * 
+   * @return copy of the hash, without requestor and owner
+   * @throws IOException if indexer did not calculate the hash
+   */
+  JSONObject calculateProbeHash(String sampleFaceUrl, String sampleFingerprintUrl, String sampleVoiceUrl)
+      throws IOException;
 }
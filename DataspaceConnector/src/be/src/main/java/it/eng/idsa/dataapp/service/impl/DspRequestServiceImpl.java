@@ -1,22 +1,12 @@
 package it.eng.idsa.dataapp.service.impl;
 
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.io.OutputStream;
-import java.io.InputStream;
 import java.io.ByteArrayOutputStream;
-import java.io.OutputStreamWriter;
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
 import java.io.File;
 import java.io.FileOutputStream;
-import java.io.FileInputStream;
-import java.io.BufferedInputStream;
-import java.io.BufferedWriter;
 
 import java.net.URISyntaxException;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.net.URLConnection;
 import java.net.URLEncoder;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -49,6 +39,11 @@ import it.eng.idsa.dataapp.service.DspRequestService;
 import it.eng.idsa.dataapp.service.TENSORConnectorRegistry;
 
 import it.eng.idsa.dataapp.util.TensorBE;
+import it.eng.idsa.dataapp.util.TensorHttpClient;
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.Request;
+import okhttp3.RequestBody;
 
 @Service
 public class DspRequestServiceImpl implements DspRequestService {
@@ -58,12 +53,14 @@ public class DspRequestServiceImpl implements DspRequestService {
   private String dataSharingPlatformAPI;
   private final TensorBE tensorBE;
   private final TENSORConnectorRegistry registry;
+  private final TensorHttpClient httpClient;
 
-  public DspRequestServiceImpl(@Value("${application.encryptorAPI}") String encryptorAPI,  @Value("${application.dataSharingPlatformAPI}") String dataSharingPlatformAPI, TensorBE tensorBE, TENSORConnectorRegistry registry) {
+  public DspRequestServiceImpl(@Value("${application.encryptorAPI}") String encryptorAPI,  @Value("${application.dataSharingPlatformAPI}") String dataSharingPlatformAPI, TensorBE tensorBE, TENSORConnectorRegistry registry, TensorHttpClient httpClient) {
     this.encryptorAPI = encryptorAPI;
     this.dataSharingPlatformAPI = dataSharingPlatformAPI;
     this.tensorBE = tensorBE;
     this.registry = registry;
+    this.httpClient = httpClient;
   }
 
   @Override
@@ -168,38 +165,21 @@ public class DspRequestServiceImpl implements DspRequestService {
       encodedPublicKey = encodedPublicKey.replace("+", "%20");
       encodedPublicKey = encodedPublicKey.replace("%0A", "%20");
 
-      URL obj = new URL(url + "?rsa_public_key=" + encodedPublicKey);
-
-      // Open connection
-      HttpURLConnection con = (HttpURLConnection) obj.openConnection();
-      con.setRequestMethod("POST"); // Set request method to POST
-
-      // Set request headers
-      con.setRequestProperty("Accept", "application/json");
-
       // Send an empty body (to match curl -d '')
-      con.setDoOutput(true);
-      OutputStream os = con.getOutputStream();
-      os.write(new byte[0]); // Sending an empty body
-      os.flush();
-      os.close();
-      // Since you're sending an empty body, you can skip the output stream code
-
-      // Get the response code and handle the response
-      int responseCode = con.getResponseCode();
-      System.out.println("encrypted key response code " + responseCode);
-      BufferedReader in = new BufferedReader(new InputStreamReader(con.getInputStream()));
-      String inputLine;
-      StringBuilder response = new StringBuilder();
-
-      while ((inputLine = in.readLine()) != null) {
-        response.append(inputLine);
+      Request request = new Request.Builder()
+          .url(url + "?rsa_public_key=" + encodedPublicKey)
+          .header("Accept", "application/json")
+          .post(RequestBody.create(new byte[0]))
+          .build();
+      TensorHttpClient.Result response = httpClient.execute(TensorHttpClient.ENCRYPTOR, "getEncryptedKey", request);
+      System.out.println("encrypted key response code " + response.getCode());
+      if (!response.isSuccessful()) {
+        throw new IOException("Encryptor responded with code " + response.getCode());
       }
-      in.close();
 
       // Convert the response to a JSONObject
       JSONParser parser = new JSONParser();
-      JSONObject jsonResponse = (JSONObject) parser.parse(response.toString());
+      JSONObject jsonResponse = (JSONObject) parser.parse(response.getBodyAsString());
 
       // Extract the "encrypted_key" value
       encryptionKey = (String) jsonResponse.get("encrypted_key");
@@ -214,7 +194,6 @@ public class DspRequestServiceImpl implements DspRequestService {
       }
 
       encryptionKey = "0x" + hexString.toString();
-      con.disconnect(); // Clean up the connection
     } catch (Exception e) {
       e.printStackTrace();
     }
@@ -223,31 +202,19 @@ public class DspRequestServiceImpl implements DspRequestService {
 
   private void allowAccessToFile(String solidToken, String consumerPod, String providerPod, String suspectProfileId,
       String fileName, String solidPodAPI) {
-    HttpURLConnection connection = null;
     try {
-      
       String accessUrl = dataSharingPlatformAPI + "/api/access/read/" + consumerPod + "%2Fdsp_requests%2F"
           + suspectProfileId
           + "%2F" + solidPodAPI + "%2F" + providerPod + "%2Fprofile%2Fcard%23me";
-      URL url = new URL(accessUrl);
-      connection = (HttpURLConnection) url.openConnection();
-      connection.setDoInput(true);
-      connection.setDoOutput(true);
-      connection.setRequestMethod("POST");
-      connection.setRequestProperty("Content-type", "application/json; charset=UTF-8");
-      connection.setRequestProperty("Cookie", solidToken);
-
-      // Send the request body
-      try (OutputStream os = connection.getOutputStream();
-          OutputStreamWriter osw = new OutputStreamWriter(os);
-          BufferedWriter wr = new BufferedWriter(osw)) {
-        String body = "{\"read\":true}";
-        wr.write(body);
-        wr.flush(); // Ensure all data is sent
-        System.out.println(body);
-      }
-      connection.disconnect();
-
+      String body = "{\"read\":true}";
+      Request request = new Request.Builder()
+          .url(accessUrl)
+          .header("Cookie", solidToken)
+          .post(RequestBody.create(body, TensorHttpClient.JSON))
+          .build();
+      System.out.println(body);
+      TensorHttpClient.Result response = httpClient.execute(TensorHttpClient.DSP, "allowAccess", request);
+      logger.debug("Allow access response code {}", response.getCode());
     } catch (Exception e) {
       e.printStackTrace();
     }
@@ -256,11 +223,6 @@ public class DspRequestServiceImpl implements DspRequestService {
   private void uploadFileToPod(String solidPod, String suspectProfileId, byte[] resourceFile,
       String fileName, String solidToken) {
     try {
-      File file = new File(fileName);
-      try (OutputStream os = new FileOutputStream(file)) {
-        os.write(resourceFile);
-      }
-
       // Construct the upload URL
       String uploadUrl = dataSharingPlatformAPI + "/api/resources/" + solidPod + "%2Fdsp_requests%2F"
           + suspectProfileId +
@@ -268,49 +230,22 @@ public class DspRequestServiceImpl implements DspRequestService {
 
       System.out.println("uploadURL " + uploadUrl);
       System.out.println("fileName: "+ fileName);
-      HttpURLConnection connection = (HttpURLConnection) new URL(uploadUrl).openConnection();
-      connection.setDoOutput(true);
-      connection.setRequestMethod("POST");
-      connection.setRequestProperty("Cookie", solidToken);
-
-      String boundary = "---------------------------" + System.currentTimeMillis();
-      String charset = "UTF-8";
-      connection.setRequestProperty("Content-Type", "multipart/form-data; boundary=" + boundary);
-
-      try (
-          OutputStream output = connection.getOutputStream();
-          PrintWriter writer = new PrintWriter(new OutputStreamWriter(output, charset), true);
-          FileInputStream fileInputStream = new FileInputStream(file);
-          BufferedInputStream bufferedInputStream = new BufferedInputStream(fileInputStream)) {
-        // Text Field
-        writer.append("--" + boundary).append("\r\n");
-        writer.append("Content-Disposition: form-data; name=\"index\"").append("\r\n");
-        writer.append("Content-Type: text/plain; charset=" + charset).append("\r\n\r\n");
-        writer.append(fileName).append("\r\n").flush();
-
-        // File Field
-        writer.append("--" + boundary).append("\r\n");
-        writer.append("Content-Disposition: form-data; name=\"file\"; filename=\"" + file.getName() + "\"")
-            .append("\r\n");
-        writer.append("Content-Type: " + HttpURLConnection.guessContentTypeFromName(file.getName())).append("\r\n\r\n")
-            .flush();
-
-        byte[] buffer = new byte[8192];
-        int bytesRead;
-        while ((bytesRead = bufferedInputStream.read(buffer)) != -1) {
-          output.write(buffer, 0, bytesRead);
-        }
-        output.flush();
-
-        // End of multipart/form-data
-        writer.append("\r\n--" + boundary + "--").append("\r\n").flush();
-      }
+      String contentType = URLConnection.guessContentTypeFromName(fileName);
+      MediaType mediaType = contentType != null ? MediaType.get(contentType) : TensorHttpClient.OCTET_STREAM;
+      RequestBody multipart = new MultipartBody.Builder()
+          .setType(MultipartBody.FORM)
+          .addFormDataPart("index", fileName)
+          .addFormDataPart("file", fileName, RequestBody.create(resourceFile, mediaType))
+          .build();
+      Request request = new Request.Builder()
+          .url(uploadUrl)
+          .header("Cookie", solidToken)
+          .post(multipart)
+          .build();
 
       // Response
-      int responseCode = connection.getResponseCode();
-      System.out.println("RESPONSE CODE UPLOAD " + responseCode);
-
-      connection.disconnect();
+      TensorHttpClient.Result response = httpClient.execute(TensorHttpClient.DSP, "uploadResource", request);
+      System.out.println("RESPONSE CODE UPLOAD " + response.getCode());
     } catch (Exception e) {
       e.printStackTrace();
     }
@@ -413,10 +348,8 @@ public class DspRequestServiceImpl implements DspRequestService {
       MultipartFile faceFile,
       MultipartFile voiceFile,
       MultipartFile fingerprintFile) {
-    URL url;
-    HttpURLConnection connection = null;
     JSONObject jsonObject = null;
-    
+
     String providerPod = registry.getPodById(providerId);
     String consumerPod = registry.getPodById(consumerId);
     String providerSolidAPI = registry.getSolidAPIById(providerId);
@@ -446,73 +379,50 @@ public class DspRequestServiceImpl implements DspRequestService {
       encodedEncryptionKey = encodedEncryptionKey.replace("+", "%20");
       encodedEncryptionKey = encodedEncryptionKey.replace("%0A", "%20");
 
-      url = new URL(dataSharingPlatformAPI + "/api/requests");
-
-      connection = (HttpURLConnection) url.openConnection();
-      connection.setDoInput(true);
-      connection.setDoOutput(true);
-      connection.setRequestMethod("POST");
-      connection.setRequestProperty("Content-type", "application/json; charset=UTF-8");
-      connection.setRequestProperty("Cookie", solidToken);
-
-      try (OutputStream os = connection.getOutputStream();
-          OutputStreamWriter osw = new OutputStreamWriter(os);
-          BufferedWriter wr = new BufferedWriter(osw)) {
-
-        JSONObject bodyObject = new JSONObject();
-        bodyObject.put("recipientWebId", providerSolidAPI + "/" + providerPod + "/profile/card#me");
-        bodyObject.put("resIndex", suspectProfileId);
-        bodyObject.put("duration", 600);
-        bodyObject.put("accessType", "read");
-        bodyObject.put("encryptionKey", encodedEncryptionKey);
-        JSONArray scoresArray = new JSONArray();
-        scoresArray.add(facialImageSimilarityScore);
-        scoresArray.add(fingerprintSimilarityScore);
-        scoresArray.add(voiceprintSimilarityScore);
-
-        bodyObject.put("scores", scoresArray);
-
-        String body = bodyObject.toJSONString();
-        System.out.println("DSP REQUEST BODY " + body);
-        wr.write(body);
+      JSONObject bodyObject = new JSONObject();
+      bodyObject.put("recipientWebId", providerSolidAPI + "/" + providerPod + "/profile/card#me");
+      bodyObject.put("resIndex", suspectProfileId);
+      bodyObject.put("duration", 600);
+      bodyObject.put("accessType", "read");
+      bodyObject.put("encryptionKey", encodedEncryptionKey);
+      JSONArray scoresArray = new JSONArray();
+      scoresArray.add(facialImageSimilarityScore);
+      scoresArray.add(fingerprintSimilarityScore);
+      scoresArray.add(voiceprintSimilarityScore);
+
+      bodyObject.put("scores", scoresArray);
+
+      String body = bodyObject.toJSONString();
+      System.out.println("DSP REQUEST BODY " + body);
+      Request request = new Request.Builder()
+          .url(dataSharingPlatformAPI + "/api/requests")
+          .header("Cookie", solidToken)
+          .post(RequestBody.create(body, TensorHttpClient.JSON))
+          .build();
+      TensorHttpClient.Result response = httpClient.execute(TensorHttpClient.DSP, "createAccessRequest", request);
+      if (!response.isSuccessful()) {
+        throw new IOException("Access request failed with response code " + response.getCode());
       }
-      try (InputStream inputStream = connection.getInputStream();
-          InputStreamReader isr = new InputStreamReader(inputStream);
-          BufferedReader bufferedReader = new BufferedReader(isr)) {
-
-        StringBuilder response = new StringBuilder();
-        String line;
-        while ((line = bufferedReader.readLine()) != null) {
-          response.append(line);
-        }
-
-        JSONParser parser = new JSONParser();
-        jsonObject = (JSONObject) parser.parse(response.toString());
-        jsonObject.put("recipientWebId", providerSolidAPI + "/" + providerPod + "/profile/card#me");
-        jsonObject.put("resIndex", suspectProfileId);
-        jsonObject.put("duration", 600);
-        jsonObject.put("accessType", "read");
-        jsonObject.put("encKey", encodedEncryptionKey);
 
-        uploadFileToPod(consumerPod, suspectProfileId, encryptedZipFile,
-            encryptedZipFileName, solidToken);
-
-        // Allow access to files for Provider for 1 hour
-        allowAccessToFile(solidToken, consumerPod, providerPod, suspectProfileId, encryptedZipFileName, providerSolidAPI);
+      JSONParser parser = new JSONParser();
+      jsonObject = (JSONObject) parser.parse(response.getBodyAsString());
+      jsonObject.put("recipientWebId", providerSolidAPI + "/" + providerPod + "/profile/card#me");
+      jsonObject.put("resIndex", suspectProfileId);
+      jsonObject.put("duration", 600);
+      jsonObject.put("accessType", "read");
+      jsonObject.put("encKey", encodedEncryptionKey);
 
-      }
+      uploadFileToPod(consumerPod, suspectProfileId, encryptedZipFile,
+          encryptedZipFileName, solidToken);
 
-      connection.disconnect();
+      // Allow access to files for Provider for 1 hour
+      allowAccessToFile(solidToken, consumerPod, providerPod, suspectProfileId, encryptedZipFileName, providerSolidAPI);
 
       return jsonObject;
 
     } catch (Exception e) {
       System.out.println("error" + e);
       throw new RuntimeException(e);
-    } finally {
-      if (connection != null) {
-        connection.disconnect();
-      }
     }
 
   }
@@ -1,16 +1,8 @@
 package it.eng.idsa.dataapp.service.impl;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.net.HttpURLConnection;
 import java.net.URISyntaxException;
-import java.net.URL;
 import java.net.URLConnection;
 import java.net.URLEncoder;
 
@@ -29,12 +21,15 @@ import org.springframework.beans.factory.annotation.Value;
 import it.eng.idsa.dataapp.domain.DspResponseRequest;
 import it.eng.idsa.dataapp.service.DspResponseService;
 import it.eng.idsa.dataapp.service.TENSORConnectorRegistry;
+import it.eng.idsa.dataapp.util.TensorHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
 
 @Service
 public class DspResponseServiceImpl implements DspResponseService {
   private static final Logger logger = LoggerFactory.getLogger(DspResponseService.class);
   
-  private static String dataSharingPlatformAPI;
+  private final String dataSharingPlatformAPI;
 
   private static final String SOLID_POD = "solidPod";
   private static final String PROVIDER_ID = "providerId";
@@ -49,10 +44,12 @@ public class DspResponseServiceImpl implements DspResponseService {
   private static final String TOS = "tos";
 
   private final TENSORConnectorRegistry registry;
+  private final TensorHttpClient httpClient;
 
-  public DspResponseServiceImpl( @Value("${application.dataSharingPlatformAPI}") String dataSharingPlatformAPI, TENSORConnectorRegistry registry) {
+  public DspResponseServiceImpl( @Value("${application.dataSharingPlatformAPI}") String dataSharingPlatformAPI, TENSORConnectorRegistry registry, TensorHttpClient httpClient) {
     this.dataSharingPlatformAPI = dataSharingPlatformAPI;
     this.registry = registry;
+    this.httpClient = httpClient;
   }
 
   @Override
@@ -108,7 +105,7 @@ public class DspResponseServiceImpl implements DspResponseService {
     }
   }
 
-  private static String retrieveIndexUrl(String solidPod, String solidToken, String suspectProfileId) {
+  private String retrieveIndexUrl(String solidPod, String solidToken, String suspectProfileId) {
     String indexUrl = "";
 
     try {
@@ -119,37 +116,17 @@ public class DspResponseServiceImpl implements DspResponseService {
       String resourceIndexUrl = dataSharingPlatformAPI + "/api/resources/" + solidPod + "/" + suspectProfileId
           + "/url";
       System.out.println("resourceIndexUrl " + resourceIndexUrl);
-      URL url1 = new URL(resourceIndexUrl);
-
-      // Open connection
-      HttpURLConnection connection = (HttpURLConnection) url1.openConnection();
-
-      // Set request method to GET
-      connection.setRequestMethod("GET");
-
-      // Set request property (headers)
-      connection.setRequestProperty("Cookie", solidToken);
-      // Get the response code
-      int responseCode = connection.getResponseCode();
-
-      if (responseCode == HttpURLConnection.HTTP_OK) { // If response is successful
-        // Read the response into a string
-        BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-        String inputLine;
-        StringBuilder response = new StringBuilder();
-
-        while ((inputLine = in.readLine()) != null) {
-          response.append(inputLine);
-        }
-        in.close();
-
-        // Print or log the response as a string
-        String responseString = response.toString();
-
-        // If you need to do further processing with the response
-        indexUrl = responseString;
+      Request request = new Request.Builder()
+          .url(resourceIndexUrl)
+          .header("Cookie", solidToken)
+          .get()
+          .build();
+      TensorHttpClient.Result response = httpClient.execute(TensorHttpClient.DSP, "retrieveIndexUrl", request);
+
+      if (response.getCode() == 200) { // If response is successful
+        indexUrl = response.getBodyAsString();
       } else {
-        logger.error("GET request failed. Response Code: " + responseCode);
+        logger.error("GET request failed. Response Code: " + response.getCode());
       }
 
     } catch (Exception e) {
@@ -159,27 +136,19 @@ public class DspResponseServiceImpl implements DspResponseService {
     return indexUrl; // Return the Ethereum address (or empty string if not found)
   }
 
-  private static void updateCMScase(String cmsAPI, JSONObject cmsObject) {
+  private void updateCMScase(String cmsAPI, JSONObject cmsObject) {
     try {
       String cmsUrl = cmsAPI + "/cases/receive-dsp-response";
       System.out.println("Update CMS Case for Response: "+ cmsUrl);
-      URL url = new URL(cmsUrl);
-
-      HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-      connection.setRequestMethod("POST");
-      connection.setDoOutput(true);
-      connection.setRequestProperty("Accept", "application/json");
-      connection.setRequestProperty("Content-Type", "application/json"); // Set Content-Type header to application/json
-      connection.setRequestProperty("Authorization", "InternalWS internal-d35aef36-be86-4c92-a088-996e36f6f12e");
-
-      // Send the request body
-      try (OutputStream os = connection.getOutputStream()) {
-        byte[] input = cmsObject.toString().getBytes("utf-8");
-        os.write(input, 0, input.length); // Write JSON data as bytes
-      }
-
-      int responseCode = connection.getResponseCode();
-      System.out.println("RESPONSE IN UPDATE CMS " + responseCode);
+      Request request = new Request.Builder()
+          .url(cmsUrl)
+          .header("Accept", "application/json")
+          .header("Authorization", "InternalWS internal-d35aef36-be86-4c92-a088-996e36f6f12e")
+          .post(RequestBody.create(cmsObject.toString(), TensorHttpClient.JSON))
+          .build();
+
+      TensorHttpClient.Result response = httpClient.execute(TensorHttpClient.CMS, "receiveDspResponse", request);
+      System.out.println("RESPONSE IN UPDATE CMS " + response.getCode());
     } catch (Exception e) {
       e.printStackTrace();
     }
@@ -189,24 +158,18 @@ public class DspResponseServiceImpl implements DspResponseService {
     JSONObject requestObj = new JSONObject();
     try {
       String requestUrl = dataSharingPlatformAPI + "/api/requests/" + requestId;
-      URL url = new URL(requestUrl);
-      HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-      connection.setRequestMethod("GET");
-      connection.setRequestProperty("Cookie", solidToken);
-
-      try (InputStream inputStream = connection.getInputStream();
-          InputStreamReader isr = new InputStreamReader(inputStream);
-          BufferedReader bufferedReader = new BufferedReader(isr)) {
-
-        StringBuilder response = new StringBuilder();
-        String line;
-        while ((line = bufferedReader.readLine()) != null) {
-          response.append(line);
-        }
-
-        JSONParser parser = new JSONParser();
-        requestObj = (JSONObject) parser.parse(response.toString());
+      Request request = new Request.Builder()
+          .url(requestUrl)
+          .header("Cookie", solidToken)
+          .get()
+          .build();
+      TensorHttpClient.Result response = httpClient.execute(TensorHttpClient.DSP, "getRequest", request);
+      if (!response.isSuccessful()) {
+        throw new IOException("Retrieving DSP request failed with response code " + response.getCode());
       }
+
+      JSONParser parser = new JSONParser();
+      requestObj = (JSONObject) parser.parse(response.getBodyAsString());
     } catch (Exception e) {
       e.printStackTrace();
     }
@@ -214,33 +177,20 @@ public class DspResponseServiceImpl implements DspResponseService {
   }
 
   private void allowAccessToFile(String solidToken, String suspectProfileId, String consumerPod, String providerPod, String consumerSolidAPI) {
-    HttpURLConnection connection = null;
     try {      
       String accessUrl = dataSharingPlatformAPI + "/api/access/read/" + providerPod + "%2Fsuspects%2F" + suspectProfileId+  ".zip.enc/" + URLEncoder.encode(consumerSolidAPI, "UTF-8") + "%2F" + consumerPod+ "%2Fprofile%2Fcard%23me";
       System.out.println("alloAccessToFile accessUrl" + accessUrl);
-      URL url = new URL(accessUrl);
-      connection = (HttpURLConnection) url.openConnection();
-      connection.setDoInput(true);
-      connection.setDoOutput(true);
-      connection.setRequestMethod("POST");
-      connection.setRequestProperty("Content-type", "application/json; charset=UTF-8");
-      connection.setRequestProperty("Cookie", solidToken);
-
-      // Send the request body
-      try (OutputStream os = connection.getOutputStream();
-          OutputStreamWriter osw = new OutputStreamWriter(os);
-          BufferedWriter wr = new BufferedWriter(osw)) {
-        String body = "{\"read\":true}";
-        wr.write(body);
-        wr.flush(); // Ensure all data is sent
-        System.out.println(body);
-      }
+      String body = "{\"read\":true}";
+      Request request = new Request.Builder()
+          .url(accessUrl)
+          .header("Cookie", solidToken)
+          .post(RequestBody.create(body, TensorHttpClient.JSON))
+          .build();
+      System.out.println(body);
 
       // Get and print response code
-      int responseCode = connection.getResponseCode();
-      System.out.println("alloAccessToFile Response Code: " + responseCode);
-
-      connection.disconnect();
+      TensorHttpClient.Result response = httpClient.execute(TensorHttpClient.DSP, "allowAccess", request);
+      System.out.println("alloAccessToFile Response Code: " + response.getCode());
 
     } catch (Exception e) {
       e.printStackTrace();
@@ -253,8 +203,6 @@ public class DspResponseServiceImpl implements DspResponseService {
       String duration, String accessType, String responseType, String encryptionKey, String tos) {
     System.out.println("responseType " + responseType);
     System.out.println("tos " + tos);
-    URL url;
-    HttpURLConnection connection = null;
     JSONObject jsonObject = new JSONObject();
     JSONObject responseObj = new JSONObject();
     System.out.println("REQUEST ID " + requestId);
@@ -279,72 +227,50 @@ public class DspResponseServiceImpl implements DspResponseService {
       // Send creation of Access response request
       logger.info("Creating access response in Data Sharing Platform for resource {}", suspectProfileId);
 
-      url = new URL(dataSharingPlatformAPI + "/api/responses");
-
-      connection = (HttpURLConnection) url.openConnection();
-      connection.setDoInput(true);
-      connection.setDoOutput(true);
-      connection.setRequestMethod("POST");
-      connection.setRequestProperty("Content-type", "application/json; charset=UTF-8");
-      connection.setRequestProperty("Cookie", solidToken);
-
-      try (OutputStream os = connection.getOutputStream();
-          OutputStreamWriter osw = new OutputStreamWriter(os);
-          BufferedWriter wr = new BufferedWriter(osw)) {
-        String body = "{\"requestId\":" + requestId
-            + ",\"recipientAddress\": \"" + providerEthAddr
-            + "\", \"resUrl\": " + indexUrl
-            + ", \"duration\": " + 600
-            + ",\"accessType\": \"" + "read"
-            + "\", \"responseType\":\"" + responseType
-            + "\", \"tos\": \"" + tos
-            + "\"}";
-        System.out.println("body" + body);
-        wr.write(body);
-      }
-      try (InputStream inputStream = connection.getInputStream();
-          InputStreamReader isr = new InputStreamReader(inputStream);
-          BufferedReader bufferedReader = new BufferedReader(isr)) {
-
-        StringBuilder response = new StringBuilder();
-        String line;
-        while ((line = bufferedReader.readLine()) != null) {
-          response.append(line);
-        }
-
-        JSONParser parser = new JSONParser();
-        responseObj = (JSONObject) parser.parse(response.toString());
+      String body = "{\"requestId\":" + requestId
+          + ",\"recipientAddress\": \"" + providerEthAddr
+          + "\", \"resUrl\": " + indexUrl
+          + ", \"duration\": " + 600
+          + ",\"accessType\": \"" + "read"
+          + "\", \"responseType\":\"" + responseType
+          + "\", \"tos\": \"" + tos
+          + "\"}";
+      System.out.println("body" + body);
+      Request request = new Request.Builder()
+          .url(dataSharingPlatformAPI + "/api/responses")
+          .header("Cookie", solidToken)
+          .post(RequestBody.create(body, TensorHttpClient.JSON))
+          .build();
+      TensorHttpClient.Result response = httpClient.execute(TensorHttpClient.DSP, "createAccessResponse", request);
 
-        JSONObject requestObj = getDSPRequest(requestId, solidToken);
+      // Response
+      System.out.println("Response Code: " + response.getCode());
+      if (!response.isSuccessful()) {
+        throw new IOException("Access response failed with response code " + response.getCode());
+      }
 
-        jsonObject.put("request", requestObj);
-        jsonObject.put("response", responseObj);
+      JSONParser parser = new JSONParser();
+      responseObj = (JSONObject) parser.parse(response.getBodyAsString());
 
-        System.out.println("JSON Object in response " + jsonObject.toJSONString());
+      JSONObject requestObj = getDSPRequest(requestId, solidToken);
 
-        responseObj.put("requestId", requestId);
-        responseObj.put("duration", 600);
-        responseObj.put("responseType", responseType);
-        responseObj.put("tos", tos);
-        System.out.println("JSON Object in response " + responseObj.toJSONString());
-        // Update Case Management System case to proceed
-        updateCMScase(cmsAPI, jsonObject);
-      }
+      jsonObject.put("request", requestObj);
+      jsonObject.put("response", responseObj);
 
-      // Response
-      int responseCode = connection.getResponseCode();
-      System.out.println("Response Code: " + responseCode);
+      System.out.println("JSON Object in response " + jsonObject.toJSONString());
 
-      connection.disconnect();
+      responseObj.put("requestId", requestId);
+      responseObj.put("duration", 600);
+      responseObj.put("responseType", responseType);
+      responseObj.put("tos", tos);
+      System.out.println("JSON Object in response " + responseObj.toJSONString());
+      // Update Case Management System case to proceed
+      updateCMScase(cmsAPI, jsonObject);
 
       return responseObj;
 
     } catch (ParseException | IOException e) {
       throw new RuntimeException(e);
-    } finally {
-      if (connection != null) {
-        connection.disconnect();
-      }
     }
 
   }
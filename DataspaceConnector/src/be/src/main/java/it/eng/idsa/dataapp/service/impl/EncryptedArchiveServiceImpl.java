@@ -0,0 +1,92 @@
+package it.eng.idsa.dataapp.service.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import it.eng.idsa.dataapp.service.EncryptedArchiveService;
+import it.eng.idsa.dataapp.util.BufferPool;
+import it.eng.idsa.dataapp.util.DecryptedArchive;
+import it.eng.idsa.dataapp.util.TensorBE;
+import it.eng.idsa.dataapp.util.TensorHttpClient;
+import okhttp3.Request;
+
+/**
+ * Download, decryption and spooling of encrypted archives as one chain of streams.<br>
+ * DSP response body is the request body of the encryptor call, encryptor response is copied to a temporary file with
+ * a pooled buffer, so memory used per request does not depend on the archive size.
+ */
+@Service
+public class EncryptedArchiveServiceImpl implements EncryptedArchiveService {
+
+  private static final Logger logger = LoggerFactory.getLogger(EncryptedArchiveService.class);
+
+  private final TensorHttpClient httpClient;
+  private final TensorBE tensorBE;
+  private final BufferPool bufferPool;
+  private final Path tempDirectory;
+
+  public EncryptedArchiveServiceImpl(TensorHttpClient httpClient, TensorBE tensorBE,
+      @Value("${application.archive.bufferSize:65536}") int bufferSize,
+      @Value("${application.archive.pooledBuffers:32}") int pooledBuffers,
+      @Value("${application.archive.tempDirectory:${java.io.tmpdir}}") String tempDirectory) {
+    this.httpClient = httpClient;
+    this.tensorBE = tensorBE;
+    this.bufferPool = new BufferPool(bufferSize, pooledBuffers);
+    this.tempDirectory = Paths.get(tempDirectory);
+  }
+
+  @Override
+  public DecryptedArchive decrypt(String downloadUrl, String solidToken, String endpoint, String fileName, String user)
+      throws IOException {
+    Request request = new Request.Builder()
+        .url(downloadUrl)
+        .header("Accept", "application/json")
+        .header("Cookie", solidToken)
+        .get()
+        .build();
+    try (TensorHttpClient.StreamResult download = httpClient.executeStreaming(TensorHttpClient.DSP, endpoint, request)) {
+      if (download.getCode() != HttpURLConnection.HTTP_OK) {
+        logger.error("Download of {} failed with response code {}: {}", fileName, download.getCode(),
+            download.getBodyAsString());
+        return null;
+      }
+      logger.info("Downloading {}, size {} bytes", fileName, download.getContentLength());
+      try (TensorHttpClient.StreamResult decrypted = tensorBE.queryEncryptor("decrypt", "face", download.getBody(),
+          download.getContentLength(), fileName, user)) {
+        if (decrypted.getCode() != HttpURLConnection.HTTP_OK) {
+          throw new IOException("Decryption of " + fileName + " failed with response code " + decrypted.getCode());
+        }
+        DecryptedArchive archive = spool(decrypted.getBody());
+        logger.info("Decrypted {}, size {} bytes", fileName, archive.size());
+        return archive;
+      }
+    }
+  }
+
+  private DecryptedArchive spool(InputStream decrypted) throws IOException {
+    Path file = Files.createTempFile(tempDirectory, "decrypted_", ".zip");
+    byte[] buffer = bufferPool.acquire();
+    try (OutputStream out = Files.newOutputStream(file)) {
+      int read;
+      while ((read = decrypted.read(buffer)) != -1) {
+        out.write(buffer, 0, read);
+      }
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(file);
+      throw e;
+    } finally {
+      bufferPool.release(buffer);
+    }
+    return new DecryptedArchive(file, bufferPool);
+  }
+}
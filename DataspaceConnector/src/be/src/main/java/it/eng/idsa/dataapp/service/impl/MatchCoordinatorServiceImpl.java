@@ -0,0 +1,232 @@
+package it.eng.idsa.dataapp.service.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import it.eng.idsa.dataapp.domain.MatchInitRequest;
+import it.eng.idsa.dataapp.domain.MatchResult;
+import it.eng.idsa.dataapp.domain.MatchResult.Participant;
+import it.eng.idsa.dataapp.domain.MatchResult.Status;
+import it.eng.idsa.dataapp.domain.TENSORConnector;
+import it.eng.idsa.dataapp.service.MatchCoordinatorService;
+import it.eng.idsa.dataapp.service.MatchLocalService;
+import it.eng.idsa.dataapp.service.TENSORConnectorRegistry;
+import it.eng.idsa.dataapp.util.TensorHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+
+/**
+ * Scatter-gather search of biometric samples on all connectors in the registry.<br>
+ * Hash of the samples is calculated once and sent with the samples to <code>/match/local</code> of every connector at
+ * the same time. Each connector has a deadline, <code>application.match.participantTimeoutMillis</code> or
+ * <code>application.match.participant.&lt;connectorId&gt;.timeoutMillis</code>; calls still running at the deadline
+ * are cancelled. Matches of connectors that responded are ranked by their best similarity score.
+ */
+@Service
+public class MatchCoordinatorServiceImpl implements MatchCoordinatorService {
+
+  private static final Logger logger = LoggerFactory.getLogger(MatchCoordinatorServiceImpl.class);
+
+  public static final String CONNECTOR_ID = "ConnectorId";
+  public static final String RANK = "rank";
+
+  private static final Comparator<JSONObject> BY_SCORE = Comparator.<JSONObject, Double>comparing(
+      MatchCoordinatorServiceImpl::score, Comparator.nullsLast(Comparator.<Double>reverseOrder()));
+
+  private final TENSORConnectorRegistry registry;
+  private final MatchLocalService matchLocalService;
+  private final TensorHttpClient httpClient;
+  private final Environment environment;
+  private final long participantTimeoutMillis;
+  private final ScheduledExecutorService deadlines = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread t = new Thread(r, "match-deadlines");
+    t.setDaemon(true);
+    return t;
+  });
+
+  public MatchCoordinatorServiceImpl(TENSORConnectorRegistry registry, MatchLocalService matchLocalService,
+      TensorHttpClient httpClient, Environment environment,
+      @Value("${application.match.participantTimeoutMillis:30000}") long participantTimeoutMillis) {
+    this.registry = registry;
+    this.matchLocalService = matchLocalService;
+    this.httpClient = httpClient;
+    this.environment = environment;
+    this.participantTimeoutMillis = participantTimeoutMillis;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    deadlines.shutdownNow();
+  }
+
+  @Override
+  public MatchResult match(MatchInitRequest matchInitRequest) throws IOException {
+    long start = System.nanoTime();
+    JSONObject hashData = matchLocalService.calculateProbeHash(matchInitRequest.getSampleFaceUrl(),
+        matchInitRequest.getSampleFingerprintUrl(), matchInitRequest.getSampleVoiceUrl());
+
+    Map<String, TENSORConnector> connectors = registry.getAllConnectors();
+    logger.info("Searching samples on {} connectors", connectors.size());
+    List<CompletableFuture<ParticipantOutcome>> outcomes = new ArrayList<>(connectors.size());
+    for (TENSORConnector connector : connectors.values()) {
+      outcomes.add(scatter(connector, matchInitRequest, hashData));
+    }
+    // every outcome completes - with matches, failure or at the deadline of the connector
+    CompletableFuture.allOf(outcomes.toArray(new CompletableFuture[0])).join();
+
+    List<Participant> participants = new ArrayList<>(outcomes.size());
+    List<JSONObject> matches = new ArrayList<>();
+    for (CompletableFuture<ParticipantOutcome> outcome : outcomes) {
+      ParticipantOutcome result = outcome.join();
+      participants.add(result.participant);
+      matches.addAll(result.matches);
+      logger.info("Connector {} - {} in {} ms, {} matches", result.participant.getConnectorId(),
+          result.participant.getStatus(), result.participant.getElapsedMillis(), result.participant.getMatches());
+    }
+    return new MatchResult(rank(matches), participants,
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+  }
+
+  private CompletableFuture<ParticipantOutcome> scatter(TENSORConnector connector, MatchInitRequest matchInitRequest,
+      JSONObject hashData) {
+    long start = System.nanoTime();
+    CompletableFuture<TensorHttpClient.Result> pending;
+    try {
+      JSONObject body = new JSONObject();
+      body.put("providerId", connector.getId());
+      body.put("consumerId", matchInitRequest.getConsumerId());
+      body.put("sampleFaceUrl", matchInitRequest.getSampleFaceUrl());
+      body.put("sampleFingerprintUrl", matchInitRequest.getSampleFingerprintUrl());
+      body.put("sampleVoiceUrl", matchInitRequest.getSampleVoiceUrl());
+      body.put("hashData", hashData);
+      Request request = new Request.Builder()
+          .url(connector.getIp() + "/match/local")
+          .post(RequestBody.create(body.toJSONString(), TensorHttpClient.JSON))
+          .build();
+      pending = httpClient.executeAsync(TensorHttpClient.CONNECTOR, "matchLocal", request);
+    } catch (RuntimeException e) {
+      return CompletableFuture.completedFuture(
+          ParticipantOutcome.failed(connector.getId(), Status.FAILED, start, e.getMessage()));
+    }
+    CompletableFuture<TensorHttpClient.Result> call = pending;
+    long timeout = environment.getProperty("application.match.participant." + connector.getId() + ".timeoutMillis",
+        Long.class, participantTimeoutMillis);
+    // cancelling the future cancels the HTTP call
+    ScheduledFuture<?> deadline = deadlines.schedule(() -> call.cancel(true), timeout, TimeUnit.MILLISECONDS);
+    return call.handle((result, e) -> {
+      deadline.cancel(false);
+      if (e != null) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof CancellationException) {
+          return ParticipantOutcome.failed(connector.getId(), Status.TIMEOUT, start,
+              "No response within " + timeout + " ms");
+        }
+        return ParticipantOutcome.failed(connector.getId(), Status.FAILED, start, cause.getMessage());
+      }
+      return gather(connector, result, start);
+    });
+  }
+
+  private ParticipantOutcome gather(TENSORConnector connector, TensorHttpClient.Result result, long start) {
+    if (!result.isSuccessful()) {
+      return ParticipantOutcome.failed(connector.getId(), Status.FAILED, start,
+          "Responded with status " + result.getCode());
+    }
+    try {
+      JSONArray response = (JSONArray) new JSONParser().parse(result.getBodyAsString());
+      List<JSONObject> matches = new ArrayList<>(response.size());
+      for (Object item : response) {
+        if (item instanceof JSONObject) {
+          JSONObject match = new JSONObject((JSONObject) item);
+          match.put(CONNECTOR_ID, connector.getId());
+          matches.add(match);
+        }
+      }
+      return new ParticipantOutcome(new Participant(connector.getId(), Status.OK, matches.size(), elapsed(start), null),
+          matches);
+    } catch (Exception e) {
+      return ParticipantOutcome.failed(connector.getId(), Status.FAILED, start, "Invalid response: " + e.getMessage());
+    }
+  }
+
+  private static JSONArray rank(List<JSONObject> matches) {
+    matches.sort(BY_SCORE);
+    JSONArray ranked = new JSONArray();
+    int rank = 1;
+    for (JSONObject match : matches) {
+      match.put(RANK, rank++);
+      ranked.add(match);
+    }
+    return ranked;
+  }
+
+  /**
+   * @return best value of the similarity scores of the match, null if it has none
+   */
+  static Double score(JSONObject match) {
+    Double best = null;
+    for (Object entry : match.entrySet()) {
+      Map.Entry<?, ?> field = (Map.Entry<?, ?>) entry;
+      String name = String.valueOf(field.getKey()).toLowerCase(Locale.ROOT);
+      if ((name.contains("score") || name.contains("similarity")) && field.getValue() != null) {
+        Double value = toDouble(field.getValue());
+        if (value != null && (best == null || value > best)) {
+          best = value;
+        }
+      }
+    }
+    return best;
+  }
+
+  private static Double toDouble(Object value) {
+    if (value instanceof Number) {
+      return ((Number) value).doubleValue();
+    }
+    try {
+      return Double.valueOf(value.toString());
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private static long elapsed(long start) {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+  }
+
+  private static final class ParticipantOutcome {
+
+    final Participant participant;
+    final List<JSONObject> matches;
+
+    ParticipantOutcome(Participant participant, List<JSONObject> matches) {
+      this.participant = participant;
+      this.matches = matches;
+    }
+
+    static ParticipantOutcome failed(String connectorId, Status status, long start, String error) {
+      return new ParticipantOutcome(new Participant(connectorId, status, 0, elapsed(start), error), List.of());
+    }
+  }
+}
@@ -16,7 +16,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
 import it.eng.idsa.dataapp.domain.MatchInitRequest;
+import it.eng.idsa.dataapp.domain.MatchResult;
 import it.eng.idsa.dataapp.domain.TENSORConnector;
+import it.eng.idsa.dataapp.service.MatchCoordinatorService;
 import it.eng.idsa.dataapp.service.MatchInitService;
 import it.eng.idsa.dataapp.service.TENSORConnectorRegistry;
 
@@ -24,11 +26,17 @@ import it.eng.idsa.dataapp.service.TENSORConnectorRegistry;
 public class MatchInitServiceImpl implements MatchInitService {
   private static final Logger logger = LoggerFactory.getLogger(MatchInitService.class);
 
+  public static final String MATCH_PARTICIPANTS = "Match-Participants";
+  public static final String MATCH_RESPONDED = "Match-Responded";
+  public static final String MATCH_PARTIAL = "Match-Partial";
+
   private final TENSORConnectorRegistry registry;
+  private final MatchCoordinatorService matchCoordinatorService;
 
   // Constructor injection of the shared bean
-  public MatchInitServiceImpl(TENSORConnectorRegistry registry) {
+  public MatchInitServiceImpl(TENSORConnectorRegistry registry, MatchCoordinatorService matchCoordinatorService) {
     this.registry = registry;
+    this.matchCoordinatorService = matchCoordinatorService;
   }
 
 
@@ -47,6 +55,16 @@ public class MatchInitServiceImpl implements MatchInitService {
       HttpHeaders httpHeaders)
       throws URISyntaxException, IOException {
     try {
+      if (matchInitRequest.hasSamples()) {
+        // Search samples on all participants, matches are returned ranked, together with the number of
+        // participants that responded
+        MatchResult result = matchCoordinatorService.match(matchInitRequest);
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(MATCH_PARTICIPANTS, String.valueOf(result.getParticipants().size()));
+        headers.add(MATCH_RESPONDED, String.valueOf(result.getResponded()));
+        headers.add(MATCH_PARTIAL, String.valueOf(result.isPartial()));
+        return new ResponseEntity<>(result.getMatches(), headers, HttpStatus.OK);
+      }
       // Request all connectors that participate in the Data Space by querying the
       // Metadata Broker
       JSONArray response = getBrokerParticipants();
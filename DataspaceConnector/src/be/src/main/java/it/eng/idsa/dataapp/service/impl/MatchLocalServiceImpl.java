@@ -1,17 +1,17 @@
 package it.eng.idsa.dataapp.service.impl;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
 import java.net.URISyntaxException;
-import java.io.OutputStream;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpHeaders;
@@ -22,15 +22,27 @@ import org.springframework.beans.factory.annotation.Value;
 
 import it.eng.idsa.dataapp.domain.MatchLocalRequest;
 import it.eng.idsa.dataapp.service.MatchLocalService;
+import it.eng.idsa.dataapp.util.TensorHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
 
 @Service
 public class MatchLocalServiceImpl implements MatchLocalService {
   private static final Logger logger = LoggerFactory.getLogger(MatchLocalService.class);
   
   private String indexerAPI;
-
-  public MatchLocalServiceImpl(@Value("${application.indexerAPI}") String indexerAPI) {
+  private final TensorHttpClient httpClient;
+  private final long hashCacheMillis;
+  private final int hashCacheSize;
+  private final Map<String, CachedHash> hashes = new ConcurrentHashMap<>();
+
+  public MatchLocalServiceImpl(@Value("${application.indexerAPI}") String indexerAPI, TensorHttpClient httpClient,
+      @Value("${application.match.hashCacheSeconds:300}") long hashCacheSeconds,
+      @Value("${application.match.hashCacheSize:1000}") int hashCacheSize) {
     this.indexerAPI = indexerAPI;
+    this.httpClient = httpClient;
+    this.hashCacheMillis = hashCacheSeconds * 1000;
+    this.hashCacheSize = hashCacheSize;
   }
 
   @Override
@@ -45,105 +57,100 @@ public class MatchLocalServiceImpl implements MatchLocalService {
     return new MatchLocalRequest();
   }
 
-  private JSONObject getHashData(String providerId, String consumerId, String sampleFaceUrl,
-      String sampleFingerprintUrl, String sampleVoiceUrl) {
-    System.out.println("getHashData sampleFaceUrl " + sampleFaceUrl);
-    JSONObject hashData = new JSONObject();
+  @Override
+  public JSONObject calculateProbeHash(String sampleFaceUrl, String sampleFingerprintUrl, String sampleVoiceUrl)
+      throws IOException {
+    if (hashCacheMillis <= 0) {
+      return requestHash(sampleFaceUrl, sampleFingerprintUrl, sampleVoiceUrl);
+    }
+    long now = System.currentTimeMillis();
+    CachedHash cached = hashes.compute(probeKey(sampleFaceUrl, sampleFingerprintUrl, sampleVoiceUrl),
+        (key, current) -> current == null || now >= current.expiresAt ? new CachedHash(now + hashCacheMillis) : current);
+    if (cached.claimed.compareAndSet(false, true)) {
+      // first request for the probe calculates the hash, concurrent requests wait for it
+      try {
+        cached.hash.complete(requestHash(sampleFaceUrl, sampleFingerprintUrl, sampleVoiceUrl));
+      } catch (IOException | RuntimeException e) {
+        hashes.values().remove(cached);
+        cached.hash.completeExceptionally(e);
+      }
+      purgeHashes(now);
+    }
     try {
-      String hashUrl = indexerAPI + "/calculateHashForSearching";
-      System.out.println("hashUrl "+ hashUrl);
-      JSONObject typeObject = new JSONObject();
-      typeObject.put("image", !sampleFaceUrl.isEmpty());
-      typeObject.put("fingerprint", !sampleFingerprintUrl.isEmpty());
-      typeObject.put("voice", !sampleVoiceUrl.isEmpty());
-
-      JSONObject jsonBody = new JSONObject();
-      jsonBody.put("type", typeObject);
-      jsonBody.put("full_facial_image_url", sampleFaceUrl);
-      jsonBody.put("full_fingerprint_url", sampleFingerprintUrl);
-      jsonBody.put("full_voice_url", sampleVoiceUrl);
-
-      URL url = new URL(hashUrl);
-      HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-
-      // Set request method to POST
-      connection.setRequestMethod("POST");
-      connection.setDoOutput(true);
-
-      // Set headers
-      connection.setRequestProperty("Content-Type", "application/json");
-
-      // Write JSON data to the request body
-      try (OutputStream os = connection.getOutputStream()) {
-        byte[] input = jsonBody.toJSONString().getBytes(StandardCharsets.UTF_8);
-        os.write(input, 0, input.length);
+      return new JSONObject(cached.hash.join());
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
       }
+      throw new IOException("Hash calculation failed", e.getCause());
+    }
+  }
 
-      int responseCode = connection.getResponseCode();
-      System.out.println("Hash Response Code: " + responseCode);
-
-      // Read and parse the response
-      BufferedReader in = new BufferedReader(
-          new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
-      StringBuilder response = new StringBuilder();
-      String inputLine;
-      while ((inputLine = in.readLine()) != null) {
-        response.append(inputLine);
+  private void purgeHashes(long now) {
+    if (hashes.size() > hashCacheSize) {
+      hashes.values().removeIf(cached -> now >= cached.expiresAt);
+      if (hashes.size() > hashCacheSize) {
+        hashes.clear();
       }
-      in.close();
-
-      // Parse the response as JSON
-      JSONParser parser = new JSONParser();
-      hashData = (JSONObject) parser.parse(response.toString());
-      hashData.put("from", consumerId.toUpperCase());
-      hashData.put("to", providerId.toUpperCase());
-
-    } catch (Exception e) {
-      e.printStackTrace();
     }
-    return hashData;
   }
 
-  private JSONArray getMatchData(JSONObject hashData) {
-    JSONArray matchData = new JSONArray();
-    try {
-      String comparatorUrl = indexerAPI + "/searchForMatches";
-      URL url = new URL(comparatorUrl);
-      HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-
-      // Set request method to POST
-      connection.setRequestMethod("POST");
-      connection.setDoOutput(true);
-
-      // Set headers
-      connection.setRequestProperty("Content-Type", "application/json");
-
-      // Write JSON data to the request body
-      try (OutputStream os = connection.getOutputStream()) {
-        byte[] input = hashData.toJSONString().getBytes(StandardCharsets.UTF_8);
-        os.write(input, 0, input.length);
-      }
+  private static String probeKey(String sampleFaceUrl, String sampleFingerprintUrl, String sampleVoiceUrl) {
+    return String.join("\n", String.valueOf(sampleFaceUrl), String.valueOf(sampleFingerprintUrl),
+        String.valueOf(sampleVoiceUrl));
+  }
 
-      int responseCode = connection.getResponseCode();
-      System.out.println(" Search Response Code: " + responseCode);
+  private static boolean isPresent(String value) {
+    return value != null && !value.isEmpty();
+  }
 
-      // Read and parse the response
-      BufferedReader in = new BufferedReader(
-          new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
-      StringBuilder response = new StringBuilder();
-      String inputLine;
-      while ((inputLine = in.readLine()) != null) {
-        response.append(inputLine);
-      }
-      in.close();
+  private JSONObject requestHash(String sampleFaceUrl, String sampleFingerprintUrl, String sampleVoiceUrl)
+      throws IOException {
+    logger.debug("Calculating hash for face sample {}", sampleFaceUrl);
+    String hashUrl = indexerAPI + "/calculateHashForSearching";
+    JSONObject typeObject = new JSONObject();
+    typeObject.put("image", isPresent(sampleFaceUrl));
+    typeObject.put("fingerprint", isPresent(sampleFingerprintUrl));
+    typeObject.put("voice", isPresent(sampleVoiceUrl));
+
+    JSONObject jsonBody = new JSONObject();
+    jsonBody.put("type", typeObject);
+    jsonBody.put("full_facial_image_url", sampleFaceUrl);
+    jsonBody.put("full_fingerprint_url", sampleFingerprintUrl);
+    jsonBody.put("full_voice_url", sampleVoiceUrl);
+
+    Request request = new Request.Builder()
+        .url(hashUrl)
+        .post(RequestBody.create(jsonBody.toJSONString(), TensorHttpClient.JSON))
+        .build();
+    TensorHttpClient.Result response = httpClient.execute(TensorHttpClient.INDEXER, "calculateHashForSearching", request);
+    logger.debug("Hash response code: {}", response.getCode());
+    if (!response.isSuccessful()) {
+      throw new IOException("Hash calculation failed with response code " + response.getCode());
+    }
+    try {
+      return (JSONObject) new JSONParser().parse(response.getBodyAsString());
+    } catch (ParseException | ClassCastException e) {
+      throw new IOException("Hash calculation returned invalid response", e);
+    }
+  }
 
-      // Parse the response as JSON
-      JSONParser parser = new JSONParser();
-      matchData = (JSONArray) parser.parse(response.toString());
-    } catch (Exception e) {
-      e.printStackTrace();
+  private JSONArray getMatchData(JSONObject hashData) throws IOException {
+    String comparatorUrl = indexerAPI + "/searchForMatches";
+    Request request = new Request.Builder()
+        .url(comparatorUrl)
+        .post(RequestBody.create(hashData.toJSONString(), TensorHttpClient.JSON))
+        .build();
+    TensorHttpClient.Result response = httpClient.execute(TensorHttpClient.INDEXER, "searchForMatches", request);
+    logger.debug("Search response code: {}", response.getCode());
+    if (!response.isSuccessful()) {
+      throw new IOException("Search for matches failed with response code " + response.getCode());
+    }
+    try {
+      return (JSONArray) new JSONParser().parse(response.getBodyAsString());
+    } catch (ParseException | ClassCastException e) {
+      throw new IOException("Search for matches returned invalid response", e);
     }
-    return matchData;
   }
 
   @Override
@@ -155,9 +162,13 @@ public class MatchLocalServiceImpl implements MatchLocalService {
       // Call endpoint of Local Comparator to get similarity score between each
       // catalog's entry and input sample
 
-      JSONObject hashData = getHashData(matchLocalRequest.getProviderId(), matchLocalRequest.getConsumerId(),
-          matchLocalRequest.getSampleFaceUrl(), matchLocalRequest.getSampleFingerprintUrl(),
-          matchLocalRequest.getSampleVoiceUrl());
+      // hash calculated by the requesting connector is reused, it is the same for every connector searched
+      JSONObject hashData = matchLocalRequest.getHashData() != null
+          ? new JSONObject(matchLocalRequest.getHashData())
+          : calculateProbeHash(matchLocalRequest.getSampleFaceUrl(), matchLocalRequest.getSampleFingerprintUrl(),
+              matchLocalRequest.getSampleVoiceUrl());
+      hashData.put("from", matchLocalRequest.getConsumerId().toUpperCase());
+      hashData.put("to", matchLocalRequest.getProviderId().toUpperCase());
       JSONArray matchData = getMatchData(hashData);
 
       return new ResponseEntity<>(matchData, HttpStatus.OK);
@@ -173,4 +184,14 @@ public class MatchLocalServiceImpl implements MatchLocalService {
     }
   }
 
+  private static final class CachedHash {
+
+    final long expiresAt;
+    final AtomicBoolean claimed = new AtomicBoolean();
+    final CompletableFuture<JSONObject> hash = new CompletableFuture<>();
+
+    CachedHash(long expiresAt) {
+      this.expiresAt = expiresAt;
+    }
+  }
 }
@@ -22,7 +22,8 @@ import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.entity.ContentType;
@@ -117,6 +118,11 @@ public class ProxyServiceImpl implements ProxyService {
   @Value("${application.verifyCheckSum}")
   private boolean verifyCheckSum;
 
+  @Value("${application.selfdescription.remoteCacheSeconds:60}")
+  private long remoteSelfDescriptionCacheSeconds;
+
+  private final Map<String, RemoteSelfDescription> remoteSelfDescriptions = new ConcurrentHashMap<>();
+
   private RestTemplate restTemplate;
   private ECCProperties eccProperties;
   private RecreateFileService recreateFileService;
@@ -300,88 +306,44 @@ public class ProxyServiceImpl implements ProxyService {
   }
 
   public Long fetchChecksum(String forwardTo, String artifactId) throws URISyntaxException, IOException {
+    long now = System.currentTimeMillis();
+    RemoteSelfDescription remote = remoteSelfDescriptions.get(forwardTo);
+    // artifact not found in cached document could be added after it was fetched
+    if (remote == null || now >= remote.expiresAt || !remote.index.containsArtifact(artifactId)) {
+      remote = new RemoteSelfDescription(indexRemoteSelfDescription(forwardTo),
+          now + remoteSelfDescriptionCacheSeconds * 1000);
+      if (remoteSelfDescriptionCacheSeconds > 0) {
+        remoteSelfDescriptions.values().removeIf(cached -> now >= cached.expiresAt);
+        remoteSelfDescriptions.put(forwardTo, remote);
+      }
+    }
+    String checkSum = remote.index.getCheckSum(artifactId);
+    if (checkSum == null) {
+      logger.info("Artifact doesn't have checkSum");
+      return 0L;
+    }
+    logger.info("CheckSum fetched");
+    return Long.parseLong(checkSum);
+  }
 
+  /**
+   * Fetches self description of the connector, together with catalogs listed without offered resources, and indexes
+   * artifacts of all catalogs
+   */
+  private SelfDescriptionIndex indexRemoteSelfDescription(String forwardTo) throws URISyntaxException, IOException {
     MultipartMessage mm = fetchSelfDescription(forwardTo, null);
-    Connector baseConnector = null;
-    // USe atomic because of an access in lambdas
-    AtomicLong checkSum = new AtomicLong(0L);
-
-    baseConnector = new Serializer().deserialize(mm.getPayloadContent(), Connector.class);
-
-    baseConnector.getResourceCatalog().forEach(c -> {
-      if (!c.getOfferedResource().isEmpty()) {
-        c.getOfferedResource().forEach(r -> {
-          r.getRepresentation().forEach(rp -> {
-            rp.getInstance().forEach(instance -> {
-              if (StringUtils.equals(instance.getId().toString(), artifactId)) {
-                ArtifactImpl artifact = null;
-                try {
-                  artifact = new Serializer().deserialize(instance.toString(), ArtifactImpl.class);
-                } catch (IOException e) {
-                  logger.error("Following error occured: {}", e);
-                  throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
-                      "Error while processing request, check logs for more details", e);
-
-                }
-                if (artifact.getCheckSum() != null) {
-                  checkSum.set(Long.parseLong(artifact.getCheckSum()));
-                  logger.info("CheckSum fetched");
-
-                } else {
-                  logger.info("Artifact doesn't have checkSum");
-                }
-              }
-            });
-          });
-        });
-      } else {
-        MultipartMessage mm2 = null;
-
-        try {
-          mm2 = fetchSelfDescription(forwardTo, c.getId().toString());
-        } catch (URISyntaxException exception) {
-          logger.error("Error while processing request {}", exception);
-          throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
-              "Error while processing request, check logs for more details", exception);
-        }
-
-        try {
-          ResourceCatalog catalog = new Serializer().deserialize(mm2.getPayloadContent(),
-              ResourceCatalog.class);
-          catalog.getOfferedResource().forEach(resource -> {
-            resource.getRepresentation().forEach(representation -> {
-              representation.getInstance().forEach(instance -> {
-                if (StringUtils.equals(instance.getId().toString(), artifactId)) {
-                  ArtifactImpl artifact = null;
-                  try {
-                    artifact = new Serializer().deserialize(instance.toString(),
-                        ArtifactImpl.class);
-                  } catch (IOException e) {
-                    logger.error("Following error occured: {}", e);
-                    throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
-                        "Error while processing request, check logs for more details", e);
-
-                  }
-                  if (artifact.getCheckSum() != null) {
-                    checkSum.set(Long.parseLong(artifact.getCheckSum()));
-                    logger.info("CheckSum stored");
-
-                  } else {
-                    logger.info("Artifact doesn't have checkSum");
-                  }
-                }
-              });
-            });
-          });
-        } catch (IOException e) {
-          logger.error("Error while processing request {}", e);
-          throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
-              "Error while processing request, check logs for more details", e);
-        }
+    Connector baseConnector = new Serializer().deserialize(mm.getPayloadContent(), Connector.class);
 
+    return SelfDescriptionIndex.of(baseConnector, catalogId -> {
+      try {
+        MultipartMessage catalog = fetchSelfDescription(forwardTo, catalogId.toString());
+        return new Serializer().deserialize(catalog.getPayloadContent(), ResourceCatalog.class);
+      } catch (URISyntaxException | IOException e) {
+        logger.error("Error while processing request {}", e);
+        throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+            "Error while processing request, check logs for more details", e);
       }
     });
-    return checkSum.get();
   }
 
   private MultipartMessage fetchSelfDescription(String forwardTo, String requestedElement) throws URISyntaxException {
@@ -913,4 +875,15 @@ public class ProxyServiceImpl implements ProxyService {
     }
     return resp;
   }
+
+  private static final class RemoteSelfDescription {
+
+    final SelfDescriptionIndex index;
+    final long expiresAt;
+
+    RemoteSelfDescription(SelfDescriptionIndex index, long expiresAt) {
+      this.index = index;
+      this.expiresAt = expiresAt;
+    }
+  }
 }
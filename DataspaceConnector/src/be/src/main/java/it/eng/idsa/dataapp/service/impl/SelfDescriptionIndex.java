@@ -0,0 +1,103 @@
+package it.eng.idsa.dataapp.service.impl;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import de.fraunhofer.iais.eis.Artifact;
+import de.fraunhofer.iais.eis.Connector;
+import de.fraunhofer.iais.eis.Representation;
+import de.fraunhofer.iais.eis.RepresentationInstance;
+import de.fraunhofer.iais.eis.Resource;
+import de.fraunhofer.iais.eis.ResourceCatalog;
+
+/**
+ * Offered resources and artifacts of one version of a self description, indexed by id.<br>
+ * Built once when the self description is fetched, instead of walking catalogs for every message. First match wins,
+ * same as searching catalogs in order.
+ */
+public final class SelfDescriptionIndex {
+
+	private final Map<String, Resource> resources;
+	private final Map<String, RepresentationInstance> artifacts;
+
+	private SelfDescriptionIndex(Map<String, Resource> resources, Map<String, RepresentationInstance> artifacts) {
+		this.resources = Collections.unmodifiableMap(resources);
+		this.artifacts = Collections.unmodifiableMap(artifacts);
+	}
+
+	/**
+	 * @param connector self description
+	 * @return index of offered resources and artifacts listed in the connector catalogs
+	 */
+	public static SelfDescriptionIndex of(Connector connector) {
+		return of(connector, catalogId -> null);
+	}
+
+	/**
+	 * @param connector     self description
+	 * @param catalogLoader loads catalog listed without offered resources, can return null
+	 * @return index of offered resources and artifacts of all catalogs
+	 */
+	public static SelfDescriptionIndex of(Connector connector, Function<URI, ResourceCatalog> catalogLoader) {
+		Map<String, Resource> resources = new HashMap<>();
+		Map<String, RepresentationInstance> artifacts = new HashMap<>();
+		if (connector != null && connector.getResourceCatalog() != null) {
+			for (ResourceCatalog catalog : connector.getResourceCatalog()) {
+				ResourceCatalog indexed = catalog;
+				if (catalog.getOfferedResource() == null || catalog.getOfferedResource().isEmpty()) {
+					indexed = catalogLoader.apply(catalog.getId());
+				}
+				if (indexed != null && indexed.getOfferedResource() != null) {
+					index(indexed.getOfferedResource(), resources, artifacts);
+				}
+			}
+		}
+		return new SelfDescriptionIndex(resources, artifacts);
+	}
+
+	private static void index(List<Resource> offeredResources, Map<String, Resource> resources,
+			Map<String, RepresentationInstance> artifacts) {
+		for (Resource resource : offeredResources) {
+			resources.putIfAbsent(resource.getId().toString(), resource);
+			for (Representation representation : nullSafe(resource.getRepresentation())) {
+				for (RepresentationInstance instance : nullSafe(representation.getInstance())) {
+					artifacts.putIfAbsent(instance.getId().toString(), instance);
+				}
+			}
+		}
+	}
+
+	private static <T> List<T> nullSafe(List<T> list) {
+		return list != null ? list : new ArrayList<>();
+	}
+
+	public boolean containsArtifact(URI artifactId) {
+		return artifactId != null && containsArtifact(artifactId.toString());
+	}
+
+	public boolean containsArtifact(String artifactId) {
+		return artifacts.containsKey(artifactId);
+	}
+
+	/**
+	 * @param artifactId artifact id
+	 * @return checksum of the artifact as published, null if artifact is not found or has no checksum
+	 */
+	public String getCheckSum(String artifactId) {
+		RepresentationInstance instance = artifacts.get(artifactId);
+		return instance instanceof Artifact ? ((Artifact) instance).getCheckSum() : null;
+	}
+
+	public Resource getResource(URI resourceId) {
+		return resourceId != null ? resources.get(resourceId.toString()) : null;
+	}
+
+	public int getArtifactCount() {
+		return artifacts.size();
+	}
+}
@@ -6,8 +6,12 @@ import java.net.URISyntaxException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
@@ -16,10 +20,7 @@ import de.fraunhofer.iais.eis.ArtifactRequestMessage;
 import de.fraunhofer.iais.eis.Connector;
 import de.fraunhofer.iais.eis.DescriptionRequestMessage;
 import de.fraunhofer.iais.eis.Message;
-import de.fraunhofer.iais.eis.Representation;
-import de.fraunhofer.iais.eis.RepresentationInstance;
 import de.fraunhofer.iais.eis.Resource;
-import de.fraunhofer.iais.eis.ResourceCatalog;
 import de.fraunhofer.iais.eis.ids.jsonld.Serializer;
 import it.eng.idsa.dataapp.configuration.ECCProperties;
 import it.eng.idsa.dataapp.service.SelfDescriptionService;
@@ -28,6 +29,11 @@ import it.eng.idsa.dataapp.web.rest.exceptions.NotFoundException;
 import it.eng.idsa.dataapp.web.rest.exceptions.TemporarilyNotAvailableException;
 import it.eng.idsa.multipart.processor.MultipartMessageProcessor;
 
+/**
+ * Self description is fetched from ECC and kept together with its {@link SelfDescriptionIndex}. It is used without
+ * contacting ECC for <code>application.selfdescription.revalidateSeconds</code>, then revalidated with a conditional
+ * request; ECC responds with 304 Not Modified while the document version did not change.
+ */
 @Service
 public class SelfDescriptionServiceImpl implements SelfDescriptionService {
 
@@ -39,28 +45,61 @@ public class SelfDescriptionServiceImpl implements SelfDescriptionService {
 	}
 	private RestTemplate restTemplate;
 	private ECCProperties eccProperties;
+	private long revalidateMillis;
 
-	public SelfDescriptionServiceImpl(RestTemplateBuilder restTemplateBuilder, ECCProperties eccProperties) {
+	private volatile CachedSelfDescription cached;
+	private final Object refreshLock = new Object();
+
+	public SelfDescriptionServiceImpl(RestTemplateBuilder restTemplateBuilder, ECCProperties eccProperties,
+			@Value("${application.selfdescription.revalidateSeconds:5}") long revalidateSeconds) {
 		this.restTemplate = restTemplateBuilder.build();
 		this.eccProperties = eccProperties;
-
+		this.revalidateMillis = revalidateSeconds * 1000;
 	}
 
 	@Override
 	public Connector getSelfDescription(Message message) {
+		CachedSelfDescription current = cached;
+		if (current != null && System.currentTimeMillis() < current.revalidateAt) {
+			return current.connector;
+		}
+		synchronized (refreshLock) {
+			current = cached;
+			if (current != null && System.currentTimeMillis() < current.revalidateAt) {
+				return current.connector;
+			}
+			current = fetchSelfDescription(current, message);
+			cached = current;
+			return current.connector;
+		}
+	}
+
+	private CachedSelfDescription fetchSelfDescription(CachedSelfDescription previous, Message message) {
 		try {
 			URI	eccURI = new URI(eccProperties.getProtocol(), null, eccProperties.getHost(), eccProperties.getSelfdescriptionPort(),
 					null, null, null);
 			logger.info("Fetching self description from ECC {}", eccURI.toString());
 
-			ResponseEntity<String> response = restTemplate.exchange(eccURI, HttpMethod.GET, null, String.class);
+			HttpHeaders headers = new HttpHeaders();
+			if (previous != null && previous.eTag != null) {
+				headers.setIfNoneMatch(previous.eTag);
+			}
+			ResponseEntity<String> response = restTemplate.exchange(eccURI, HttpMethod.GET, new HttpEntity<>(headers),
+					String.class);
 			if (response != null) {
-				if (response.getStatusCodeValue() == 200) {
+				if (response.getStatusCodeValue() == HttpStatus.NOT_MODIFIED.value() && previous != null) {
+					logger.info("Self description not modified, version {}", previous.eTag);
+
+					return previous.revalidated(System.currentTimeMillis() + revalidateMillis);
+				} else if (response.getStatusCodeValue() == 200) {
 					String selfDescription = response.getBody();
 					logger.info("Deserializing self description.");
 					logger.debug("Self description content: {}{}", System.lineSeparator(), selfDescription);
 
-					return serializer.deserialize(selfDescription, Connector.class);
+					Connector connector = serializer.deserialize(selfDescription, Connector.class);
+					String eTag = response.getHeaders() != null ? response.getHeaders().getETag() : null;
+					return new CachedSelfDescription(connector, SelfDescriptionIndex.of(connector), eTag,
+							System.currentTimeMillis() + revalidateMillis);
 				} else {
 					logger.error("Could not fetch self description, ECC responded with status {} and message \r{}",
 							response.getStatusCodeValue(), response.getBody());
@@ -86,8 +125,13 @@ public class SelfDescriptionServiceImpl implements SelfDescriptionService {
 
 	@Override
 	public String getSelfDescriptionAsString(Message message) {
+		Connector connector = getSelfDescription(message);
+		CachedSelfDescription current = cached;
 		try {
-			return MultipartMessageProcessor.serializeToJsonLD(getSelfDescription(message));
+			if (current != null && current.connector == connector) {
+				return current.getJsonLd();
+			}
+			return MultipartMessageProcessor.serializeToJsonLD(connector);
 		} catch (IOException e) {
 			logger.error("Could not serialize self description", e);
 
@@ -97,17 +141,8 @@ public class SelfDescriptionServiceImpl implements SelfDescriptionService {
 
 	@Override
 	public boolean artifactRequestedElementExist(ArtifactRequestMessage message, Connector connector) {
-		for (ResourceCatalog catalog : connector.getResourceCatalog()) {
-			for (Resource offeredResource : catalog.getOfferedResource()) {
-				for (Representation representation : offeredResource.getRepresentation()) {
-					for (RepresentationInstance instance : representation.getInstance()) {
-						if (message.getRequestedArtifact().equals(instance.getId())) {
-							return true;
-						}
-					}
-				}
-			}
-
+		if (indexOf(connector).containsArtifact(message.getRequestedArtifact())) {
+			return true;
 		}
 		logger.error("Requested element not found.");
 
@@ -116,22 +151,58 @@ public class SelfDescriptionServiceImpl implements SelfDescriptionService {
 
 	@Override
 	public String getRequestedElement(DescriptionRequestMessage message, Connector connector) {
-		for (ResourceCatalog catalog : connector.getResourceCatalog()) {
-			for (Resource offeredResource : catalog.getOfferedResource()) {
-				if (message.getRequestedElement().equals(offeredResource.getId())) {
-					try {
+		Resource offeredResource = indexOf(connector).getResource(message.getRequestedElement());
+		if (offeredResource != null) {
+			try {
 
-						return MultipartMessageProcessor.serializeToJsonLD(offeredResource);
-					} catch (IOException e) {
-						logger.error("Could not serialize requested element.", e);
+				return MultipartMessageProcessor.serializeToJsonLD(offeredResource);
+			} catch (IOException e) {
+				logger.error("Could not serialize requested element.", e);
 
-						throw new InternalRecipientException("Could not serialize requested element", message);
-					}
-				}
+				throw new InternalRecipientException("Could not serialize requested element", message);
 			}
 		}
 		logger.error("Requested element not found.");
 
 		throw new NotFoundException("Requested element not found", message);
 	}
+
+	/**
+	 * Index of the cached self description, built on the spot for any other connector
+	 */
+	private SelfDescriptionIndex indexOf(Connector connector) {
+		CachedSelfDescription current = cached;
+		return current != null && current.connector == connector ? current.index : SelfDescriptionIndex.of(connector);
+	}
+
+	private static final class CachedSelfDescription {
+
+		final Connector connector;
+		final SelfDescriptionIndex index;
+		final String eTag;
+		final long revalidateAt;
+		private volatile String jsonLd;
+
+		CachedSelfDescription(Connector connector, SelfDescriptionIndex index, String eTag, long revalidateAt) {
+			this.connector = connector;
+			this.index = index;
+			this.eTag = eTag;
+			this.revalidateAt = revalidateAt;
+		}
+
+		CachedSelfDescription revalidated(long revalidateAt) {
+			CachedSelfDescription revalidated = new CachedSelfDescription(connector, index, eTag, revalidateAt);
+			revalidated.jsonLd = jsonLd;
+			return revalidated;
+		}
+
+		String getJsonLd() throws IOException {
+			String result = jsonLd;
+			if (result == null) {
+				result = MultipartMessageProcessor.serializeToJsonLD(connector);
+				jsonLd = result;
+			}
+			return result;
+		}
+	}
 }
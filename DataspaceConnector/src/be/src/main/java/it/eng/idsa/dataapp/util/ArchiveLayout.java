@@ -0,0 +1,118 @@
+package it.eng.idsa.dataapp.util;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Layout of a decrypted archive: which entry holds the description and which folders hold biometric files, and the
+ * JSON keys they are returned under.
+ */
+public final class ArchiveLayout {
+
+  /**
+   * Suspect profile: <code>info.json</code> returned as <code>info</code>, every file of a category in an array
+   */
+  public static final ArchiveLayout SUSPECT_PROFILE = new ArchiveLayout("info.json", "info", null, true);
+
+  /**
+   * Evidence attached to a request: <code>caseDescriptiveText</code> of <code>info/caseInfo.json</code> returned as
+   * <code>descriptiveText</code>, last file of a category as a single value
+   */
+  public static final ArchiveLayout EVIDENCE = new ArchiveLayout("info/caseinfo.json", "descriptiveText",
+      "caseDescriptiveText", false);
+
+  private static final List<Category> CATEGORIES = List.of(
+      new Category("face/", "face", "image/png"),
+      new Category("voice/", "voice", "audio/flac"),
+      new Category("finger/", "fingerprint", "image/jpeg"));
+
+  private final String infoEntry;
+  private final String infoKey;
+  private final String infoField;
+  private final boolean multipleFiles;
+
+  private ArchiveLayout(String infoEntry, String infoKey, String infoField, boolean multipleFiles) {
+    this.infoEntry = infoEntry;
+    this.infoKey = infoKey;
+    this.infoField = infoField;
+    this.multipleFiles = multipleFiles;
+  }
+
+  /**
+   * @param entryName name of the zip entry
+   * @return name with forward slashes, lower case
+   */
+  public static String normalize(String entryName) {
+    return entryName.replace('\\', '/').toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * @return normalized name of the description entry
+   */
+  public String getInfoEntry() {
+    return infoEntry;
+  }
+
+  public String getInfoKey() {
+    return infoKey;
+  }
+
+  /**
+   * @return field of the description returned, null if the whole description is returned
+   */
+  public String getInfoField() {
+    return infoField;
+  }
+
+  /**
+   * @return true if all files of a category are returned as array, false if only the last one is returned
+   */
+  public boolean isMultipleFiles() {
+    return multipleFiles;
+  }
+
+  public List<Category> getCategories() {
+    return CATEGORIES;
+  }
+
+  /**
+   * @param normalizedName normalized entry name
+   * @return category of the file, null if the file is not part of the result
+   */
+  public Category category(String normalizedName) {
+    for (Category category : CATEGORIES) {
+      if (normalizedName.startsWith(category.getFolder())) {
+        return category;
+      }
+    }
+    return null;
+  }
+
+  public static final class Category {
+
+    private final String folder;
+    private final String key;
+    private final String defaultMediaType;
+
+    Category(String folder, String key, String defaultMediaType) {
+      this.folder = folder;
+      this.key = key;
+      this.defaultMediaType = defaultMediaType;
+    }
+
+    public String getFolder() {
+      return folder;
+    }
+
+    public String getKey() {
+      return key;
+    }
+
+    /**
+     * @return media type used when neither content nor extension is recognized
+     */
+    public String getDefaultMediaType() {
+      return defaultMediaType;
+    }
+  }
+}
@@ -0,0 +1,45 @@
+package it.eng.idsa.dataapp.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Pool of byte arrays of one size, used for copying streams without allocating a new buffer per request.<br>
+ * When the pool is empty a new buffer is allocated; buffers over <code>maxPooled</code> are left to the GC.
+ */
+public class BufferPool {
+
+  private final int bufferSize;
+  private final BlockingQueue<byte[]> free;
+
+  /**
+   * @param bufferSize size of pooled buffers
+   * @param maxPooled  maximum number of idle buffers kept
+   */
+  public BufferPool(int bufferSize, int maxPooled) {
+    this.bufferSize = bufferSize;
+    this.free = new ArrayBlockingQueue<>(maxPooled);
+  }
+
+  public byte[] acquire() {
+    byte[] buffer = free.poll();
+    return buffer != null ? buffer : new byte[bufferSize];
+  }
+
+  /**
+   * @param buffer buffer obtained with {@link #acquire()}, must not be used afterwards
+   */
+  public void release(byte[] buffer) {
+    if (buffer != null && buffer.length == bufferSize) {
+      free.offer(buffer);
+    }
+  }
+
+  public int getBufferSize() {
+    return bufferSize;
+  }
+
+  int idle() {
+    return free.size();
+  }
+}
@@ -0,0 +1,242 @@
+package it.eng.idsa.dataapp.util;
+
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decrypted archive kept in a temporary file, deleted on {@link #close()}.<br>
+ * {@link #writeJson(ArchiveLayout, OutputStream)} writes the content as JSON, biometric files as base64 data URIs,
+ * one pooled buffer at a time.
+ */
+public class DecryptedArchive implements Closeable {
+
+  private static final Logger logger = LoggerFactory.getLogger(DecryptedArchive.class);
+
+  private static final byte[] ZIP_MAGIC = { 'P', 'K', 0x03, 0x04 };
+  /**
+   * Description entries are parsed in memory, bigger ones are ignored
+   */
+  static final long MAX_INFO_SIZE = 1024 * 1024;
+
+  private final Path file;
+  private final BufferPool bufferPool;
+
+  public DecryptedArchive(Path file, BufferPool bufferPool) {
+    this.file = file;
+    this.bufferPool = bufferPool;
+  }
+
+  public Path getFile() {
+    return file;
+  }
+
+  public long size() throws IOException {
+    return Files.size(file);
+  }
+
+  /**
+   * @return true if the file starts with the zip local file header signature
+   */
+  public boolean isZip() throws IOException {
+    byte[] head = new byte[ZIP_MAGIC.length];
+    int read;
+    try (InputStream in = Files.newInputStream(file)) {
+      read = in.readNBytes(head, 0, head.length);
+    }
+    if (read < ZIP_MAGIC.length) {
+      return false;
+    }
+    for (int i = 0; i < ZIP_MAGIC.length; i++) {
+      if (head[i] != ZIP_MAGIC[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Writes the archive as JSON object; description first, then files grouped by category.<br>
+   * Content that is not a zip archive is written as an archive without entries.
+   *
+   * @param layout layout of the archive
+   * @param out    stream the JSON is written to, not closed
+   */
+  public void writeJson(ArchiveLayout layout, OutputStream out) throws IOException {
+    boolean zip = isZip();
+    if (!zip) {
+      logger.warn("Decrypted content is not a ZIP archive, size {} bytes", size());
+    }
+    try (ZipFile zipFile = zip ? new ZipFile(file.toFile()) : null) {
+      ZipEntry infoEntry = null;
+      Map<ArchiveLayout.Category, List<ZipEntry>> files = new LinkedHashMap<>();
+      for (ArchiveLayout.Category category : layout.getCategories()) {
+        files.put(category, new ArrayList<>());
+      }
+      if (zipFile != null) {
+        Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        while (entries.hasMoreElements()) {
+          ZipEntry entry = entries.nextElement();
+          if (entry.isDirectory() || entry.getSize() == 0) {
+            continue;
+          }
+          String name = ArchiveLayout.normalize(entry.getName());
+          ArchiveLayout.Category category = layout.category(name);
+          if (name.equals(layout.getInfoEntry())) {
+            infoEntry = entry;
+          } else if (category != null) {
+            files.get(category).add(entry);
+          } else {
+            logger.warn("File '{}' does not match any known category. Ignoring.", name);
+          }
+        }
+      }
+
+      boolean first = true;
+      write(out, "{");
+      if (infoEntry != null) {
+        Object info = readInfo(zipFile, infoEntry, layout);
+        if (info != null) {
+          write(out, JSONValue.toJSONString(layout.getInfoKey()) + ":" + JSONValue.toJSONString(info));
+          first = false;
+        }
+      }
+      for (Map.Entry<ArchiveLayout.Category, List<ZipEntry>> group : files.entrySet()) {
+        ArchiveLayout.Category category = group.getKey();
+        List<ZipEntry> categoryFiles = group.getValue();
+        if (!layout.isMultipleFiles() && categoryFiles.isEmpty()) {
+          continue;
+        }
+        write(out, (first ? "" : ",") + JSONValue.toJSONString(category.getKey()) + ":");
+        first = false;
+        if (layout.isMultipleFiles()) {
+          write(out, "[");
+          for (int i = 0; i < categoryFiles.size(); i++) {
+            if (i > 0) {
+              write(out, ",");
+            }
+            writeDataUri(zipFile, categoryFiles.get(i), category, out);
+          }
+          write(out, "]");
+        } else {
+          writeDataUri(zipFile, categoryFiles.get(categoryFiles.size() - 1), category, out);
+        }
+      }
+      write(out, "}");
+      out.flush();
+    }
+  }
+
+  private Object readInfo(ZipFile zipFile, ZipEntry entry, ArchiveLayout layout) throws IOException {
+    if (entry.getSize() > MAX_INFO_SIZE) {
+      logger.warn("Description '{}' has {} bytes, over the limit of {}. Ignoring.", entry.getName(), entry.getSize(),
+          MAX_INFO_SIZE);
+      return null;
+    }
+    String content;
+    try (InputStream in = zipFile.getInputStream(entry)) {
+      content = new String(in.readNBytes((int) MAX_INFO_SIZE), StandardCharsets.UTF_8);
+    }
+    try {
+      JSONObject info = (JSONObject) new JSONParser().parse(content);
+      return layout.getInfoField() != null ? info.get(layout.getInfoField()) : info;
+    } catch (ParseException | ClassCastException e) {
+      logger.error("Description '{}' is not a valid JSON object. Ignoring.", entry.getName(), e);
+      return null;
+    }
+  }
+
+  private void writeDataUri(ZipFile zipFile, ZipEntry entry, ArchiveLayout.Category category, OutputStream out)
+      throws IOException {
+    byte[] buffer = bufferPool.acquire();
+    try (InputStream in = zipFile.getInputStream(entry)) {
+      int head = readAtLeast(in, buffer, MediaTypes.MAGIC_LENGTH);
+      String mediaType = MediaTypes.detect(buffer, head);
+      if (mediaType == null) {
+        mediaType = MediaTypes.fromFileName(entry.getName());
+      }
+      if (mediaType == null) {
+        mediaType = category.getDefaultMediaType();
+      }
+      logger.debug("File '{}' size: {} bytes, media type {}", entry.getName(), entry.getSize(), mediaType);
+
+      write(out, "\"data:" + mediaType + ";base64,");
+      OutputStream encoder = Base64.getEncoder().wrap(new NonClosingOutputStream(out));
+      encoder.write(buffer, 0, head);
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        encoder.write(buffer, 0, read);
+      }
+      // writes the padding, underlying stream stays open
+      encoder.close();
+      write(out, "\"");
+    } finally {
+      bufferPool.release(buffer);
+    }
+  }
+
+  /**
+   * Fills the buffer until at least <code>min</code> bytes are read or the stream ends
+   */
+  private static int readAtLeast(InputStream in, byte[] buffer, int min) throws IOException {
+    int total = 0;
+    while (total < min) {
+      int read = in.read(buffer, total, buffer.length - total);
+      if (read == -1) {
+        break;
+      }
+      total += read;
+    }
+    return total;
+  }
+
+  private static void write(OutputStream out, String value) throws IOException {
+    out.write(value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Override
+  public void close() {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      logger.error("Could not delete decrypted archive {}", file, e);
+    }
+  }
+
+  private static class NonClosingOutputStream extends FilterOutputStream {
+
+    NonClosingOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+      flush();
+    }
+  }
+}
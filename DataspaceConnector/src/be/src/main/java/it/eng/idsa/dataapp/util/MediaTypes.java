@@ -0,0 +1,125 @@
+package it.eng.idsa.dataapp.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Media type of biometric files, detected from the leading bytes of the content (magic numbers), with the file
+ * extension as fallback.
+ */
+public final class MediaTypes {
+
+  /**
+   * Number of leading bytes needed by {@link #detect(byte[], int)}
+   */
+  public static final int MAGIC_LENGTH = 12;
+
+  public static final String OCTET_STREAM = "application/octet-stream";
+
+  private static final byte[] PNG = { (byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A };
+  private static final byte[] JPEG = { (byte) 0xFF, (byte) 0xD8, (byte) 0xFF };
+  private static final byte[] GIF = ascii("GIF8");
+  private static final byte[] TIFF_LE = { 'I', 'I', 0x2A, 0x00 };
+  private static final byte[] TIFF_BE = { 'M', 'M', 0x00, 0x2A };
+  private static final byte[] BMP = ascii("BM");
+  private static final byte[] RIFF = ascii("RIFF");
+  private static final byte[] WEBP = ascii("WEBP");
+  private static final byte[] WAVE = ascii("WAVE");
+  private static final byte[] FLAC = ascii("fLaC");
+  private static final byte[] OGG = ascii("OggS");
+  private static final byte[] MP3_ID3 = ascii("ID3");
+  private static final byte[] PDF = ascii("%PDF");
+
+  private MediaTypes() {
+  }
+
+  /**
+   * @param head   leading bytes of the content
+   * @param length number of valid bytes in head
+   * @return media type, null if not recognized
+   */
+  public static String detect(byte[] head, int length) {
+    if (startsWith(head, length, 0, PNG)) {
+      return "image/png";
+    }
+    if (startsWith(head, length, 0, JPEG)) {
+      return "image/jpeg";
+    }
+    if (startsWith(head, length, 0, FLAC)) {
+      return "audio/flac";
+    }
+    if (startsWith(head, length, 0, RIFF)) {
+      if (startsWith(head, length, 8, WAVE)) {
+        return "audio/wav";
+      }
+      if (startsWith(head, length, 8, WEBP)) {
+        return "image/webp";
+      }
+    }
+    if (startsWith(head, length, 0, TIFF_LE) || startsWith(head, length, 0, TIFF_BE)) {
+      return "image/tiff";
+    }
+    if (startsWith(head, length, 0, GIF)) {
+      return "image/gif";
+    }
+    if (startsWith(head, length, 0, OGG)) {
+      return "audio/ogg";
+    }
+    if (startsWith(head, length, 0, MP3_ID3)) {
+      return "audio/mpeg";
+    }
+    if (startsWith(head, length, 0, PDF)) {
+      return "application/pdf";
+    }
+    if (startsWith(head, length, 0, BMP)) {
+      return "image/bmp";
+    }
+    return null;
+  }
+
+  /**
+   * @param fileName file name
+   * @return media type by extension, null if extension is not known
+   */
+  public static String fromFileName(String fileName) {
+    String extension = fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+    switch (extension) {
+    case "png":
+      return "image/png";
+    case "jpg":
+    case "jpeg":
+      return "image/jpeg";
+    case "tif":
+    case "tiff":
+      return "image/tiff";
+    case "bmp":
+      return "image/bmp";
+    case "flac":
+      return "audio/flac";
+    case "wav":
+      return "audio/wav";
+    case "mp3":
+      return "audio/mpeg";
+    case "json":
+      return "application/json";
+    default:
+      return null;
+    }
+  }
+
+  private static boolean startsWith(byte[] head, int length, int offset, byte[] magic) {
+    if (length < offset + magic.length) {
+      return false;
+    }
+    for (int i = 0; i < magic.length; i++) {
+      if (head[offset + i] != magic[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static byte[] ascii(String value) {
+    return value.getBytes(StandardCharsets.US_ASCII);
+  }
+}
@@ -22,6 +22,9 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import it.eng.idsa.dataapp.service.TENSORConnectorRegistry;
+import okhttp3.MultipartBody;
+import okhttp3.Request;
+import okhttp3.RequestBody;
 
 @Component
 public class TensorBE {
@@ -31,12 +34,14 @@ public class TensorBE {
   private String dataSharingPlatformAPI;
   private String encryptorAPI;
   private final TENSORConnectorRegistry registry;
+  private final TensorHttpClient httpClient;
 
-  public TensorBE(@Value("${application.dataSharingPlatformAPI}") String dataSharingPlatformAPI, @Value("${application.encryptorAPI}") String encryptorAPI, TENSORConnectorRegistry registry) {
+  public TensorBE(@Value("${application.dataSharingPlatformAPI}") String dataSharingPlatformAPI, @Value("${application.encryptorAPI}") String encryptorAPI, TENSORConnectorRegistry registry, TensorHttpClient httpClient) {
     super();
     this.dataSharingPlatformAPI = dataSharingPlatformAPI;
     this.encryptorAPI = encryptorAPI;
     this.registry = registry;
+    this.httpClient = httpClient;
   }
 
   public boolean isValidImage(byte[] imageBytes) {
@@ -77,124 +82,86 @@ public class TensorBE {
 }
 
 
-  private void addRequestFilePart(PrintWriter writer, OutputStream outputStream, String fieldName, String fileName,
-      byte[] uploadFile, String boundary, String CRLF, String charset) throws IOException {
-    System.out.println("fieldName: "+ fieldName);
-    System.out.println("fileName: "+ fileName);
-    System.out.println("boundary: "+ boundary);
-    System.out.println("CRLF: "+ CRLF);
-    System.out.println("charset: "+ charset);
-
-    // Boundary and form-data headers
-    writer.append("--").append(boundary).append(CRLF);
-    writer.append("Content-Disposition: form-data; name=\"").append(fieldName)
-        .append("\"; filename=\"").append(fileName).append("\"").append(CRLF);
-
-    // Set content type or default to application/octet-stream
-    String contentType = "application/octet-stream"; // Assuming unknown content type
-    writer.append("Content-Type: ").append(contentType).append(CRLF);
-    writer.append(CRLF).flush(); // End of headers
-
-    // Write the byte array (file content) directly to the outputStream
-    outputStream.write(uploadFile);
-    outputStream.flush();
-
-    // Finish part with CRLF
-    writer.append(CRLF).flush(); // Blank line after the file content
-  }
-
   public byte[] queryEncryptor(String queryType, String mode, byte[] file, String fileName, String user) {
     // Variable for binary file to be returned
     byte[] resultFile = null;
     try {
-      // Information about multipart request 
-      String boundary = "Boundary-" + System.currentTimeMillis();
-      String CRLF = "\r\n"; 
-      String charset = "UTF-8";
-
-      // Encryptor variables based on queryType
-      String endpoint = "";
-      String feFileIndicator = "";
-      String fileIndicator ="";
-      
-      if (queryType.equals("encrypt")) {
-        endpoint = "/encrypt";
-        feFileIndicator = "enroll_image";
-        fileIndicator = "file_to_encrypt";
-      } else if (queryType.equals("decrypt")) {
-        endpoint = "/decrypt";
-        feFileIndicator = "verify_image";
-        fileIndicator = "encrypted_file";
-      } else {
-        throw new IOException("Query type not supported by Encryptor");
+      Request request = encryptorRequest(queryType, mode,
+          RequestBody.create(file, TensorHttpClient.OCTET_STREAM), fileName, user);
+      TensorHttpClient.Result result = httpClient.execute(TensorHttpClient.ENCRYPTOR, queryType, request);
+      System.out.println("Query Encryptor responseCode: " + result.getCode());
+      if (result.getCode() == HttpURLConnection.HTTP_OK) {
+        resultFile = result.getBody();
       }
 
-      System.out.println("queryEncryptor args: " + fileName);
-
-      // Prepare URL
-      URL url = new URL(encryptorAPI + endpoint + "?mode=" + mode);
-   
-      // Create the connection
-      HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-      connection.setRequestMethod("POST");
-      connection.setDoOutput(true);
-      connection.setDoInput(true);
-      connection.setUseCaches(false);
-      connection.setRequestProperty("Accept", "application/json");
-      connection.setRequestProperty("Content-Type", "multipart/form-data; boundary=" + boundary);
-
-      // Open connection
-      OutputStream outputStream = connection.getOutputStream();
-      PrintWriter writer = new PrintWriter(new OutputStreamWriter(outputStream, charset), true);
-
-      // Add fuzzy extractor image in the request parts
-      Map<String, String> fuzzyExtractorFile = getFuzzyExtractorFile(user);
-      String fuzzyExtractorFileName = fuzzyExtractorFile.get("filename");
-
-      // Use binary bytes (not base64-decoded from string)
-      InputStream imageStream = getClass().getClassLoader().getResourceAsStream(fuzzyExtractorFileName);
-      byte[] fuzzyExtractorFileContent = imageStream.readAllBytes();
-      imageStream.close();
-
-      addRequestFilePart(writer, outputStream, feFileIndicator, fuzzyExtractorFileName, fuzzyExtractorFileContent, boundary, CRLF, charset);
-
-      // Add file to encrypt
-      addRequestFilePart(writer, outputStream, fileIndicator, fileName, file, boundary, CRLF,
-          charset);
-    
-      // End of multipart form data
-      writer.append("--").append(boundary).append("--").append(CRLF).flush();
-
-      // Handle the response
-      int responseCode = connection.getResponseCode();
-      System.out.println("Query Encryptor responseCode: " + responseCode);
-      if (responseCode == HttpURLConnection.HTTP_OK) {
-        // Read the response into a ByteArrayOutputStream
-        InputStream inputStream = connection.getInputStream();
-        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-
-        byte[] buffer = new byte[4096]; // 4KB buffer size
-        int bytesRead;
-        while ((bytesRead = inputStream.read(buffer)) != -1) {
-          byteArrayOutputStream.write(buffer, 0, bytesRead);
-        }
+    } catch (IOException e) {
+      logger.error("Error while encrypting suspect profile", e);
+    }
 
-        // Convert to byte array
-        resultFile = byteArrayOutputStream.toByteArray();
+    return resultFile;
+  }
 
-        // Close streams
-        byteArrayOutputStream.close();
-        inputStream.close();
-      }
+  /**
+   * Same as {@link #queryEncryptor(String, String, byte[], String, String)}, but file is streamed to the encryptor
+   * and the result is returned as an open stream.
+   *
+   * @param file          file content, closed once sent
+   * @param contentLength file length, -1 if unknown
+   * @return encryptor response, caller must close it
+   */
+  public TensorHttpClient.StreamResult queryEncryptor(String queryType, String mode, InputStream file, long contentLength,
+      String fileName, String user) throws IOException {
+    Request request = encryptorRequest(queryType, mode,
+        TensorHttpClient.streamBody(file, TensorHttpClient.OCTET_STREAM, contentLength), fileName, user);
+    TensorHttpClient.StreamResult result = httpClient.executeStreaming(TensorHttpClient.ENCRYPTOR, queryType, request);
+    logger.info("Query Encryptor {} responseCode: {}", queryType, result.getCode());
+    return result;
+  }
 
-      connection.disconnect();
+  private Request encryptorRequest(String queryType, String mode, RequestBody file, String fileName, String user)
+      throws IOException {
+    // Encryptor variables based on queryType
+    String endpoint = "";
+    String feFileIndicator = "";
+    String fileIndicator = "";
+
+    if (queryType.equals("encrypt")) {
+      endpoint = "/encrypt";
+      feFileIndicator = "enroll_image";
+      fileIndicator = "file_to_encrypt";
+    } else if (queryType.equals("decrypt")) {
+      endpoint = "/decrypt";
+      feFileIndicator = "verify_image";
+      fileIndicator = "encrypted_file";
+    } else {
+      throw new IOException("Query type not supported by Encryptor");
+    }
 
+    System.out.println("queryEncryptor args: " + fileName);
 
-    } catch (IOException e) {
-      logger.error("Error while encrypting suspect profile", e);
+    // Add fuzzy extractor image in the request parts
+    Map<String, String> fuzzyExtractorFile = getFuzzyExtractorFile(user);
+    String fuzzyExtractorFileName = fuzzyExtractorFile.get("filename");
+
+    // Use binary bytes (not base64-decoded from string)
+    byte[] fuzzyExtractorFileContent;
+    try (InputStream imageStream = getClass().getClassLoader().getResourceAsStream(fuzzyExtractorFileName)) {
+      fuzzyExtractorFileContent = imageStream.readAllBytes();
     }
 
-    return resultFile;
+    // Parts are written straight to the connection, no intermediate copy of the file
+    RequestBody body = new MultipartBody.Builder()
+        .setType(MultipartBody.FORM)
+        .addFormDataPart(feFileIndicator, fuzzyExtractorFileName,
+            RequestBody.create(fuzzyExtractorFileContent, TensorHttpClient.OCTET_STREAM))
+        .addFormDataPart(fileIndicator, fileName, file)
+        .build();
+
+    return new Request.Builder()
+        .url(encryptorAPI + endpoint + "?mode=" + mode)
+        .header("Accept", "application/json")
+        .post(body)
+        .build();
   }
 
 }
\ No newline at end of file
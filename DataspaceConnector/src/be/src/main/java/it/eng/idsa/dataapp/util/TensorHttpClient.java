@@ -0,0 +1,307 @@
+package it.eng.idsa.dataapp.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Source;
+
+/**
+ * Shared HTTP client for the TENSOR outbound calls (DSP, encryptor, indexer, CMS, other connectors).<br>
+ * Every destination gets its own connection pool, dispatcher limits and timeouts, configured with
+ * <code>application.http.&lt;destination&gt;.*</code> properties. Calls are executed on the
+ * dispatcher and exposed as CompletableFuture, latency is recorded per destination and endpoint.
+ */
+@Component
+public class TensorHttpClient {
+
+  private static final Logger logger = LoggerFactory.getLogger(TensorHttpClient.class);
+
+  public static final String DSP = "dsp";
+  public static final String ENCRYPTOR = "encryptor";
+  public static final String INDEXER = "indexer";
+  public static final String CMS = "cms";
+  // data apps of other connectors in the data space
+  public static final String CONNECTOR = "connector";
+
+  public static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+  public static final MediaType OCTET_STREAM = MediaType.get("application/octet-stream");
+
+  private final Environment environment;
+  private final MeterRegistry meterRegistry;
+  private final OkHttpClient baseClient = new OkHttpClient();
+  private final Map<String, OkHttpClient> clients = new ConcurrentHashMap<>();
+
+  public TensorHttpClient(Environment environment, MeterRegistry meterRegistry) {
+    this.environment = environment;
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * Executes request asynchronously on the destination dispatcher.<br>
+   * Response body is read fully before the future completes; cancelling the future cancels the call.
+   *
+   * @param destination one of the destination constants, selects pool and timeouts
+   * @param endpoint    logical endpoint name used for latency metrics
+   * @param request     request to execute
+   * @return future completed with status code and body, or exceptionally with IOException
+   */
+  public CompletableFuture<Result> executeAsync(String destination, String endpoint, Request request) {
+    CompletableFuture<Result> future = new CompletableFuture<>();
+    long start = System.nanoTime();
+    Call call = client(destination).newCall(request);
+    call.enqueue(new Callback() {
+      @Override
+      public void onFailure(Call call, IOException e) {
+        record(destination, endpoint, "IO_ERROR", start);
+        future.completeExceptionally(e);
+      }
+
+      @Override
+      public void onResponse(Call call, Response response) {
+        try (ResponseBody body = response.body()) {
+          byte[] bytes = body != null ? body.bytes() : new byte[0];
+          record(destination, endpoint, String.valueOf(response.code()), start);
+          future.complete(new Result(response.code(), bytes));
+        } catch (IOException e) {
+          record(destination, endpoint, "IO_ERROR", start);
+          future.completeExceptionally(e);
+        }
+      }
+    });
+    future.whenComplete((result, e) -> {
+      if (future.isCancelled()) {
+        call.cancel();
+      }
+    });
+    return future;
+  }
+
+  /**
+   * Blocking variant of {@link #executeAsync(String, String, Request)}, still subject to destination limits.
+   */
+  public Result execute(String destination, String endpoint, Request request) throws IOException {
+    try {
+      return executeAsync(destination, endpoint, request).join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException("Call to " + endpoint + " failed", e.getCause());
+    }
+  }
+
+  /**
+   * Executes request on the destination dispatcher and returns as soon as the response headers are received.<br>
+   * Body is not read, caller consumes it as a stream and must close the result.
+   *
+   * @param destination one of the destination constants, selects pool and timeouts
+   * @param endpoint    logical endpoint name used for latency metrics, latency is measured up to the headers
+   * @param request     request to execute
+   * @return status code and open body stream
+   */
+  public StreamResult executeStreaming(String destination, String endpoint, Request request) throws IOException {
+    CompletableFuture<Response> future = new CompletableFuture<>();
+    long start = System.nanoTime();
+    Call call = client(destination).newCall(request);
+    call.enqueue(new Callback() {
+      @Override
+      public void onFailure(Call call, IOException e) {
+        record(destination, endpoint, "IO_ERROR", start);
+        future.completeExceptionally(e);
+      }
+
+      @Override
+      public void onResponse(Call call, Response response) {
+        record(destination, endpoint, String.valueOf(response.code()), start);
+        if (!future.complete(response)) {
+          response.close();
+        }
+      }
+    });
+    try {
+      return new StreamResult(future.join());
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException("Call to " + endpoint + " failed", e.getCause());
+    }
+  }
+
+  /**
+   * Request body that copies the stream straight to the connection, without buffering it in memory.
+   * The stream is closed once written, so the body can be sent only once.
+   */
+  public static RequestBody streamBody(InputStream inputStream, MediaType mediaType, long contentLength) {
+    return new RequestBody() {
+      @Override
+      public MediaType contentType() {
+        return mediaType;
+      }
+
+      @Override
+      public long contentLength() {
+        return contentLength;
+      }
+
+      @Override
+      public boolean isOneShot() {
+        return true;
+      }
+
+      @Override
+      public void writeTo(BufferedSink sink) throws IOException {
+        try (Source source = Okio.source(inputStream)) {
+          sink.writeAll(source);
+        }
+      }
+    };
+  }
+
+  OkHttpClient client(String destination) {
+    return clients.computeIfAbsent(destination, this::createClient);
+  }
+
+  private OkHttpClient createClient(String destination) {
+    String prefix = "application.http." + destination + ".";
+    Dispatcher dispatcher = new Dispatcher();
+    dispatcher.setMaxRequests(environment.getProperty(prefix + "maxRequests", Integer.class, 64));
+    dispatcher.setMaxRequestsPerHost(environment.getProperty(prefix + "maxRequestsPerHost", Integer.class, 10));
+    ConnectionPool connectionPool = new ConnectionPool(
+        environment.getProperty(prefix + "maxIdleConnections", Integer.class, 5),
+        environment.getProperty(prefix + "keepAliveSeconds", Long.class, 300L), TimeUnit.SECONDS);
+
+    logger.info("Creating HTTP client for destination '{}' - max requests per host {}", destination,
+        dispatcher.getMaxRequestsPerHost());
+    return baseClient.newBuilder()
+        .dispatcher(dispatcher)
+        .connectionPool(connectionPool)
+        .connectTimeout(environment.getProperty(prefix + "connectTimeoutSeconds", Long.class, 10L), TimeUnit.SECONDS)
+        .readTimeout(environment.getProperty(prefix + "readTimeoutSeconds", Long.class, 120L), TimeUnit.SECONDS)
+        .writeTimeout(environment.getProperty(prefix + "writeTimeoutSeconds", Long.class, 120L), TimeUnit.SECONDS)
+        .callTimeout(environment.getProperty(prefix + "callTimeoutSeconds", Long.class, 0L), TimeUnit.SECONDS)
+        .build();
+  }
+
+  private void record(String destination, String endpoint, String status, long start) {
+    Timer.builder("tensor.http.client.requests")
+        .tag("destination", destination)
+        .tag("endpoint", endpoint)
+        .tag("status", status)
+        .publishPercentileHistogram()
+        .register(meterRegistry)
+        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    for (OkHttpClient client : clients.values()) {
+      client.dispatcher().executorService().shutdown();
+      client.connectionPool().evictAll();
+    }
+  }
+
+  public static class Result {
+
+    private final int code;
+    private final byte[] body;
+
+    public Result(int code, byte[] body) {
+      this.code = code;
+      this.body = body;
+    }
+
+    public int getCode() {
+      return code;
+    }
+
+    public byte[] getBody() {
+      return body;
+    }
+
+    public String getBodyAsString() {
+      return new String(body, StandardCharsets.UTF_8);
+    }
+
+    public boolean isSuccessful() {
+      return code >= 200 && code < 300;
+    }
+  }
+
+  /**
+   * Response with body left open, see {@link TensorHttpClient#executeStreaming(String, String, Request)}
+   */
+  public static class StreamResult implements Closeable {
+
+    private final Response response;
+
+    StreamResult(Response response) {
+      this.response = response;
+    }
+
+    public int getCode() {
+      return response.code();
+    }
+
+    /**
+     * @return body stream, read once
+     */
+    public InputStream getBody() {
+      ResponseBody body = response.body();
+      return body != null ? body.byteStream() : InputStream.nullInputStream();
+    }
+
+    /**
+     * @return body length, -1 if unknown
+     */
+    public long getContentLength() {
+      ResponseBody body = response.body();
+      return body != null ? body.contentLength() : 0;
+    }
+
+    /**
+     * Reads the remaining body, intended for error responses
+     */
+    public String getBodyAsString() throws IOException {
+      ResponseBody body = response.body();
+      return body != null ? body.string() : "";
+    }
+
+    public boolean isSuccessful() {
+      return response.isSuccessful();
+    }
+
+    @Override
+    public void close() {
+      response.close();
+    }
+  }
+}
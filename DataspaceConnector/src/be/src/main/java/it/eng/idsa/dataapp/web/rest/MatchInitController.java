@@ -22,6 +22,10 @@ public class MatchInitController {
   private static final String FACE_HASH = "faceHash";
   private static final String FINGERPRINT_HASH = "fingerprintHash";
   private static final String VOICE_HASH = "voiceHash";
+  private static final String CONSUMER_ID = "consumerId";
+  private static final String SAMPLE_FACE_URL = "sampleFaceUrl";
+  private static final String SAMPLE_FINGERPRINT_URL = "sampleFingerprintUrl";
+  private static final String SAMPLE_VOICE_URL = "sampleVoiceUrl";
 
   private MatchInitService matchInitService;
 
@@ -44,6 +48,10 @@ public class MatchInitController {
       String voiceHash = (String) jsonObject.get(VOICE_HASH);
 
       MatchInitRequest matchInitRequest = matchInitService.parseIncomingMatchInitRequest(faceHash, fingerprintHash, voiceHash);
+      matchInitRequest.setConsumerId((String) jsonObject.get(CONSUMER_ID));
+      matchInitRequest.setSampleFaceUrl((String) jsonObject.get(SAMPLE_FACE_URL));
+      matchInitRequest.setSampleFingerprintUrl((String) jsonObject.get(SAMPLE_FINGERPRINT_URL));
+      matchInitRequest.setSampleVoiceUrl((String) jsonObject.get(SAMPLE_VOICE_URL));
 
       return matchInitService.createMatchInit(matchInitRequest, httpHeaders);
 
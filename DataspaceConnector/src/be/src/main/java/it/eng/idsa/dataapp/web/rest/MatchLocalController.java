@@ -23,6 +23,7 @@ public class MatchLocalController {
   private static final String SAMPLE_FACE_URL = "sampleFaceUrl";
   private static final String SAMPLE_FINGERPRINT_URL = "sampleFingerprintUrl";
   private static final String SAMPLE_VOICE_URL = "sampleVoiceUrl";
+  private static final String HASH_DATA = "hashData";
 
   private MatchLocalService matchLocalService;
 
@@ -49,6 +50,7 @@ public class MatchLocalController {
       MatchLocalRequest matchLocalRequest = matchLocalService.parseIncomingMatchLocalRequest(providerId, consumerId,
           sampleFaceUrl,
           sampleFingerprintUrl, sampleVoiceUrl);
+      matchLocalRequest.setHashData((JSONObject) jsonObject.get(HASH_DATA));
 
       return matchLocalService.createMatchLocal(matchLocalRequest, httpHeaders);
 
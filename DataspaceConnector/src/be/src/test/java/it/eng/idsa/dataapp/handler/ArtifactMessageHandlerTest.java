@@ -51,7 +51,7 @@ class ArtifactMessageHandlerTest {
 
     MockitoAnnotations.openMocks(this);
     artifactMessageHandler = new ArtifactMessageHandler(selfDescriptionService, threadService, dataLakeDirectory,
-        contractNegotiationDemo, encodePayload, "", "", null, null);
+        contractNegotiationDemo, encodePayload, "", null, null);
     ReflectionTestUtils.setField(artifactMessageHandler, "issuerConnector", issuerConnector);
     message = UtilMessageService.getArtifactRequestMessage();
     baseConnector = SelfDescriptionUtil.createDefaultSelfDescription();
@@ -0,0 +1,230 @@
+package it.eng.idsa.dataapp.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.eng.idsa.dataapp.domain.MatchInitRequest;
+import it.eng.idsa.dataapp.domain.MatchResult;
+import it.eng.idsa.dataapp.domain.MatchResult.Participant;
+import it.eng.idsa.dataapp.domain.MatchResult.Status;
+import it.eng.idsa.dataapp.domain.TENSORConnector;
+import it.eng.idsa.dataapp.service.impl.MatchCoordinatorServiceImpl;
+import it.eng.idsa.dataapp.util.TensorHttpClient;
+
+/**
+ * Connectors are simulated by an in-process HTTP server, each with its own <code>/match/local</code> and injected
+ * latency
+ */
+class MatchCoordinatorServiceTest {
+
+	private HttpServer server;
+	private String baseUrl;
+	private MockEnvironment environment;
+	private TensorHttpClient httpClient;
+	private MatchLocalService matchLocalService;
+	private TENSORConnectorRegistry registry;
+
+	private final Map<String, Long> latencies = new ConcurrentHashMap<>();
+	private final Map<String, Integer> statuses = new ConcurrentHashMap<>();
+	private final List<JSONObject> requests = new CopyOnWriteArrayList<>();
+
+	@BeforeEach
+	public void setup() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.start();
+		baseUrl = "http://localhost:" + server.getAddress().getPort();
+
+		environment = new MockEnvironment();
+		environment.setProperty("application.http.connector.maxRequestsPerHost", "100");
+		httpClient = new TensorHttpClient(environment, new SimpleMeterRegistry());
+		matchLocalService = mock(MatchLocalService.class);
+		JSONObject hash = new JSONObject();
+		hash.put("image", "probe-hash");
+		when(matchLocalService.calculateProbeHash(any(), any(), any())).thenReturn(hash);
+		registry = new TENSORConnectorRegistry();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		server.stop(0);
+		httpClient.shutdown();
+	}
+
+	@Test
+	void matchesAreGatheredAndRanked() throws IOException {
+		addConnector("LEA1", 10, 200, 0.4);
+		addConnector("LEA2", 30, 200, 0.9);
+		addConnector("LEA3", 20, 200, 0.7);
+
+		MatchResult result = coordinator(2000).match(request());
+
+		assertFalse(result.isPartial());
+		assertEquals(3, result.getResponded());
+		JSONArray matches = result.getMatches();
+		assertEquals(List.of("LEA2", "LEA3", "LEA1"), List.of(connectorOf(matches, 0), connectorOf(matches, 1), connectorOf(matches, 2)));
+		assertEquals(1, ((JSONObject) matches.get(0)).get(MatchCoordinatorServiceImpl.RANK));
+	}
+
+	@Test
+	void hashIsCalculatedOnceAndSentToEveryConnector() throws IOException {
+		addConnector("LEA1", 0, 200, 0.4);
+		addConnector("LEA2", 0, 200, 0.5);
+
+		coordinator(2000).match(request());
+
+		verify(matchLocalService, times(1)).calculateProbeHash("face.png", "", "");
+		assertEquals(2, requests.size());
+		for (JSONObject request : requests) {
+			assertEquals("probe-hash", ((JSONObject) request.get("hashData")).get("image"));
+			assertEquals("LEA0", request.get("consumerId"));
+		}
+	}
+
+	@Test
+	void stragglerIsCancelledAndPartialResultReturned() throws IOException {
+		addConnector("LEA1", 10, 200, 0.4);
+		addConnector("SLOW", 5000, 200, 0.9);
+		addConnector("BROKEN", 10, 500, 0.9);
+
+		long start = System.currentTimeMillis();
+		MatchResult result = coordinator(300).match(request());
+
+		assertTrue(System.currentTimeMillis() - start < 3000);
+		assertTrue(result.isPartial());
+		assertEquals(1, result.getResponded());
+		assertEquals(Status.TIMEOUT, participant(result, "SLOW").getStatus());
+		assertEquals(Status.FAILED, participant(result, "BROKEN").getStatus());
+		assertEquals(1, result.getMatches().size());
+		assertEquals("LEA1", connectorOf(result.getMatches(), 0));
+	}
+
+	@Test
+	void connectorDeadlineCanBeConfigured() throws IOException {
+		addConnector("LEA1", 10, 200, 0.4);
+		addConnector("REMOTE", 500, 200, 0.9);
+		environment.setProperty("application.match.participant.REMOTE.timeoutMillis", "3000");
+
+		MatchResult result = coordinator(200).match(request());
+
+		assertFalse(result.isPartial());
+		assertEquals("REMOTE", connectorOf(result.getMatches(), 0));
+	}
+
+	/**
+	 * N connectors with random latency, searched in parallel compared to the sum of latencies, which is what searching
+	 * them one after the other would take at least. Every round waits for the slowest connector and ends before the
+	 * connector deadline.
+	 */
+	@Test
+	void scatterGatherLoadTest() throws IOException {
+		int connectors = 32;
+		long deadline = 5000;
+		Random random = new Random(17);
+		long sequential = 0;
+		long slowest = 0;
+		for (int i = 0; i < connectors; i++) {
+			long latency = 50 + random.nextInt(200);
+			sequential += latency;
+			slowest = Math.max(slowest, latency);
+			addConnector("LEA" + (i + 1), latency, 200, random.nextDouble());
+		}
+		MatchCoordinatorServiceImpl coordinator = coordinator(deadline);
+		coordinator.match(request());
+
+		int rounds = 5;
+		long total = 0;
+		for (int round = 0; round < rounds; round++) {
+			MatchResult result = coordinator.match(request());
+			assertFalse(result.isPartial());
+			assertEquals(connectors, result.getResponded());
+			assertEquals(connectors, result.getMatches().size());
+			for (Participant participant : result.getParticipants()) {
+				assertTrue(participant.getElapsedMillis() >= latencies.get(participant.getConnectorId()));
+			}
+			assertTrue(result.getElapsedMillis() >= slowest);
+			assertTrue(result.getElapsedMillis() < deadline);
+			total += result.getElapsedMillis();
+		}
+
+		assertTrue(total / rounds < sequential / 4, "scatter-gather should not wait for connectors one by one");
+	}
+
+	private MatchCoordinatorServiceImpl coordinator(long participantTimeoutMillis) {
+		return new MatchCoordinatorServiceImpl(registry, matchLocalService, httpClient, environment,
+				participantTimeoutMillis);
+	}
+
+	private MatchInitRequest request() {
+		MatchInitRequest request = new MatchInitRequest();
+		request.setConsumerId("LEA0");
+		request.setSampleFaceUrl("face.png");
+		request.setSampleFingerprintUrl("");
+		request.setSampleVoiceUrl("");
+		return request;
+	}
+
+	private void addConnector(String id, long latencyMillis, int status, double score) {
+		latencies.put(id, latencyMillis);
+		statuses.put(id, status);
+		server.createContext("/" + id + "/match/local", exchange -> {
+			try {
+				requests.add((JSONObject) new JSONParser().parse(
+						new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8)));
+				Thread.sleep(latencies.get(id));
+				JSONObject match = new JSONObject();
+				match.put("suspectProfileId", "profile-" + id);
+				match.put("facialImageSimilarityScore", score);
+				JSONArray matches = new JSONArray();
+				matches.add(match);
+				byte[] body = matches.toJSONString().getBytes(StandardCharsets.UTF_8);
+				exchange.sendResponseHeaders(statuses.get(id), body.length);
+				exchange.getResponseBody().write(body);
+			} catch (Exception e) {
+				// connection closed by the cancelled call
+			} finally {
+				exchange.close();
+			}
+		});
+		registry.addConnector(new TENSORConnector(id, baseUrl + "/" + id, "pod-" + id, "eth", "fe", "cms", "solid",
+				"dsp"));
+	}
+
+	private static String connectorOf(JSONArray matches, int index) {
+		return (String) ((JSONObject) matches.get(index)).get(MatchCoordinatorServiceImpl.CONNECTOR_ID);
+	}
+
+	private static Participant participant(MatchResult result, String connectorId) {
+		return result.getParticipants().stream()
+				.filter(participant -> connectorId.equals(participant.getConnectorId()))
+				.findFirst()
+				.orElseThrow();
+	}
+}
@@ -0,0 +1,155 @@
+package it.eng.idsa.dataapp.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.eng.idsa.dataapp.domain.MatchLocalRequest;
+import it.eng.idsa.dataapp.service.impl.MatchLocalServiceImpl;
+import it.eng.idsa.dataapp.util.TensorHttpClient;
+
+/**
+ * Indexer is replaced with an in-process HTTP stub
+ */
+class MatchLocalServiceTest {
+
+	private HttpServer indexer;
+	private TensorHttpClient httpClient;
+	private String indexerAPI;
+
+	private final AtomicInteger hashRequests = new AtomicInteger();
+	private volatile int hashStatus = 200;
+	private volatile int searchStatus = 200;
+	private volatile JSONObject searched;
+
+	@BeforeEach
+	public void setup() throws IOException {
+		indexer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		indexer.setExecutor(Executors.newCachedThreadPool());
+		indexer.createContext("/calculateHashForSearching", exchange -> {
+			hashRequests.incrementAndGet();
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			respond(exchange, hashStatus, "{\"image\":\"hash-" + hashRequests.get() + "\"}");
+		});
+		indexer.createContext("/searchForMatches", exchange -> {
+			try {
+				searched = (JSONObject) new JSONParser().parse(
+						new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+			} catch (Exception e) {
+				searched = null;
+			}
+			respond(exchange, searchStatus, "[{\"suspectProfileId\":\"profile1\",\"facialImageSimilarityScore\":0.8}]");
+		});
+		indexer.start();
+		indexerAPI = "http://localhost:" + indexer.getAddress().getPort();
+		httpClient = new TensorHttpClient(new MockEnvironment(), new SimpleMeterRegistry());
+	}
+
+	@AfterEach
+	public void tearDown() {
+		indexer.stop(0);
+		httpClient.shutdown();
+	}
+
+	@Test
+	void hashIsCalculatedOncePerProbe() throws Exception {
+		MatchLocalService service = new MatchLocalServiceImpl(indexerAPI, httpClient, 300, 100);
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Future<JSONObject>> hashes = new ArrayList<>();
+		for (int i = 0; i < 16; i++) {
+			hashes.add(executor.submit(() -> service.calculateProbeHash("face.png", "", "")));
+		}
+		for (Future<JSONObject> hash : hashes) {
+			assertEquals("hash-1", hash.get().get("image"));
+		}
+		executor.shutdown();
+		service.calculateProbeHash("other.png", "", "");
+
+		assertEquals(2, hashRequests.get());
+	}
+
+	@Test
+	void returnedHashIsCopy() throws IOException {
+		MatchLocalService service = new MatchLocalServiceImpl(indexerAPI, httpClient, 300, 100);
+
+		service.calculateProbeHash("face.png", "", "").put("from", "LEA1");
+
+		assertFalse(service.calculateProbeHash("face.png", "", "").containsKey("from"));
+	}
+
+	@Test
+	void failedHashIsNotCached() throws IOException {
+		MatchLocalService service = new MatchLocalServiceImpl(indexerAPI, httpClient, 300, 100);
+		hashStatus = 500;
+
+		assertThrows(IOException.class, () -> service.calculateProbeHash("face.png", "", ""));
+		hashStatus = 200;
+
+		assertEquals("hash-2", service.calculateProbeHash("face.png", "", "").get("image"));
+	}
+
+	@Test
+	void hashOfRequestorIsUsedForSearch() throws Exception {
+		MatchLocalService service = new MatchLocalServiceImpl(indexerAPI, httpClient, 300, 100);
+		MatchLocalRequest request = new MatchLocalRequest("lea2", "lea1", "face.png", "", "");
+		JSONObject hashData = new JSONObject();
+		hashData.put("image", "requestor-hash");
+		request.setHashData(hashData);
+
+		ResponseEntity<JSONArray> response = service.createMatchLocal(request, null);
+
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals(1, response.getBody().size());
+		assertEquals(0, hashRequests.get());
+		assertEquals("requestor-hash", searched.get("image"));
+		assertEquals("LEA1", searched.get("from"));
+		assertEquals("LEA2", searched.get("to"));
+	}
+
+	@Test
+	void failedSearchIsServerError() throws Exception {
+		MatchLocalService service = new MatchLocalServiceImpl(indexerAPI, httpClient, 300, 100);
+		MatchLocalRequest request = new MatchLocalRequest("lea2", "lea1", "face.png", "", "");
+		searchStatus = 500;
+
+		ResponseEntity<JSONArray> response = service.createMatchLocal(request, null);
+
+		assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+	}
+
+	private static void respond(com.sun.net.httpserver.HttpExchange exchange, int status, String body)
+			throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.sendResponseHeaders(status, bytes.length);
+		exchange.getResponseBody().write(bytes);
+		exchange.close();
+	}
+}
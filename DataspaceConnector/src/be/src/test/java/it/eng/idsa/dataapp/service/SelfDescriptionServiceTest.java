@@ -2,21 +2,36 @@ package it.eng.idsa.dataapp.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.RestTemplate;
 
@@ -63,7 +78,7 @@ class SelfDescriptionServiceTest {
 		when(eccProperties.getProtocol()).thenReturn("http");
 		when(eccProperties.getPort()).thenReturn(1234);
 		when(restTemplateBuilder.build()).thenReturn(restTemplate);
-		selfDescriptionService = new SelfDescriptionServiceImpl(restTemplateBuilder, eccProperties);
+		selfDescriptionService = new SelfDescriptionServiceImpl(restTemplateBuilder, eccProperties, 0);
 
 		baseConnector = SelfDescriptionUtil.createDefaultSelfDescription();
 		selfDescriptionAsString = serializer.serialize(baseConnector);
@@ -178,4 +193,128 @@ class SelfDescriptionServiceTest {
 
 		assertEquals("Requested element not found", exception.getMessage());
 	}
+
+	@Test
+	void getSelfDescriptionCachedTest() {
+		selfDescriptionService = new SelfDescriptionServiceImpl(restTemplateBuilder, eccProperties, 60);
+		when(restTemplate.exchange(any(), any(), any(), eq(String.class))).thenReturn(response);
+		when(response.getStatusCodeValue()).thenReturn(200);
+
+		Connector first = selfDescriptionService.getSelfDescription(message);
+		Connector second = selfDescriptionService.getSelfDescription(message);
+		selfDescriptionService.getSelfDescriptionAsString(message);
+
+		assertSame(first, second);
+		verify(restTemplate, times(1)).exchange(any(), any(), any(), eq(String.class));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	void getSelfDescriptionNotModifiedTest() {
+		when(restTemplate.exchange(any(), any(), any(), eq(String.class)))
+				.thenReturn(ResponseEntity.ok().eTag("\"1\"").body(selfDescriptionAsString))
+				.thenReturn(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag("\"1\"").build());
+
+		Connector first = selfDescriptionService.getSelfDescription(message);
+		Connector second = selfDescriptionService.getSelfDescription(message);
+
+		assertSame(first, second);
+		ArgumentCaptor<HttpEntity<?>> requests = ArgumentCaptor.forClass(HttpEntity.class);
+		verify(restTemplate, times(2)).exchange(any(URI.class), eq(HttpMethod.GET), requests.capture(),
+				eq(String.class));
+		assertTrue(requests.getAllValues().get(0).getHeaders().getIfNoneMatch().isEmpty());
+		assertEquals(List.of("\"1\""), requests.getAllValues().get(1).getHeaders().getIfNoneMatch());
+	}
+
+	@Test
+	void getSelfDescriptionModifiedTest() {
+		Connector changed = SelfDescriptionUtil.createDefaultSelfDescription();
+		when(restTemplate.exchange(any(), any(), any(), eq(String.class)))
+				.thenReturn(ResponseEntity.ok().eTag("\"1\"").body(selfDescriptionAsString))
+				.thenReturn(ResponseEntity.ok().eTag("\"2\"").body(serialize(changed)));
+
+		Connector first = selfDescriptionService.getSelfDescription(message);
+		Connector second = selfDescriptionService.getSelfDescription(message);
+
+		assertEquals(changed.getId(), second.getId());
+		assertTrue(first != second);
+	}
+
+	@Test
+	void artifactRequestedElementOfCachedSelfDescriptionTest() {
+		when(restTemplate.exchange(any(), any(), any(), eq(String.class))).thenReturn(response);
+		when(response.getStatusCodeValue()).thenReturn(200);
+		Connector connector = selfDescriptionService.getSelfDescription(message);
+
+		Message message = UtilMessageService.getArtifactRequestMessage();
+		assertTrue(selfDescriptionService.artifactRequestedElementExist((ArtifactRequestMessage) message, connector));
+	}
+
+	/**
+	 * Replays the same message from several threads, as during message replay load, with self description fetched on
+	 * every message and with revalidation period. Only the first call fetches the whole self description, later ECC
+	 * calls are conditional and answered with not modified.
+	 */
+	@Test
+	void selfDescriptionReplayLoadTest() throws Exception {
+		int messages = 2000;
+		int threads = 8;
+		Replay withoutCache = replay(0, messages, threads);
+		Replay withCache = replay(5, messages, threads);
+
+		assertEquals(messages, withoutCache.calls.get());
+		assertEquals(messages - 1, withoutCache.notModified.get());
+		assertTrue(withCache.calls.get() < messages / 100);
+		assertEquals(withCache.calls.get() - 1, withCache.notModified.get());
+	}
+
+	private Replay replay(long revalidateSeconds, int messages, int threads) throws Exception {
+		Replay replay = new Replay();
+		RestTemplate eccTemplate = new RestTemplate() {
+			@Override
+			public <T> ResponseEntity<T> exchange(URI url, HttpMethod method, HttpEntity<?> requestEntity,
+					Class<T> responseType) {
+				replay.calls.incrementAndGet();
+				if (requestEntity.getHeaders().getIfNoneMatch().contains("\"1\"")) {
+					replay.notModified.incrementAndGet();
+					return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag("\"1\"").build();
+				}
+				return ResponseEntity.ok().eTag("\"1\"").body(responseType.cast(selfDescriptionAsString));
+			}
+		};
+		RestTemplateBuilder builder = org.mockito.Mockito.mock(RestTemplateBuilder.class);
+		when(builder.build()).thenReturn(eccTemplate);
+		SelfDescriptionServiceImpl service = new SelfDescriptionServiceImpl(builder, eccProperties, revalidateSeconds);
+		Message request = UtilMessageService.getArtifactRequestMessage();
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<Boolean>> results = new ArrayList<>();
+			for (int i = 0; i < messages; i++) {
+				results.add(executor.submit(() -> service.artifactRequestedElementExist(
+						(ArtifactRequestMessage) request, service.getSelfDescription(request))));
+			}
+			for (Future<Boolean> result : results) {
+				assertTrue(result.get());
+			}
+		} finally {
+			executor.shutdown();
+			executor.awaitTermination(10, TimeUnit.SECONDS);
+		}
+		return replay;
+	}
+
+	private static class Replay {
+
+		private final AtomicInteger calls = new AtomicInteger();
+		private final AtomicInteger notModified = new AtomicInteger();
+	}
+
+	private String serialize(Connector connector) {
+		try {
+			return serializer.serialize(connector);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
 }
@@ -0,0 +1,181 @@
+package it.eng.idsa.dataapp.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class DecryptedArchiveTest {
+
+  private static final int MB = 1024 * 1024;
+  private static final byte[] PNG = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 0x0D, 1, 2, 3 };
+
+  @TempDir
+  Path tempDirectory;
+
+  private BufferPool bufferPool;
+
+  @BeforeEach
+  public void setup() {
+    bufferPool = new BufferPool(8 * 1024, 4);
+  }
+
+  @Test
+  public void suspectProfileGroupsFilesByCategory() throws Exception {
+    Path file = zip(Map.of(
+        "info.json", "{\"name\":\"John\"}".getBytes(StandardCharsets.UTF_8),
+        "Face/front.bin", PNG,
+        "face/side.jpg", "side".getBytes(StandardCharsets.UTF_8),
+        "voice\\sample", "voice".getBytes(StandardCharsets.UTF_8),
+        "notes.txt", "ignored".getBytes(StandardCharsets.UTF_8)));
+
+    JSONObject json = writeJson(file, ArchiveLayout.SUSPECT_PROFILE);
+
+    assertEquals("John", ((JSONObject) json.get("info")).get("name"));
+    JSONArray face = (JSONArray) json.get("face");
+    assertEquals(2, face.size());
+    assertTrue(face.contains("data:image/png;base64," + Base64.getEncoder().encodeToString(PNG)));
+    assertTrue(face.contains("data:image/jpeg;base64," + base64("side")));
+    assertEquals(List.of("data:audio/flac;base64," + base64("voice")), json.get("voice"));
+    assertEquals(List.of(), json.get("fingerprint"));
+    assertFalse(json.containsKey("notes.txt"));
+    // one buffer reused for every file
+    assertEquals(1, bufferPool.idle());
+  }
+
+  @Test
+  public void evidenceKeepsDescriptiveTextAndOneFilePerCategory() throws Exception {
+    Path file = zip(Map.of(
+        "info/caseInfo.json", "{\"caseDescriptiveText\":\"Case 42\"}".getBytes(StandardCharsets.UTF_8),
+        "finger/print", "finger".getBytes(StandardCharsets.UTF_8)));
+
+    JSONObject json = writeJson(file, ArchiveLayout.EVIDENCE);
+
+    assertEquals("Case 42", json.get("descriptiveText"));
+    assertEquals("data:image/jpeg;base64," + base64("finger"), json.get("fingerprint"));
+    assertFalse(json.containsKey("face"));
+    assertFalse(json.containsKey("voice"));
+  }
+
+  @Test
+  public void contentThatIsNotZipIsWrittenWithoutEntries() throws Exception {
+    Path file = Files.write(tempDirectory.resolve("plain"), "not a zip".getBytes(StandardCharsets.UTF_8));
+
+    assertEquals("{\"face\":[],\"voice\":[],\"fingerprint\":[]}", writeString(file, ArchiveLayout.SUSPECT_PROFILE));
+    assertEquals("{}", writeString(file, ArchiveLayout.EVIDENCE));
+  }
+
+  @Test
+  public void invalidDescriptionIsSkipped() throws Exception {
+    Path file = zip(Map.of("info.json", "[1, 2".getBytes(StandardCharsets.UTF_8)));
+
+    assertEquals("{\"face\":[],\"voice\":[],\"fingerprint\":[]}", writeString(file, ArchiveLayout.SUSPECT_PROFILE));
+  }
+
+  @Test
+  public void closeDeletesFile() throws Exception {
+    Path file = zip(Map.of("face/a.png", PNG));
+
+    new DecryptedArchive(file, bufferPool).close();
+
+    assertFalse(Files.exists(file));
+  }
+
+  @Test
+  public void largeArchiveIsStreamedWithSmallBuffers() throws Exception {
+    Path file = syntheticArchive(10);
+    CountingOutputStream out = new CountingOutputStream();
+
+    new DecryptedArchive(file, bufferPool).writeJson(ArchiveLayout.SUSPECT_PROFILE, out);
+
+    // base64 of 10 MB of files
+    assertTrue(out.count > 10L * MB * 4 / 3);
+    assertEquals(1, bufferPool.idle());
+  }
+
+  private JSONObject writeJson(Path file, ArchiveLayout layout) throws Exception {
+    return (JSONObject) new JSONParser().parse(writeString(file, layout));
+  }
+
+  private String writeString(Path file, ArchiveLayout layout) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new DecryptedArchive(file, bufferPool).writeJson(layout, out);
+    return out.toString(StandardCharsets.UTF_8);
+  }
+
+  private Path zip(Map<String, byte[]> entries) throws IOException {
+    Path file = Files.createTempFile(tempDirectory, "decrypted_", ".zip");
+    try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(file))) {
+      for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+        zip.putNextEntry(new ZipEntry(entry.getKey()));
+        zip.write(entry.getValue());
+        zip.closeEntry();
+      }
+    }
+    return file;
+  }
+
+  /**
+   * Archive of the given size split over face, voice and fingerprint files, stored without compression
+   */
+  private Path syntheticArchive(int megabytes) throws IOException {
+    byte[] chunk = new byte[MB];
+    new Random(42).nextBytes(chunk);
+    String[] names = { "face/face.png", "voice/voice.flac", "finger/finger.png" };
+    Path file = Files.createTempFile(tempDirectory, "benchmark_", ".zip");
+    try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(file))) {
+      zip.setLevel(Deflater.NO_COMPRESSION);
+      zip.putNextEntry(new ZipEntry("info.json"));
+      zip.write("{\"name\":\"benchmark\"}".getBytes(StandardCharsets.UTF_8));
+      zip.closeEntry();
+      for (int i = 0; i < names.length; i++) {
+        zip.putNextEntry(new ZipEntry(names[i]));
+        int entryMegabytes = megabytes / names.length + (i < megabytes % names.length ? 1 : 0);
+        for (int j = 0; j < entryMegabytes; j++) {
+          zip.write(chunk);
+        }
+        zip.closeEntry();
+      }
+    }
+    return file;
+  }
+
+  private static String base64(String value) {
+    return Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static class CountingOutputStream extends OutputStream {
+
+    private long count;
+
+    @Override
+    public void write(int b) {
+      count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      count += len;
+    }
+  }
+}
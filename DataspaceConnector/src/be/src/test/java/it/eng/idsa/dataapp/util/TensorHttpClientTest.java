@@ -0,0 +1,148 @@
+package it.eng.idsa.dataapp.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+
+public class TensorHttpClientTest {
+
+  private HttpServer server;
+  private MeterRegistry meterRegistry;
+  private TensorHttpClient httpClient;
+  private String baseUrl;
+
+  private AtomicInteger inFlight = new AtomicInteger();
+  private AtomicInteger maxInFlight = new AtomicInteger();
+
+  @BeforeEach
+  public void setup() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.setExecutor(Executors.newCachedThreadPool());
+    server.createContext("/echo", exchange -> {
+      byte[] body = exchange.getRequestBody().readAllBytes();
+      exchange.sendResponseHeaders(200, body.length == 0 ? -1 : body.length);
+      exchange.getResponseBody().write(body);
+      exchange.close();
+    });
+    server.createContext("/slow", exchange -> {
+      int current = inFlight.incrementAndGet();
+      maxInFlight.accumulateAndGet(current, Math::max);
+      try {
+        Thread.sleep(100);
+        exchange.sendResponseHeaders(204, -1);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        inFlight.decrementAndGet();
+        exchange.close();
+      }
+    });
+    server.createContext("/missing", exchange -> {
+      byte[] body = "not found".getBytes(StandardCharsets.UTF_8);
+      exchange.sendResponseHeaders(404, body.length);
+      exchange.getResponseBody().write(body);
+      exchange.close();
+    });
+    server.start();
+    baseUrl = "http://localhost:" + server.getAddress().getPort();
+
+    MockEnvironment environment = new MockEnvironment();
+    environment.setProperty("application.http.dsp.maxRequestsPerHost", "2");
+    meterRegistry = new SimpleMeterRegistry();
+    httpClient = new TensorHttpClient(environment, meterRegistry);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    httpClient.shutdown();
+    server.stop(0);
+  }
+
+  @Test
+  public void postJson() throws IOException {
+    Request request = new Request.Builder()
+        .url(baseUrl + "/echo")
+        .post(RequestBody.create("{\"read\":true}", TensorHttpClient.JSON))
+        .build();
+
+    TensorHttpClient.Result result = httpClient.execute(TensorHttpClient.DSP, "echo", request);
+
+    assertTrue(result.isSuccessful());
+    assertEquals("{\"read\":true}", result.getBodyAsString());
+    assertEquals(1, meterRegistry.get("tensor.http.client.requests")
+        .tag("destination", "dsp").tag("endpoint", "echo").tag("status", "200").timer().count());
+  }
+
+  @Test
+  public void streamedBody() throws IOException {
+    byte[] payload = new byte[256 * 1024];
+    for (int i = 0; i < payload.length; i++) {
+      payload[i] = (byte) i;
+    }
+    Request request = new Request.Builder()
+        .url(baseUrl + "/echo")
+        .post(TensorHttpClient.streamBody(new ByteArrayInputStream(payload), TensorHttpClient.OCTET_STREAM, payload.length))
+        .build();
+
+    TensorHttpClient.Result result = httpClient.execute(TensorHttpClient.ENCRYPTOR, "echo", request);
+
+    assertArrayEquals(payload, result.getBody());
+  }
+
+  @Test
+  public void errorResponseIsReturned() throws IOException {
+    Request request = new Request.Builder().url(baseUrl + "/missing").get().build();
+
+    TensorHttpClient.Result result = httpClient.execute(TensorHttpClient.CMS, "missing", request);
+
+    assertFalse(result.isSuccessful());
+    assertEquals(404, result.getCode());
+    assertEquals("not found", result.getBodyAsString());
+  }
+
+  @Test
+  public void connectionFailureThrowsIOException() {
+    server.stop(0);
+    Request request = new Request.Builder().url(baseUrl + "/echo").get().build();
+
+    assertThrows(IOException.class, () -> httpClient.execute(TensorHttpClient.INDEXER, "echo", request));
+    assertEquals(1, meterRegistry.get("tensor.http.client.requests")
+        .tag("destination", "indexer").tag("status", "IO_ERROR").timer().count());
+  }
+
+  @Test
+  public void concurrentCallsAreLimitedPerHost() {
+    List<CompletableFuture<TensorHttpClient.Result>> futures = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      futures.add(httpClient.executeAsync(TensorHttpClient.DSP, "slow",
+          new Request.Builder().url(baseUrl + "/slow").get().build()));
+    }
+    futures.forEach(f -> assertEquals(204, f.join().getCode()));
+
+    assertTrue(maxInFlight.get() <= 2);
+  }
+}
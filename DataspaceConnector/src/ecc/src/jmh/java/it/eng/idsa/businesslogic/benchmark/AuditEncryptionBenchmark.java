@@ -0,0 +1,100 @@
+package it.eng.idsa.businesslogic.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.security.spec.KeySpec;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import it.eng.idsa.businesslogic.util.AesGcmCrypto;
+
+/**
+ * Encrypt and decrypt operations per second of an audit event. <code>keyDerivation=perCall</code> derives the key
+ * with PBKDF2 on every operation and creates a new SecureRandom per value, as AES256 did before the keys were derived
+ * once; <code>once</code> is {@link AesGcmCrypto}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class AuditEncryptionBenchmark {
+
+	private static final String SECRET = "FPrnUtKJIGX1EMs";
+	private static final String SALT = "hd2y3vxlLv";
+
+	@Param({ "perCall", "once" })
+	private String keyDerivation;
+
+	@Param({ "256", "4096" })
+	private int size;
+
+	private AesGcmCrypto crypto;
+	private String event;
+	private String encrypted;
+
+	@Setup
+	public void setup() throws GeneralSecurityException {
+		crypto = new AesGcmCrypto("1", Map.of("1", SECRET), SALT);
+		event = Payloads.text(size);
+		encrypted = "once".equals(keyDerivation) ? crypto.encrypt(event) : encryptPerCall(event);
+	}
+
+	@Benchmark
+	public String encrypt() throws GeneralSecurityException {
+		return "once".equals(keyDerivation) ? crypto.encrypt(event) : encryptPerCall(event);
+	}
+
+	@Benchmark
+	public String decrypt() throws GeneralSecurityException {
+		return "once".equals(keyDerivation) ? crypto.decrypt(encrypted) : decryptPerCall(encrypted);
+	}
+
+	private static String encryptPerCall(String value) throws GeneralSecurityException {
+		byte[] iv = new byte[16];
+		new SecureRandom().nextBytes(iv);
+		Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+		cipher.init(Cipher.ENCRYPT_MODE, deriveKey(), new GCMParameterSpec(128, iv));
+		byte[] cipherText = cipher.doFinal(value.getBytes(StandardCharsets.UTF_8));
+		byte[] encryptedData = new byte[iv.length + cipherText.length];
+		System.arraycopy(iv, 0, encryptedData, 0, iv.length);
+		System.arraycopy(cipherText, 0, encryptedData, iv.length, cipherText.length);
+		return Base64.getEncoder().encodeToString(encryptedData);
+	}
+
+	private static String decryptPerCall(String value) throws GeneralSecurityException {
+		byte[] encryptedData = Base64.getDecoder().decode(value);
+		Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+		cipher.init(Cipher.DECRYPT_MODE, deriveKey(), new GCMParameterSpec(128, encryptedData, 0, 16));
+		return new String(cipher.doFinal(encryptedData, 16, encryptedData.length - 16), StandardCharsets.UTF_8);
+	}
+
+	private static SecretKeySpec deriveKey() throws GeneralSecurityException {
+		SecretKeyFactory factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
+		KeySpec spec = new PBEKeySpec(SECRET.toCharArray(), SALT.getBytes(), 65536, 256);
+		return new SecretKeySpec(factory.generateSecret(spec).getEncoded(), "AES");
+	}
+}
@@ -0,0 +1,124 @@
+package it.eng.idsa.businesslogic.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import it.eng.idsa.businesslogic.entity.AuditLog;
+import it.eng.idsa.businesslogic.repository.AuditLogQueryRepository;
+import it.eng.idsa.businesslogic.service.AuditEventService;
+import it.eng.idsa.businesslogic.service.AuditLogPage;
+import it.eng.idsa.businesslogic.util.AES256;
+
+/**
+ * Audit log queries on 1 million rows in H2 with the AuditLogs indexes. <code>allEvents</code> reads and decrypts every
+ * row, as <code>/api/audit/</code> did before pagination; the others read and write one page of 100 audit logs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuditQueryBenchmark {
+
+	private static final int ROWS = 1_000_000;
+	private static final int PAGE_SIZE = 100;
+	private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+	private JdbcTemplate jdbcTemplate;
+	private ObjectMapper objectMapper;
+	private AuditEventService auditEventService;
+	private String deepCursor;
+
+	@Setup
+	public void setup() {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(
+				"jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("CREATE TABLE audit_logs (id BIGINT PRIMARY KEY, timestamp TIMESTAMP, event_type VARCHAR(64), "
+				+ "correlation_id VARCHAR(255), event CLOB)");
+		// same ciphertext for every row, encrypting 1 million events would dominate the setup
+		jdbcTemplate.update("INSERT INTO audit_logs SELECT X, DATEADD(SECOND, X, ?), 'EVENT_' || MOD(X, 10), "
+				+ "'correlation-' || (X / 10), ? FROM SYSTEM_RANGE(1, " + ROWS + ")",
+				Timestamp.valueOf(START), AES256.encrypt(Payloads.text(512)));
+		jdbcTemplate.execute("CREATE INDEX idx_audit_logs_timestamp ON audit_logs (timestamp, id)");
+		jdbcTemplate.execute("CREATE INDEX idx_audit_logs_event_type ON audit_logs (event_type, timestamp, id)");
+		jdbcTemplate.execute("CREATE INDEX idx_audit_logs_correlation_id ON audit_logs (correlation_id)");
+
+		objectMapper = new ObjectMapper().findAndRegisterModules()
+				.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+		auditEventService = new AuditEventService();
+		ReflectionTestUtils.setField(auditEventService, "auditLogQueryRepository", new AuditLogQueryRepository(jdbcTemplate));
+		ReflectionTestUtils.setField(auditEventService, "objectMapper", objectMapper);
+		ReflectionTestUtils.setField(auditEventService, "maxPageSize", 1000);
+		deepCursor = auditEventService.getAuditEvents(START.plusSeconds(ROWS - ROWS / 10), null, null, null, null, 1)
+				.getNextCursor();
+	}
+
+	@TearDown
+	public void tearDown() {
+		jdbcTemplate.execute("SHUTDOWN");
+	}
+
+	@Benchmark
+	public void allEvents() throws IOException {
+		List<AuditLog> logs = jdbcTemplate.query("SELECT id, timestamp, event_type, correlation_id, event FROM audit_logs",
+				(rs, rowNum) -> {
+					AuditLog auditLog = new AuditLog();
+					auditLog.setId(rs.getLong("id"));
+					auditLog.setTimestamp(rs.getTimestamp("timestamp").toLocalDateTime());
+					auditLog.setEventType(rs.getString("event_type"));
+					auditLog.setCorrelationId(rs.getString("correlation_id"));
+					auditLog.setEvent(AES256.decrypt(rs.getString("event")));
+					return auditLog;
+				});
+		objectMapper.writeValue(OutputStream.nullOutputStream(), logs);
+	}
+
+	@Benchmark
+	public void firstPage() throws IOException {
+		write(auditEventService.getAuditEvents(null, null, null, null, null, PAGE_SIZE));
+	}
+
+	@Benchmark
+	public void deepPage() throws IOException {
+		write(auditEventService.getAuditEvents(null, null, null, null, deepCursor, PAGE_SIZE));
+	}
+
+	@Benchmark
+	public void eventTypePage() throws IOException {
+		write(auditEventService.getAuditEvents(START.plusDays(5), null, "EVENT_3", null, null, PAGE_SIZE));
+	}
+
+	@Benchmark
+	public void correlationId() throws IOException {
+		write(auditEventService.getAuditEvents(null, null, null, "correlation-54321", null, PAGE_SIZE));
+	}
+
+	private void write(AuditLogPage page) throws IOException {
+		auditEventService.writeAuditEvents(page, OutputStream.nullOutputStream());
+	}
+}
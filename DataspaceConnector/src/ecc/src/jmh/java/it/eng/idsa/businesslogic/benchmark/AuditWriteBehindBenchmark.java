@@ -0,0 +1,122 @@
+package it.eng.idsa.businesslogic.benchmark;
+
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan.Filter;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.eng.idsa.businesslogic.entity.AuditLog;
+import it.eng.idsa.businesslogic.repository.AuditEventRepository;
+import it.eng.idsa.businesslogic.service.impl.AuditLogWriteBehind;
+import it.eng.idsa.businesslogic.service.impl.AuditLogWriteBehind.OverflowPolicy;
+
+/**
+ * Audit events persisted to H2 through Hibernate with the JDBC batch size of the connector properties: one save per
+ * event, as before the write-behind, and through {@link AuditLogWriteBehind}. Time is per event; the write-behind
+ * invocation includes waiting until all events are written.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuditWriteBehindBenchmark {
+
+	private static final int EVENTS = 1000;
+
+	private AnnotationConfigApplicationContext context;
+	private AuditEventRepository auditEventRepository;
+
+	@Setup
+	public void setup() {
+		context = new AnnotationConfigApplicationContext(JpaConfiguration.class);
+		auditEventRepository = context.getBean(AuditEventRepository.class);
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(EVENTS)
+	public void savePerEvent() {
+		for (int i = 0; i < EVENTS; i++) {
+			// entity encrypts in constructor, one transaction per event
+			auditEventRepository.save(new AuditLog("event " + i));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(EVENTS)
+	public void writeBehind() {
+		AuditLogWriteBehind writeBehind = new AuditLogWriteBehind(auditEventRepository, true, 2 * EVENTS, 200, 100,
+				OverflowPolicy.BLOCK, new SimpleMeterRegistry());
+		writeBehind.startFlusher();
+		for (int i = 0; i < EVENTS; i++) {
+			writeBehind.submit("event " + i);
+		}
+		writeBehind.stopFlusher();
+	}
+
+	@Configuration
+	@EnableTransactionManagement
+	@EnableJpaRepositories(basePackageClasses = AuditEventRepository.class, includeFilters = @Filter(
+			type = FilterType.ASSIGNABLE_TYPE, classes = AuditEventRepository.class))
+	static class JpaConfiguration {
+
+		@Bean
+		public DataSource dataSource() {
+			return new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+		}
+
+		@Bean
+		public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+			Properties properties = new Properties();
+			properties.put("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+			properties.put("hibernate.hbm2ddl.auto", "create");
+			properties.put("hibernate.jdbc.batch_size", "200");
+			properties.put("hibernate.order_inserts", "true");
+			LocalContainerEntityManagerFactoryBean entityManagerFactory = new LocalContainerEntityManagerFactoryBean();
+			entityManagerFactory.setDataSource(dataSource);
+			entityManagerFactory.setPackagesToScan(AuditLog.class.getPackageName());
+			entityManagerFactory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+			entityManagerFactory.setJpaProperties(properties);
+			return entityManagerFactory;
+		}
+
+		@Bean
+		public PlatformTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+			return new JpaTransactionManager(entityManagerFactory);
+		}
+	}
+}
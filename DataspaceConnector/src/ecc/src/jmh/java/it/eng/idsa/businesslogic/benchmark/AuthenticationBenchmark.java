@@ -0,0 +1,86 @@
+package it.eng.idsa.businesslogic.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import it.eng.idsa.businesslogic.service.auth.AuthManager;
+import it.eng.idsa.businesslogic.service.auth.AuthenticationCache;
+import it.eng.idsa.businesslogic.service.user.InMemoryUserCrudService;
+import it.eng.idsa.businesslogic.service.user.LoginAttemptService;
+import it.eng.idsa.businesslogic.service.user.UserConfiguration;
+
+/**
+ * Cost of authenticating one request to a Camel endpoint with default BCrypt strength, among <code>users</code>
+ * configured users. <code>ttlSeconds=0</code> checks BCrypt on every request, as before the authentication cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class AuthenticationBenchmark {
+
+	@Param({ "0", "60" })
+	private int ttlSeconds;
+
+	@Param({ "1", "100" })
+	private int users;
+
+	private AuthManager authManager;
+	private InMemoryUserCrudService userService;
+	private Authentication authentication;
+
+	@Setup
+	public void setup() {
+		PasswordEncoder encoder = new BCryptPasswordEncoder();
+		String passwordHash = encoder.encode("password");
+		MockEnvironment environment = new MockEnvironment();
+		StringBuilder usersList = new StringBuilder();
+		for (int i = 0; i < users; i++) {
+			usersList.append(i == 0 ? "" : ",").append("user").append(i);
+			environment.setProperty("user" + i + ".password", passwordHash);
+		}
+		environment.setProperty("users.list", usersList.toString());
+
+		AuthenticationCache authenticationCache = new AuthenticationCache(ttlSeconds, 1000);
+		LoginAttemptService loginAttemptService = new LoginAttemptService(30, "MINUTES", 5);
+		userService = new InMemoryUserCrudService();
+		ReflectionTestUtils.setField(userService, "userConfiguration", new UserConfiguration(environment));
+		ReflectionTestUtils.setField(userService, "loginAttemptService", loginAttemptService);
+		ReflectionTestUtils.setField(userService, "encoder", encoder);
+		ReflectionTestUtils.setField(userService, "authenticationCache", authenticationCache);
+		userService.setup();
+		authManager = new AuthManager(encoder, userService, authenticationCache, loginAttemptService);
+		authentication = new UsernamePasswordAuthenticationToken("user" + (users - 1), "password");
+	}
+
+	@Benchmark
+	public Object authenticate() {
+		return authManager.authenticate(authentication);
+	}
+
+	@Benchmark
+	public Object findByUsernameAndPassword() {
+		return userService.findByUsernameAndPassword("user" + (users - 1), "password");
+	}
+}
@@ -0,0 +1,82 @@
+package it.eng.idsa.businesslogic.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ContentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.fraunhofer.iais.eis.Message;
+import it.eng.idsa.businesslogic.service.impl.MultipartMessageServiceImpl;
+import it.eng.idsa.businesslogic.util.JwTokenUtil;
+import it.eng.idsa.businesslogic.util.MultipartMessageUtil;
+import it.eng.idsa.multipart.domain.MultipartMessage;
+import it.eng.idsa.multipart.processor.MultipartMessageProcessor;
+import it.eng.idsa.multipart.util.UtilMessageService;
+
+/**
+ * Multipart message creation (HttpEntity sent to the other connector), parsing of received multipart message and
+ * adding DAPS token to the message header
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MultipartMessageBenchmark {
+
+	@Param({ "1024", "1048576", "10485760" })
+	private int payloadSize;
+
+	private MultipartMessageServiceImpl multipartMessageService;
+	private Message message;
+	private String header;
+	private String payload;
+	private String token;
+	private String multipartMessageString;
+
+	@Setup
+	public void setup() throws IOException {
+		multipartMessageService = new MultipartMessageServiceImpl();
+		message = UtilMessageService.getArtifactResponseMessage();
+		header = MultipartMessageProcessor.serializeToJsonLD(message);
+		payload = Payloads.text(payloadSize);
+		token = JwTokenUtil.generateToken(false);
+		MultipartMessage multipartMessage = MultipartMessageUtil.getMultipartMessage(message, payload);
+		multipartMessageString = MultipartMessageProcessor.multipartMessagetoString(multipartMessage, false, Boolean.TRUE);
+	}
+
+	/**
+	 * Entity is written out, building it alone does not serialize the parts
+	 */
+	@Benchmark
+	public byte[] createMultipartMessage() throws IOException {
+		HttpEntity entity = multipartMessageService.createMultipartMessage(header, payload, null, ContentType.TEXT_PLAIN);
+		ByteArrayOutputStream out = new ByteArrayOutputStream(payloadSize + header.length() + 1024);
+		entity.writeTo(out);
+		return out.toByteArray();
+	}
+
+	@Benchmark
+	public MultipartMessage parseMultipartMessage() {
+		return MultipartMessageProcessor.parseMultipartMessage(multipartMessageString);
+	}
+
+	@Benchmark
+	public String addToken() {
+		return multipartMessageService.addToken(message, token);
+	}
+}
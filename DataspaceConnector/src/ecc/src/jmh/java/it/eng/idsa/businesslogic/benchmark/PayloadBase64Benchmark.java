@@ -0,0 +1,103 @@
+package it.eng.idsa.businesslogic.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import it.eng.idsa.businesslogic.processor.common.DeModifyPayloadProcessor;
+import it.eng.idsa.businesslogic.processor.common.ModifyPayloadProcessor;
+import it.eng.idsa.businesslogic.service.impl.PayloadTransformationServiceImpl;
+import it.eng.idsa.businesslogic.util.MultipartMessageUtil;
+import it.eng.idsa.multipart.domain.MultipartMessage;
+import it.eng.idsa.multipart.util.UtilMessageService;
+
+/**
+ * Base64 encoding and decoding of ArtifactResponseMessage payload, done by the processors when
+ * <code>application.encodeDecodePayload=true</code>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadBase64Benchmark {
+
+	@Param({ "1024", "1048576", "10485760" })
+	private int payloadSize;
+
+	private CamelContext camelContext;
+	private ModifyPayloadProcessor modifyPayloadProcessor;
+	private DeModifyPayloadProcessor deModifyPayloadProcessor;
+	private MultipartMessage plainMessage;
+	private MultipartMessage encodedMessage;
+
+	@Setup
+	public void setup() throws Exception {
+		camelContext = new DefaultCamelContext();
+		PayloadTransformationServiceImpl payloadTransformationService = new PayloadTransformationServiceImpl(List.of(),
+				1048576, System.getProperty("java.io.tmpdir"));
+		modifyPayloadProcessor = new ModifyPayloadProcessor();
+		ReflectionTestUtils.setField(modifyPayloadProcessor, "encodeDecodePayload", Boolean.TRUE);
+		ReflectionTestUtils.setField(modifyPayloadProcessor, "payloadTransformationService", payloadTransformationService);
+		deModifyPayloadProcessor = new DeModifyPayloadProcessor();
+		ReflectionTestUtils.setField(deModifyPayloadProcessor, "encodeDecodePayload", Boolean.TRUE);
+		ReflectionTestUtils.setField(deModifyPayloadProcessor, "payloadTransformationService", payloadTransformationService);
+
+		plainMessage = MultipartMessageUtil.getMultipartMessage(UtilMessageService.getArtifactResponseMessage(),
+				Payloads.text(payloadSize));
+		Exchange exchange = exchange(plainMessage);
+		modifyPayloadProcessor.process(exchange);
+		encodedMessage = exchange.getMessage().getBody(MultipartMessage.class);
+	}
+
+	@TearDown
+	public void tearDown() {
+		camelContext.stop();
+	}
+
+	@Benchmark
+	public Object encode() throws Exception {
+		Exchange exchange = exchange(plainMessage);
+		modifyPayloadProcessor.process(exchange);
+		return exchange.getMessage().getBody();
+	}
+
+	@Benchmark
+	public Object decode() throws Exception {
+		Exchange exchange = exchange(encodedMessage);
+		deModifyPayloadProcessor.process(exchange);
+		return exchange.getMessage().getBody();
+	}
+
+	@Benchmark
+	public Object roundTrip() throws Exception {
+		Exchange exchange = exchange(plainMessage);
+		modifyPayloadProcessor.process(exchange);
+		deModifyPayloadProcessor.process(exchange);
+		return exchange.getMessage().getBody();
+	}
+
+	private Exchange exchange(MultipartMessage body) {
+		Exchange exchange = new DefaultExchange(camelContext);
+		exchange.getMessage().setBody(body);
+		return exchange;
+	}
+}
@@ -0,0 +1,142 @@
+package it.eng.idsa.businesslogic.benchmark;
+
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import it.eng.idsa.businesslogic.processor.common.DeModifyPayloadProcessor;
+import it.eng.idsa.businesslogic.processor.common.ModifyPayloadProcessor;
+import it.eng.idsa.businesslogic.service.impl.PayloadTransformationServiceImpl;
+import it.eng.idsa.businesslogic.util.MultipartMessageUtil;
+import it.eng.idsa.multipart.builder.MultipartMessageBuilder;
+import it.eng.idsa.multipart.domain.MultipartMessage;
+import it.eng.idsa.multipart.util.UtilMessageService;
+
+/**
+ * Payload steps of the sender and receiver routes for one ArtifactResponseMessage, without the network hops:
+ * <ul>
+ * <li>sender - encode request, decode response, encode response for the data app</li>
+ * <li>receiver - decode request, encode for the data app, decode data app response, encode response</li>
+ * </ul>
+ * <code>disabled</code> is <code>application.encodeDecodePayload=false</code>, <code>legacy</code> the whole String
+ * Base64 encoding done by the processors before and <code>stage</code> the current processors. Run with
+ * <code>-prof gc</code> to compare allocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadRouteBenchmark {
+
+	@Param({ "1024", "1048576", "10485760" })
+	private int payloadSize;
+
+	@Param({ "disabled", "legacy", "stage" })
+	private String mode;
+
+	private CamelContext camelContext;
+	private Processor modify;
+	private Processor deModify;
+	private MultipartMessage plainMessage;
+	private MultipartMessage encodedMessage;
+
+	@Setup
+	public void setup() throws Exception {
+		camelContext = new DefaultCamelContext();
+		if ("legacy".equals(mode)) {
+			modify = PayloadRouteBenchmark::legacyModify;
+			deModify = PayloadRouteBenchmark::legacyDeModify;
+		} else {
+			PayloadTransformationServiceImpl payloadTransformationService = new PayloadTransformationServiceImpl(List.of(),
+					1048576, System.getProperty("java.io.tmpdir"));
+			ModifyPayloadProcessor modifyPayloadProcessor = new ModifyPayloadProcessor();
+			ReflectionTestUtils.setField(modifyPayloadProcessor, "encodeDecodePayload", "stage".equals(mode));
+			ReflectionTestUtils.setField(modifyPayloadProcessor, "payloadTransformationService", payloadTransformationService);
+			DeModifyPayloadProcessor deModifyPayloadProcessor = new DeModifyPayloadProcessor();
+			ReflectionTestUtils.setField(deModifyPayloadProcessor, "encodeDecodePayload", "stage".equals(mode));
+			ReflectionTestUtils.setField(deModifyPayloadProcessor, "payloadTransformationService", payloadTransformationService);
+			modify = modifyPayloadProcessor;
+			deModify = deModifyPayloadProcessor;
+		}
+		plainMessage = MultipartMessageUtil.getMultipartMessage(UtilMessageService.getArtifactResponseMessage(),
+				Payloads.text(payloadSize));
+		Exchange exchange = exchange(plainMessage);
+		modify.process(exchange);
+		encodedMessage = exchange.getMessage().getBody(MultipartMessage.class);
+	}
+
+	@TearDown
+	public void tearDown() {
+		camelContext.stop();
+	}
+
+	@Benchmark
+	public Object senderRoute() throws Exception {
+		Exchange exchange = exchange(plainMessage);
+		modify.process(exchange);
+		// response received from the other connector
+		exchange.getMessage().setBody(encodedMessage);
+		deModify.process(exchange);
+		modify.process(exchange);
+		return exchange.getMessage().getBody();
+	}
+
+	@Benchmark
+	public Object receiverRoute() throws Exception {
+		Exchange exchange = exchange(encodedMessage);
+		deModify.process(exchange);
+		modify.process(exchange);
+		// response received from the data app
+		deModify.process(exchange);
+		modify.process(exchange);
+		return exchange.getMessage().getBody();
+	}
+
+	private Exchange exchange(MultipartMessage body) {
+		Exchange exchange = new DefaultExchange(camelContext);
+		exchange.getMessage().setBody(body);
+		return exchange;
+	}
+
+	private static void legacyModify(Exchange exchange) {
+		MultipartMessage mm = exchange.getMessage().getBody(MultipartMessage.class);
+		exchange.getMessage().setBody(withPayload(mm, Base64.getEncoder().encodeToString(mm.getPayloadContent().getBytes())));
+	}
+
+	private static void legacyDeModify(Exchange exchange) {
+		MultipartMessage mm = exchange.getMessage().getBody(MultipartMessage.class);
+		exchange.getMessage().setBody(withPayload(mm, new String(Base64.getDecoder().decode(mm.getPayloadContent()))));
+	}
+
+	private static MultipartMessage withPayload(MultipartMessage mm, String payload) {
+		return new MultipartMessageBuilder()
+				.withHttpHeader(mm.getHttpHeaders())
+				.withHeaderHeader(mm.getHeaderHeader())
+				.withHeaderContent(mm.getHeaderContent())
+				.withPayloadHeader(mm.getPayloadHeader())
+				.withPayloadContent(payload)
+				.withToken(mm.getToken())
+				.build();
+	}
+}
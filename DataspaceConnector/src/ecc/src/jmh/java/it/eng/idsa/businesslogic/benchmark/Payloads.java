@@ -0,0 +1,27 @@
+package it.eng.idsa.businesslogic.benchmark;
+
+import java.util.Random;
+
+/**
+ * Deterministic payloads, so results of different commits are measured on the same input
+ */
+final class Payloads {
+
+	private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789 ,.{}\":";
+
+	private Payloads() {
+	}
+
+	/**
+	 * @param size number of characters
+	 * @return ASCII text of the given size
+	 */
+	static String text(int size) {
+		Random random = new Random(size);
+		StringBuilder sb = new StringBuilder(size);
+		for (int i = 0; i < size; i++) {
+			sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,101 @@
+package it.eng.idsa.businesslogic.benchmark;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.fraunhofer.iais.eis.BaseConnectorBuilder;
+import de.fraunhofer.iais.eis.Connector;
+import de.fraunhofer.iais.eis.ConnectorEndpointBuilder;
+import de.fraunhofer.iais.eis.DataResourceBuilder;
+import de.fraunhofer.iais.eis.Resource;
+import de.fraunhofer.iais.eis.ResourceCatalogBuilder;
+import de.fraunhofer.iais.eis.SecurityProfile;
+import de.fraunhofer.iais.eis.util.TypedLiteral;
+import de.fraunhofer.iais.eis.util.Util;
+import it.eng.idsa.businesslogic.service.impl.SelfDescriptionServiceImpl;
+import it.eng.idsa.businesslogic.service.impl.resources.SelfDescriptionUtil;
+import it.eng.idsa.businesslogic.service.resources.SelfDescription;
+import it.eng.idsa.businesslogic.service.resources.SelfDescriptionManager;
+import it.eng.idsa.multipart.util.UtilMessageService;
+
+/**
+ * Self description document returned by {@link SelfDescriptionServiceImpl#getConnector()}, for unchanged document and
+ * right after the document was changed
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SelfDescriptionBenchmark {
+
+	@Param({ "10", "100", "1000" })
+	private int resourceCount;
+
+	private SelfDescriptionServiceImpl selfDescriptionService;
+	private Connector connector;
+
+	@Setup
+	public void setup() {
+		selfDescriptionService = new SelfDescriptionServiceImpl(null, Optional.empty(), new SelfDescriptionManager(), null, null);
+		connector = connector(resourceCount);
+		SelfDescription.getInstance().setBaseConnector(connector);
+	}
+
+	@Benchmark
+	public Connector getConnector() {
+		return selfDescriptionService.getConnector();
+	}
+
+	@Benchmark
+	public Connector getConnectorAfterChange() {
+		SelfDescription.getInstance().setBaseConnector(connector);
+		return selfDescriptionService.getConnector();
+	}
+
+	private Connector connector(int resources) {
+		URI catalogId = URI.create("http://catalog.com/1");
+		ArrayList<Resource> offeredResources = new ArrayList<>(resources);
+		for (int i = 0; i < resources; i++) {
+			URI resourceId = URI.create("http://w3id.org/engrd/connector/resource/" + i);
+			URI artifactId = URI.create("http://w3id.org/engrd/connector/artifact/" + i);
+			offeredResources.add(new DataResourceBuilder(resourceId)
+					._title_(Util.asList(new TypedLiteral("Resource title " + i)))
+					._description_(Util.asList(new TypedLiteral("Resource description " + i)))
+					._version_("1.0.0")
+					._contractOffer_(Util.asList(SelfDescriptionUtil.createContractOffer(artifactId, "1", String.valueOf(i), "1")))
+					._representation_(Util.asList(SelfDescriptionUtil.getDataRepresentation(
+							URI.create("https://w3id.org/idsa/autogen/representation/" + i),
+							SelfDescriptionUtil.getArtifact(artifactId, "file_" + i + ".pdf"))))
+					.build());
+		}
+		return new BaseConnectorBuilder(URI.create("http://w3id.org/engrd/connector"))
+				._maintainer_(URI.create("http://maintainer.com"))
+				._curator_(URI.create("http://curator.com"))
+				._resourceCatalog_(Util.asList(new ResourceCatalogBuilder(catalogId)._offeredResource_(offeredResources).build()))
+				._securityProfile_(SecurityProfile.BASE_SECURITY_PROFILE)
+				._inboundModelVersion_(Util.asList(UtilMessageService.MODEL_VERSION))
+				._outboundModelVersion_(UtilMessageService.MODEL_VERSION)
+				._title_(Util.asList(new TypedLiteral("Self description title")))
+				._description_(Util.asList(new TypedLiteral("Self description description")))
+				._hasDefaultEndpoint_(new ConnectorEndpointBuilder(URI.create("https://default.endpoint.com"))
+						._accessURL_(URI.create("https://default.endpoint.com"))
+						.build())
+				.build();
+	}
+}
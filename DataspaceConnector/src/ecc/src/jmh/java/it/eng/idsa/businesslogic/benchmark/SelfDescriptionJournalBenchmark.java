@@ -0,0 +1,132 @@
+package it.eng.idsa.businesslogic.benchmark;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.FileSystemUtils;
+
+import de.fraunhofer.iais.eis.Connector;
+import de.fraunhofer.iais.eis.ImageResourceBuilder;
+import de.fraunhofer.iais.eis.Resource;
+import de.fraunhofer.iais.eis.ResourceCatalog;
+import de.fraunhofer.iais.eis.util.TypedLiteral;
+import de.fraunhofer.iais.eis.util.Util;
+import it.eng.idsa.businesslogic.configuration.SelfDescriptionConfiguration;
+import it.eng.idsa.businesslogic.service.impl.resources.SelfDescriptionUtil;
+import it.eng.idsa.businesslogic.service.resources.SelfDescription;
+import it.eng.idsa.businesslogic.service.resources.SelfDescriptionChange;
+import it.eng.idsa.businesslogic.service.resources.SelfDescriptionManager;
+import it.eng.idsa.multipart.processor.MultipartMessageProcessor;
+
+/**
+ * Lookup of an offered resource in the indexed published document and by scanning a connector, and a change persisted
+ * through the journal compared to rewriting the whole document. Changes update an existing resource, so the document
+ * does not grow during the run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SelfDescriptionJournalBenchmark {
+
+	private static final URI CATALOG_1 = URI.create("http://catalog.com/1");
+
+	@Param({ "100", "2000" })
+	private int resourceCount;
+
+	private Path directory;
+	private SelfDescriptionManager manager;
+	private Connector published;
+	private Connector scanned;
+	private List<URI> ids;
+	private int next;
+
+	@Setup
+	public void setup() throws IOException {
+		directory = Files.createTempDirectory("self-description-benchmark");
+		SelfDescriptionConfiguration configuration = mock(SelfDescriptionConfiguration.class);
+		when(configuration.getFileLocation()).thenReturn(directory.toString());
+		manager = new SelfDescriptionManager();
+		ReflectionTestUtils.setField(manager, "selfDescriptionConfiguration", configuration);
+		ReflectionTestUtils.setField(manager, "compactionThreshold", 100);
+
+		Connector connector = SelfDescriptionUtil.getBaseConnector();
+		ResourceCatalog catalog = connector.getResourceCatalog().get(0);
+		ids = new ArrayList<>(resourceCount);
+		for (int i = 0; i < resourceCount; i++) {
+			Resource resource = resource("http://resource.com/bench/" + i, 0);
+			catalog.getOfferedResource().add(resource);
+			ids.add(resource.getId());
+		}
+		SelfDescription.getInstance().setBaseConnector(connector);
+		manager.saveConnector();
+		published = SelfDescription.getInstance().getSnapshot().getConnector();
+		// not published, searched the same way as before indexing
+		scanned = SelfDescription.getInstance().getSnapshot().copyConnector();
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		FileSystemUtils.deleteRecursively(directory);
+	}
+
+	@Benchmark
+	public Resource lookupIndexed() {
+		return manager.getOfferedResource(published, nextId());
+	}
+
+	@Benchmark
+	public Resource lookupScan() {
+		return manager.getOfferedResource(scanned, nextId());
+	}
+
+	@Benchmark
+	public Connector changeWithJournal() {
+		return manager.applyChange(SelfDescriptionChange.updateOfferedResource(CATALOG_1, resource(nextId().toString(), next)));
+	}
+
+	/**
+	 * Previous behaviour - modify in place and rewrite the whole document
+	 */
+	@Benchmark
+	public Connector changeWithDocumentRewrite() throws IOException {
+		manager.updateOfferedResource(scanned, CATALOG_1, resource(nextId().toString(), next));
+		Files.writeString(directory.resolve(SelfDescriptionConfiguration.SELF_DESCRIPTION_FILE_NAME),
+				MultipartMessageProcessor.serializeToJsonLD(scanned));
+		return scanned;
+	}
+
+	private URI nextId() {
+		next = (next + 1) % resourceCount;
+		return ids.get(next);
+	}
+
+	private static Resource resource(String id, int revision) {
+		return new ImageResourceBuilder(URI.create(id))
+				._title_(Util.asList(new TypedLiteral("Image resource " + id + " revision " + revision)))
+				.build();
+	}
+}
@@ -0,0 +1,132 @@
+package it.eng.idsa.businesslogic.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import it.eng.idsa.businesslogic.service.impl.OkHttpSenderClientServiceImpl;
+import it.eng.idsa.businesslogic.util.MultipartMessageUtil;
+import it.eng.idsa.businesslogic.util.StreamingMultipartReader;
+import it.eng.idsa.multipart.domain.MultipartMessage;
+import it.eng.idsa.multipart.processor.MultipartMessageProcessor;
+import it.eng.idsa.multipart.util.UtilMessageService;
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import okio.BufferedSink;
+import okio.Okio;
+
+/**
+ * Multipart body sent to the other connector and multipart response read back. <code>sendString</code> and
+ * <code>receiveString</code> are the previous implementation: parts created from Strings, response read into one
+ * String and parsed by the multipart library. <code>receiveParts</code> reads the parts only, spilling parts over 1 MB
+ * to a temporary file. Allocation per operation is reported with <code>-Djmh.args="-prof gc"</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StreamingMultipartBenchmark {
+
+	private static final int SPILL_THRESHOLD = 1024 * 1024;
+
+	@Param({ "1024", "1048576", "10485760" })
+	private int payloadSize;
+
+	private OkHttpSenderClientServiceImpl senderClientService;
+	private StreamingMultipartReader reader;
+	private MultipartMessage multipartMessage;
+	private Path directory;
+	private Path received;
+	private MediaType contentType;
+
+	@Setup
+	public void setup() throws IOException {
+		senderClientService = new OkHttpSenderClientServiceImpl();
+		directory = Files.createTempDirectory("multipart-benchmark");
+		reader = new StreamingMultipartReader(SPILL_THRESHOLD, Long.MAX_VALUE, directory.toString());
+		multipartMessage = MultipartMessageUtil.getMultipartMessage(UtilMessageService.getArtifactResponseMessage(),
+				Payloads.text(payloadSize));
+		RequestBody body = senderClientService.createMultipartMixRequest(multipartMessage, "text/plain");
+		received = directory.resolve("received");
+		try (BufferedSink sink = Okio.buffer(Okio.sink(received))) {
+			body.writeTo(sink);
+		}
+		contentType = body.contentType();
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		FileSystemUtils.deleteRecursively(directory);
+	}
+
+	@Benchmark
+	public void sendString() throws IOException {
+		RequestBody body = new MultipartBody.Builder()
+				.setType(MultipartBody.MIXED)
+				.addPart(Headers.of("Content-Disposition", "form-data; name=\"header\""),
+						RequestBody.create(multipartMessage.getHeaderContentString(), MediaType.get("application/ld+json")))
+				.addPart(Headers.of("Content-Disposition", "form-data; name=\"payload\""),
+						RequestBody.create(multipartMessage.getPayloadContent(), MediaType.get("text/plain")))
+				.build();
+		try (BufferedSink sink = Okio.buffer(Okio.blackhole())) {
+			body.writeTo(sink);
+		}
+	}
+
+	@Benchmark
+	public void sendStreamed() throws IOException {
+		RequestBody body = senderClientService.createMultipartMixRequest(multipartMessage, "text/plain");
+		try (BufferedSink sink = Okio.buffer(Okio.blackhole())) {
+			body.writeTo(sink);
+		}
+	}
+
+	@Benchmark
+	public MultipartMessage receiveString() throws IOException {
+		byte[] buffer = new byte[1024];
+		try (InputStream in = Files.newInputStream(received); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+			for (int length; (length = in.read(buffer)) != -1;) {
+				out.write(buffer, 0, length);
+			}
+			return MultipartMessageProcessor.parseMultipartMessage(out.toString("UTF-8"));
+		}
+	}
+
+	@Benchmark
+	public MultipartMessage receiveStreamed() throws IOException {
+		return reader.read(responseBody());
+	}
+
+	@Benchmark
+	public long receiveParts() throws IOException {
+		try (StreamingMultipartReader.Parts parts = reader.readParts(responseBody())) {
+			return parts.getParts().stream().mapToLong(part -> part.getContent().size()).sum();
+		}
+	}
+
+	private ResponseBody responseBody() throws IOException {
+		return ResponseBody.create(Okio.buffer(Okio.source(received)), contentType, Files.size(received));
+	}
+}
@@ -0,0 +1,82 @@
+package it.eng.idsa.businesslogic.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.fraunhofer.iais.eis.DynamicAttributeTokenBuilder;
+import de.fraunhofer.iais.eis.Message;
+import de.fraunhofer.iais.eis.Token;
+import de.fraunhofer.iais.eis.TokenFormat;
+import it.eng.idsa.businesslogic.util.JwTokenUtil;
+import it.eng.idsa.businesslogic.util.SecurityTokenHeaderWriter;
+import it.eng.idsa.multipart.processor.MultipartMessageProcessor;
+import it.eng.idsa.multipart.util.UtilMessageService;
+
+/**
+ * Adding the DAT token to the message header, as done by <code>GetTokenFromDapsProcessor</code> for every outgoing
+ * message, with headers of different size as serialized by the infomodel serializer. <code>jsonSimple</code> is the
+ * previous implementation: serialize, parse with json-simple, put the token and serialize again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenInjectionBenchmark {
+
+	@Param({ "ArtifactRequestMessage", "ArtifactResponseMessage", "ContractAgreementMessage" })
+	private String messageType;
+
+	private SecurityTokenHeaderWriter securityTokenHeaderWriter;
+	private Message message;
+	private String token;
+
+	@Setup
+	public void setup() throws IOException {
+		securityTokenHeaderWriter = new SecurityTokenHeaderWriter();
+		switch (messageType) {
+		case "ArtifactResponseMessage":
+			message = UtilMessageService.getArtifactResponseMessage();
+			break;
+		case "ContractAgreementMessage":
+			message = UtilMessageService.getContractAgreementMessage();
+			break;
+		default:
+			message = UtilMessageService.getArtifactRequestMessage();
+		}
+		token = JwTokenUtil.generateToken(false);
+	}
+
+	@Benchmark
+	public String singlePass() throws IOException {
+		return securityTokenHeaderWriter.write(message, token);
+	}
+
+	@Benchmark
+	public String jsonSimple() throws IOException, ParseException {
+		String msgSerialized = MultipartMessageProcessor.serializeToJsonLD(message);
+		Token tokenJsonValue = new DynamicAttributeTokenBuilder()._tokenFormat_(TokenFormat.JWT)._tokenValue_(token).build();
+		String tokenValueSerialized = MultipartMessageProcessor.serializeToJsonLD(tokenJsonValue);
+		JSONParser parser = new JSONParser();
+		JSONObject jsonObject = (JSONObject) parser.parse(msgSerialized);
+		JSONObject jsonObjectToken = (JSONObject) parser.parse(tokenValueSerialized);
+		jsonObject.put("ids:securityToken", jsonObjectToken);
+		return MultipartMessageProcessor.serializeToJsonLD(jsonObject);
+	}
+}
@@ -0,0 +1,106 @@
+package it.eng.idsa.businesslogic.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.eng.idsa.businesslogic.service.impl.CommunicationServiceImpl;
+import it.eng.idsa.businesslogic.usagecontrol.service.UsageControlDecisionCache;
+import it.eng.idsa.businesslogic.usagecontrol.service.impl.PlatoonUsageControlServiceImpl;
+
+/**
+ * Usage control enforcement of the same artifact and payload against a loopback usage control app stub answering
+ * without delay. <code>cacheEnabled=false</code> calls the usage control app on every request, as before the decision
+ * cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UsageControlDecisionCacheBenchmark {
+
+	private static final URI CONTRACT_AGREEMENT = URI
+			.create("https://w3id.org/idsa/autogen/contractAgreement/b748af25-051b-43d4-9bc5-432ad7201549");
+	private static final URI ARTIFACT = URI.create("http://w3id.org/engrd/connector/artifact/1");
+	private static final String PAYLOAD = "payload";
+
+	@Param({ "false", "true" })
+	private boolean cacheEnabled;
+
+	private HttpServer stub;
+	private PlatoonUsageControlServiceImpl service;
+
+	@Setup
+	public void setup() throws IOException {
+		stub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		stub.createContext("/enforce/usage/agreement", exchange -> {
+			byte[] body = exchange.getRequestBody().readAllBytes();
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream os = exchange.getResponseBody()) {
+				os.write(body);
+			}
+			exchange.close();
+		});
+		stub.createContext("/contractAgreement/", exchange -> {
+			exchange.sendResponseHeaders(200, -1);
+			exchange.close();
+		});
+		stub.setExecutor(Executors.newCachedThreadPool());
+		stub.start();
+
+		service = new PlatoonUsageControlServiceImpl();
+		ReflectionTestUtils.setField(service, "platoonURL", "http://localhost:" + stub.getAddress().getPort() + "/");
+		ReflectionTestUtils.setField(service, "isEnabledUsageControl", true);
+		ReflectionTestUtils.setField(service, "communicationService", new CommunicationServiceImpl(new RestTemplate()));
+		ReflectionTestUtils.setField(service, "decisionCache",
+				new UsageControlDecisionCache(cacheEnabled, 300, 100, new SimpleMeterRegistry()));
+		service.uploadPolicy(contractAgreement());
+	}
+
+	@TearDown
+	public void tearDown() {
+		stub.stop(0);
+	}
+
+	@Benchmark
+	public String enforce() throws Exception {
+		String result = service.enforceUsageControl(CONTRACT_AGREEMENT, ARTIFACT, PAYLOAD);
+		if (!PAYLOAD.equals(result)) {
+			throw new IOException("Usage control not enforced: " + result);
+		}
+		return result;
+	}
+
+	private static String contractAgreement() {
+		return "{\"@context\": {\"ids\": \"https://w3id.org/idsa/core/\", \"idsc\": \"https://w3id.org/idsa/code/\"},"
+				+ " \"@type\": \"ids:ContractAgreement\", \"@id\": \"" + CONTRACT_AGREEMENT + "\","
+				+ " \"ids:permission\": [{\"@type\": \"ids:Permission\", \"ids:target\": {\"@id\": \"" + ARTIFACT + "\"},"
+				+ " \"ids:constraint\": [], \"ids:action\": [{\"@id\": \"https://w3id.org/idsa/code/USE\"}],"
+				+ " \"ids:postDuty\": [], \"ids:preDuty\": []}],"
+				+ " \"ids:contractStart\": {\"@value\": \"2024-01-01T00:00:00.000+01:00\", \"@type\": \"xsd:dateTimeStamp\"},"
+				+ " \"ids:contractEnd\": {\"@value\": \"2024-12-31T00:00:00.000+01:00\", \"@type\": \"xsd:dateTimeStamp\"}}";
+	}
+}
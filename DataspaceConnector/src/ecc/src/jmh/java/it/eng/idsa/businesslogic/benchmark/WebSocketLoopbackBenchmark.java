@@ -0,0 +1,108 @@
+package it.eng.idsa.businesslogic.benchmark;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.TimeUnit;
+
+import org.asynchttpclient.ws.WebSocket;
+import org.eclipse.jetty.websocket.api.Session;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.netty.buffer.ByteBuf;
+import it.eng.idsa.businesslogic.configuration.WebSocketServerConfiguration;
+import it.eng.idsa.businesslogic.processor.receiver.websocket.server.FileRecreatorBeanServer;
+import it.eng.idsa.businesslogic.processor.receiver.websocket.server.FrameBufferBean;
+import it.eng.idsa.businesslogic.processor.receiver.websocket.server.HttpWebSocketMessagingLogicA;
+import it.eng.idsa.businesslogic.processor.receiver.websocket.server.RecreatedMultipartMessageBean;
+import it.eng.idsa.businesslogic.processor.receiver.websocket.server.ResponseMessageSendPartialServer;
+import it.eng.idsa.businesslogic.processor.receiver.websocket.server.WebSocketFrames;
+import it.eng.idsa.businesslogic.processor.sender.websocket.client.FileStreamingBean;
+
+/**
+ * Multipart message split into frames by <code>FileStreamingBean</code> and recreated by
+ * <code>FileRecreatorBeanServer</code>, for the smallest and the default frame size. Sender frames are handed to the
+ * receiver logic in process, WebSocket transport is not involved. A 100 MB message
+ * (<code>messageSize=104857600</code>) needs a heap of 2 GB or more.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WebSocketLoopbackBenchmark {
+
+	@Param({ "1024", "32768" })
+	private int frameSize;
+
+	@Param({ "1024", "65536", "1048576", "10485760" })
+	private int messageSize;
+
+	private WebSocketServerConfiguration configuration;
+	private RecreatedMultipartMessageBean recreatedMessage;
+	private WebSocket webSocket;
+	private String message;
+
+	@Setup
+	public void setup() {
+		configuration = mock(WebSocketServerConfiguration.class);
+		when(configuration.responseMessageSendPartialWebSocket()).thenReturn(mock(ResponseMessageSendPartialServer.class));
+		HttpWebSocketMessagingLogicA.getInstance().setWebSocketServerConfiguration(configuration);
+		recreatedMessage = new RecreatedMultipartMessageBean();
+
+		Session session = mock(Session.class);
+		webSocket = mock(WebSocket.class);
+		when(webSocket.isOpen()).thenReturn(true);
+		when(webSocket.sendBinaryFrame(any(byte[].class), anyBoolean(), anyInt())).thenAnswer(invocation -> {
+			HttpWebSocketMessagingLogicA.getInstance().onMessage(session, (byte[]) invocation.getArgument(0));
+			return null;
+		});
+		when(webSocket.sendContinuationFrame(any(ByteBuf.class), anyBoolean(), anyInt())).thenAnswer(invocation -> {
+			ByteBuf frame = invocation.getArgument(0);
+			HttpWebSocketMessagingLogicA.getInstance().onMessage(session, frame.nioBuffer());
+			return null;
+		});
+		message = "x".repeat(messageSize);
+	}
+
+	@TearDown
+	public void tearDown() {
+		HttpWebSocketMessagingLogicA.getInstance().setWebSocketServerConfiguration(null);
+	}
+
+	@Benchmark
+	public String loopback() throws Exception {
+		FrameBufferBean frameBuffer = new FrameBufferBean(frameSize, WebSocketFrames.DEFAULT_QUEUE_CAPACITY);
+		when(configuration.frameBufferWebSocket()).thenReturn(frameBuffer);
+		FileRecreatorBeanServer recreator = new FileRecreatorBeanServer();
+		ReflectionTestUtils.setField(recreator, "frameBuffer", frameBuffer);
+		ReflectionTestUtils.setField(recreator, "recreatedmultipartMessage", recreatedMessage);
+		Thread recreatorThread = new Thread(recreator, "FileRecreator_loopback");
+		recreatorThread.start();
+
+		FileStreamingBean sender = new FileStreamingBean();
+		sender.setFrameSize(frameSize);
+		sender.setup(webSocket);
+		sender.sendMultipartMessage(message);
+
+		String recreated = recreatedMessage.remove();
+		recreatorThread.join();
+		return recreated;
+	}
+}
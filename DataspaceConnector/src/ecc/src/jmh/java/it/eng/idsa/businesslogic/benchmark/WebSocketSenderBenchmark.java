@@ -0,0 +1,117 @@
+package it.eng.idsa.businesslogic.benchmark;
+
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import it.eng.idsa.businesslogic.processor.receiver.websocket.server.HttpWebSocketServerBean;
+import it.eng.idsa.businesslogic.processor.receiver.websocket.server.WebSocketFrames;
+import it.eng.idsa.businesslogic.processor.sender.websocket.client.FileStreamingBean;
+import it.eng.idsa.businesslogic.processor.sender.websocket.client.MessageWebSocketOverHttpSender;
+import it.eng.idsa.businesslogic.processor.sender.websocket.client.MessageWebSocketOverHttpSenderTest;
+import it.eng.idsa.businesslogic.processor.sender.websocket.client.WebSocketSessionManager;
+import it.eng.idsa.businesslogic.service.RejectionMessageService;
+import it.eng.idsa.multipart.util.UtilMessageService;
+
+/**
+ * Message sent over WSS to a loopback Jetty server answering each message with its content. <code>connectionPerMessage</code>
+ * is the behaviour before the session manager, a new connection for every message; the other benchmarks use one
+ * shared connection, from one sender thread and from 8 concurrent senders.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WebSocketSenderBenchmark {
+
+	private static final String HOST = "localhost";
+	private static final String PAYLOAD = "PAYLOAD";
+
+	private HttpWebSocketServerBean server;
+	private int port;
+	private String header;
+	private RejectionMessageService rejectionMessageService;
+	private WebSocketSessionManager sessionManager;
+	private MessageWebSocketOverHttpSender sender;
+
+	@Setup
+	public void setup() throws Exception {
+		header = UtilMessageService.getMessageAsString(UtilMessageService.getArtifactRequestMessage());
+		try (ServerSocket socket = new ServerSocket(0)) {
+			port = socket.getLocalPort();
+		}
+		server = new HttpWebSocketServerBean();
+		ReflectionTestUtils.setField(server, "resourceLoader", new DefaultResourceLoader(), ResourceLoader.class);
+		ReflectionTestUtils.setField(server, "keyStoreLocation", "classpath:ssl-server.jks", String.class);
+		ReflectionTestUtils.setField(server, "keyStoreType", "JKS", String.class);
+		ReflectionTestUtils.setField(server, "keyStorePassword", "changeit", String.class);
+		server.setPort(port);
+		server.setMessagingServlet(MessageWebSocketOverHttpSenderTest.EchoServlet.class);
+		server.createServer();
+
+		rejectionMessageService = mock(RejectionMessageService.class);
+		sessionManager = sessionManager();
+		sender = new MessageWebSocketOverHttpSender(rejectionMessageService, sessionManager);
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		sessionManager.shutdown();
+		server.onDestroy();
+	}
+
+	@Benchmark
+	public String connectionPerMessage() throws Exception {
+		WebSocketSessionManager perMessage = sessionManager();
+		try {
+			return send(new MessageWebSocketOverHttpSender(rejectionMessageService, perMessage));
+		} finally {
+			perMessage.shutdown();
+		}
+	}
+
+	@Benchmark
+	public String sharedConnection() throws Exception {
+		return send(sender);
+	}
+
+	@Benchmark
+	@Threads(8)
+	public String sharedConnectionConcurrent() throws Exception {
+		return send(sender);
+	}
+
+	private String send(MessageWebSocketOverHttpSender messageSender) throws Exception {
+		String response = messageSender.sendMultipartMessageWebSocketOverHttps(HOST, port, header, PAYLOAD);
+		if (response == null || !response.contains(PAYLOAD)) {
+			throw new IOException("Payload not echoed: " + response);
+		}
+		return response;
+	}
+
+	private static WebSocketSessionManager sessionManager() {
+		FileStreamingBean fileStreamingBean = new FileStreamingBean();
+		fileStreamingBean.setFrameSize(WebSocketFrames.DEFAULT_FRAME_SIZE);
+		return new WebSocketSessionManager(fileStreamingBean, 30, 300, 10, 50, 1000, 5);
+	}
+}
@@ -4,8 +4,10 @@ import java.lang.reflect.Method;
 
 import org.apache.camel.Exchange;
 import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.AfterReturning;
 import org.aspectj.lang.annotation.AfterThrowing;
+import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
 import org.aspectj.lang.annotation.Pointcut;
@@ -13,7 +15,10 @@ import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import it.eng.idsa.businesslogic.util.TrueConnectorConstants;
 import it.eng.idsa.multipart.domain.MultipartMessage;
 
@@ -24,6 +29,9 @@ public class CamelProcessorAspect {
 	@Autowired
 	private ApplicationEventPublisher publisher;
 
+	@Autowired
+	private MeterRegistry meterRegistry;
+
 	@Pointcut("@annotation(it.eng.idsa.businesslogic.audit.CamelAuditable)")
 	public void loggableMethods() {
 	}
@@ -35,6 +43,36 @@ public class CamelProcessorAspect {
 	@Pointcut("camelProcessor() && loggableMethods()")
 	public void auditableProcessor() {
 	}
+
+	@Pointcut("execution(* org.apache.camel.Processor+.process(org.apache.camel.Exchange))")
+	public void processMethod() {
+	}
+
+	@Pointcut("camelProcessor() && processMethod()")
+	public void timedProcessor() {
+	}
+
+	/**
+	 * Times every processor of the routes, auditable or not, as <code>connector.processor</code> tagged with processor
+	 * class, outcome and exception type
+	 */
+	@Around("timedProcessor()")
+	public Object timeProcessor(ProceedingJoinPoint joinPoint) throws Throwable {
+		Timer.Sample sample = Timer.start(meterRegistry);
+		String exception = "none";
+		try {
+			return joinPoint.proceed();
+		} catch (Throwable e) {
+			exception = e.getClass().getSimpleName();
+			throw e;
+		} finally {
+			sample.stop(Timer.builder("connector.processor")
+					.tag("processor", ClassUtils.getUserClass(joinPoint.getTarget()).getSimpleName())
+					.tag("outcome", "none".equals(exception) ? "success" : "failure")
+					.tag("exception", exception)
+					.register(meterRegistry));
+		}
+	}
 	
 	@Before("auditableProcessor()")
     public void logMethodCall(JoinPoint joinPoint) {
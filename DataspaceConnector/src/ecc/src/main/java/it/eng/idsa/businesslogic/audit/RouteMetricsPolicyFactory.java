@@ -0,0 +1,100 @@
+package it.eng.idsa.businesslogic.audit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.NamedNode;
+import org.apache.camel.Route;
+import org.apache.camel.spi.RoutePolicy;
+import org.apache.camel.spi.RoutePolicyFactory;
+import org.apache.camel.support.RoutePolicySupport;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Adds metrics to every Camel route:
+ * <ul>
+ * <li><code>connector.route</code> - duration of exchanges, with histogram, tagged with route and outcome</li>
+ * <li><code>connector.route.inflight</code> - exchanges being processed by the route</li>
+ * <li><code>connector.route.errors</code> - failed exchanges tagged with route and exception type, including
+ * exceptions handled by <code>onException</code></li>
+ * </ul>
+ * Camel registers the factory from the Spring context for all routes.
+ */
+@Component
+public class RouteMetricsPolicyFactory implements RoutePolicyFactory {
+
+	private final MeterRegistry meterRegistry;
+
+	public RouteMetricsPolicyFactory(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Override
+	public RoutePolicy createRoutePolicy(CamelContext camelContext, String routeId, NamedNode route) {
+		return new RouteMetricsPolicy(routeId);
+	}
+
+	private final class RouteMetricsPolicy extends RoutePolicySupport {
+
+		private final String routeId;
+		private final String startProperty;
+		private final AtomicInteger inflight = new AtomicInteger();
+		private final Timer success;
+		private final Timer failure;
+
+		RouteMetricsPolicy(String routeId) {
+			this.routeId = routeId;
+			// exchange passes through several routes when they are linked with direct endpoints
+			this.startProperty = "ConnectorRouteStart-" + routeId;
+			this.success = timer("success");
+			this.failure = timer("failure");
+			Gauge.builder("connector.route.inflight", inflight, AtomicInteger::get)
+					.tag("route", routeId)
+					.register(meterRegistry);
+		}
+
+		private Timer timer(String outcome) {
+			return Timer.builder("connector.route")
+					.tag("route", routeId)
+					.tag("outcome", outcome)
+					.publishPercentileHistogram()
+					.register(meterRegistry);
+		}
+
+		@Override
+		public void onExchangeBegin(Route route, Exchange exchange) {
+			inflight.incrementAndGet();
+			exchange.setProperty(startProperty, System.nanoTime());
+		}
+
+		@Override
+		public void onExchangeDone(Route route, Exchange exchange) {
+			Long start = exchange.getProperty(startProperty, Long.class);
+			if (start == null) {
+				return;
+			}
+			exchange.removeProperty(startProperty);
+			inflight.decrementAndGet();
+			Exception exception = exchange.getException() != null ? exchange.getException()
+					: exchange.getProperty(Exchange.EXCEPTION_CAUGHT, Exception.class);
+			long duration = System.nanoTime() - start;
+			if (exception == null) {
+				success.record(duration, TimeUnit.NANOSECONDS);
+			} else {
+				failure.record(duration, TimeUnit.NANOSECONDS);
+				Counter.builder("connector.route.errors")
+						.tag("route", routeId)
+						.tag("exception", exception.getClass().getSimpleName())
+						.register(meterRegistry)
+						.increment();
+			}
+		}
+	}
+}
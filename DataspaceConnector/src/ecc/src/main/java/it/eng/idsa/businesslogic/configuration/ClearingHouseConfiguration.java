@@ -7,12 +7,25 @@ import org.springframework.context.annotation.Configuration;
 @ConfigurationProperties("application.clearinghouse")
 public class ClearingHouseConfiguration {
 
+	/**
+	 * How transactions are logged to the Clearing House
+	 */
+	public enum DeliveryMode {
+		/** logged in the message flow, failure rejects the message */
+		SYNC,
+		/** stored in the local outbox and logged in background, retried until delivered */
+		OUTBOX,
+		/** queued in memory and logged in background, dropped when the queue is full or on shutdown */
+		BEST_EFFORT
+	}
+
 	private Boolean isEnabledClearingHouse;
 	private String username;
 	private String password;
 	private String baseUrl;
 	private String logEndpoint;
 	private String processEndpoint;
+	private DeliveryMode deliveryMode = DeliveryMode.SYNC;
 	
 	public Boolean getIsEnabledClearingHouse() {
 		return isEnabledClearingHouse;
@@ -50,4 +63,10 @@ public class ClearingHouseConfiguration {
 	public void setProcessEndpoint(String processEndpoint) {
 		this.processEndpoint = processEndpoint;
 	}
+	public DeliveryMode getDeliveryMode() {
+		return deliveryMode;
+	}
+	public void setDeliveryMode(DeliveryMode deliveryMode) {
+		this.deliveryMode = deliveryMode;
+	}
 }
@@ -0,0 +1,140 @@
+package it.eng.idsa.businesslogic.configuration;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties("application.http")
+public class HttpClientConfiguration {
+
+	/**
+	 * Class of outbound HTTP destination, each has its own client
+	 */
+	public enum Destination {
+		DAPS,
+		CLEARING_HOUSE,
+		USAGE_CONTROL,
+		DATA_APP,
+		BROKER,
+		/** remote connectors and any destination not matching the others */
+		CONNECTOR
+	}
+
+	/**
+	 * Connection pool, dispatcher, timeouts and bulkhead of one client
+	 */
+	public static class Client {
+
+		private int maxIdleConnections = 5;
+		private long keepAliveSeconds = 300;
+		/** limits of asynchronous calls */
+		private int maxRequests = 64;
+		private int maxRequestsPerHost = 16;
+		/** bulkhead, limit of calls waiting for a response, synchronous or asynchronous */
+		private int maxConcurrentCalls = 64;
+		/** how long a call waits for the bulkhead before it fails, 0 fails immediately */
+		private long bulkheadWaitMillis = 0;
+		private long connectTimeoutSeconds = 60;
+		private long readTimeoutSeconds = 60;
+		private long writeTimeoutSeconds = 60;
+		/** 0 for no limit on the whole call */
+		private long callTimeoutSeconds = 0;
+
+		public int getMaxIdleConnections() {
+			return maxIdleConnections;
+		}
+		public void setMaxIdleConnections(int maxIdleConnections) {
+			this.maxIdleConnections = maxIdleConnections;
+		}
+		public long getKeepAliveSeconds() {
+			return keepAliveSeconds;
+		}
+		public void setKeepAliveSeconds(long keepAliveSeconds) {
+			this.keepAliveSeconds = keepAliveSeconds;
+		}
+		public int getMaxRequests() {
+			return maxRequests;
+		}
+		public void setMaxRequests(int maxRequests) {
+			this.maxRequests = maxRequests;
+		}
+		public int getMaxRequestsPerHost() {
+			return maxRequestsPerHost;
+		}
+		public void setMaxRequestsPerHost(int maxRequestsPerHost) {
+			this.maxRequestsPerHost = maxRequestsPerHost;
+		}
+		public int getMaxConcurrentCalls() {
+			return maxConcurrentCalls;
+		}
+		public void setMaxConcurrentCalls(int maxConcurrentCalls) {
+			this.maxConcurrentCalls = maxConcurrentCalls;
+		}
+		public long getBulkheadWaitMillis() {
+			return bulkheadWaitMillis;
+		}
+		public void setBulkheadWaitMillis(long bulkheadWaitMillis) {
+			this.bulkheadWaitMillis = bulkheadWaitMillis;
+		}
+		public long getConnectTimeoutSeconds() {
+			return connectTimeoutSeconds;
+		}
+		public void setConnectTimeoutSeconds(long connectTimeoutSeconds) {
+			this.connectTimeoutSeconds = connectTimeoutSeconds;
+		}
+		public long getReadTimeoutSeconds() {
+			return readTimeoutSeconds;
+		}
+		public void setReadTimeoutSeconds(long readTimeoutSeconds) {
+			this.readTimeoutSeconds = readTimeoutSeconds;
+		}
+		public long getWriteTimeoutSeconds() {
+			return writeTimeoutSeconds;
+		}
+		public void setWriteTimeoutSeconds(long writeTimeoutSeconds) {
+			this.writeTimeoutSeconds = writeTimeoutSeconds;
+		}
+		public long getCallTimeoutSeconds() {
+			return callTimeoutSeconds;
+		}
+		public void setCallTimeoutSeconds(long callTimeoutSeconds) {
+			this.callTimeoutSeconds = callTimeoutSeconds;
+		}
+	}
+
+	/** negotiate HTTP/2 with ALPN on TLS connections */
+	private boolean http2 = true;
+	/** share of the bulkhead in use at which saturation is reported */
+	private double saturationThreshold = 0.8;
+	private Map<Destination, Client> clients = new EnumMap<>(Destination.class);
+
+	public boolean isHttp2() {
+		return http2;
+	}
+	public void setHttp2(boolean http2) {
+		this.http2 = http2;
+	}
+	public double getSaturationThreshold() {
+		return saturationThreshold;
+	}
+	public void setSaturationThreshold(double saturationThreshold) {
+		this.saturationThreshold = saturationThreshold;
+	}
+	public Map<Destination, Client> getClients() {
+		return clients;
+	}
+	public void setClients(Map<Destination, Client> clients) {
+		this.clients = clients;
+	}
+
+	/**
+	 * @param destination destination class
+	 * @return configured client or the defaults
+	 */
+	public Client getClient(Destination destination) {
+		return clients.getOrDefault(destination, new Client());
+	}
+}
@@ -0,0 +1,255 @@
+package it.eng.idsa.businesslogic.configuration;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import it.eng.idsa.businesslogic.configuration.HttpClientConfiguration.Client;
+import it.eng.idsa.businesslogic.configuration.HttpClientConfiguration.Destination;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.EventListener;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Response;
+
+/**
+ * One OkHttp client per {@link Destination}, so a slow destination can not take the connections or threads of the
+ * others. Clients share TLS settings of their base client but each has its own connection pool, dispatcher, timeouts
+ * and bulkhead. The bulkhead limits calls waiting for a response; OkHttp dispatcher limits apply only to asynchronous
+ * calls, while the connector calls synchronously. A call that finds the bulkhead full fails with
+ * {@link BulkheadFullException}.<br>
+ * Requests are assigned to a destination by scheme, host and port of the configured destination URLs; anything else
+ * is {@link Destination#CONNECTOR}.<br>
+ * Metrics, tagged with destination:
+ * <ul>
+ * <li><code>http.client.connections.acquired</code> - connections taken by calls, tagged with reused and protocol</li>
+ * <li><code>http.client.pool.connections</code> - pooled connections, tagged with state total or idle</li>
+ * <li><code>http.client.bulkhead.calls</code> - calls in the bulkhead, <code>http.client.bulkhead.rejected</code>
+ * calls rejected by it</li>
+ * <li><code>http.client.bulkhead.saturated</code> - times the bulkhead reached
+ * <code>application.http.saturationThreshold</code>, which is also logged as warning</li>
+ * </ul>
+ */
+public class HttpClientRegistry {
+
+	private static final Logger logger = LoggerFactory.getLogger(HttpClientRegistry.class);
+
+	private final Map<Destination, OkHttpClient> clients = new EnumMap<>(Destination.class);
+	private final Map<String, Destination> destinationsByOrigin = new HashMap<>();
+
+	/**
+	 * @param tlsClient base client with TLS settings of the connector
+	 * @param plainClient base client with default TLS settings, for {@link Destination#USAGE_CONTROL}
+	 * @param configuration client settings
+	 * @param urls URL of each destination, blank if not used
+	 * @param meterRegistry meter registry
+	 */
+	public HttpClientRegistry(OkHttpClient tlsClient, OkHttpClient plainClient, HttpClientConfiguration configuration,
+			Map<Destination, String> urls, MeterRegistry meterRegistry) {
+		List<Protocol> protocols = configuration.isHttp2() ? List.of(Protocol.HTTP_2, Protocol.HTTP_1_1)
+				: List.of(Protocol.HTTP_1_1);
+		for (Destination destination : Destination.values()) {
+			OkHttpClient base = destination == Destination.USAGE_CONTROL ? plainClient : tlsClient;
+			clients.put(destination, createClient(base, destination, configuration.getClient(destination), protocols,
+					configuration.getSaturationThreshold(), meterRegistry));
+			String origin = origin(urls.get(destination));
+			if (origin != null) {
+				destinationsByOrigin.putIfAbsent(origin, destination);
+			}
+		}
+	}
+
+	public OkHttpClient client(Destination destination) {
+		return clients.get(destination);
+	}
+
+	/**
+	 * @param url request URL
+	 * @return client of the destination the URL belongs to
+	 */
+	public OkHttpClient clientFor(String url) {
+		return client(destinationOf(url));
+	}
+
+	public Destination destinationOf(String url) {
+		String origin = origin(url);
+		return origin != null ? destinationsByOrigin.getOrDefault(origin, Destination.CONNECTOR) : Destination.CONNECTOR;
+	}
+
+	/**
+	 * Closes idle connections and stops dispatcher threads of all clients
+	 */
+	public void shutdown() {
+		for (OkHttpClient client : clients.values()) {
+			client.dispatcher().executorService().shutdown();
+			client.connectionPool().evictAll();
+		}
+	}
+
+	private static String origin(String url) {
+		HttpUrl httpUrl = StringUtils.isNotBlank(url) ? HttpUrl.parse(url.trim()) : null;
+		return httpUrl != null ? httpUrl.scheme() + "://" + httpUrl.host() + ":" + httpUrl.port() : null;
+	}
+
+	private static OkHttpClient createClient(OkHttpClient base, Destination destination, Client settings,
+			List<Protocol> protocols, double saturationThreshold, MeterRegistry meterRegistry) {
+		String tag = destination.name().toLowerCase();
+		ConnectionPool connectionPool = new ConnectionPool(settings.getMaxIdleConnections(), settings.getKeepAliveSeconds(),
+				TimeUnit.SECONDS);
+		Dispatcher dispatcher = new Dispatcher();
+		dispatcher.setMaxRequests(settings.getMaxRequests());
+		dispatcher.setMaxRequestsPerHost(settings.getMaxRequestsPerHost());
+		Bulkhead bulkhead = new Bulkhead(tag, settings.getMaxConcurrentCalls(), settings.getBulkheadWaitMillis(),
+				saturationThreshold, meterRegistry);
+
+		Gauge.builder("http.client.pool.connections", connectionPool, ConnectionPool::connectionCount)
+				.tag("destination", tag).tag("state", "total").register(meterRegistry);
+		Gauge.builder("http.client.pool.connections", connectionPool, ConnectionPool::idleConnectionCount)
+				.tag("destination", tag).tag("state", "idle").register(meterRegistry);
+
+		//@formatter:off
+		return base.newBuilder()
+				.connectionPool(connectionPool)
+				.dispatcher(dispatcher)
+				.protocols(protocols)
+				.connectTimeout(settings.getConnectTimeoutSeconds(), TimeUnit.SECONDS)
+				.readTimeout(settings.getReadTimeoutSeconds(), TimeUnit.SECONDS)
+				.writeTimeout(settings.getWriteTimeoutSeconds(), TimeUnit.SECONDS)
+				.callTimeout(settings.getCallTimeoutSeconds(), TimeUnit.SECONDS)
+				.addInterceptor(bulkhead)
+				.eventListenerFactory(call -> new ConnectionReuseListener(tag, meterRegistry))
+				.build();
+		//@formatter:on
+	}
+
+	/**
+	 * Thrown when all calls of the bulkhead are in use
+	 */
+	public static class BulkheadFullException extends IOException {
+
+		private static final long serialVersionUID = 1L;
+
+		public BulkheadFullException(String destination, int maxConcurrentCalls) {
+			super("Too many concurrent calls to " + destination + ", limit is " + maxConcurrentCalls);
+		}
+	}
+
+	private static final class Bulkhead implements Interceptor {
+
+		private final String destination;
+		private final int maxConcurrentCalls;
+		private final long waitMillis;
+		private final int saturatedCalls;
+		private final Semaphore permits;
+		private final AtomicBoolean saturated = new AtomicBoolean();
+		private final Counter rejected;
+		private final Counter saturation;
+
+		Bulkhead(String destination, int maxConcurrentCalls, long waitMillis, double saturationThreshold,
+				MeterRegistry meterRegistry) {
+			this.destination = destination;
+			this.maxConcurrentCalls = maxConcurrentCalls;
+			this.waitMillis = waitMillis;
+			this.saturatedCalls = Math.max(1, (int) Math.ceil(maxConcurrentCalls * saturationThreshold));
+			this.permits = new Semaphore(maxConcurrentCalls);
+			this.rejected = Counter.builder("http.client.bulkhead.rejected").tag("destination", destination)
+					.register(meterRegistry);
+			this.saturation = Counter.builder("http.client.bulkhead.saturated").tag("destination", destination)
+					.register(meterRegistry);
+			Gauge.builder("http.client.bulkhead.calls", permits, p -> maxConcurrentCalls - p.availablePermits())
+					.tag("destination", destination).register(meterRegistry);
+		}
+
+		@Override
+		public Response intercept(Chain chain) throws IOException {
+			acquire();
+			try {
+				// permit is held until response headers are received, the body is read by the caller
+				return chain.proceed(chain.request());
+			} finally {
+				release();
+			}
+		}
+
+		private void acquire() throws IOException {
+			boolean acquired;
+			try {
+				acquired = waitMillis > 0 ? permits.tryAcquire(waitMillis, TimeUnit.MILLISECONDS) : permits.tryAcquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting for " + destination + " bulkhead");
+			}
+			if (!acquired) {
+				rejected.increment();
+				throw new BulkheadFullException(destination, maxConcurrentCalls);
+			}
+			int inUse = maxConcurrentCalls - permits.availablePermits();
+			if (inUse >= saturatedCalls && saturated.compareAndSet(false, true)) {
+				saturation.increment();
+				logger.warn("HTTP client for {} is saturated: {} of {} concurrent calls in use", destination, inUse,
+						maxConcurrentCalls);
+			}
+		}
+
+		private void release() {
+			permits.release();
+			int inUse = maxConcurrentCalls - permits.availablePermits();
+			if (inUse <= saturatedCalls / 2 && saturated.compareAndSet(true, false)) {
+				logger.info("HTTP client for {} is no longer saturated: {} of {} concurrent calls in use", destination,
+						inUse, maxConcurrentCalls);
+			}
+		}
+	}
+
+	/**
+	 * Counts connections taken by a call, reused from the pool or newly connected
+	 */
+	private static final class ConnectionReuseListener extends EventListener {
+
+		private final String destination;
+		private final MeterRegistry meterRegistry;
+		private boolean connected;
+
+		ConnectionReuseListener(String destination, MeterRegistry meterRegistry) {
+			this.destination = destination;
+			this.meterRegistry = meterRegistry;
+		}
+
+		@Override
+		public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+			connected = true;
+		}
+
+		@Override
+		public void connectionAcquired(Call call, Connection connection) {
+			Counter.builder("http.client.connections.acquired")
+					.tag("destination", destination)
+					.tag("reused", String.valueOf(!connected))
+					.tag("protocol", connection.protocol().toString())
+					.register(meterRegistry)
+					.increment();
+			// follow-up requests of the call acquire a connection again
+			connected = false;
+		}
+	}
+}
@@ -3,6 +3,8 @@ package it.eng.idsa.businesslogic.configuration;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import javax.net.ssl.HostnameVerifier;
@@ -14,9 +16,13 @@ import javax.net.ssl.X509TrustManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import it.eng.idsa.businesslogic.configuration.HttpClientConfiguration.Destination;
 import it.eng.idsa.businesslogic.service.impl.TLSProvider;
 import okhttp3.ConnectionSpec;
 import okhttp3.OkHttpClient;
@@ -30,9 +36,41 @@ public class OkHttpClientConfiguration {
 	@Autowired
 	private TLSProvider tlsProvider;
 
+	@Bean(destroyMethod = "shutdown")
+	public HttpClientRegistry httpClientRegistry(HttpClientConfiguration httpClientConfiguration,
+			ClearingHouseConfiguration clearingHouseConfiguration, MeterRegistry meterRegistry,
+			@Value("${application.dapsUrl:}") String dapsUrl,
+			@Value("${spring.ids.ucapp.baseUrl:}") String usageControlUrl,
+			@Value("${application.openDataAppReceiver:}") String dataAppUrl,
+			@Value("${application.selfdescription.brokerURL:}") String brokerUrl)
+			throws KeyManagementException, NoSuchAlgorithmException {
+		Map<Destination, String> urls = new EnumMap<>(Destination.class);
+		urls.put(Destination.DAPS, dapsUrl);
+		urls.put(Destination.CLEARING_HOUSE, clearingHouseConfiguration.getBaseUrl());
+		urls.put(Destination.USAGE_CONTROL, usageControlUrl);
+		urls.put(Destination.DATA_APP, dataAppUrl);
+		urls.put(Destination.BROKER, brokerUrl);
+		return new HttpClientRegistry(createHttpClient(), new OkHttpClient(), httpClientConfiguration, urls,
+				meterRegistry);
+	}
+
+	/**
+	 * Client for remote connectors
+	 */
+	@Bean
+	@Primary
+	public OkHttpClient getClient(HttpClientRegistry httpClientRegistry) {
+		return httpClientRegistry.client(Destination.CONNECTOR);
+	}
+
+	@Bean
+	public OkHttpClient dapsHttpClient(HttpClientRegistry httpClientRegistry) {
+		return httpClientRegistry.client(Destination.DAPS);
+	}
+
 	@Bean
-	public OkHttpClient getClient() throws KeyManagementException, NoSuchAlgorithmException {
-		return createHttpClient();
+	public OkHttpClient usageControlHttpClient(HttpClientRegistry httpClientRegistry) {
+		return httpClientRegistry.client(Destination.USAGE_CONTROL);
 	}
 
 	private OkHttpClient createHttpClient() throws KeyManagementException, NoSuchAlgorithmException {
@@ -2,14 +2,24 @@ package it.eng.idsa.businesslogic.configuration;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.client.OkHttp3ClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import it.eng.idsa.businesslogic.configuration.HttpClientConfiguration.Destination;
+
 @Configuration
 public class RestTemplateConfig {
 	
 	@Bean
-	public RestTemplate getRestTemplate() {
-		return new RestTemplate();
+	@Primary
+	public RestTemplate getRestTemplate(HttpClientRegistry httpClientRegistry) {
+		return new RestTemplate(new OkHttp3ClientHttpRequestFactory(httpClientRegistry.client(Destination.USAGE_CONTROL)));
+	}
+
+	@Bean(name = "ClearingHouseRestTemplate")
+	public RestTemplate clearingHouseRestTemplate(HttpClientRegistry httpClientRegistry) {
+		return new RestTemplate(new OkHttp3ClientHttpRequestFactory(httpClientRegistry.client(Destination.CLEARING_HOUSE)));
 	}
 
 }
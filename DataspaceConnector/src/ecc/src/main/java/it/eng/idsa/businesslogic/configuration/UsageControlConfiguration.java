@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.context.annotation.Bean;
@@ -16,6 +17,7 @@ import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonWriter;
 
 import it.eng.idsa.businesslogic.usagecontrol.service.UcRestCallService;
+import okhttp3.OkHttpClient;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
 
@@ -24,9 +26,11 @@ public class UsageControlConfiguration {
 	
 	@Bean
 	@ConditionalOnExpression("'${application.isEnabledUsageControl}' == 'true'")
-	public UcRestCallService ucRestCallService(@Value("${spring.ids.ucapp.baseUrl}") String usageControlBaseUrl) {
+	public UcRestCallService ucRestCallService(@Value("${spring.ids.ucapp.baseUrl}") String usageControlBaseUrl,
+			@Qualifier("usageControlHttpClient") OkHttpClient usageControlHttpClient) {
 		return new Retrofit.Builder()
 				.baseUrl(usageControlBaseUrl)
+				.client(usageControlHttpClient)
 				.addConverterFactory(GsonConverterFactory.create())
 				.build()
 				.create(UcRestCallService.class);
@@ -1,5 +1,6 @@
 package it.eng.idsa.businesslogic.configuration;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Scope;
@@ -18,10 +19,15 @@ import it.eng.idsa.businesslogic.processor.sender.websocket.client.ResponseMessa
 @Configuration
 public class WebSocketClientConfiguration {
 
+	@Value("${application.websocket.frameSize:32768}")
+	private int frameSize;
+
 	@Bean
 	@Scope("singleton")
 	public FileStreamingBean fileStreamingWebSocket() {
-		return new FileStreamingBean();
+		FileStreamingBean fileStreamingBean = new FileStreamingBean();
+		fileStreamingBean.setFrameSize(frameSize);
+		return fileStreamingBean;
 	}
 
 	@Bean
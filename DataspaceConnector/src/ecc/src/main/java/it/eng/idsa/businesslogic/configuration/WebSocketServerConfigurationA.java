@@ -22,12 +22,18 @@ public class WebSocketServerConfigurationA implements WebSocketServerConfigurati
     @Value("${application.camelSenderPort}")
     private int port;
 
+    @Value("${application.websocket.frameSize:32768}")
+    private int frameSize;
+
+    @Value("${application.websocket.frameQueueCapacity:64}")
+    private int frameQueueCapacity;
+
     @Override
     @Bean(name="frameBufferWebSocketA")
     @Scope("singleton")
     @Qualifier(value="FrameBufferBeanA")
     public FrameBufferBean frameBufferWebSocket() {
-        return new FrameBufferBean();
+        return new FrameBufferBean(WebSocketFrames.frameSize(frameSize), frameQueueCapacity);
     }
 
     @Override
@@ -83,6 +89,7 @@ public class WebSocketServerConfigurationA implements WebSocketServerConfigurati
     public ResponseMessageSendPartialServer responseMessageSendPartialWebSocket() {
         ResponseMessageSendPartialServer responseMessageSendPartialServer = new ResponseMessageSendPartialServer();
         responseMessageSendPartialServer.setWebSocketServerConfiguration(this);
+        responseMessageSendPartialServer.setFrameSize(frameSize);
         return responseMessageSendPartialServer;
     }
 
@@ -15,6 +15,7 @@ import it.eng.idsa.businesslogic.processor.receiver.websocket.server.HttpWebSock
 import it.eng.idsa.businesslogic.processor.receiver.websocket.server.RecreatedMultipartMessageBean;
 import it.eng.idsa.businesslogic.processor.receiver.websocket.server.ResponseMessageBufferBean;
 import it.eng.idsa.businesslogic.processor.receiver.websocket.server.ResponseMessageSendPartialServer;
+import it.eng.idsa.businesslogic.processor.receiver.websocket.server.WebSocketFrames;
 
 /**
  * @author Milan Karajovic and Gabriele De Luca
@@ -27,12 +28,18 @@ public class WebSocketServerConfigurationB implements WebSocketServerConfigurati
 	@Value("${application.wss-server-port}")
 	private int port;
 
+	@Value("${application.websocket.frameSize:32768}")
+	private int frameSize;
+
+	@Value("${application.websocket.frameQueueCapacity:64}")
+	private int frameQueueCapacity;
+
 	@Override
 	@Bean(name = "frameBufferWebSocketB")
 	@Scope("singleton")
 	@Qualifier(value = "FrameBufferBeanB")
 	public FrameBufferBean frameBufferWebSocket() {
-		return new FrameBufferBean();
+		return new FrameBufferBean(WebSocketFrames.frameSize(frameSize), frameQueueCapacity);
 	}
 
 	/**
@@ -61,7 +68,7 @@ public class WebSocketServerConfigurationB implements WebSocketServerConfigurati
 	@Qualifier(value = "MessagingLogicB")
 	public HttpWebSocketMessagingLogicB messagingLogic() {
 		HttpWebSocketMessagingLogicB httpWebSocketMessagingLogic = HttpWebSocketMessagingLogicB.getInstance();
-		httpWebSocketMessagingLogic.setWebSocketServerConfiguration(this);
+		httpWebSocketMessagingLogic.setFrameSize(frameSize);
 		return httpWebSocketMessagingLogic;
 	}
 
@@ -98,6 +105,7 @@ public class WebSocketServerConfigurationB implements WebSocketServerConfigurati
 	public ResponseMessageSendPartialServer responseMessageSendPartialWebSocket() {
 		ResponseMessageSendPartialServer responseMessageSendPartialServer = new ResponseMessageSendPartialServer();
 		responseMessageSendPartialServer.setWebSocketServerConfiguration(this);
+		responseMessageSendPartialServer.setFrameSize(frameSize);
 		return responseMessageSendPartialServer;
 	}
 
@@ -8,12 +8,16 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Table;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 @Entity
-@Table(name = "AuditLogs")
+@Table(name = "AuditLogs", indexes = {
+		@Index(name = "idx_audit_logs_timestamp", columnList = "timestamp, id"),
+		@Index(name = "idx_audit_logs_event_type", columnList = "event_type, timestamp, id"),
+		@Index(name = "idx_audit_logs_correlation_id", columnList = "correlation_id") })
 public class AuditLog {
 	@Id
 	@GeneratedValue(strategy = GenerationType.AUTO)
@@ -21,6 +25,15 @@ public class AuditLog {
 	private Long id;
 	@JsonProperty("timestamp")
 	private LocalDateTime timestamp;
+	/**
+	 * Stored in plain text, so events can be searched without decrypting them
+	 */
+	@JsonProperty("eventType")
+	@Column(name = "event_type", length = 64)
+	private String eventType;
+	@JsonProperty("correlationId")
+	@Column(name = "correlation_id")
+	private String correlationId;
 	@JsonProperty("event")
 	@Column(columnDefinition = "TEXT")
 	private String event;
@@ -33,6 +46,12 @@ public class AuditLog {
 		this.timestamp = LocalDateTime.now();
 	}
 
+	public AuditLog(String event, String eventType, String correlationId) {
+		this(event);
+		this.eventType = eventType;
+		this.correlationId = correlationId;
+	}
+
 	public Long getId() {
 		return id;
 	}
@@ -49,6 +68,22 @@ public class AuditLog {
 		this.timestamp = timestamp;
 	}
 
+	public String getEventType() {
+		return eventType;
+	}
+
+	public void setEventType(String eventType) {
+		this.eventType = eventType;
+	}
+
+	public String getCorrelationId() {
+		return correlationId;
+	}
+
+	public void setCorrelationId(String correlationId) {
+		this.correlationId = correlationId;
+	}
+
 	public String getEvent() {
 		return event;
 	}
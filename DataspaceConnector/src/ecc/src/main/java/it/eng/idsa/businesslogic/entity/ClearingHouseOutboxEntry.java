@@ -0,0 +1,102 @@
+package it.eng.idsa.businesslogic.entity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Transaction waiting to be logged to the Clearing House
+ */
+@Entity
+@Table(name = "ClearingHouseOutbox")
+public class ClearingHouseOutboxEntry {
+	@Id
+	@GeneratedValue(strategy = GenerationType.AUTO)
+	private Long id;
+	private long createdAt;
+	private String pid;
+	@Column(columnDefinition = "TEXT")
+	private String message;
+	private int attempts;
+	private long nextAttemptAt;
+	private boolean failed;
+	@Column(length = 1024)
+	private String lastError;
+
+	public ClearingHouseOutboxEntry() {
+	}
+
+	public ClearingHouseOutboxEntry(String pid, String message, long createdAt) {
+		this.pid = pid;
+		this.message = message;
+		this.createdAt = createdAt;
+		this.nextAttemptAt = createdAt;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public long getCreatedAt() {
+		return createdAt;
+	}
+
+	public void setCreatedAt(long createdAt) {
+		this.createdAt = createdAt;
+	}
+
+	public String getPid() {
+		return pid;
+	}
+
+	public void setPid(String pid) {
+		this.pid = pid;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public void setMessage(String message) {
+		this.message = message;
+	}
+
+	public int getAttempts() {
+		return attempts;
+	}
+
+	public void setAttempts(int attempts) {
+		this.attempts = attempts;
+	}
+
+	public long getNextAttemptAt() {
+		return nextAttemptAt;
+	}
+
+	public void setNextAttemptAt(long nextAttemptAt) {
+		this.nextAttemptAt = nextAttemptAt;
+	}
+
+	public boolean isFailed() {
+		return failed;
+	}
+
+	public void setFailed(boolean failed) {
+		this.failed = failed;
+	}
+
+	public String getLastError() {
+		return lastError;
+	}
+
+	public void setLastError(String lastError) {
+		this.lastError = lastError;
+	}
+}
@@ -0,0 +1,207 @@
+package it.eng.idsa.businesslogic.entity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Suspect profile being added as offered resource, processed step by step in the background.<br>
+ * State is the last completed step, job is resumed from it after restart.
+ */
+@Entity
+@Table(name = "ResourceIngestionJobs")
+public class ResourceIngestionJob {
+
+	public enum State {
+		SUBMITTED, INDEXED, ENCRYPTED, STORED, REGISTERED;
+
+		public boolean isCompleted() {
+			return this == REGISTERED;
+		}
+	}
+
+	@Id
+	private String id;
+	private String catalog;
+	private String resourceId;
+	@Column(columnDefinition = "TEXT")
+	private String resource;
+	private String suspectProfileId;
+	private String owner;
+	private String principal;
+	private boolean sensitive;
+	// AES256 encrypted, removed once the profile is stored
+	@Column(columnDefinition = "TEXT")
+	private String solidToken;
+	@Enumerated(EnumType.STRING)
+	private State state;
+	private boolean failed;
+	private int attempts;
+	@Column(length = 1024)
+	private String lastError;
+	private long createdAt;
+	private long updatedAt;
+	private long nextAttemptAt;
+
+	public ResourceIngestionJob() {
+	}
+
+	public ResourceIngestionJob(String id, String catalog, String resourceId, String resource, String suspectProfileId,
+			String owner, String principal, boolean sensitive, String solidToken, long createdAt) {
+		this.id = id;
+		this.catalog = catalog;
+		this.resourceId = resourceId;
+		this.resource = resource;
+		this.suspectProfileId = suspectProfileId;
+		this.owner = owner;
+		this.principal = principal;
+		this.sensitive = sensitive;
+		this.solidToken = solidToken;
+		this.state = State.SUBMITTED;
+		this.createdAt = createdAt;
+		this.updatedAt = createdAt;
+		this.nextAttemptAt = createdAt;
+	}
+
+	/**
+	 * @return completed steps in percent
+	 */
+	public int getProgress() {
+		return state.ordinal() * 100 / State.REGISTERED.ordinal();
+	}
+
+	public boolean isActive() {
+		return !failed && !state.isCompleted();
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public void setId(String id) {
+		this.id = id;
+	}
+
+	public String getCatalog() {
+		return catalog;
+	}
+
+	public void setCatalog(String catalog) {
+		this.catalog = catalog;
+	}
+
+	public String getResourceId() {
+		return resourceId;
+	}
+
+	public void setResourceId(String resourceId) {
+		this.resourceId = resourceId;
+	}
+
+	public String getResource() {
+		return resource;
+	}
+
+	public void setResource(String resource) {
+		this.resource = resource;
+	}
+
+	public String getSuspectProfileId() {
+		return suspectProfileId;
+	}
+
+	public void setSuspectProfileId(String suspectProfileId) {
+		this.suspectProfileId = suspectProfileId;
+	}
+
+	public String getOwner() {
+		return owner;
+	}
+
+	public void setOwner(String owner) {
+		this.owner = owner;
+	}
+
+	public String getPrincipal() {
+		return principal;
+	}
+
+	public void setPrincipal(String principal) {
+		this.principal = principal;
+	}
+
+	public boolean isSensitive() {
+		return sensitive;
+	}
+
+	public void setSensitive(boolean sensitive) {
+		this.sensitive = sensitive;
+	}
+
+	public String getSolidToken() {
+		return solidToken;
+	}
+
+	public void setSolidToken(String solidToken) {
+		this.solidToken = solidToken;
+	}
+
+	public State getState() {
+		return state;
+	}
+
+	public void setState(State state) {
+		this.state = state;
+	}
+
+	public boolean isFailed() {
+		return failed;
+	}
+
+	public void setFailed(boolean failed) {
+		this.failed = failed;
+	}
+
+	public int getAttempts() {
+		return attempts;
+	}
+
+	public void setAttempts(int attempts) {
+		this.attempts = attempts;
+	}
+
+	public String getLastError() {
+		return lastError;
+	}
+
+	public void setLastError(String lastError) {
+		this.lastError = lastError;
+	}
+
+	public long getCreatedAt() {
+		return createdAt;
+	}
+
+	public void setCreatedAt(long createdAt) {
+		this.createdAt = createdAt;
+	}
+
+	public long getUpdatedAt() {
+		return updatedAt;
+	}
+
+	public void setUpdatedAt(long updatedAt) {
+		this.updatedAt = updatedAt;
+	}
+
+	public long getNextAttemptAt() {
+		return nextAttemptAt;
+	}
+
+	public void setNextAttemptAt(long nextAttemptAt) {
+		this.nextAttemptAt = nextAttemptAt;
+	}
+}
@@ -1,5 +1,7 @@
 package it.eng.idsa.businesslogic.listener;
 
+import java.util.Objects;
+
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.boot.actuate.audit.listener.AuditApplicationEvent;
 import org.springframework.context.event.EventListener;
@@ -16,7 +18,6 @@ import org.springframework.stereotype.Component;
 import it.eng.idsa.businesslogic.audit.EventTypeHandler;
 import it.eng.idsa.businesslogic.audit.TrueConnectorEvent;
 import it.eng.idsa.businesslogic.audit.TrueConnectorEventType;
-import it.eng.idsa.businesslogic.entity.AuditLog;
 import it.eng.idsa.businesslogic.service.AuditEventService;
 
 @Component
@@ -38,7 +39,7 @@ public class LoggingAuditEventListener {
 			return;
 		}
 
-		auditEventService.saveAuditEvent(new AuditLog(event.getAuditEvent().toString()));
+		auditEventService.recordAuditEvent(event.getAuditEvent().toString());
 	}
 
 	@EventListener
@@ -49,7 +50,8 @@ public class LoggingAuditEventListener {
 			return;
 		}
 
-		auditEventService.saveAuditEvent(new AuditLog(event.getAuditEvent().toString()));
+		auditEventService.recordAuditEvent(event.getAuditEvent().toString(), event.getAuditEvent().getType(),
+				Objects.toString(event.getAuditEvent().getData().get("correlationId"), null));
 	}
 
 	@EventListener
@@ -59,20 +61,23 @@ public class LoggingAuditEventListener {
 				TrueConnectorEventType.USER_AUTHORIZATION_FAILURE)) {
 			return;
 		}
+		String eventType = (abstractEvent instanceof AuthorizationFailureEvent
+				? TrueConnectorEventType.USER_AUTHORIZATION_FAILURE
+				: TrueConnectorEventType.USER_AUTHORIZATION_SUCCESS).name();
 		if (abstractEvent instanceof AuthorizationFailureEvent) {
 			AuthorizationFailureEvent event = (AuthorizationFailureEvent) abstractEvent;
-			auditEventService.saveAuditEvent(new AuditLog(event.getSource().toString()));
+			auditEventService.recordAuditEvent(event.getSource().toString(), eventType, null);
 		}
 		if (abstractEvent instanceof AuthorizedEvent) {
 			AuthorizedEvent event = (AuthorizedEvent) abstractEvent;
 
-			auditEventService.saveAuditEvent(new AuditLog(event.getSource().toString()));
+			auditEventService.recordAuditEvent(event.getSource().toString(), eventType, null);
 		}
 		if (abstractEvent.getSource() instanceof FilterInvocation) {
 			FilterInvocation filterInvocation = (FilterInvocation) abstractEvent.getSource();
 			String auditEventDetails = createAuditLogEntryWithFiler(abstractEvent.getSource(), filterInvocation);
 
-			auditEventService.saveAuditEvent(new AuditLog(auditEventDetails));
+			auditEventService.recordAuditEvent(auditEventDetails, eventType, null);
 		}
 	}
 
@@ -83,21 +88,24 @@ public class LoggingAuditEventListener {
 				TrueConnectorEventType.USER_AUTHENTICATION_FAILURE)) {
 			return;
 		}
+		String eventType = (abstractEvent instanceof AuthenticationSuccessEvent
+				? TrueConnectorEventType.USER_AUTHENTICATION_SUCCESS
+				: TrueConnectorEventType.USER_AUTHENTICATION_FAILURE).name();
 		if (abstractEvent instanceof AuthenticationFailureBadCredentialsEvent) {
 			AuthenticationFailureBadCredentialsEvent event = (AuthenticationFailureBadCredentialsEvent) abstractEvent;
 
-			auditEventService.saveAuditEvent(new AuditLog(event.getSource().toString()));
+			auditEventService.recordAuditEvent(event.getSource().toString(), eventType, null);
 		}
 		if (abstractEvent instanceof AuthenticationSuccessEvent) {
 			AuthenticationSuccessEvent event = (AuthenticationSuccessEvent) abstractEvent;
 
-			auditEventService.saveAuditEvent(new AuditLog(event.getSource().toString()));
+			auditEventService.recordAuditEvent(event.getSource().toString(), eventType, null);
 		}
 		if (abstractEvent.getSource() instanceof FilterInvocation) {
 			FilterInvocation filterInvocation = (FilterInvocation) abstractEvent.getSource();
 			String auditEventDetails = createAuditLogEntryWithFiler(abstractEvent.getSource(), filterInvocation);
 
-			auditEventService.saveAuditEvent(new AuditLog(auditEventDetails));
+			auditEventService.recordAuditEvent(auditEventDetails, eventType, null);
 		}
 	}
 
@@ -1,16 +1,15 @@
 package it.eng.idsa.businesslogic.processor.common;
 
-import java.util.Base64;
-
 import org.apache.camel.Exchange;
 import org.apache.camel.Processor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import de.fraunhofer.iais.eis.ArtifactResponseMessage;
-import it.eng.idsa.multipart.builder.MultipartMessageBuilder;
+import it.eng.idsa.businesslogic.service.PayloadTransformationService;
 import it.eng.idsa.multipart.domain.MultipartMessage;
 
 /**
@@ -24,6 +23,9 @@ public class DeModifyPayloadProcessor implements Processor {
 
 	@Value("#{new Boolean('${application.encodeDecodePayload:false}')}")
 	private Boolean encodeDecodePayload;
+
+	@Autowired
+	private PayloadTransformationService payloadTransformationService;
 	
 	@Override
 	public void process(Exchange exchange) throws Exception {
@@ -33,16 +35,13 @@ public class DeModifyPayloadProcessor implements Processor {
 				logger.info("Not and ArtifactResponseMessage - skipping Base64 Decoding of the payload");
 				return;
 			}
+			if (payloadTransformationService.isPassThrough(mm)) {
+				logger.info("Payload content type configured for pass through - skipping Base64 Decoding of the payload");
+				return;
+			}
 			logger.info("Base64 Decoding payload");
 			try {
-				MultipartMessage mmEncoded =  new MultipartMessageBuilder()
-						.withHttpHeader(mm.getHttpHeaders())
-						.withHeaderHeader(mm.getHeaderHeader())
-						.withHeaderContent(mm.getHeaderContent())
-						.withPayloadHeader(mm.getPayloadHeader())
-						.withPayloadContent(new String(Base64.getDecoder().decode(mm.getPayloadContent())))
-						.withToken(mm.getToken())
-						.build();
+				MultipartMessage mmEncoded = payloadTransformationService.decode(exchange, mm);
 				exchange.getMessage().setBody(mmEncoded);
 			} catch (IllegalArgumentException ex) {
 				logger.warn("---------- Payload is not valid Base64 encoded string - will not perform decoding. Continue with original payload ---------");
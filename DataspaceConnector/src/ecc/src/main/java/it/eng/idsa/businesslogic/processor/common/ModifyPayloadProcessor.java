@@ -1,16 +1,15 @@
 package it.eng.idsa.businesslogic.processor.common;
 
-import java.util.Base64;
-
 import org.apache.camel.Exchange;
 import org.apache.camel.Processor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import de.fraunhofer.iais.eis.ArtifactResponseMessage;
-import it.eng.idsa.multipart.builder.MultipartMessageBuilder;
+import it.eng.idsa.businesslogic.service.PayloadTransformationService;
 import it.eng.idsa.multipart.domain.MultipartMessage;
 
 /**
@@ -24,6 +23,9 @@ public class ModifyPayloadProcessor implements Processor {
 
 	@Value("#{new Boolean('${application.encodeDecodePayload:false}')}")
 	private Boolean encodeDecodePayload;
+
+	@Autowired
+	private PayloadTransformationService payloadTransformationService;
 	
 	@Override
 	public void process(Exchange exchange) throws Exception {
@@ -33,16 +35,13 @@ public class ModifyPayloadProcessor implements Processor {
 				logger.info("Not and ArtifactResponseMessage - skipping Base64 Encoding of the payload");
 				return;
 			}
+			if (payloadTransformationService.isPassThrough(mm)) {
+				logger.info("Payload content type configured for pass through - skipping Base64 Encoding of the payload");
+				return;
+			}
 			logger.info("Base64 Encoding payload");
 			
-			MultipartMessage mmEncoded =  new MultipartMessageBuilder()
-					.withHttpHeader(mm.getHttpHeaders())
-					.withHeaderHeader(mm.getHeaderHeader())
-					.withHeaderContent(mm.getHeaderContent())
-					.withPayloadHeader(mm.getPayloadHeader())
-					.withPayloadContent(Base64.getEncoder().encodeToString(mm.getPayloadContent().getBytes()))
-					.withToken(mm.getToken())
-					.build();
+			MultipartMessage mmEncoded = payloadTransformationService.encode(exchange, mm);
 			exchange.getMessage().setBody(mmEncoded);
 		}
 	}
@@ -23,6 +23,7 @@ import it.eng.idsa.businesslogic.audit.TrueConnectorEventType;
 import it.eng.idsa.businesslogic.configuration.ClearingHouseConfiguration;
 import it.eng.idsa.businesslogic.service.ClearingHouseService;
 import it.eng.idsa.businesslogic.service.RejectionMessageService;
+import it.eng.idsa.businesslogic.service.impl.ClearingHouseOutbox;
 import it.eng.idsa.businesslogic.usagecontrol.service.UsageControlService;
 import it.eng.idsa.businesslogic.util.Helper;
 import it.eng.idsa.multipart.domain.MultipartMessage;
@@ -40,6 +41,8 @@ public class RegisterTransactionToCHProcessor implements Processor {
 
 	private Optional<ClearingHouseService> clearingHouseService;
 	
+	private Optional<ClearingHouseOutbox> clearingHouseOutbox;
+	
 	private Optional<UsageControlService> usageControlService;
 	
 	private RejectionMessageService rejectionMessageService;
@@ -52,6 +55,7 @@ public class RegisterTransactionToCHProcessor implements Processor {
 	
 	public RegisterTransactionToCHProcessor(ClearingHouseConfiguration configuration,
 			Optional<ClearingHouseService> clearingHouseService,
+			Optional<ClearingHouseOutbox> clearingHouseOutbox,
 			Optional<UsageControlService> usageControlService,
 			RejectionMessageService rejectionMessageService,
 			ApplicationEventPublisher publisher,
@@ -59,6 +63,7 @@ public class RegisterTransactionToCHProcessor implements Processor {
 			@Value("${application.isReceiver}") Boolean isReceiver) {
 		super();
 		this.clearingHouseService = clearingHouseService;
+		this.clearingHouseOutbox = clearingHouseOutbox;
 		this.usageControlService = usageControlService;
 		this.rejectionMessageService = rejectionMessageService;
 		this.publisher = publisher;
@@ -83,7 +88,7 @@ public class RegisterTransactionToCHProcessor implements Processor {
 		
 		if (multipartMessage.getHeaderContent() instanceof ArtifactRequestMessage
 				|| multipartMessage.getHeaderContent() instanceof ArtifactResponseMessage) {
-			registrationSuccessfull = clearingHouseService.map(service -> service.registerTransaction(multipartMessage.getHeaderContent(), null)).orElse(false);
+			registrationSuccessfull = clearingHouseOutbox.map(outbox -> outbox.registerTransaction(multipartMessage.getHeaderContent(), null)).orElse(false);
 			if (registrationSuccessfull) {
 				publisher.publishEvent(new TrueConnectorEvent(TrueConnectorEventType.CONNECTOR_CLEARING_HOUSE_SUCCESS, multipartMessage));
 				logger.info("Clearing house registered successfully");
@@ -110,10 +115,10 @@ public class RegisterTransactionToCHProcessor implements Processor {
 			if (isReceiver) {
 				String pid = clearingHouseService.map(service -> service.createProcessIdAtClearingHouse(originalMessage.getSecurityToken().getTokenValue(), contractAgreementUUID)).orElse(null);
 				if (pid != null) {
-					registrationSuccessfull = clearingHouseService.map(service -> service.registerTransaction(originalMessage, contractAgreementUUID)).orElse(false);
+					registrationSuccessfull = clearingHouseOutbox.map(outbox -> outbox.registerTransaction(originalMessage, contractAgreementUUID)).orElse(false);
 				}
 			} else {
-				registrationSuccessfull = clearingHouseService.map(service -> service.registerTransaction(originalMessage, contractAgreementUUID)).orElse(false);
+				registrationSuccessfull = clearingHouseOutbox.map(outbox -> outbox.registerTransaction(originalMessage, contractAgreementUUID)).orElse(false);
 			}
 			if (!registrationSuccessfull) {
 				usageControlService.ifPresent(service -> service.rollbackPolicyUpload(contractAgreementUUID));
@@ -16,8 +16,7 @@ import org.springframework.stereotype.Component;
 
 import it.eng.idsa.businesslogic.audit.CamelAuditable;
 import it.eng.idsa.businesslogic.audit.TrueConnectorEventType;
-import it.eng.idsa.businesslogic.configuration.WebSocketServerConfigurationB;
-import it.eng.idsa.businesslogic.processor.receiver.websocket.server.ResponseMessageBufferBean;
+import it.eng.idsa.businesslogic.processor.receiver.websocket.server.WebSocketConnection;
 import it.eng.idsa.businesslogic.service.HttpHeaderService;
 import it.eng.idsa.businesslogic.service.MultipartMessageService;
 import it.eng.idsa.businesslogic.util.HeaderCleaner;
@@ -36,15 +35,9 @@ public class ReceiverSendDataToBusinessLogicProcessor implements Processor {
 	
 	private static final Logger logger = LoggerFactory.getLogger(ReceiverSendDataToBusinessLogicProcessor.class);
 
-	@Value("${application.websocket.isEnabled}")
-	private boolean isEnabledWebSocket;
-
 	@Value("${application.eccHttpSendRouter}")
 	private String eccHttpSendRouter;
 	
-	@Autowired(required = false)
-	private WebSocketServerConfigurationB webSocketServerConfiguration;
-	
 	@Autowired
 	private HttpHeaderService headerService;
 	
@@ -89,14 +82,16 @@ public class ReceiverSendDataToBusinessLogicProcessor implements Processor {
 		        resultEntity.writeTo(outStream);
 		        outStream.flush();
 		        
-				exchange.getMessage().setBody(outStream.toString());
+				responseString = outStream.toString();
+				exchange.getMessage().setBody(responseString);
 			}
 		}
 
-		if (isEnabledWebSocket) { // TODO Try to remove this config property
-			ResponseMessageBufferBean responseMessageServerBean = webSocketServerConfiguration
-					.responseMessageBufferWebSocket();
-			responseMessageServerBean.add(responseString.getBytes());
+		// set by ReceiverWebSocketMessageDispatcher for messages received over WSS
+		WebSocketConnection.Reply reply = exchange.getProperty(ReceiverWebSocketMessageDispatcher.WEBSOCKET_REPLY,
+				WebSocketConnection.Reply.class);
+		if (reply != null) {
+			reply.complete(responseString.getBytes());
 		}
 
 		headerCleaner.removeTechnicalHeaders(headersParts);
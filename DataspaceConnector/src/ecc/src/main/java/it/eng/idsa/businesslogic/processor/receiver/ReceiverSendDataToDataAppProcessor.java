@@ -24,10 +24,11 @@ import it.eng.idsa.businesslogic.service.RejectionMessageService;
 import it.eng.idsa.businesslogic.service.impl.SendDataToBusinessLogicServiceImpl;
 import it.eng.idsa.businesslogic.util.Helper;
 import it.eng.idsa.businesslogic.util.RouterType;
+import it.eng.idsa.businesslogic.util.StreamingMultipartReader;
+import it.eng.idsa.businesslogic.util.StreamingMultipartReader.PayloadTooLargeException;
 import it.eng.idsa.businesslogic.util.TrueConnectorConstants;
 import it.eng.idsa.multipart.builder.MultipartMessageBuilder;
 import it.eng.idsa.multipart.domain.MultipartMessage;
-import it.eng.idsa.multipart.processor.MultipartMessageProcessor;
 import it.eng.idsa.multipart.util.MultipartMessageKey;
 import okhttp3.Response;
 
@@ -63,6 +64,9 @@ public class ReceiverSendDataToDataAppProcessor implements Processor {
 	@Autowired
 	private HttpHeaderService httpHeaderService;
 
+	@Autowired
+	private StreamingMultipartReader multipartReader;
+
 	@Autowired
 	private SendDataToBusinessLogicServiceImpl sendDataToBusinessLogicService;
 	
@@ -119,7 +123,6 @@ public class ReceiverSendDataToDataAppProcessor implements Processor {
 
 	private void handleResponse(Exchange exchange, Message message, Response response, String openApiDataAppAddress)
 			throws UnsupportedOperationException, IOException {
-		String responseString = getResponseBodyAsString(response);
 		logger.info("data received from: {}", openApiDataAppAddress);
 
 		Map<String, Object> headers = httpHeaderService.okHttpHeadersToMap(response.headers());
@@ -136,6 +139,7 @@ public class ReceiverSendDataToDataAppProcessor implements Processor {
 			headerHeaderContentType.put("Content-Type", "application/ld+json");
 			Map<String, String> payloadHeaderContentType = new HashMap<>();
 			payloadHeaderContentType.put("Content-Type", response.headers().get(MultipartMessageKey.CONTENT_TYPE.label));
+			String responseString = getResponseBodyAsString(response);
 			multipartMessage = new MultipartMessageBuilder()
 					.withHeaderContent(message)
 					.withHeaderHeader(headerHeaderContentType)
@@ -145,7 +149,12 @@ public class ReceiverSendDataToDataAppProcessor implements Processor {
 			exchange.getMessage().setBody(multipartMessage);
 			
 		} else {
-			multipartMessage = MultipartMessageProcessor.parseMultipartMessage(responseString);
+			try {
+				multipartMessage = multipartReader.read(response.body());
+			} catch (PayloadTooLargeException e) {
+				logger.error("Response not accepted - {}", e.getMessage());
+				rejectionMessageService.sendRejectionMessage(message, RejectionReason.INTERNAL_RECIPIENT_ERROR);
+			}
 			exchange.getMessage().setBody(multipartMessage);
 		}
 		
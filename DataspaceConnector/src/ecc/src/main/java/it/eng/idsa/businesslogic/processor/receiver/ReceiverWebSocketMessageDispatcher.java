@@ -0,0 +1,109 @@
+package it.eng.idsa.businesslogic.processor.receiver;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.ProducerTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import it.eng.idsa.businesslogic.configuration.WebSocketServerConfigurationB;
+import it.eng.idsa.businesslogic.processor.receiver.websocket.server.HttpWebSocketMessagingLogicB;
+import it.eng.idsa.businesslogic.processor.receiver.websocket.server.WebSocketConnection;
+
+/**
+ * Feeds messages received over WSS into the receiver route.<br>
+ * Each message recreated by the WebSocket listener is sent to {@link #ENDPOINT} on a bounded pool of
+ * <code>application.websocket.receiver.threads</code> threads. When <code>queueCapacity</code> messages are waiting,
+ * the listener thread processes the message itself, which stops reading from that connection until it is done.<br>
+ * The response is set on the {@link WebSocketConnection.Reply} in exchange property {@link #WEBSOCKET_REPLY}.
+ *
+ * @author Milan Karajovic and Gabriele De Luca
+ *
+ */
+@Component
+@ConditionalOnExpression(
+		"${application.websocket.isEnabled:true}"
+)
+public class ReceiverWebSocketMessageDispatcher {
+
+	private static final Logger logger = LoggerFactory.getLogger(ReceiverWebSocketMessageDispatcher.class);
+
+	public static final String ENDPOINT = "direct:WSS";
+	public static final String WEBSOCKET_REPLY = "WebSocketReply";
+
+	private final ProducerTemplate producerTemplate;
+	private final WebSocketServerConfigurationB webSocketServerConfiguration;
+	private final ThreadPoolExecutor executor;
+
+	public ReceiverWebSocketMessageDispatcher(ProducerTemplate producerTemplate,
+			WebSocketServerConfigurationB webSocketServerConfiguration,
+			@Value("${application.websocket.receiver.threads:8}") int threads,
+			@Value("${application.websocket.receiver.queueCapacity:64}") int queueCapacity) {
+		this.producerTemplate = producerTemplate;
+		this.webSocketServerConfiguration = webSocketServerConfiguration;
+		AtomicInteger counter = new AtomicInteger();
+		this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(queueCapacity), r -> {
+					Thread thread = new Thread(r, "wss-receiver-" + counter.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}, new ThreadPoolExecutor.CallerRunsPolicy());
+		this.executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Starts the WebSocket server once the routes are started
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		HttpWebSocketMessagingLogicB.getInstance().setMessageHandler(this::dispatch);
+		webSocketServerConfiguration.httpsServerWebSocket().createServer();
+		logger.info("Receiving messages over WSS with {} threads", executor.getMaximumPoolSize());
+	}
+
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		HttpWebSocketMessagingLogicB.getInstance().setMessageHandler(null);
+		executor.shutdown();
+		executor.awaitTermination(5, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Reserves the response of the message on its connection, in order of arrival, and queues the message
+	 * @param connection connection on which the message was received
+	 * @param message recreated multipart message
+	 */
+	public void dispatch(WebSocketConnection connection, String message) {
+		WebSocketConnection.Reply reply = connection.nextReply();
+		executor.execute(() -> process(connection, reply, message));
+	}
+
+	private void process(WebSocketConnection connection, WebSocketConnection.Reply reply, String message) {
+		try {
+			Exchange exchange = producerTemplate.send(ENDPOINT, e -> {
+				e.getMessage().setBody(message, String.class);
+				e.setProperty(WEBSOCKET_REPLY, reply);
+			});
+			if (!reply.isCompleted()) {
+				logger.error("No response to the message received over WSS{}",
+						exchange.getException() != null ? ": " + exchange.getException().getMessage() : "");
+				// responses are matched by order, the sender can not skip a missing one
+				connection.close("No response");
+			}
+		} catch (RuntimeException e) {
+			logger.error("Could not process message received over WSS", e);
+			connection.close("No response");
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package it.eng.idsa.businesslogic.processor.receiver.websocket.server;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Pool of direct buffers of one size, used to hold received frames until they are reassembled.<br>
+ * Requests bigger than the pooled size get a heap buffer, which is not returned to the pool.
+ */
+public class DirectBufferPool {
+
+	private final int bufferSize;
+	private final BlockingQueue<ByteBuffer> free;
+
+	/**
+	 * @param bufferSize size of pooled buffers
+	 * @param maxPooled maximum number of idle buffers kept
+	 */
+	public DirectBufferPool(int bufferSize, int maxPooled) {
+		this.bufferSize = bufferSize;
+		this.free = new ArrayBlockingQueue<>(maxPooled);
+	}
+
+	/**
+	 * @param size number of bytes needed
+	 * @return cleared buffer with limit set to size
+	 */
+	public ByteBuffer acquire(int size) {
+		if (size > bufferSize) {
+			return ByteBuffer.allocate(size);
+		}
+		ByteBuffer buffer = free.poll();
+		if (buffer == null) {
+			buffer = ByteBuffer.allocateDirect(bufferSize);
+		}
+		buffer.clear().limit(size);
+		return buffer;
+	}
+
+	/**
+	 * Returns buffer to the pool, buffers not created by the pool are ignored
+	 * @param buffer buffer obtained with {@link #acquire(int)}
+	 */
+	public void release(ByteBuffer buffer) {
+		if (buffer != null && buffer.isDirect() && buffer.capacity() == bufferSize) {
+			free.offer(buffer);
+		}
+	}
+
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	int idle() {
+		return free.size();
+	}
+}
@@ -1,9 +1,8 @@
 package it.eng.idsa.businesslogic.processor.receiver.websocket.server;
 
-import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
+import java.util.Arrays;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,17 +17,22 @@ public class FileRecreatorBeanServer implements Runnable {
 
 	private static final Logger logger = LoggerFactory.getLogger(FileRecreatorBeanServer.class);
 
-	private static final int DEFAULT_STREAM_BUFFER_SIZE = 127;
-	private static final String END_BINARY_FRAME_SEPARATOR = "�normal-IDS-ENG-SEPARATOR the-last-frame";
+	private static final int MAX_PRESIZED_SINK = 16 * 1024 * 1024;
 
 	// @Autowired
 	private WebSocketServerConfiguration webSocketServerConfiguration;
 
 	private FrameBufferBean frameBuffer;
-	private ArrayList<byte[]> fileByteArray = new ArrayList<byte[]>();
-	private ByteBuffer byteBuffer = null;
 	private RecreatedMultipartMessageBean recreatedmultipartMessage;
 
+	/**
+	 * Frames are copied straight into this array, sized after the previous message (up to 16MB) so that similar
+	 * messages are reassembled without growing it
+	 */
+	private byte[] sink;
+	private int sinkSize;
+	private int expectedMessageSize = WebSocketFrames.DEFAULT_FRAME_SIZE;
+
 	public FileRecreatorBeanServer() {
 
 	}
@@ -53,62 +57,50 @@ public class FileRecreatorBeanServer implements Runnable {
 	}
 
 	private void receiveAllFrames() {
+		sink = new byte[expectedMessageSize];
+		sinkSize = 0;
 		boolean allFramesReceived = false;
 
 		while (!allFramesReceived) {
-			byte[] receivedFrame = this.frameBuffer.remove();
-
+			ByteBuffer receivedFrame = this.frameBuffer.removeFrame();
+			if (receivedFrame == null) {
+				logger.warn("Receiving frames interrupted, recreating message from {} bytes received", sinkSize);
+				return;
+			}
 			try {
-				if ((new String(receivedFrame, StandardCharsets.UTF_8)).equals(END_BINARY_FRAME_SEPARATOR)) {
+				if (WebSocketFrames.is(receivedFrame, WebSocketFrames.END_BINARY_FRAME_SEPARATOR)) {
 					allFramesReceived = true;
-					logger.info("Received the last frames: " + END_BINARY_FRAME_SEPARATOR);
-				} else {
-					this.fileByteArray.add(receivedFrame.clone());
+					logger.info("Received the last frames: " + InputStreamSocketListenerServer.END_BINARY_FRAME_SEPARATOR);
+				} else if (!WebSocketFrames.is(receivedFrame, WebSocketFrames.START_BINARY_FRAME_SEPARATOR)) {
+					// START separator is the header of the File, which should not be included in the byte[] of file
+					append(receivedFrame);
 				}
 			} finally {
-				receivedFrame = null;
+				this.frameBuffer.release(receivedFrame);
 			}
 		}
 	}
 
-	private byte[] getAllFrames(ArrayList<byte[]> fileByteArray) {
-		ByteBuffer byteBuffer = ByteBuffer.allocate(DEFAULT_STREAM_BUFFER_SIZE * fileByteArray.size());
-		// fileByteArray(0) is our header of the File, which should not be included in
-		// the byte[] of file
-		for (int i = 1; i < fileByteArray.size(); i++) {
-			byteBuffer.put(fileByteArray.get(i));
+	private void append(ByteBuffer frame) {
+		int length = frame.remaining();
+		if (sinkSize + length > sink.length) {
+			sink = Arrays.copyOf(sink, Math.max(sinkSize + length, sink.length * 2));
 		}
-		return byteBuffer.array();
+		frame.get(sink, sinkSize, length);
+		sinkSize += length;
 	}
 
 	private String recreateMultipartMessageFromReceivedFrames() {
-		String multipartMessage = null;
-		try {
-			logger.info("Started process: Recreate the Multipart message from the received frames");
-			multipartMessage = recreateMultipartMessage(this.fileByteArray);
-			// once bytes are consumed to get message - empty array
-			fileByteArray = new ArrayList<>();
-			logger.info("Recreated the Multipart message from the received frames: lenght= {}", multipartMessage.length());
-		} catch (IOException e) {
-			logger.error("Coud not recreate the file from the received frames: {}", e.getMessage());
-		}
-		return multipartMessage;
-	}
-
-	private String recreateMultipartMessage(ArrayList<byte[]> fileByteArray) throws IOException {
-		byte[] allFrames = getAllFrames(fileByteArray);
-		String multipartMessage = new String(allFrames, StandardCharsets.UTF_8);
+		logger.info("Started process: Recreate the Multipart message from the received frames");
+		String multipartMessage = new String(sink, 0, sinkSize, StandardCharsets.UTF_8);
+		expectedMessageSize = Math.max(WebSocketFrames.DEFAULT_FRAME_SIZE, Math.min(MAX_PRESIZED_SINK, sinkSize));
+		// once bytes are consumed to get message - release the sink
+		sink = null;
+		sinkSize = 0;
+		logger.info("Recreated the Multipart message from the received frames: lenght= {}", multipartMessage.length());
 		return multipartMessage;
 	}
 
-	public ByteBuffer getByteBuffer() {
-		return byteBuffer;
-	}
-
-	public void setByteBuffer(ByteBuffer byteBuffer) {
-		this.byteBuffer = byteBuffer;
-	}
-
 	public void setWebSocketServerConfiguration(WebSocketServerConfiguration webSocketServerConfiguration) {
 		this.webSocketServerConfiguration = webSocketServerConfiguration;
 	}
@@ -1,10 +1,16 @@
 package it.eng.idsa.businesslogic.processor.receiver.websocket.server;
 
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * 
+ * Bounded queue of received frames between the WebSocket listener and {@link FileRecreatorBeanServer}.<br>
+ * Listener blocks only when <code>capacity</code> frames are waiting to be reassembled.
+ *
  * @author Milan Karajovic and Gabriele De Luca
  *
  */
@@ -12,38 +18,84 @@ import org.slf4j.LoggerFactory;
 public class FrameBufferBean {
 	private static final Logger logger = LoggerFactory.getLogger(FrameBufferBean.class);
 
-	private byte[] frame = null;
-	private boolean frameIsReceived = false;
-	
-	public synchronized void add(byte[] msg) {
-		if(frameIsReceived) {
-			try {
-				wait();
-			} catch(InterruptedException e) {
-				logger.error("Adding frame to buffer interupted: {}", e.getMessage());
-			}
+	private final BlockingQueue<ByteBuffer> frames;
+	private final DirectBufferPool bufferPool;
+
+	public FrameBufferBean() {
+		this(WebSocketFrames.DEFAULT_FRAME_SIZE, WebSocketFrames.DEFAULT_QUEUE_CAPACITY);
+	}
+
+	public FrameBufferBean(int frameSize, int capacity) {
+		this.frames = new ArrayBlockingQueue<>(capacity);
+		// one spare buffer for the frame being reassembled
+		this.bufferPool = new DirectBufferPool(frameSize, capacity + 1);
+	}
+
+	/**
+	 * Adds frame, array is queued as is, without copying
+	 * @param msg frame
+	 */
+	public void add(byte[] msg) {
+		put(ByteBuffer.wrap(msg));
+	}
+
+	/**
+	 * Copies remaining bytes of the frame into a pooled buffer and queues it.<br>
+	 * Used for buffers owned by the WebSocket implementation, which are reused after the callback.
+	 * @param frame frame
+	 */
+	public void add(ByteBuffer frame) {
+		ByteBuffer copy = bufferPool.acquire(frame.remaining());
+		copy.put(frame).flip();
+		if (!put(copy)) {
+			bufferPool.release(copy);
+		}
+	}
+
+	/**
+	 * Waits for the next frame.<br>
+	 * Caller should pass the frame to {@link #release(ByteBuffer)} once it is consumed.
+	 * @return next frame, null if interrupted
+	 */
+	public ByteBuffer removeFrame() {
+		try {
+			return frames.take();
+		} catch (InterruptedException e) {
+			logger.error("Removing frame from buffer interupted: {}", e.getMessage());
+			Thread.currentThread().interrupt();
+			return null;
+		}
+	}
+
+	/**
+	 * @param frame frame obtained with {@link #removeFrame()}
+	 */
+	public void release(ByteBuffer frame) {
+		bufferPool.release(frame);
+	}
+
+	public byte[] remove() {
+		ByteBuffer frame = removeFrame();
+		if (frame == null) {
+			return null;
 		}
-		
-		this.frame = msg;
-		frameIsReceived = true;
-		notify();
-	}
-	
-	public synchronized byte[] remove() {
-		if(!frameIsReceived) {
-			try {
-				wait();
-			} catch(InterruptedException e) {
-				logger.error("Removing frame from buffer interupted: {}", e.getMessage());
-			}
+		if (frame.hasArray() && frame.arrayOffset() == 0 && frame.position() == 0 && frame.remaining() == frame.array().length) {
+			return frame.array();
 		}
-		
-		frameIsReceived = false;
+		byte[] bytes = new byte[frame.remaining()];
+		frame.get(bytes);
+		release(frame);
+		return bytes;
+	}
+
+	private boolean put(ByteBuffer frame) {
 		try {
-			return frame;
-		}finally{
-			notify();
-			frame = null;
+			frames.put(frame);
+			return true;
+		} catch (InterruptedException e) {
+			logger.error("Adding frame to buffer interupted: {}", e.getMessage());
+			Thread.currentThread().interrupt();
+			return false;
 		}
 	}
 }
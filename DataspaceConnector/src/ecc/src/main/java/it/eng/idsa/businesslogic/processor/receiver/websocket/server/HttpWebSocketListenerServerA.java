@@ -32,9 +32,7 @@ public class HttpWebSocketListenerServerA implements WebSocketPartialListener {
 
     @Override
     public void onWebSocketPartialBinary(ByteBuffer byteBuffer, boolean b) {
-        byte[] arr = new byte[byteBuffer.remaining()];
-        byteBuffer.get(arr);
-        HttpWebSocketMessagingLogicA.getInstance().onMessage(session, arr);
+        HttpWebSocketMessagingLogicA.getInstance().onMessage(session, byteBuffer);
     }
 
     @Override
@@ -8,21 +8,22 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Example MessagingListenerServer using PartialListener.
+ * Example MessagingListenerServer using PartialListener.<br>
+ * Jetty creates a listener for every connection, the listener keeps the state of its connection.
  * @author Antonio Scatoloni
  */
 public class HttpWebSocketListenerServerB implements WebSocketPartialListener {
     private static final Logger logger = LoggerFactory.getLogger(HttpWebSocketListenerServerB.class);
-    private Session session;
+    private WebSocketConnection connection;
 
     @Override
     public void onWebSocketClose(int statusCode, String reason) {
-        this.session = null;
+        this.connection = null;
     }
 
     @Override
     public void onWebSocketConnect(Session session) {
-        this.session = session;
+        this.connection = HttpWebSocketMessagingLogicB.getInstance().connect(session);
     }
 
     @Override
@@ -32,13 +33,17 @@ public class HttpWebSocketListenerServerB implements WebSocketPartialListener {
 
     @Override
     public void onWebSocketPartialBinary(ByteBuffer byteBuffer, boolean b) {
-        byte[] arr = new byte[byteBuffer.remaining()];
-        byteBuffer.get(arr);
-        HttpWebSocketMessagingLogicB.getInstance().onMessage(session, arr);
+        if (connection == null) {
+            return;
+        }
+        HttpWebSocketMessagingLogicB.getInstance().onMessage(connection, byteBuffer);
     }
 
     @Override
     public void onWebSocketPartialText(String s, boolean b) {
-        HttpWebSocketMessagingLogicB.getInstance().onMessage(session, s.getBytes());
+        if (connection == null) {
+            return;
+        }
+        HttpWebSocketMessagingLogicB.getInstance().onMessage(connection, ByteBuffer.wrap(s.getBytes()));
     }
-}
\ No newline at end of file
+}
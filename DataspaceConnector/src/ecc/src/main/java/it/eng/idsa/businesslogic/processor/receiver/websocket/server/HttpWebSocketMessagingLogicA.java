@@ -1,5 +1,6 @@
 package it.eng.idsa.businesslogic.processor.receiver.websocket.server;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
 import org.eclipse.jetty.websocket.api.Session;
@@ -15,7 +16,7 @@ import it.eng.idsa.businesslogic.configuration.WebSocketServerConfiguration;
  */
 public class HttpWebSocketMessagingLogicA {
     private static final Logger logger = LoggerFactory.getLogger(HttpWebSocketMessagingLogicA.class);
-    private static final String FORWARD_TO_HEADER = "Forward-To:";
+    private static final byte[] FORWARD_TO_HEADER = "Forward-To:".getBytes(StandardCharsets.UTF_8);
 
     private WebSocketServerConfiguration webSocketServerConfiguration;
     private static HttpWebSocketMessagingLogicA instance;
@@ -34,21 +35,30 @@ public class HttpWebSocketMessagingLogicA {
 
     // TODO Duplicate code fragment @See InputStreamSocketListenerServer onMessage()
     public void onMessage(Session session, byte[] message) {
-        String receivedMessage = new String(message, StandardCharsets.UTF_8);
-        if(receivedMessage.contains(FORWARD_TO_HEADER)) {
-              forwardTo = receivedMessage.substring(FORWARD_TO_HEADER.length());
+        onMessage(session, ByteBuffer.wrap(message));
+    }
+
+    /**
+     * Handles received frame; frame content is copied to the frame buffer, so the buffer can be reused by the caller
+     * @param session WebSocket session
+     * @param message received frame
+     */
+    public void onMessage(Session session, ByteBuffer message) {
+        if (WebSocketFrames.startsWith(message, FORWARD_TO_HEADER)) {
+            byte[] forwardToBytes = new byte[message.remaining() - FORWARD_TO_HEADER.length];
+            message.position(message.position() + FORWARD_TO_HEADER.length).get(forwardToBytes);
+            forwardTo = new String(forwardToBytes, StandardCharsets.UTF_8);
         }
-        else if (receivedMessage.equals(InputStreamSocketListenerServer.CLOSURE_FRAME)) {
+        else if (WebSocketFrames.is(message, WebSocketFrames.CLOSURE_FRAME)) {
             // The last frame is received - skip this frame
             // This indicate that Client WebSocket now is closed
         } else {
+            boolean isLastFrame = WebSocketFrames.is(message, WebSocketFrames.END_BINARY_FRAME_SEPARATOR);
             // Put the received frame in the frameBuffer
-            webSocketServerConfiguration.frameBufferWebSocket().add(message.clone());
-            if (receivedMessage.equals(InputStreamSocketListenerServer.END_BINARY_FRAME_SEPARATOR)) {
-                ResponseMessageSendPartialServer responseMessageSendPartialServer = webSocketServerConfiguration.responseMessageSendPartialWebSocket();
-                responseMessageSendPartialServer.setup(session);
-                Thread fileRecreatorBeanThread = new Thread(responseMessageSendPartialServer, "ResponseMessageSendPartialServer");
-                fileRecreatorBeanThread.start();
+            webSocketServerConfiguration.frameBufferWebSocket().add(message);
+            if (isLastFrame) {
+                // responses are sent in the order of the messages, several messages may be in flight on one session
+                webSocketServerConfiguration.responseMessageSendPartialWebSocket().sendResponseLater(session);
             }
        }
     }
@@ -1,53 +1,71 @@
 package it.eng.idsa.businesslogic.processor.receiver.websocket.server;
 
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
+import java.util.function.BiConsumer;
 
 import org.eclipse.jetty.websocket.api.Session;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import it.eng.idsa.businesslogic.configuration.WebSocketServerConfiguration;
-
 /**
- * HttpWebSocketMessagingLogic will be responsible for parsing received data
+ * HttpWebSocketMessagingLogic will be responsible for parsing received data.<br>
+ * Frames are reassembled per connection and every recreated message is passed to the message handler.
  *
  * @author Antonio Scatoloni
  */
 public class HttpWebSocketMessagingLogicB {
     private static final Logger logger = LoggerFactory.getLogger(HttpWebSocketMessagingLogicB.class);
 
-    private WebSocketServerConfiguration webSocketServerConfiguration;
     private static HttpWebSocketMessagingLogicB instance;
 
+    private int frameSize = WebSocketFrames.DEFAULT_FRAME_SIZE;
+    private volatile BiConsumer<WebSocketConnection, String> messageHandler;
+
     private HttpWebSocketMessagingLogicB() {
     }
 
-    public static HttpWebSocketMessagingLogicB getInstance() {
+    public static synchronized HttpWebSocketMessagingLogicB getInstance() {
         if (instance == null) {
             instance = new HttpWebSocketMessagingLogicB();
         }
         return instance;
     }
 
-    // TODO Duplicate code fragment @See InputStreamSocketListenerServer onMessage()
-    public void onMessage(Session session, byte[] message) {
-        String receivedMessage = new String(message, StandardCharsets.UTF_8);
-       if (receivedMessage.equals(InputStreamSocketListenerServer.CLOSURE_FRAME)) {
-            // The last frame is received - skip this frame
-            // This indicate that Client WebSocket now is closed
-        } else {
-            // Put the received frame in the frameBuffer
-            webSocketServerConfiguration.frameBufferWebSocket().add(message.clone());
-            if (receivedMessage.equals(InputStreamSocketListenerServer.END_BINARY_FRAME_SEPARATOR)) {
-                ResponseMessageSendPartialServer responseMessageSendPartialServer = webSocketServerConfiguration.responseMessageSendPartialWebSocket();
-                responseMessageSendPartialServer.setup(session);
-                Thread fileRecreatorBeanThread = new Thread(responseMessageSendPartialServer, "ResponseMessageSendPartialServer");
-                fileRecreatorBeanThread.start();
-            }
-       }
+    /**
+     * @param session session of the new connection
+     * @return state of the connection, passed with every frame received on it
+     */
+    public WebSocketConnection connect(Session session) {
+        return new WebSocketConnection(session, frameSize);
+    }
+
+    /**
+     * Handles received frame; frame content is copied, so the buffer can be reused by the caller
+     * @param connection connection on which the frame was received
+     * @param message received frame
+     */
+    public void onMessage(WebSocketConnection connection, ByteBuffer message) {
+        String recreatedMessage = connection.onFrame(message);
+        if (recreatedMessage == null) {
+            return;
+        }
+        logger.debug("Received message over WSS");
+        BiConsumer<WebSocketConnection, String> handler = messageHandler;
+        if (handler == null) {
+            connection.close("Receiver is not ready");
+            return;
+        }
+        handler.accept(connection, recreatedMessage);
+    }
+
+    /**
+     * @param messageHandler called with every recreated message, on the thread that received its last frame
+     */
+    public void setMessageHandler(BiConsumer<WebSocketConnection, String> messageHandler) {
+        this.messageHandler = messageHandler;
     }
 
-    public void setWebSocketServerConfiguration(WebSocketServerConfiguration webSocketServerConfiguration) {
-        this.webSocketServerConfiguration = webSocketServerConfiguration;
+    public void setFrameSize(int frameSize) {
+        this.frameSize = WebSocketFrames.frameSize(frameSize);
     }
-}
\ No newline at end of file
+}
@@ -44,10 +44,7 @@ public class InputStreamSocketListenerServer implements SocketListener {
 			// Put the received frame in the frameBuffer
 			frameBuffer.add(message.clone());
 			if (receivedMessage.equals(END_BINARY_FRAME_SEPARATOR)) {
-				ResponseMessageSendPartialServer responseMessageSendPartialServer = webSocketServerConfiguration.responseMessageSendPartialWebSocket();
-				responseMessageSendPartialServer.setup(session);
-				Thread fileRecreatorBeanThread = new Thread(responseMessageSendPartialServer, "ResponseMessageSendPartialServer");
-				fileRecreatorBeanThread.start();
+				webSocketServerConfiguration.responseMessageSendPartialWebSocket().sendResponseLater(session);
 			}
 		}
 	}
@@ -1,9 +1,8 @@
 package it.eng.idsa.businesslogic.processor.receiver.websocket.server;
 
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.eclipse.jetty.websocket.api.RemoteEndpoint;
 import org.eclipse.jetty.websocket.api.Session;
@@ -24,12 +23,20 @@ public class ResponseMessageSendPartialServer implements Runnable {
 	
 	private Session session;
 	
-	private static final int DEFAULT_STREAM_BUFFER_SIZE = 127;
-	private int streamBufferSize = DEFAULT_STREAM_BUFFER_SIZE;
-	private volatile int loopCounter;
+	private int frameSize = WebSocketFrames.DEFAULT_FRAME_SIZE;
 	
 	private WebSocketServerConfiguration webSocketServerConfiguration;
 
+	/**
+	 * Responses are taken from the buffer in the order the messages were received, so a sender that keeps several
+	 * messages in flight on one connection gets the responses in the same order
+	 */
+	private final ExecutorService responseSender = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "ResponseMessageSendPartialServer");
+		thread.setDaemon(true);
+		return thread;
+	});
+
 	public ResponseMessageSendPartialServer() {	
 	}
 	
@@ -39,6 +46,18 @@ public class ResponseMessageSendPartialServer implements Runnable {
 	
 	@Override
 	public void run() {
+		sendResponse(session);
+	}
+
+	/**
+	 * Queues sending of the next response from the buffer to the session
+	 * @param session session on which the message was received
+	 */
+	public void sendResponseLater(Session session) {
+		responseSender.execute(() -> sendResponse(session));
+	}
+
+	private void sendResponse(Session session) {
 		ResponseMessageBufferBean responseMessageBuffer = webSocketServerConfiguration.responseMessageBufferWebSocket();
 		RemoteEndpoint remote = session.getRemote();
 		byte[] responseMessage = responseMessageBuffer.remove();
@@ -49,46 +68,18 @@ public class ResponseMessageSendPartialServer implements Runnable {
 		}
 	}
 	
+	/**
+	 * Sends response in frames of <code>frameSize</code> bytes, each frame is a view on the response array
+	 */
 	private void sendResponseMessageAsPartialBytes(RemoteEndpoint remote, byte[] responseMessage) throws IOException {
-		ArrayList<byte[]> devidedResponseMessage = divideResponseMessageArray(responseMessage, streamBufferSize);
-	    for(int i=0; i<devidedResponseMessage.size(); i++) {
-	    	ByteBuffer responseMessageStream = ByteBuffer.wrap(devidedResponseMessage.get(i));
-	    	if(i==(devidedResponseMessage.size()-1)) {
-	    		remote.sendPartialBytes(responseMessageStream, true);
-	    	} else {
-	    		remote.sendPartialBytes(responseMessageStream, false);
-	    	}
-	    }
-	}
-	
-	private ArrayList<byte[]> divideResponseMessageArray(byte[] data, int blockSize){
-		ArrayList<byte[]> dividedArray = new ArrayList<byte[]>();
-
-		int blockCount = (data.length + blockSize - 1) / blockSize;
-
-		byte[] range = null;
-		
-		for (loopCounter = 1; loopCounter < blockCount; loopCounter++) {
-				int idx = (loopCounter - 1) * blockSize;
-				range = Arrays.copyOfRange(data, idx, idx + blockSize);
-				dividedArray.add(range);
-		}
-
-		// Last part
-		int end = -1;
-		if (data.length % blockSize == 0) {
-				end = data.length;
-		} else {
-				end = data.length % blockSize + blockSize * (blockCount - 1);
-		}
-				
-		range = Arrays.copyOfRange(data, (blockCount - 1) * blockSize, end);
-		dividedArray.add(range);
-		
-		return dividedArray;
+		WebSocketFrames.sendPartial(remote, responseMessage, frameSize);
 	}
 
 	public void setWebSocketServerConfiguration(WebSocketServerConfiguration webSocketServerConfiguration) {
 		this.webSocketServerConfiguration = webSocketServerConfiguration;
 	}
+
+	public void setFrameSize(int frameSize) {
+		this.frameSize = WebSocketFrames.frameSize(frameSize);
+	}
 }
@@ -0,0 +1,142 @@
+package it.eng.idsa.businesslogic.processor.receiver.websocket.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * State of one WebSocket connection on the receiver side: frames of the message being received and responses waiting
+ * to be sent.<br>
+ * Every connection reassembles its own messages, so concurrent senders do not interleave. Messages of a connection
+ * may be processed concurrently, responses are sent in the order the messages were received.
+ */
+public class WebSocketConnection {
+
+	private static final Logger logger = LoggerFactory.getLogger(WebSocketConnection.class);
+
+	/**
+	 * Larger sink arrays are released after the message, so idle connections do not keep them
+	 */
+	private static final int MAX_RETAINED_SINK = 1024 * 1024;
+
+	private final Session session;
+	private final int frameSize;
+
+	// frames are delivered by one thread at a time for a connection
+	private byte[] sink;
+	private int sinkSize;
+
+	private final Deque<Reply> replies = new ArrayDeque<>();
+
+	public WebSocketConnection(Session session, int frameSize) {
+		this.session = session;
+		this.frameSize = frameSize;
+	}
+
+	/**
+	 * Adds received frame to the message of this connection
+	 * @param frame received frame, its content is copied
+	 * @return recreated message when frame is the END separator, otherwise null
+	 */
+	public String onFrame(ByteBuffer frame) {
+		if (WebSocketFrames.is(frame, WebSocketFrames.CLOSURE_FRAME)) {
+			// Client WebSocket is closed
+			return null;
+		}
+		if (WebSocketFrames.is(frame, WebSocketFrames.START_BINARY_FRAME_SEPARATOR)) {
+			sinkSize = 0;
+			return null;
+		}
+		if (WebSocketFrames.is(frame, WebSocketFrames.END_BINARY_FRAME_SEPARATOR)) {
+			String message = sink == null ? "" : new String(sink, 0, sinkSize, StandardCharsets.UTF_8);
+			if (sink != null && sink.length > MAX_RETAINED_SINK) {
+				sink = null;
+			}
+			sinkSize = 0;
+			return message;
+		}
+		append(frame);
+		return null;
+	}
+
+	private void append(ByteBuffer frame) {
+		int length = frame.remaining();
+		if (sink == null) {
+			sink = new byte[Math.max(WebSocketFrames.DEFAULT_FRAME_SIZE, length)];
+		} else if (sinkSize + length > sink.length) {
+			sink = Arrays.copyOf(sink, Math.max(sinkSize + length, sink.length * 2));
+		}
+		frame.get(sink, sinkSize, length);
+		sinkSize += length;
+	}
+
+	/**
+	 * Reserves place of the response to the message just received
+	 * @return reply to complete once the response is ready
+	 */
+	public Reply nextReply() {
+		Reply reply = new Reply();
+		synchronized (replies) {
+			replies.add(reply);
+		}
+		return reply;
+	}
+
+	/**
+	 * Closes the connection, sender fails messages still waiting for a response
+	 * @param reason reason sent in the close frame
+	 */
+	public void close(String reason) {
+		logger.warn("Closing WebSocket connection from {}, {}", session.getRemoteAddress(), reason);
+		session.close(StatusCode.SERVER_ERROR, reason);
+	}
+
+	/**
+	 * Sends completed responses from the head of the queue, so they leave in the order the messages were received
+	 */
+	private void flush() {
+		synchronized (replies) {
+			Reply head;
+			while ((head = replies.peek()) != null && head.response != null) {
+				replies.poll();
+				try {
+					WebSocketFrames.sendPartial(session.getRemote(), head.response, frameSize);
+				} catch (IOException | RuntimeException e) {
+					logger.error("Error while sending response over WebSocket: {}", e.getMessage());
+				}
+			}
+		}
+	}
+
+	public final class Reply {
+
+		private byte[] response;
+
+		/**
+		 * @param response response to the message; sent once responses to all earlier messages are sent
+		 */
+		public void complete(byte[] response) {
+			synchronized (replies) {
+				if (this.response != null) {
+					return;
+				}
+				this.response = response;
+			}
+			flush();
+		}
+
+		public boolean isCompleted() {
+			synchronized (replies) {
+				return response != null;
+			}
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package it.eng.idsa.businesslogic.processor.receiver.websocket.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Framing shared by the WSS sender and receiver: separator frames and frame size limits.<br>
+ * A message is sent as START separator, content frames of <code>application.websocket.frameSize</code> bytes and END
+ * separator.
+ */
+public final class WebSocketFrames {
+
+	private static final Logger logger = LoggerFactory.getLogger(WebSocketFrames.class);
+
+	public static final byte[] START_BINARY_FRAME_SEPARATOR = "�normal-IDS-ENG-SEPARATOR the-first-frame".getBytes(StandardCharsets.UTF_8);
+	public static final byte[] END_BINARY_FRAME_SEPARATOR = InputStreamSocketListenerServer.END_BINARY_FRAME_SEPARATOR.getBytes(StandardCharsets.UTF_8);
+	public static final byte[] CLOSURE_FRAME = InputStreamSocketListenerServer.CLOSURE_FRAME.getBytes(StandardCharsets.UTF_8);
+
+	public static final int DEFAULT_FRAME_SIZE = 32 * 1024;
+	public static final int MIN_FRAME_SIZE = 1024;
+	/**
+	 * Jetty default maximum binary message size, larger frames are rejected by the receiver
+	 */
+	public static final int MAX_FRAME_SIZE = 64 * 1024;
+
+	public static final int DEFAULT_QUEUE_CAPACITY = 64;
+
+	private WebSocketFrames() {
+	}
+
+	/**
+	 * Keeps configured frame size within limits accepted by the receiver
+	 * @param frameSize configured frame size
+	 * @return frame size to use
+	 */
+	public static int frameSize(int frameSize) {
+		if (frameSize < MIN_FRAME_SIZE || frameSize > MAX_FRAME_SIZE) {
+			int adjusted = Math.max(MIN_FRAME_SIZE, Math.min(MAX_FRAME_SIZE, frameSize));
+			logger.warn("WebSocket frame size {} out of range [{}, {}], using {}", frameSize, MIN_FRAME_SIZE, MAX_FRAME_SIZE, adjusted);
+			return adjusted;
+		}
+		return frameSize;
+	}
+
+	/**
+	 * Compares remaining bytes of the frame with the marker without consuming them.<br>
+	 * Length is checked first, so content frames are not decoded.
+	 * @param frame received frame
+	 * @param marker separator or closure frame
+	 * @return true if frame is the marker
+	 */
+	public static boolean is(ByteBuffer frame, byte[] marker) {
+		if (frame.remaining() != marker.length) {
+			return false;
+		}
+		int position = frame.position();
+		for (int i = 0; i < marker.length; i++) {
+			if (frame.get(position + i) != marker[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param frame received frame
+	 * @param prefix expected prefix
+	 * @return true if remaining bytes of the frame start with prefix
+	 */
+	public static boolean startsWith(ByteBuffer frame, byte[] prefix) {
+		if (frame.remaining() < prefix.length) {
+			return false;
+		}
+		int position = frame.position();
+		for (int i = 0; i < prefix.length; i++) {
+			if (frame.get(position + i) != prefix[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Sends message in frames of <code>frameSize</code> bytes, each frame is a view on the message array
+	 * @param remote remote endpoint of the session
+	 * @param message message
+	 * @param frameSize frame size
+	 * @throws IOException if sending failed
+	 */
+	public static void sendPartial(RemoteEndpoint remote, byte[] message, int frameSize) throws IOException {
+		int offset = 0;
+		do {
+			int length = Math.min(frameSize, message.length - offset);
+			boolean isLast = offset + length >= message.length;
+			remote.sendPartialBytes(ByteBuffer.wrap(message, offset, length), isLast);
+			offset += length;
+		} while (offset < message.length);
+	}
+}
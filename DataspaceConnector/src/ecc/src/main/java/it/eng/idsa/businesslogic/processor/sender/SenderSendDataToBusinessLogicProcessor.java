@@ -25,12 +25,14 @@ import it.eng.idsa.businesslogic.audit.CamelAuditable;
 import it.eng.idsa.businesslogic.audit.TrueConnectorEventType;
 import it.eng.idsa.businesslogic.processor.sender.websocket.client.MessageWebSocketOverHttpSender;
 import it.eng.idsa.businesslogic.service.HttpHeaderService;
+import it.eng.idsa.businesslogic.service.OCSPValidationService;
 import it.eng.idsa.businesslogic.service.RejectionMessageService;
 import it.eng.idsa.businesslogic.service.SendDataToBusinessLogicService;
 import it.eng.idsa.businesslogic.util.Helper;
-import it.eng.idsa.businesslogic.util.OCSPValidation;
 import it.eng.idsa.businesslogic.util.OCSPValidation.OCSP_STATUS;
 import it.eng.idsa.businesslogic.util.RouterType;
+import it.eng.idsa.businesslogic.util.StreamingMultipartReader;
+import it.eng.idsa.businesslogic.util.StreamingMultipartReader.PayloadTooLargeException;
 import it.eng.idsa.multipart.builder.MultipartMessageBuilder;
 import it.eng.idsa.multipart.domain.MultipartMessage;
 import it.eng.idsa.multipart.processor.MultipartMessageProcessor;
@@ -75,6 +77,12 @@ public class SenderSendDataToBusinessLogicProcessor implements Processor {
 	@Autowired
 	private HttpHeaderService httpHeaderService;
 
+	@Autowired
+	private OCSPValidationService ocspValidationService;
+
+	@Autowired
+	private StreamingMultipartReader multipartReader;
+
 	private String webSocketHost;
 	private Integer webSocketPort;
 
@@ -100,7 +108,7 @@ public class SenderSendDataToBusinessLogicProcessor implements Processor {
 			logger.info("Skipping OCSP validation");
 			ocspCheck = true;
 		} else {
-			ocspCheck = OCSPValidation.checkOCSPCerificate(forwardTo, desideredOCSPRevocationCheckValue);
+			ocspCheck = ocspValidationService.checkOCSPCertificate(forwardTo, desideredOCSPRevocationCheckValue);
 		}
 		
 		if(!ocspCheck) {
@@ -167,7 +175,6 @@ public class SenderSendDataToBusinessLogicProcessor implements Processor {
 
 	private void handleResponse(Exchange exchange, Message message, Response response, String forwardTo)
 			throws UnsupportedOperationException, IOException {
-		String responseString = getResponseBodyAsString(response);
 		logger.info("data received from " + forwardTo);
 
 		exchange.getMessage().setHeaders(httpHeaderService.okHttpHeadersToMap(response.headers()));
@@ -179,6 +186,7 @@ public class SenderSendDataToBusinessLogicProcessor implements Processor {
 			headerHeaderContentType.put("Content-Type", "application/ld+json");
 			Map<String, String> payloadHeaderContentType = new HashMap<>();
 			payloadHeaderContentType.put("Content-Type", response.headers().get(MultipartMessageKey.CONTENT_TYPE.label));
+			String responseString = getResponseBodyAsString(response);
 			multipartMessage = new MultipartMessageBuilder()
 					.withHeaderContent(message)
 					.withHeaderHeader(headerHeaderContentType)
@@ -187,7 +195,12 @@ public class SenderSendDataToBusinessLogicProcessor implements Processor {
 					.build();
 			exchange.getMessage().setBody(multipartMessage);
 		} else {
-			multipartMessage = MultipartMessageProcessor.parseMultipartMessage(responseString);
+			try {
+				multipartMessage = multipartReader.read(response.body());
+			} catch (PayloadTooLargeException e) {
+				logger.error("Response not accepted - {}", e.getMessage());
+				rejectionMessageService.sendRejectionMessage((Message) exchange.getProperty("Original-Message-Header"), RejectionReason.INTERNAL_RECIPIENT_ERROR);
+			}
 			exchange.getMessage().setBody(multipartMessage);
 		}
 		logger.info("message received from Provider Connector : {}", Helper.getIDSMessageType(multipartMessage.getHeaderContent()));
@@ -1,8 +1,7 @@
 package it.eng.idsa.businesslogic.processor.sender.websocket.client;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
 import java.util.concurrent.ExecutionException;
@@ -10,10 +9,14 @@ import java.util.concurrent.ExecutionException;
 import org.asynchttpclient.ws.WebSocket;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Autowired;
 
-import it.eng.idsa.businesslogic.configuration.WebSocketClientConfiguration;
+import io.netty.buffer.Unpooled;
+import it.eng.idsa.businesslogic.processor.receiver.websocket.server.WebSocketFrames;
 
+/**
+ * Streams multipart message over the WebSocket as START separator, content frames and END separator.<br>
+ * Content frames are views on the encoded message, so nothing is copied or cloned per frame.
+ */
 public class FileStreamingBean {
 	
 	private static final String START_BINARY_FRAME_SEPARATOR = "�normal-IDS-ENG-SEPARATOR the-first-frame";
@@ -26,12 +29,7 @@ public class FileStreamingBean {
 	private String serverIP;
 	private int serverPort;
 
-	private static final int DEFAULT_STREAM_BUFFER_SIZE = 127;
-	
-	private int streamBufferSize = DEFAULT_STREAM_BUFFER_SIZE;
-	
-	@Autowired
-	private WebSocketClientConfiguration webSocketClientConfiguration;
+	private int frameSize = WebSocketFrames.DEFAULT_FRAME_SIZE;
 	
 	public FileStreamingBean() {	
 	}
@@ -41,68 +39,42 @@ public class FileStreamingBean {
 	}
 	
 	public void sendMultipartMessage(String multipartMessage) throws KeyManagementException, NoSuchAlgorithmException, InterruptedException, ExecutionException, IOException {
-		// Convert multipartMessage to the InputStream
-		InputStream multipartMessageStream = new ByteArrayInputStream(multipartMessage.getBytes());
 		if (wsClient!=null) {
 			if(wsClient.isOpen()) {
-				try {
-					// Send multipartMessageStream as stream of the frames using the webSocket
-					sendStreamMessage(wsClient, multipartMessageStream);
-				} 
-				finally
-				{
-					if (multipartMessageStream != null)
-					{
-						multipartMessageStream.close();
-					}
-				}
+				// Send multipartMessage as stream of the frames using the webSocket
+				sendStreamMessage(wsClient, multipartMessage.getBytes(StandardCharsets.UTF_8));
 			}
 		} else {
 			//TODO Send rejection Message
 		}
-		ResponseMessageReceiverClient responseMessageReceiverClient = webSocketClientConfiguration.responseMessageReceiverWebSocketClient();
-		Thread responseMessageReceiverClientThread = new Thread(responseMessageReceiverClient, "ResponseMssageReceiverClientThread");
+	}
 
+	/**
+	 * Sends message over the given WebSocket, without keeping it in this bean.<br>
+	 * Caller must not send frames of another message on the same WebSocket until this method returns.
+	 * @param webSocket open WebSocket
+	 * @param message encoded multipart message
+	 */
+	public void sendMultipartMessage(WebSocket webSocket, byte[] message) {
+		sendStreamMessage(webSocket, message);
 	}
 	
 	// Streaming the frames
-	private void sendStreamMessage(WebSocket webSocket, InputStream in) throws IOException {
-	    byte[] readbuf = new byte[streamBufferSize];
-	    byte[] writebuf = new byte[streamBufferSize];
-	    int rn;
-	    int wn = 0;
-	    
+	private void sendStreamMessage(WebSocket webSocket, byte[] message) {
 	    // The first Frame should be BinaryFrame
 	    webSocket.sendBinaryFrame(START_BINARY_FRAME_SEPARATOR.getBytes(), false, 0);
 	    
-	    // Send content of the inputStream using the Frames
-	    byte[] tempwritebuf=new byte[streamBufferSize];
-//	    int counterPUSH = 0;
-		while ((rn = in.read(readbuf, 0, readbuf.length)) != -1) {
-			if (wn > 0) {
-				tempwritebuf=writebuf.clone();
-//				System.out.println("============================");
-//				System.out.println("The message PUSH (number " + ++counterPUSH + "): " + new String(tempwritebuf, StandardCharsets.UTF_8));
-//				System.out.println("============================");
-				webSocket.sendContinuationFrame(tempwritebuf, false, 0);
-			}
-			System.arraycopy(readbuf, 0, writebuf, 0, rn);
-			wn = rn;
-		}
-		
-		// a bug in grizzly? we need to create a byte array with the exact length
-		if (wn < writebuf.length) {
-			byte[] tmpbuf = writebuf;
-			tempwritebuf = new byte[wn]; 
-			writebuf = new byte[wn];
-			System.arraycopy(tmpbuf, 0, writebuf, 0, wn);
-		} // ends
-		
-		// Send the last frame frame of the inputStream
-		tempwritebuf=writebuf.clone();
-		webSocket.sendContinuationFrame(tempwritebuf, true, 0);
+	    // Send content using the Frames; the last one must not be empty and has exact length
+	    int offset = 0;
+	    do {
+	    	int length = Math.min(frameSize, message.length - offset);
+	    	boolean isLast = offset + length >= message.length;
+	    	webSocket.sendContinuationFrame(Unpooled.wrappedBuffer(message, offset, length), isLast, 0);
+	    	offset += length;
+	    } while (offset < message.length);
 		logger.info("Sent the last frame from the large message");
-		webSocket.sendBinaryFrame(END_BINARY_FRAME_SEPARATOR.getBytes(), false, 0);
+		// END separator is a complete frame, so the next message can follow on the same connection
+		webSocket.sendBinaryFrame(END_BINARY_FRAME_SEPARATOR.getBytes(), true, 0);
 		logger.info("Sent the the-end-binary-frame-separator");
 	  }
 
@@ -120,6 +92,9 @@ public class FileStreamingBean {
 
 	public void setServerPort(int serverPort) {
 		this.serverPort = serverPort;
-	}	
-	
+	}
+
+	public void setFrameSize(int frameSize) {
+		this.frameSize = WebSocketFrames.frameSize(frameSize);
+	}
 }
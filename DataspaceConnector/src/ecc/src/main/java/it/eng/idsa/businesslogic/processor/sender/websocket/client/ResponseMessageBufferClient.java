@@ -1,10 +1,14 @@
 package it.eng.idsa.businesslogic.processor.sender.websocket.client;
 
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * 
+ * Bounded queue of response messages received by the WebSocket client.
+ *
  * @author Milan Karajovic and Gabriele De Luca
  *
  */
@@ -12,38 +16,34 @@ import org.slf4j.LoggerFactory;
 public class ResponseMessageBufferClient {
 	private static final Logger logger = LoggerFactory.getLogger(ResponseMessageBufferClient.class);
 
-	private byte[] responseMessage = null;
-	private boolean responseMessageIsReceived = false;
-	
-	public synchronized void add(byte[] msg) {
-		if(responseMessageIsReceived) {
-			try {
-				wait();
-			} catch(InterruptedException e) {
-				logger.error("Adding to response message buffer interupted: {}", e.getMessage());
-			}
-		}
-		
-		this.responseMessage = msg;
-		responseMessageIsReceived = true;
-		notify();
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private final BlockingQueue<byte[]> responseMessages;
+
+	public ResponseMessageBufferClient() {
+		this(DEFAULT_CAPACITY);
 	}
-	
-	public synchronized byte[] remove() {
-		if(!responseMessageIsReceived) {
-			try {
-				wait();
-			} catch(InterruptedException e) {
-				logger.error("Removing from response message buffer interupted: {}", e.getMessage());
-			}
+
+	public ResponseMessageBufferClient(int capacity) {
+		this.responseMessages = new ArrayBlockingQueue<>(capacity);
+	}
+
+	public void add(byte[] msg) {
+		try {
+			responseMessages.put(msg);
+		} catch (InterruptedException e) {
+			logger.error("Adding to response message buffer interupted: {}", e.getMessage());
+			Thread.currentThread().interrupt();
 		}
-		
-		responseMessageIsReceived = false;
+	}
+
+	public byte[] remove() {
 		try {
-			return responseMessage;
-		}finally{
-			notify();
-			responseMessage = null;
+			return responseMessages.take();
+		} catch (InterruptedException e) {
+			logger.error("Removing from response message buffer interupted: {}", e.getMessage());
+			Thread.currentThread().interrupt();
+			return null;
 		}
 	}
 }
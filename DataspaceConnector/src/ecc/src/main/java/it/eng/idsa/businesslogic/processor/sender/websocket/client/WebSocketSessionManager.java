@@ -0,0 +1,392 @@
+package it.eng.idsa.businesslogic.processor.sender.websocket.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.KeyManagementException;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateException;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.PreDestroy;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.DefaultAsyncHttpClient;
+import org.asynchttpclient.DefaultAsyncHttpClientConfig;
+import org.asynchttpclient.SslEngineFactory;
+import org.asynchttpclient.netty.ssl.JsseSslEngineFactory;
+import org.asynchttpclient.ws.WebSocket;
+import org.asynchttpclient.ws.WebSocketListener;
+import org.asynchttpclient.ws.WebSocketUpgradeHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import it.eng.idsa.businesslogic.processor.receiver.websocket.server.WebSocketFrames;
+
+/**
+ * Keeps one long-lived WebSocket connection per receiver and sends all messages for that receiver over it.<br>
+ * Several messages can be in flight on a connection. The receiver answers them in the order they were sent, so each
+ * response is matched to the oldest message still waiting. Connections are kept alive with ping frames, reopened with
+ * exponential backoff when they are lost and closed after <code>idleTimeoutSeconds</code> without messages.
+ */
+@Component
+public class WebSocketSessionManager {
+
+	private static final Logger logger = LoggerFactory.getLogger(WebSocketSessionManager.class);
+
+	private final FileStreamingBean fileStreamingBean;
+	private final long pingIntervalMillis;
+	private final long idleTimeoutMillis;
+	private final long responseTimeoutMillis;
+	private final long reconnectBackoffMillis;
+	private final long maxReconnectBackoffMillis;
+	private final int reconnectAttempts;
+
+	private final ConcurrentMap<String, Session> sessions = new ConcurrentHashMap<>();
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "websocket-sessions");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private AsyncHttpClient client;
+	private volatile boolean shutdown;
+
+	@Autowired
+	public WebSocketSessionManager(FileStreamingBean fileStreamingBean,
+			@Value("${application.websocket.client.pingIntervalSeconds:30}") long pingIntervalSeconds,
+			@Value("${application.websocket.client.idleTimeoutSeconds:300}") long idleTimeoutSeconds,
+			@Value("${application.websocket.client.responseTimeoutSeconds:120}") long responseTimeoutSeconds,
+			@Value("${application.websocket.client.reconnectBackoffMillis:500}") long reconnectBackoffMillis,
+			@Value("${application.websocket.client.maxReconnectBackoffMillis:30000}") long maxReconnectBackoffMillis,
+			@Value("${application.websocket.client.reconnectAttempts:5}") int reconnectAttempts) {
+		this.fileStreamingBean = fileStreamingBean;
+		this.pingIntervalMillis = TimeUnit.SECONDS.toMillis(pingIntervalSeconds);
+		this.idleTimeoutMillis = TimeUnit.SECONDS.toMillis(idleTimeoutSeconds);
+		this.responseTimeoutMillis = TimeUnit.SECONDS.toMillis(responseTimeoutSeconds);
+		this.reconnectBackoffMillis = reconnectBackoffMillis;
+		this.maxReconnectBackoffMillis = maxReconnectBackoffMillis;
+		this.reconnectAttempts = reconnectAttempts;
+	}
+
+	/**
+	 * Sends message over the connection to the receiver, opening the connection if needed, and waits for the response
+	 * @param url wss URL of the receiver
+	 * @param messageId id of the message, used in logs
+	 * @param message encoded multipart message
+	 * @return response of the receiver
+	 * @throws IOException if connection could not be opened, was lost or response did not arrive in time
+	 * @throws InterruptedException if interrupted while waiting for the response
+	 */
+	public byte[] send(String url, String messageId, byte[] message) throws IOException, InterruptedException {
+		Session session = sessions.computeIfAbsent(url, Session::new);
+		session.connect();
+		CompletableFuture<byte[]> response = session.send(messageId, message);
+		try {
+			return response.get(responseTimeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			// responses are matched by order, so the connection can not be used once a response is missing
+			session.close(session.webSocket, "no response to message " + messageId + " within " + responseTimeoutMillis
+					+ " ms", true);
+			throw new IOException("No response from " + url + " to message " + messageId + " within "
+					+ responseTimeoutMillis + " ms");
+		} catch (ExecutionException e) {
+			throw new IOException(e.getCause().getMessage(), e.getCause());
+		}
+	}
+
+	/**
+	 * @param url wss URL of the receiver
+	 * @return true if connection to the receiver is open
+	 */
+	public boolean isOpen(String url) {
+		Session session = sessions.get(url);
+		return session != null && session.isOpen();
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		shutdown = true;
+		sessions.values().forEach(session -> session.close(session.webSocket, "shutdown", false));
+		sessions.clear();
+		scheduler.shutdownNow();
+		synchronized (this) {
+			if (client != null) {
+				try {
+					client.close();
+				} catch (IOException e) {
+					logger.warn("Could not close WebSocket client: {}", e.getMessage());
+				}
+			}
+		}
+	}
+
+	private synchronized AsyncHttpClient client() throws IOException {
+		if (shutdown) {
+			throw new IOException("WebSocket client is shut down");
+		}
+		if (client == null) {
+			try {
+				DefaultAsyncHttpClientConfig clientConfig = new DefaultAsyncHttpClientConfig.Builder()
+						.setDisableHttpsEndpointIdentificationAlgorithm(true)
+						.setUseOpenSsl(true)
+						.setSslEngineFactory(getSslEngineFactory())
+						// responses are sent in frames of up to application.websocket.frameSize bytes
+						.setWebSocketMaxFrameSize(WebSocketFrames.MAX_FRAME_SIZE)
+						.setThreadPoolName("websocket-client")
+						.build();
+				client = new DefaultAsyncHttpClient(clientConfig);
+			} catch (NoSuchAlgorithmException | KeyManagementException e) {
+				throw new IOException("Could not create WebSocket client", e);
+			}
+		}
+		return client;
+	}
+
+	private SslEngineFactory getSslEngineFactory() throws NoSuchAlgorithmException, KeyManagementException {
+		final TrustManager[] trustAllCerts = new TrustManager[] {
+				new X509TrustManager() {
+					@Override
+					public void checkClientTrusted(java.security.cert.X509Certificate[] chain,
+							String authType) throws CertificateException {
+					}
+
+					@Override
+					public void checkServerTrusted(java.security.cert.X509Certificate[] chain,
+							String authType) throws CertificateException {
+					}
+
+					@Override
+					public java.security.cert.X509Certificate[] getAcceptedIssuers() {
+						return new java.security.cert.X509Certificate[0];
+					}
+				}
+		};
+		// Install the all-trusting trust manager
+		final SSLContext sslContext = SSLContext.getInstance("SSL");
+		sslContext.init(null, trustAllCerts, new java.security.SecureRandom());
+		return new JsseSslEngineFactory(sslContext);
+	}
+
+	private long backoff(int failures) {
+		long delay = reconnectBackoffMillis << Math.min(Math.max(failures - 1, 0), 20);
+		return Math.min(delay, maxReconnectBackoffMillis);
+	}
+
+	/**
+	 * Connection to one receiver
+	 */
+	private final class Session implements WebSocketListener {
+
+		private final String url;
+		private final Queue<PendingResponse> pending = new ConcurrentLinkedQueue<>();
+		private final ByteArrayOutputStream fragments = new ByteArrayOutputStream();
+
+		private volatile WebSocket webSocket;
+		private volatile long lastUsed = System.currentTimeMillis();
+		private volatile long lastPong;
+		private ScheduledFuture<?> keepAlive;
+		private int failures;
+		private long retryAt;
+
+		Session(String url) {
+			this.url = url;
+		}
+
+		boolean isOpen() {
+			WebSocket current = webSocket;
+			return current != null && current.isOpen();
+		}
+
+		synchronized void connect() throws IOException, InterruptedException {
+			lastUsed = System.currentTimeMillis();
+			if (isOpen()) {
+				return;
+			}
+			if (webSocket != null) {
+				// lost, but the close event is not handled yet
+				discard("connection lost");
+			}
+			long wait = retryAt - System.currentTimeMillis();
+			if (wait > 0) {
+				throw new IOException("WebSocket connection to " + url + " failed " + failures + " times, next attempt in "
+						+ wait + " ms");
+			}
+			try {
+				WebSocketUpgradeHandler handler = new WebSocketUpgradeHandler.Builder().addWebSocketListener(this).build();
+				webSocket = client().prepareGet(url).execute(handler).get();
+			} catch (ExecutionException e) {
+				failures++;
+				retryAt = System.currentTimeMillis() + backoff(failures);
+				throw new IOException("Could not open WebSocket connection to " + url + ": " + e.getCause().getMessage(),
+						e.getCause());
+			}
+			failures = 0;
+			retryAt = 0;
+			lastPong = System.currentTimeMillis();
+			fragments.reset();
+			if (pingIntervalMillis > 0) {
+				keepAlive = scheduler.scheduleWithFixedDelay(this::keepAlive, pingIntervalMillis, pingIntervalMillis,
+						TimeUnit.MILLISECONDS);
+			}
+			logger.info("Opened WebSocket connection to {}", url);
+		}
+
+		/**
+		 * Frames of the message are sent while holding the session, so messages do not interleave and pending
+		 * responses are queued in the order the receiver gets the messages
+		 */
+		synchronized CompletableFuture<byte[]> send(String messageId, byte[] message) throws IOException {
+			WebSocket current = webSocket;
+			if (current == null || !current.isOpen()) {
+				throw new IOException("WebSocket connection to " + url + " is closed");
+			}
+			PendingResponse response = new PendingResponse(messageId);
+			pending.add(response);
+			fileStreamingBean.sendMultipartMessage(current, message);
+			logger.debug("Sent message {} to {}, {} in flight", messageId, url, pending.size());
+			return response.future;
+		}
+
+		/**
+		 * @param expected connection to close, nothing is done if it was already replaced
+		 */
+		void close(WebSocket expected, String reason, boolean reconnect) {
+			synchronized (this) {
+				if (expected == null || webSocket != expected) {
+					return;
+				}
+				discard(reason);
+			}
+			logger.info("Closed WebSocket connection to {}, {}", url, reason);
+			try {
+				expected.sendCloseFrame(1000, "Shutdown");
+			} catch (Exception e) {
+				logger.debug("Could not send close frame to {}: {}", url, e.getMessage());
+			}
+			if (reconnect) {
+				reconnectLater();
+			} else {
+				sessions.remove(url, this);
+			}
+		}
+
+		private void keepAlive() {
+			WebSocket current = webSocket;
+			if (current == null) {
+				return;
+			}
+			long now = System.currentTimeMillis();
+			if (pending.isEmpty() && now - lastUsed > idleTimeoutMillis) {
+				close(current, "idle for " + (now - lastUsed) + " ms", false);
+			} else if (now - lastPong > 2 * pingIntervalMillis) {
+				close(current, "no pong for " + (now - lastPong) + " ms", true);
+			} else {
+				current.sendPingFrame();
+			}
+		}
+
+		private synchronized void reconnectLater() {
+			if (shutdown) {
+				return;
+			}
+			if (failures >= reconnectAttempts) {
+				logger.warn("Could not reconnect to {} after {} attempts, connecting on the next message", url, failures);
+				return;
+			}
+			long delay = Math.max(reconnectBackoffMillis, retryAt - System.currentTimeMillis());
+			scheduler.schedule(() -> {
+				try {
+					connect();
+				} catch (IOException e) {
+					logger.warn("Reconnecting to {} failed: {}", url, e.getMessage());
+					reconnectLater();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}, delay, TimeUnit.MILLISECONDS);
+		}
+
+		/**
+		 * Drops the current connection and fails messages waiting on it, called while holding the session
+		 */
+		private void discard(String reason) {
+			webSocket = null;
+			if (keepAlive != null) {
+				keepAlive.cancel(false);
+				keepAlive = null;
+			}
+			PendingResponse response;
+			while ((response = pending.poll()) != null) {
+				response.future.completeExceptionally(new IOException("WebSocket connection to " + url
+						+ " closed before response to message " + response.messageId + ", " + reason));
+			}
+		}
+
+		@Override
+		public void onOpen(WebSocket websocket) {
+		}
+
+		@Override
+		public void onClose(WebSocket websocket, int code, String reason) {
+			// not handled on the I/O thread, it may be needed by a connection being opened
+			if (websocket == webSocket && !shutdown) {
+				scheduler.execute(() -> close(websocket, "closed by receiver with " + code + " " + reason, true));
+			}
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			logger.warn("WebSocket connection to {} failed: {}", url, t.getMessage());
+		}
+
+		@Override
+		public void onBinaryFrame(byte[] payload, boolean finalFragment, int rsv) {
+			// frames of one connection are delivered by a single thread
+			if (!finalFragment || fragments.size() > 0) {
+				fragments.writeBytes(payload);
+				if (!finalFragment) {
+					return;
+				}
+				payload = fragments.toByteArray();
+				fragments.reset();
+			}
+			PendingResponse response = pending.poll();
+			if (response == null) {
+				logger.warn("Received response from {} but no message is waiting for it", url);
+				return;
+			}
+			response.future.complete(payload);
+		}
+
+		@Override
+		public void onPongFrame(byte[] payload) {
+			lastPong = System.currentTimeMillis();
+		}
+	}
+
+	private static final class PendingResponse {
+
+		final String messageId;
+		final CompletableFuture<byte[]> future = new CompletableFuture<>();
+
+		PendingResponse(String messageId) {
+			this.messageId = messageId;
+		}
+	}
+}
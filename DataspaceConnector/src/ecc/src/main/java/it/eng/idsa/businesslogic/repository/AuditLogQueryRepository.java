@@ -0,0 +1,85 @@
+package it.eng.idsa.businesslogic.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import it.eng.idsa.businesslogic.entity.AuditLog;
+
+/**
+ * Keyset pagination over the AuditLogs table.<br>
+ * Rows are ordered by timestamp and id and a page continues after the last row of the previous one, so every page
+ * is read from the <code>(timestamp, id)</code> or <code>(event_type, timestamp, id)</code> index, however deep it
+ * is. Events are returned encrypted, as stored.
+ */
+@Repository
+public class AuditLogQueryRepository {
+
+	private static final String SELECT = "SELECT id, timestamp, event_type, correlation_id, event FROM audit_logs";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	public AuditLogQueryRepository(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	/**
+	 * @param from           first timestamp, inclusive, or null
+	 * @param to             last timestamp, exclusive, or null
+	 * @param eventType      event type or null for all
+	 * @param correlationId  correlation id or null for all
+	 * @param afterTimestamp timestamp of the last row of the previous page, or null for the first page
+	 * @param afterId        id of the last row of the previous page
+	 * @param limit          maximum number of rows
+	 * @return rows in order of timestamp and id, with encrypted event
+	 */
+	public List<AuditLog> findPage(LocalDateTime from, LocalDateTime to, String eventType, String correlationId,
+			LocalDateTime afterTimestamp, long afterId, int limit) {
+		StringBuilder sql = new StringBuilder(SELECT).append(" WHERE 1 = 1");
+		List<Object> args = new ArrayList<>();
+		if (from != null) {
+			sql.append(" AND timestamp >= ?");
+			args.add(Timestamp.valueOf(from));
+		}
+		if (to != null) {
+			sql.append(" AND timestamp < ?");
+			args.add(Timestamp.valueOf(to));
+		}
+		if (eventType != null) {
+			sql.append(" AND event_type = ?");
+			args.add(eventType);
+		}
+		if (correlationId != null) {
+			sql.append(" AND correlation_id = ?");
+			args.add(correlationId);
+		}
+		if (afterTimestamp != null) {
+			// range on the leading index column, the OR only filters rows with the same timestamp
+			sql.append(" AND timestamp >= ? AND (timestamp > ? OR id > ?)");
+			Timestamp after = Timestamp.valueOf(afterTimestamp);
+			args.add(after);
+			args.add(after);
+			args.add(afterId);
+		}
+		sql.append(" ORDER BY timestamp, id LIMIT ?");
+		args.add(limit);
+		return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> mapRow(rs), args.toArray());
+	}
+
+	private AuditLog mapRow(ResultSet rs) throws SQLException {
+		AuditLog auditLog = new AuditLog();
+		auditLog.setId(rs.getLong("id"));
+		Timestamp timestamp = rs.getTimestamp("timestamp");
+		auditLog.setTimestamp(timestamp != null ? timestamp.toLocalDateTime() : null);
+		auditLog.setEventType(rs.getString("event_type"));
+		auditLog.setCorrelationId(rs.getString("correlation_id"));
+		auditLog.setEvent(rs.getString("event"));
+		return auditLog;
+	}
+}
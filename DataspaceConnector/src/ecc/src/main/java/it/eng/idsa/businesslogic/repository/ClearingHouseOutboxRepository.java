@@ -0,0 +1,18 @@
+package it.eng.idsa.businesslogic.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import it.eng.idsa.businesslogic.entity.ClearingHouseOutboxEntry;
+
+public interface ClearingHouseOutboxRepository extends JpaRepository<ClearingHouseOutboxEntry, Long> {
+
+	List<ClearingHouseOutboxEntry> findByFailedFalseAndNextAttemptAtLessThanEqualOrderByIdAsc(long now, Pageable pageable);
+
+	Optional<ClearingHouseOutboxEntry> findFirstByFailedFalseOrderByIdAsc();
+
+	long countByFailedFalse();
+}
@@ -0,0 +1,13 @@
+package it.eng.idsa.businesslogic.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import it.eng.idsa.businesslogic.entity.ResourceIngestionJob;
+import it.eng.idsa.businesslogic.entity.ResourceIngestionJob.State;
+
+public interface ResourceIngestionJobRepository extends JpaRepository<ResourceIngestionJob, String> {
+
+	List<ResourceIngestionJob> findByFailedFalseAndStateNotOrderByCreatedAtAsc(State state);
+}
@@ -22,12 +22,12 @@ import it.eng.idsa.businesslogic.processor.common.RegisterTransactionToCHProcess
 import it.eng.idsa.businesslogic.processor.common.ValidateTokenProcessor;
 import it.eng.idsa.businesslogic.processor.exception.ExceptionForProcessor;
 import it.eng.idsa.businesslogic.processor.exception.ExceptionProcessorReceiver;
-import it.eng.idsa.businesslogic.processor.receiver.ReceiverFileRecreatorProcessor;
 import it.eng.idsa.businesslogic.processor.receiver.ReceiverParseReceivedConnectorRequestProcessor;
 import it.eng.idsa.businesslogic.processor.receiver.ReceiverSendDataToBusinessLogicProcessor;
 import it.eng.idsa.businesslogic.processor.receiver.ReceiverSendDataToDataAppProcessor;
 import it.eng.idsa.businesslogic.processor.receiver.ReceiverUsageControlProcessor;
 import it.eng.idsa.businesslogic.processor.receiver.ReceiverVersionCheckProcessor;
+import it.eng.idsa.businesslogic.processor.receiver.ReceiverWebSocketMessageDispatcher;
 import it.eng.idsa.businesslogic.processor.receiver.ReceiverWebSocketSendDataToDataAppProcessor;
 
 /**
@@ -44,9 +44,6 @@ public class CamelRouteReceiver extends RouteBuilder {
 	@Autowired
 	private ApplicationConfiguration configuration;
 
-	@Autowired(required = false)
-	private ReceiverFileRecreatorProcessor fileRecreatorProcessor;
-
 	@Autowired
 	private ReceiverParseReceivedConnectorRequestProcessor connectorRequestProcessor;
 
@@ -161,9 +158,8 @@ public class CamelRouteReceiver extends RouteBuilder {
 		if (isEnabledWebSocket) {
 			logger.info("WSS Configuration");
 			// End point B. ECC communication (Web Socket)
-			from("timer://timerEndpointB?repeatCount=-1") //EndPoint B
+			from(ReceiverWebSocketMessageDispatcher.ENDPOINT) //EndPoint B
 				.routeId("WSS")
-				.process(fileRecreatorProcessor)
 				.process(connectorRequestProcessor)
 				.process(receiverVersionCheckProcessor)
 				.process(originalMessageProcessor)
@@ -1,49 +1,110 @@
 package it.eng.idsa.businesslogic.service;
 
-import java.time.LocalDate;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import it.eng.idsa.businesslogic.entity.AuditLog;
 import it.eng.idsa.businesslogic.repository.AuditEventRepository;
+import it.eng.idsa.businesslogic.repository.AuditLogQueryRepository;
+import it.eng.idsa.businesslogic.service.impl.AuditLogWriteBehind;
 import it.eng.idsa.businesslogic.util.AES256;
 
 @Service
 public class AuditEventService {
 	@Autowired
 	private AuditEventRepository auditRepository;
+	@Autowired
+	private AuditLogQueryRepository auditLogQueryRepository;
+	@Autowired
+	private AuditLogWriteBehind auditLogWriteBehind;
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Value("${application.audit.query.maxPageSize:1000}")
+	private int maxPageSize;
+
+	/**
+	 * Hands audit event over to write-behind buffer; it is encrypted and persisted in batch
+	 * @param event plain text audit event
+	 */
+	public void recordAuditEvent(String event) {
+		auditLogWriteBehind.submit(event);
+	}
+
+	/**
+	 * Hands audit event over to write-behind buffer; it is encrypted and persisted in batch
+	 * @param event plain text audit event
+	 * @param eventType type of the event, stored in plain text for searching
+	 * @param correlationId correlation id of the message, stored in plain text for searching
+	 */
+	public void recordAuditEvent(String event, String eventType, String correlationId) {
+		auditLogWriteBehind.submit(event, eventType, correlationId);
+	}
 
 	public AuditLog saveAuditEvent(AuditLog auditEvent) {
 		return auditRepository.save(auditEvent);
 	}
 
-	public List<AuditLog> getAllAuditEvents() {
-		return auditRepository.findAll()
-				.parallelStream()
-				.map(this::decryptAuditLog)
-				.collect(Collectors.toList());
+	/**
+	 * Reads one page of audit logs, in order of timestamp; events stay encrypted until the page is written
+	 * @param from first timestamp, inclusive, or null
+	 * @param to last timestamp, exclusive, or null
+	 * @param eventType event type or null for all
+	 * @param correlationId correlation id or null for all
+	 * @param cursor next cursor of the previous page, or null for the first page
+	 * @param limit page size, at most <code>application.audit.query.maxPageSize</code>
+	 * @return page of audit logs
+	 */
+	public AuditLogPage getAuditEvents(LocalDateTime from, LocalDateTime to, String eventType, String correlationId,
+			String cursor, int limit) {
+		if (limit < 1) {
+			throw new IllegalArgumentException("Limit must be positive");
+		}
+		int pageSize = Math.min(limit, maxPageSize);
+		AuditLogPage.Position after = cursor != null ? AuditLogPage.Position.of(cursor) : null;
+		// one more row tells whether there is a next page
+		List<AuditLog> logs = auditLogQueryRepository.findPage(from, to, eventType, correlationId,
+				after != null ? after.timestamp : null, after != null ? after.id : 0, pageSize + 1);
+		if (logs.size() <= pageSize) {
+			return new AuditLogPage(logs, null);
+		}
+		List<AuditLog> page = logs.subList(0, pageSize);
+		return new AuditLogPage(page, AuditLogPage.cursor(page.get(pageSize - 1)));
 	}
 
-	public List<AuditLog> getAuditEventsForDate(LocalDate date) {
-		LocalDateTime startOfDay = date.atStartOfDay(); // Start of the day
-		LocalDateTime endOfDay = date.atTime(LocalTime.MAX); // End of the day
-
-		return auditRepository.findByTimestampBetween(startOfDay, endOfDay)
-				.parallelStream()
-				.map(this::decryptAuditLog)
-				.collect(Collectors.toList());
+	/**
+	 * Writes page as JSON array, decrypting each event just before it is written
+	 * @param page page of audit logs
+	 * @param out output stream, not closed
+	 * @throws IOException if writing failed
+	 */
+	public void writeAuditEvents(AuditLogPage page, OutputStream out) throws IOException {
+		try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+			generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			generator.writeStartArray();
+			for (AuditLog auditLog : page.getEncryptedLogs()) {
+				objectMapper.writeValue(generator, decryptAuditLog(auditLog));
+			}
+			generator.writeEndArray();
+		}
 	}
-	
+
 	private AuditLog decryptAuditLog(AuditLog auditLog) {
 		AuditLog a = new AuditLog();
 		a.setId(auditLog.getId());
 		a.setEvent(AES256.decrypt(auditLog.getEvent()));
 		a.setTimestamp(auditLog.getTimestamp());
+		a.setEventType(auditLog.getEventType());
+		a.setCorrelationId(auditLog.getCorrelationId());
 		return a;
 	}
 }
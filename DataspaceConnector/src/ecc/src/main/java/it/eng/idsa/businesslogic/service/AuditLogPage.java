@@ -0,0 +1,69 @@
+package it.eng.idsa.businesslogic.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+import it.eng.idsa.businesslogic.entity.AuditLog;
+
+/**
+ * Page of audit logs with encrypted events; they are decrypted only when the page is written.<br>
+ * Cursor of the next page is an opaque token of the timestamp and id of the last audit log on this page.
+ */
+public class AuditLogPage {
+
+	private final List<AuditLog> encryptedLogs;
+	private final String nextCursor;
+
+	AuditLogPage(List<AuditLog> encryptedLogs, String nextCursor) {
+		this.encryptedLogs = Collections.unmodifiableList(encryptedLogs);
+		this.nextCursor = nextCursor;
+	}
+
+	List<AuditLog> getEncryptedLogs() {
+		return encryptedLogs;
+	}
+
+	public int size() {
+		return encryptedLogs.size();
+	}
+
+	/**
+	 * @return cursor of the next page, null if this is the last page
+	 */
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	static String cursor(AuditLog last) {
+		String position = last.getTimestamp() + "_" + last.getId();
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Position of the last audit log of the previous page
+	 */
+	static final class Position {
+		final LocalDateTime timestamp;
+		final long id;
+
+		private Position(LocalDateTime timestamp, long id) {
+			this.timestamp = timestamp;
+			this.id = id;
+		}
+
+		static Position of(String cursor) {
+			try {
+				String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+				int separator = position.lastIndexOf('_');
+				return new Position(LocalDateTime.parse(position.substring(0, separator)),
+						Long.parseLong(position.substring(separator + 1)));
+			} catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+				throw new IllegalArgumentException("Invalid cursor " + cursor, e);
+			}
+		}
+	}
+}
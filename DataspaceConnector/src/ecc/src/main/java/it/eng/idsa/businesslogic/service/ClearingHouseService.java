@@ -16,5 +16,23 @@ public interface ClearingHouseService {
 	
 	boolean registerTransaction(Message message, String contractAgreementUUID);
 
+	/**
+	 * Process id the transaction is logged under
+	 * 
+	 * @param message               message for logging
+	 * @param contractAgreementUUID UUID of the contract agreement, used for ContractAgreementMessage
+	 * @return process id or null if it cannot be determined
+	 */
+	String getProcessId(Message message, String contractAgreementUUID);
+
+	/**
+	 * Sends LogMessage with already serialized message as payload
+	 * 
+	 * @param pid               process id
+	 * @param messageForLogging message for logging as JSON-LD
+	 * @return true if Clearing House accepted the transaction
+	 */
+	boolean sendLogMessage(String pid, String messageForLogging);
+
 	boolean isClearingHouseAvailable(String clearingHouseHealthEndpoint);
 }
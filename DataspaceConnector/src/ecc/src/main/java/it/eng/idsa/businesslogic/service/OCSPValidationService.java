@@ -0,0 +1,26 @@
+package it.eng.idsa.businesslogic.service;
+
+import java.security.cert.X509Certificate;
+
+import it.eng.idsa.businesslogic.util.OCSPValidation.OCSP_STATUS;
+
+public interface OCSPValidationService {
+
+	/**
+	 * Checks revocation status of the certificate presented by the target connector
+	 * 
+	 * @param url                               Forward-To value
+	 * @param desideredOCSPRevocationCheckValue good - only good certificates are accepted, unknown - good and unknown
+	 * @return true if message can be sent to the target
+	 */
+	boolean checkOCSPCertificate(String url, OCSP_STATUS desideredOCSPRevocationCheckValue);
+
+	/**
+	 * Checks revocation status of the first certificate in the chain
+	 * 
+	 * @param chain                             certificate chain, certificate to check first and its issuer second
+	 * @param desideredOCSPRevocationCheckValue good - only good certificates are accepted, unknown - good and unknown
+	 * @return true if certificate is accepted
+	 */
+	boolean checkOCSPCertificate(X509Certificate[] chain, OCSP_STATUS desideredOCSPRevocationCheckValue);
+}
@@ -0,0 +1,33 @@
+package it.eng.idsa.businesslogic.service;
+
+import org.apache.camel.Exchange;
+
+import it.eng.idsa.multipart.domain.MultipartMessage;
+
+public interface PayloadTransformationService {
+
+	/**
+	 * Base64 encode payload of the message.<br>
+	 * If the payload was decoded earlier in the same exchange and was not changed, encoded content kept by
+	 * {@link #decode(Exchange, MultipartMessage)} is used instead of encoding it again
+	 * @param exchange         current exchange
+	 * @param multipartMessage message with plain payload
+	 * @return message with encoded payload, same instance if payload is passed through
+	 */
+	MultipartMessage encode(Exchange exchange, MultipartMessage multipartMessage);
+
+	/**
+	 * Base64 decode payload of the message, keeping reference to encoded content in the exchange
+	 * @param exchange         current exchange
+	 * @param multipartMessage message with encoded payload
+	 * @return message with decoded payload, same instance if payload is passed through
+	 * @throws IllegalArgumentException if payload is not valid Base64
+	 */
+	MultipartMessage decode(Exchange exchange, MultipartMessage multipartMessage);
+
+	/**
+	 * @param multipartMessage message
+	 * @return true if payload content type is configured to be sent without Base64 encoding
+	 */
+	boolean isPassThrough(MultipartMessage multipartMessage);
+}
@@ -0,0 +1,41 @@
+package it.eng.idsa.businesslogic.service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import de.fraunhofer.iais.eis.Resource;
+import it.eng.idsa.businesslogic.entity.ResourceIngestionJob;
+
+/**
+ * Adds suspect profiles as offered resources in the background: biometric indexing, encryption, storing to the pod
+ * and registering the resource in the catalog
+ */
+public interface ResourceIngestionService {
+
+	/**
+	 * Stores the suspect profile and creates job for it, steps are executed asynchronously
+	 * @param jobId              id of the job, correlation id of the request
+	 * @param catalog            catalog the resource is added to
+	 * @param resource           offered resource
+	 * @param suspectProfileZip  suspect profile archive
+	 * @param user               owner of the suspect profile
+	 * @param sensitive          sensitive biometric data
+	 * @param solidToken         token for the Solid pod
+	 * @param principal          user submitting the request
+	 * @return created job
+	 * @throws IOException if suspect profile could not be stored
+	 */
+	ResourceIngestionJob submit(String jobId, URI catalog, Resource resource, MultipartFile suspectProfileZip,
+			String user, boolean sensitive, String solidToken, String principal) throws IOException;
+
+	Optional<ResourceIngestionJob> getJob(String jobId);
+
+	/**
+	 * @return jobs not yet completed or failed, oldest first
+	 */
+	List<ResourceIngestionJob> getActiveJobs();
+}
@@ -17,6 +17,13 @@ public interface SelfDescriptionService {
 	 */
     String getConnectorSelfDescription();
     
+    /**
+     * Entity tag of the document returned by {@link #getConnectorSelfDescription()}, changes with every new version
+     * of the self description
+     * @return quoted entity tag
+     */
+    String getConnectorSelfDescriptionETag();
+    
     /**
      * Create String instance of {@link de.fraunhofer.iais.eis.ConnectorUpdateMessage}
      * @return IDS ConnectorUpdateMessage
@@ -1,7 +1,10 @@
 package it.eng.idsa.businesslogic.service.auth;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.LockedException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
@@ -10,25 +13,50 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
 import it.eng.idsa.businesslogic.service.user.InMemoryUserCrudService;
+import it.eng.idsa.businesslogic.service.user.LoginAttemptService;
 
+/**
+ * Authenticates requests to Camel endpoints. Password is checked with BCrypt only when the same credentials were not
+ * verified recently, see {@link AuthenticationCache}.
+ */
 @Component
 public class AuthManager implements AuthenticationManager {
 
+	private static final Logger logger = LoggerFactory.getLogger(AuthManager.class);
+
 	private PasswordEncoder passwordEncoder;
 	private InMemoryUserCrudService userDetailsService;
-	
-	public AuthManager(PasswordEncoder passwordEncoder, InMemoryUserCrudService userDetailsService) {
+	private AuthenticationCache authenticationCache;
+	private LoginAttemptService loginAttemptService;
+
+	public AuthManager(PasswordEncoder passwordEncoder, InMemoryUserCrudService userDetailsService,
+			AuthenticationCache authenticationCache, LoginAttemptService loginAttemptService) {
 		super();
 		this.passwordEncoder = passwordEncoder;
 		this.userDetailsService = userDetailsService;
+		this.authenticationCache = authenticationCache;
+		this.loginAttemptService = loginAttemptService;
 	}
 
 	@Override
 	public Authentication authenticate(Authentication authentication) throws AuthenticationException {
-		final UserDetails userDetail = userDetailsService.loadCamelUserByUsername(authentication.getName());
-		
-		if (!passwordEncoder.matches(authentication.getCredentials().toString(), userDetail.getPassword())) {
-			throw new BadCredentialsException("Wrong password");
+		final String username = authentication.getName();
+		if (loginAttemptService.isBlocked(username)) {
+			logger.info("User '{}' is blocked!", username);
+			authenticationCache.invalidate(username);
+			throw new LockedException("blocked");
+		}
+		final UserDetails userDetail = userDetailsService.loadCamelUserByUsername(username);
+		final String password = authentication.getCredentials().toString();
+
+		if (!authenticationCache.isVerified(username, password, userDetail.getPassword())) {
+			if (!passwordEncoder.matches(password, userDetail.getPassword())) {
+				loginAttemptService.loginFailed(username);
+				authenticationCache.invalidate(username);
+				throw new BadCredentialsException("Wrong password");
+			}
+			loginAttemptService.loginSucceeded(username);
+			authenticationCache.verified(username, password, userDetail.getPassword());
 		}
 		return new UsernamePasswordAuthenticationToken(userDetail.getUsername(), userDetail.getPassword(),
 				userDetail.getAuthorities());
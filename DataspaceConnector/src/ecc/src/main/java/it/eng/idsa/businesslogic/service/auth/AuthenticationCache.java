@@ -0,0 +1,117 @@
+package it.eng.idsa.businesslogic.service.auth;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Credentials already verified with BCrypt, kept for <code>application.user.authCache.ttlSeconds</code>.<br>
+ * Entries are keyed by SHA-256 of username and password with a random salt created on startup, so plain passwords are
+ * not kept in memory. Entry is valid only while the stored password hash of the user is the one it was verified
+ * against; changing the password, a failed login or blocking the user removes entries of the user.
+ */
+@Component
+public class AuthenticationCache {
+
+	private static final int SALT_LENGTH = 32;
+
+	private final byte[] salt = new byte[SALT_LENGTH];
+	private final Cache<String, VerifiedCredential> verified;
+	private final boolean enabled;
+
+	@Autowired
+	public AuthenticationCache(@Value("${application.user.authCache.ttlSeconds:60}") long ttlSeconds,
+			@Value("${application.user.authCache.maxSize:1000}") long maxSize) {
+		this(TimeUnit.SECONDS.toMillis(ttlSeconds), maxSize, Ticker.systemTicker());
+	}
+
+	AuthenticationCache(long ttlMillis, long maxSize, Ticker ticker) {
+		new SecureRandom().nextBytes(salt);
+		this.enabled = ttlMillis > 0 && maxSize > 0;
+		this.verified = CacheBuilder.newBuilder()
+				.expireAfterWrite(Math.max(ttlMillis, 1), TimeUnit.MILLISECONDS)
+				.maximumSize(Math.max(maxSize, 0))
+				.ticker(ticker)
+				.build();
+	}
+
+	/**
+	 * @param username     username
+	 * @param password     plain password
+	 * @param passwordHash current stored hash of the user password
+	 * @return true if the same credentials were verified against the same stored hash within TTL
+	 */
+	public boolean isVerified(String username, String password, String passwordHash) {
+		if (!enabled) {
+			return false;
+		}
+		VerifiedCredential credential = verified.getIfPresent(key(username, password));
+		return credential != null && credential.username.equals(username)
+				&& Objects.equals(credential.passwordHash, passwordHash);
+	}
+
+	/**
+	 * @param username     username
+	 * @param password     plain password, matched with the hash
+	 * @param passwordHash stored hash of the user password
+	 */
+	public void verified(String username, String password, String passwordHash) {
+		if (enabled) {
+			verified.put(key(username, password), new VerifiedCredential(username, passwordHash));
+		}
+	}
+
+	/**
+	 * Removes all entries of the user
+	 * @param username username
+	 */
+	public void invalidate(String username) {
+		verified.asMap().values().removeIf(credential -> credential.username.equals(username));
+	}
+
+	public void invalidateAll() {
+		verified.invalidateAll();
+	}
+
+	long size() {
+		verified.cleanUp();
+		return verified.size();
+	}
+
+	private String key(String username, String password) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(salt);
+			digest.update(username.getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) 0);
+			digest.update(password.getBytes(StandardCharsets.UTF_8));
+			return Base64.getEncoder().encodeToString(digest.digest());
+		} catch (NoSuchAlgorithmException e) {
+			// SHA-256 is required on every Java platform
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static final class VerifiedCredential {
+
+		final String username;
+		final String passwordHash;
+
+		VerifiedCredential(String username, String passwordHash) {
+			this.username = username;
+			this.passwordHash = passwordHash;
+		}
+	}
+}
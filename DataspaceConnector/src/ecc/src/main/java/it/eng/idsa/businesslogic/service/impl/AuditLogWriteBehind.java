@@ -0,0 +1,273 @@
+package it.eng.idsa.businesslogic.service.impl;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import it.eng.idsa.businesslogic.entity.AuditLog;
+import it.eng.idsa.businesslogic.repository.AuditEventRepository;
+import it.eng.idsa.businesslogic.util.AES256;
+
+/**
+ * Write-behind persistence of audit events.<br>
+ * Events are put in a bounded buffer and a single flusher thread saves them as {@link AuditLog} entities in one
+ * transaction per batch, when <code>flushSize</code> events are collected or <code>flushIntervalMillis</code> elapsed
+ * since the first one. Inserts are sent in JDBC batches of <code>spring.jpa.properties.hibernate.jdbc.batch_size</code>.
+ * The whole batch is encrypted with one key derivation. When the buffer is full, the event is either dropped (DROP)
+ * or the caller waits for free space (BLOCK).
+ */
+@Service
+public class AuditLogWriteBehind {
+
+	private static final Logger logger = LoggerFactory.getLogger(AuditLogWriteBehind.class);
+
+	public enum OverflowPolicy {
+		/**
+		 * Event is discarded when buffer is full
+		 */
+		DROP,
+		/**
+		 * Caller waits until flusher makes room in the buffer
+		 */
+		BLOCK
+	}
+
+	private final AuditEventRepository auditEventRepository;
+	private final boolean enabled;
+	private final int flushSize;
+	private final long flushIntervalMillis;
+	private final OverflowPolicy overflowPolicy;
+	private final BlockingQueue<PendingAuditEvent> buffer;
+
+	private final Counter queued;
+	private final Counter blocked;
+	private final Counter dropped;
+	private final Counter written;
+	private final Counter failed;
+	private final Timer flushTimer;
+
+	private volatile boolean running;
+	private ExecutorService flusher;
+
+	public AuditLogWriteBehind(AuditEventRepository auditEventRepository,
+			@Value("${application.audit.writeBehind.enabled:true}") boolean enabled,
+			@Value("${application.audit.writeBehind.capacity:10000}") int capacity,
+			@Value("${application.audit.writeBehind.flushSize:200}") int flushSize,
+			@Value("${application.audit.writeBehind.flushIntervalMillis:1000}") long flushIntervalMillis,
+			@Value("${application.audit.writeBehind.overflowPolicy:BLOCK}") OverflowPolicy overflowPolicy,
+			MeterRegistry meterRegistry) {
+		this.auditEventRepository = auditEventRepository;
+		this.enabled = enabled;
+		this.flushSize = flushSize;
+		this.flushIntervalMillis = flushIntervalMillis;
+		this.overflowPolicy = overflowPolicy;
+		this.buffer = new ArrayBlockingQueue<>(capacity);
+
+		this.queued = Counter.builder("audit.writebehind.events").tag("result", "queued").register(meterRegistry);
+		this.blocked = Counter.builder("audit.writebehind.events").tag("result", "blocked").register(meterRegistry);
+		this.dropped = Counter.builder("audit.writebehind.events").tag("result", "dropped").register(meterRegistry);
+		this.written = Counter.builder("audit.writebehind.writes").tag("outcome", "written").register(meterRegistry);
+		this.failed = Counter.builder("audit.writebehind.writes").tag("outcome", "failed").register(meterRegistry);
+		this.flushTimer = Timer.builder("audit.writebehind.flush").register(meterRegistry);
+		Gauge.builder("audit.writebehind.depth", buffer, BlockingQueue::size).register(meterRegistry);
+	}
+
+	@PostConstruct
+	public void startFlusher() {
+		if (!enabled) {
+			logger.info("Audit write-behind disabled - audit events are written synchronously");
+			return;
+		}
+		running = true;
+		flusher = Executors.newSingleThreadExecutor(r -> {
+			Thread t = new Thread(r, "audit-log-flusher");
+			t.setDaemon(true);
+			return t;
+		});
+		flusher.execute(this::flushLoop);
+	}
+
+	/**
+	 * Stops the flusher and writes what is left in the buffer.
+	 */
+	@PreDestroy
+	public void stopFlusher() {
+		if (flusher == null) {
+			return;
+		}
+		running = false;
+		flusher.shutdown();
+		try {
+			if (!flusher.awaitTermination(2 * flushIntervalMillis + 5000, TimeUnit.MILLISECONDS)) {
+				flusher.shutdownNow();
+			}
+		} catch (InterruptedException e) {
+			flusher.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+		List<PendingAuditEvent> remaining = new ArrayList<>();
+		buffer.drainTo(remaining);
+		for (int i = 0; i < remaining.size(); i += flushSize) {
+			flush(remaining.subList(i, Math.min(i + flushSize, remaining.size())));
+		}
+	}
+
+	/**
+	 * Accepts audit event for persisting.
+	 *
+	 * @param event plain text audit event, encrypted before it is written
+	 * @return false if event was dropped
+	 */
+	public boolean submit(String event) {
+		return submit(event, null, null);
+	}
+
+	/**
+	 * Accepts audit event for persisting.
+	 *
+	 * @param event plain text audit event, encrypted before it is written
+	 * @param eventType type of the event, stored in plain text for searching
+	 * @param correlationId correlation id of the message, stored in plain text for searching
+	 * @return false if event was dropped
+	 */
+	public boolean submit(String event, String eventType, String correlationId) {
+		PendingAuditEvent pending = new PendingAuditEvent(event, eventType, correlationId, LocalDateTime.now());
+		if (!running) {
+			flush(Collections.singletonList(pending));
+			return true;
+		}
+		if (buffer.offer(pending)) {
+			queued.increment();
+			return true;
+		}
+		if (OverflowPolicy.DROP.equals(overflowPolicy)) {
+			dropped.increment();
+			logger.debug("Audit buffer full, event dropped");
+			return false;
+		}
+		try {
+			buffer.put(pending);
+			blocked.increment();
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			dropped.increment();
+			return false;
+		}
+	}
+
+	int depth() {
+		return buffer.size();
+	}
+
+	private void flushLoop() {
+		List<PendingAuditEvent> batch = new ArrayList<>(flushSize);
+		boolean interrupted = false;
+		while (!interrupted && (running || !buffer.isEmpty())) {
+			try {
+				PendingAuditEvent first = buffer.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				long deadline = System.currentTimeMillis() + flushIntervalMillis;
+				while (batch.size() < flushSize) {
+					buffer.drainTo(batch, flushSize - batch.size());
+					long remaining = deadline - System.currentTimeMillis();
+					if (batch.size() >= flushSize || remaining <= 0 || !running) {
+						break;
+					}
+					PendingAuditEvent next = buffer.poll(remaining, TimeUnit.MILLISECONDS);
+					if (next == null) {
+						break;
+					}
+					batch.add(next);
+				}
+			} catch (InterruptedException e) {
+				// whatever is left in the buffer is written by stopFlusher
+				interrupted = true;
+			}
+			if (!batch.isEmpty()) {
+				flush(batch);
+				batch.clear();
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	void flush(List<PendingAuditEvent> batch) {
+		flushTimer.record(() -> {
+			List<String> encrypted = AES256.encrypt(batch.stream().map(PendingAuditEvent::getEvent).collect(Collectors.toList()));
+			List<AuditLog> auditLogs = new ArrayList<>(batch.size());
+			for (int i = 0; i < batch.size(); i++) {
+				PendingAuditEvent pending = batch.get(i);
+				AuditLog auditLog = new AuditLog();
+				auditLog.setTimestamp(pending.getTimestamp());
+				auditLog.setEventType(pending.getEventType());
+				auditLog.setCorrelationId(pending.getCorrelationId());
+				auditLog.setEvent(encrypted.get(i));
+				auditLogs.add(auditLog);
+			}
+			try {
+				// saveAll runs in one transaction
+				auditEventRepository.saveAll(auditLogs);
+				written.increment(batch.size());
+			} catch (DataAccessException e) {
+				failed.increment(batch.size());
+				logger.error("Could not write {} audit event(s)", batch.size(), e);
+			}
+		});
+	}
+
+	static final class PendingAuditEvent {
+		private final String event;
+		private final String eventType;
+		private final String correlationId;
+		private final LocalDateTime timestamp;
+
+		PendingAuditEvent(String event, String eventType, String correlationId, LocalDateTime timestamp) {
+			this.event = event;
+			this.eventType = eventType;
+			this.correlationId = correlationId;
+			this.timestamp = timestamp;
+		}
+
+		String getEvent() {
+			return event;
+		}
+
+		String getEventType() {
+			return eventType;
+		}
+
+		String getCorrelationId() {
+			return correlationId;
+		}
+
+		LocalDateTime getTimestamp() {
+			return timestamp;
+		}
+	}
+}
@@ -0,0 +1,380 @@
+package it.eng.idsa.businesslogic.service.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import de.fraunhofer.iais.eis.Message;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import it.eng.idsa.businesslogic.configuration.ClearingHouseConfiguration;
+import it.eng.idsa.businesslogic.configuration.ClearingHouseConfiguration.DeliveryMode;
+import it.eng.idsa.businesslogic.entity.ClearingHouseOutboxEntry;
+import it.eng.idsa.businesslogic.repository.ClearingHouseOutboxRepository;
+import it.eng.idsa.businesslogic.service.ClearingHouseService;
+import it.eng.idsa.multipart.processor.MultipartMessageProcessor;
+
+/**
+ * Logs transactions to the Clearing House according to <code>application.clearinghouse.deliveryMode</code>.<br>
+ * In SYNC mode the transaction is sent in the message flow, as before. In OUTBOX mode it is stored in the
+ * ClearingHouseOutbox table and in BEST_EFFORT mode in a bounded in-memory queue; a background dispatcher sends
+ * queued transactions in batches, oldest first, and backs off while the Clearing House is failing. When the queue
+ * is full, OUTBOX falls back to sending synchronously (slowing down the flow) and BEST_EFFORT drops the transaction.
+ */
+@Service
+@ConditionalOnExpression("'${application.clearinghouse.isEnabledClearingHouse}'=='true' && '${application.isEnabledDapsInteraction}'=='true'")
+public class ClearingHouseOutbox {
+
+	private static final Logger logger = LoggerFactory.getLogger(ClearingHouseOutbox.class);
+
+	private final ClearingHouseService clearingHouseService;
+	private final DeliveryMode mode;
+	private final int batchSize;
+	private final int maxDepth;
+	private final int maxAttempts;
+	private final long dispatchIntervalMillis;
+	private final long retryDelayMillis;
+	private final long maxRetryDelayMillis;
+	private final OutboxStore store;
+
+	private final Counter queued;
+	private final Counter synchronous;
+	private final Counter dropped;
+	private final Counter delivered;
+	private final Counter retried;
+	private final Counter failed;
+	private final Timer dispatchLag;
+
+	private volatile long oldestPendingCreatedAt;
+
+	// accessed only by the dispatcher thread
+	private int consecutiveFailures;
+	private long pausedUntil;
+
+	private ScheduledExecutorService dispatcher;
+
+	public ClearingHouseOutbox(ClearingHouseService clearingHouseService,
+			ClearingHouseConfiguration configuration,
+			ClearingHouseOutboxRepository repository,
+			@Value("${application.clearinghouse.outbox.batchSize:50}") int batchSize,
+			@Value("${application.clearinghouse.outbox.maxDepth:10000}") int maxDepth,
+			@Value("${application.clearinghouse.outbox.maxAttempts:0}") int maxAttempts,
+			@Value("${application.clearinghouse.outbox.dispatchIntervalMillis:500}") long dispatchIntervalMillis,
+			@Value("${application.clearinghouse.outbox.retryDelayMillis:1000}") long retryDelayMillis,
+			@Value("${application.clearinghouse.outbox.maxRetryDelayMillis:300000}") long maxRetryDelayMillis,
+			MeterRegistry meterRegistry) {
+		this.clearingHouseService = clearingHouseService;
+		this.mode = configuration.getDeliveryMode() != null ? configuration.getDeliveryMode() : DeliveryMode.SYNC;
+		this.batchSize = batchSize;
+		this.maxDepth = maxDepth;
+		this.maxAttempts = maxAttempts;
+		this.dispatchIntervalMillis = dispatchIntervalMillis;
+		this.retryDelayMillis = retryDelayMillis;
+		this.maxRetryDelayMillis = maxRetryDelayMillis;
+		this.store = DeliveryMode.OUTBOX.equals(mode) ? new JpaOutboxStore(repository) : new InMemoryOutboxStore();
+
+		this.queued = Counter.builder("clearinghouse.outbox.enqueue").tag("result", "queued").register(meterRegistry);
+		this.synchronous = Counter.builder("clearinghouse.outbox.enqueue").tag("result", "sync").register(meterRegistry);
+		this.dropped = Counter.builder("clearinghouse.outbox.enqueue").tag("result", "dropped").register(meterRegistry);
+		this.delivered = Counter.builder("clearinghouse.outbox.dispatch").tag("outcome", "delivered").register(meterRegistry);
+		this.retried = Counter.builder("clearinghouse.outbox.dispatch").tag("outcome", "retry").register(meterRegistry);
+		this.failed = Counter.builder("clearinghouse.outbox.dispatch").tag("outcome", "failed").register(meterRegistry);
+		this.dispatchLag = Timer.builder("clearinghouse.outbox.dispatch.lag").register(meterRegistry);
+		Gauge.builder("clearinghouse.outbox.depth", store, OutboxStore::depth).register(meterRegistry);
+		Gauge.builder("clearinghouse.outbox.lag", this, ClearingHouseOutbox::oldestPendingAgeSeconds).register(meterRegistry);
+	}
+
+	@PostConstruct
+	public void startDispatcher() {
+		if (DeliveryMode.SYNC.equals(mode)) {
+			logger.info("Clearing House delivery mode SYNC - outbox dispatcher not started");
+			return;
+		}
+		logger.info("Clearing House delivery mode {}, {} transaction(s) pending", mode, store.depth());
+		refreshOldestPending();
+		dispatcher = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "clearinghouse-outbox");
+			t.setDaemon(true);
+			return t;
+		});
+		dispatcher.scheduleWithFixedDelay(this::dispatch, dispatchIntervalMillis, dispatchIntervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	public void stopDispatcher() {
+		if (dispatcher != null) {
+			dispatcher.shutdownNow();
+		}
+		if (DeliveryMode.BEST_EFFORT.equals(mode) && store.depth() > 0) {
+			logger.warn("{} Clearing House transaction(s) not delivered and discarded", store.depth());
+		}
+	}
+
+	/**
+	 * Registers transaction according to the delivery mode.
+	 *
+	 * @param messageForLogging     message for logging
+	 * @param contractAgreementUUID UUID of the contract agreement, used for ContractAgreementMessage
+	 * @return true if transaction was registered or accepted for delivery
+	 */
+	public boolean registerTransaction(Message messageForLogging, String contractAgreementUUID) {
+		if (DeliveryMode.SYNC.equals(mode)) {
+			return clearingHouseService.registerTransaction(messageForLogging, contractAgreementUUID);
+		}
+		String pid = clearingHouseService.getProcessId(messageForLogging, contractAgreementUUID);
+		if (pid == null) {
+			logger.error("Could not get a valid pid, logging to clearing house aborted.");
+			return false;
+		}
+		String message;
+		try {
+			message = MultipartMessageProcessor.serializeToJsonLD(messageForLogging);
+		} catch (IOException e) {
+			logger.error("Could not serialize message for clearing house", e);
+			return false;
+		}
+		if (store.depth() < maxDepth) {
+			try {
+				long now = System.currentTimeMillis();
+				store.add(new ClearingHouseOutboxEntry(pid, message, now));
+				if (oldestPendingCreatedAt == 0) {
+					oldestPendingCreatedAt = now;
+				}
+				queued.increment();
+				logger.info("Transaction for pid {} queued for Clearing House", pid);
+				return true;
+			} catch (RuntimeException e) {
+				logger.error("Could not queue transaction for Clearing House: {}", e.getMessage());
+			}
+		}
+		if (DeliveryMode.OUTBOX.equals(mode)) {
+			logger.warn("Clearing House outbox not available or full ({} pending), registering transaction synchronously", store.depth());
+			synchronous.increment();
+			return clearingHouseService.sendLogMessage(pid, message);
+		}
+		logger.warn("Clearing House queue full ({} pending), transaction for pid {} dropped", store.depth(), pid);
+		dropped.increment();
+		return true;
+	}
+
+	/**
+	 * Sends pending transactions, batch by batch, until there are no more pending or sending fails
+	 */
+	public void dispatch() {
+		try {
+			long now = System.currentTimeMillis();
+			if (now < pausedUntil) {
+				return;
+			}
+			List<ClearingHouseOutboxEntry> batch;
+			while (!(batch = store.pending(now, batchSize)).isEmpty()) {
+				List<ClearingHouseOutboxEntry> sent = new ArrayList<>(batch.size());
+				ClearingHouseOutboxEntry failedEntry = null;
+				for (ClearingHouseOutboxEntry entry : batch) {
+					if (clearingHouseService.sendLogMessage(entry.getPid(), entry.getMessage())) {
+						sent.add(entry);
+						delivered.increment();
+						dispatchLag.record(System.currentTimeMillis() - entry.getCreatedAt(), TimeUnit.MILLISECONDS);
+					} else {
+						failedEntry = entry;
+						break;
+					}
+				}
+				store.delivered(sent);
+				if (failedEntry != null) {
+					onFailure(failedEntry, now);
+					break;
+				}
+				consecutiveFailures = 0;
+				if (batch.size() < batchSize) {
+					break;
+				}
+				now = System.currentTimeMillis();
+			}
+		} catch (RuntimeException e) {
+			logger.error("Error while dispatching Clearing House transactions", e);
+		} finally {
+			refreshOldestPending();
+		}
+	}
+
+	private void onFailure(ClearingHouseOutboxEntry entry, long now) {
+		consecutiveFailures++;
+		// Clearing House is not accepting transactions, wait before trying the queue again
+		pausedUntil = now + backoff(consecutiveFailures);
+		entry.setAttempts(entry.getAttempts() + 1);
+		entry.setLastError("Clearing House did not accept transaction");
+		if (maxAttempts > 0 && entry.getAttempts() >= maxAttempts) {
+			logger.error("Transaction for pid {} not accepted after {} attempts, giving up", entry.getPid(), entry.getAttempts());
+			entry.setFailed(true);
+			failed.increment();
+		} else {
+			entry.setNextAttemptAt(now + backoff(entry.getAttempts()));
+			retried.increment();
+			logger.warn("Transaction for pid {} not accepted by Clearing House, attempt {}, retrying in {} ms",
+					entry.getPid(), entry.getAttempts(), entry.getNextAttemptAt() - now);
+		}
+		store.update(entry);
+	}
+
+	private long backoff(int attempts) {
+		int exponent = Math.min(Math.max(attempts - 1, 0), 20);
+		return Math.min(retryDelayMillis << exponent, maxRetryDelayMillis);
+	}
+
+	private void refreshOldestPending() {
+		try {
+			oldestPendingCreatedAt = store.oldestCreatedAt();
+		} catch (RuntimeException e) {
+			logger.warn("Could not read oldest pending Clearing House transaction: {}", e.getMessage());
+		}
+	}
+
+	private double oldestPendingAgeSeconds() {
+		long oldest = oldestPendingCreatedAt;
+		return oldest == 0 ? 0 : (System.currentTimeMillis() - oldest) / 1000.0;
+	}
+
+	/**
+	 * Pending transactions
+	 */
+	private interface OutboxStore {
+
+		void add(ClearingHouseOutboxEntry entry);
+
+		/**
+		 * @return oldest entries due for delivery
+		 */
+		List<ClearingHouseOutboxEntry> pending(long now, int limit);
+
+		void delivered(List<ClearingHouseOutboxEntry> entries);
+
+		void update(ClearingHouseOutboxEntry entry);
+
+		long depth();
+
+		/**
+		 * @return creation time of the oldest pending entry, 0 if there is none
+		 */
+		long oldestCreatedAt();
+	}
+
+	private static class JpaOutboxStore implements OutboxStore {
+
+		private final ClearingHouseOutboxRepository repository;
+		private final AtomicLong depth;
+
+		JpaOutboxStore(ClearingHouseOutboxRepository repository) {
+			this.repository = repository;
+			this.depth = new AtomicLong(repository.countByFailedFalse());
+		}
+
+		@Override
+		public void add(ClearingHouseOutboxEntry entry) {
+			repository.save(entry);
+			depth.incrementAndGet();
+		}
+
+		@Override
+		public List<ClearingHouseOutboxEntry> pending(long now, int limit) {
+			return repository.findByFailedFalseAndNextAttemptAtLessThanEqualOrderByIdAsc(now, PageRequest.of(0, limit));
+		}
+
+		@Override
+		public void delivered(List<ClearingHouseOutboxEntry> entries) {
+			if (!entries.isEmpty()) {
+				repository.deleteAllInBatch(entries);
+				depth.addAndGet(-entries.size());
+			}
+		}
+
+		@Override
+		public void update(ClearingHouseOutboxEntry entry) {
+			repository.save(entry);
+			if (entry.isFailed()) {
+				depth.decrementAndGet();
+			}
+		}
+
+		@Override
+		public long depth() {
+			return depth.get();
+		}
+
+		@Override
+		public long oldestCreatedAt() {
+			return repository.findFirstByFailedFalseOrderByIdAsc().map(ClearingHouseOutboxEntry::getCreatedAt).orElse(0L);
+		}
+	}
+
+	private static class InMemoryOutboxStore implements OutboxStore {
+
+		private final Queue<ClearingHouseOutboxEntry> entries = new ConcurrentLinkedQueue<>();
+		private final AtomicLong depth = new AtomicLong();
+
+		@Override
+		public void add(ClearingHouseOutboxEntry entry) {
+			entries.add(entry);
+			depth.incrementAndGet();
+		}
+
+		@Override
+		public List<ClearingHouseOutboxEntry> pending(long now, int limit) {
+			List<ClearingHouseOutboxEntry> pending = new ArrayList<>();
+			Iterator<ClearingHouseOutboxEntry> iterator = entries.iterator();
+			while (iterator.hasNext() && pending.size() < limit) {
+				ClearingHouseOutboxEntry entry = iterator.next();
+				if (entry.getNextAttemptAt() <= now) {
+					pending.add(entry);
+				}
+			}
+			return pending;
+		}
+
+		@Override
+		public void delivered(List<ClearingHouseOutboxEntry> delivered) {
+			for (ClearingHouseOutboxEntry entry : delivered) {
+				if (entries.remove(entry)) {
+					depth.decrementAndGet();
+				}
+			}
+		}
+
+		@Override
+		public void update(ClearingHouseOutboxEntry entry) {
+			if (entry.isFailed() && entries.remove(entry)) {
+				depth.decrementAndGet();
+			}
+		}
+
+		@Override
+		public long depth() {
+			return depth.get();
+		}
+
+		@Override
+		public long oldestCreatedAt() {
+			ClearingHouseOutboxEntry oldest = entries.peek();
+			return oldest != null ? oldest.getCreatedAt() : 0;
+		}
+	}
+}
@@ -13,6 +13,7 @@ import java.util.Map;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -70,7 +71,7 @@ public class ClearingHouseServiceImpl implements ClearingHouseService {
 			SelfDescriptionConfiguration selfDescriptionConfiguration,
 			DapsTokenProviderService dapsProvider,
 			SendDataToBusinessLogicService sendDataToBusinessLogicService,
-			RestTemplate restTemplate) {
+			@Qualifier("ClearingHouseRestTemplate") RestTemplate restTemplate) {
 		super();
 		this.configuration = configuration;
 		this.selfDescriptionConfiguration = selfDescriptionConfiguration;
@@ -115,27 +116,38 @@ public class ClearingHouseServiceImpl implements ClearingHouseService {
 
 	@Override
 	public boolean registerTransaction(Message messageForLogging, String contractAgreementUUID) {
+		logger.info("registerTransaction...");
+		String pid = getProcessId(messageForLogging, contractAgreementUUID);
+		if (pid == null) {
+			logger.error("Could not get a valid pid, logging to clearing house aborted.");
+			return false;
+		}
+		try {
+			return sendLogMessage(pid, MultipartMessageProcessor.serializeToJsonLD(messageForLogging));
+		} catch (IOException e) {
+			logger.error("Could not register the following message to clearing house", e);
+			return false;
+		}
+	}
+
+	@Override
+	public String getProcessId(Message messageForLogging, String contractAgreementUUID) {
+		if (messageForLogging instanceof ContractAgreementMessage) {
+			logger.info("Extracting pid from Contract agreement...");
+			return contractAgreementUUID;
+		}
+		if (messageForLogging.getTransferContract() != null) {
+			logger.info("Extracting pid from message...");
+			return Helper.getUUID(messageForLogging.getTransferContract());
+		}
+		return null;
+	}
+
+	@Override
+	public boolean sendLogMessage(String pid, String messageForLogging) {
 		boolean success = false;
 		Response response = null;
 		try {
-			logger.info("registerTransaction...");
-			String pid = null;
-			
-			if (messageForLogging instanceof ContractAgreementMessage) {
-				logger.info("Extracting pid from Contract agreement...");
-				pid = contractAgreementUUID;
-			}
-			
-			if (!(messageForLogging instanceof ContractAgreementMessage) && messageForLogging.getTransferContract() != null) {
-				logger.info("Extracting pid from message...");
-				pid = Helper.getUUID(messageForLogging.getTransferContract());
-			}
-			
-			if (pid == null) {
-				logger.error("Could not get a valid pid, logging to clearing house aborted.");
-				return success;
-			}
-
 			String endpoint = configuration.getBaseUrl() + configuration.getLogEndpoint() + pid;
 
 			MultipartMessage multipartMessage = buildMultipartMessageForLogging(messageForLogging);
@@ -189,10 +201,10 @@ public class ClearingHouseServiceImpl implements ClearingHouseService {
 		return map;
 	}
 
-	private MultipartMessage buildMultipartMessageForLogging(Message messageForLogging) throws IOException {
+	private MultipartMessage buildMultipartMessageForLogging(String messageForLogging) {
 		MultipartMessage multipartMessage = new MultipartMessageBuilder()
-				.withHeaderContent(buildLogMessage(messageForLogging))
-				.withPayloadContent(MultipartMessageProcessor.serializeToJsonLD(messageForLogging))
+				.withHeaderContent(buildLogMessage())
+				.withPayloadContent(messageForLogging)
 				.build();
 		return multipartMessage;
 	}
@@ -227,7 +239,7 @@ public class ClearingHouseServiceImpl implements ClearingHouseService {
 				.build();
 	}
 	
-	private LogMessage buildLogMessage(Message correlatedMessage) {
+	private LogMessage buildLogMessage() {
 		return new LogMessageBuilder()._modelVersion_(UtilMessageService.MODEL_VERSION)
 									  ._issuerConnector_(whoIAm())
 									  ._issued_(DateUtil.normalizedDateTime())
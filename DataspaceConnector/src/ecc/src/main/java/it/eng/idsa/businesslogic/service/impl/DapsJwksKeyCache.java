@@ -0,0 +1,220 @@
+package it.eng.idsa.businesslogic.service.impl;
+
+import java.net.URL;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Clock;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Service;
+
+import com.auth0.jwk.Jwk;
+import com.auth0.jwk.JwkException;
+import com.auth0.jwk.SigningKeyNotFoundException;
+import com.auth0.jwk.UrlJwkProvider;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Keeps the DAPS JWKS public keys in memory, keyed by <code>kid</code>, so that token validation
+ * does not have to fetch the JWKS document for every incoming message.<br>
+ * Keys are refreshed in background before they expire; an unknown <code>kid</code> or expired keys trigger a
+ * synchronous refetch, but not more often than the configured minimum interval. If the DAPS can not be reached, an
+ * expired key is still used rather than failing the validation, for at most
+ * <code>application.dapsJWKS.cache.maxStaleSeconds</code> after it expired, so that a rotated-out key does not stay
+ * valid while the JWKS endpoint is unreachable.
+ */
+@Service
+@ConditionalOnExpression("!'${application.dapsVersion}'.equals('orbiter')")
+public class DapsJwksKeyCache {
+
+	private static final Logger logger = LoggerFactory.getLogger(DapsJwksKeyCache.class);
+
+	private final URL dapsJWKSUrl;
+	private final boolean useDaps;
+	private final long ttlMillis;
+	private final long refreshIntervalMillis;
+	private final long minRefetchIntervalMillis;
+	private final long maxStaleMillis;
+	private final Clock clock;
+
+	private final Counter hits;
+	private final Counter misses;
+	private final Counter refreshSuccess;
+	private final Counter refreshFailure;
+
+	private final Object refreshLock = new Object();
+
+	private volatile Map<String, RSAPublicKey> keys = Collections.emptyMap();
+	private volatile long fetchedAt;
+	private volatile long lastFetchAttempt;
+
+	private ScheduledExecutorService scheduler;
+
+	public DapsJwksKeyCache(@Value("${application.dapsJWKSUrl}") URL dapsJWKSUrl,
+			@Value("${application.isEnabledDapsInteraction}") boolean useDaps,
+			@Value("${application.dapsJWKS.cache.ttlSeconds:3600}") long ttlSeconds,
+			@Value("${application.dapsJWKS.cache.refreshIntervalSeconds:900}") long refreshIntervalSeconds,
+			@Value("${application.dapsJWKS.cache.minRefetchIntervalSeconds:30}") long minRefetchIntervalSeconds,
+			@Value("${application.dapsJWKS.cache.maxStaleSeconds:3600}") long maxStaleSeconds,
+			MeterRegistry meterRegistry) {
+		this(dapsJWKSUrl, useDaps, ttlSeconds, refreshIntervalSeconds, minRefetchIntervalSeconds, maxStaleSeconds,
+				meterRegistry, Clock.systemUTC());
+	}
+
+	DapsJwksKeyCache(URL dapsJWKSUrl, boolean useDaps, long ttlSeconds, long refreshIntervalSeconds,
+			long minRefetchIntervalSeconds, long maxStaleSeconds, MeterRegistry meterRegistry, Clock clock) {
+		this.dapsJWKSUrl = dapsJWKSUrl;
+		this.useDaps = useDaps;
+		this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+		this.refreshIntervalMillis = TimeUnit.SECONDS.toMillis(refreshIntervalSeconds);
+		this.minRefetchIntervalMillis = TimeUnit.SECONDS.toMillis(minRefetchIntervalSeconds);
+		this.maxStaleMillis = TimeUnit.SECONDS.toMillis(maxStaleSeconds);
+		this.clock = clock;
+		this.hits = Counter.builder("daps.jwks.cache.requests").tag("result", "hit").register(meterRegistry);
+		this.misses = Counter.builder("daps.jwks.cache.requests").tag("result", "miss").register(meterRegistry);
+		this.refreshSuccess = Counter.builder("daps.jwks.cache.refresh").tag("outcome", "success").register(meterRegistry);
+		this.refreshFailure = Counter.builder("daps.jwks.cache.refresh").tag("outcome", "failure").register(meterRegistry);
+		Gauge.builder("daps.jwks.cache.size", this, c -> c.keys.size()).register(meterRegistry);
+	}
+
+	@PostConstruct
+	public void startBackgroundRefresh() {
+		if (!useDaps || dapsJWKSUrl == null) {
+			logger.info("DAPS interaction disabled or JWKS URL not set - JWKS background refresh not started");
+			return;
+		}
+		scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "daps-jwks-refresh");
+			t.setDaemon(true);
+			return t;
+		});
+		scheduler.scheduleWithFixedDelay(this::backgroundRefresh, 0, refreshIntervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	public void stopBackgroundRefresh() {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+		}
+	}
+
+	/**
+	 * Returns the public key for the given key id.<br>
+	 * If the token does not carry a <code>kid</code> and the JWKS contains exactly one key, that key is returned.
+	 *
+	 * @param keyId kid from the token header, can be null
+	 * @return public key used to verify the token signature
+	 * @throws JwkException if the key cannot be found, or the JWKS cannot be fetched and the cached key expired more
+	 *                      than <code>maxStaleSeconds</code> ago
+	 */
+	public RSAPublicKey getPublicKey(String keyId) throws JwkException {
+		RSAPublicKey key = lookup(keyId);
+		if (key != null && !isExpired()) {
+			hits.increment();
+			return key;
+		}
+		misses.increment();
+		synchronized (refreshLock) {
+			// another thread might have refreshed keys while we were waiting
+			key = lookup(keyId);
+			if (key != null && !isExpired()) {
+				return key;
+			}
+			if (clock.millis() - lastFetchAttempt < minRefetchIntervalMillis) {
+				if (key != null) {
+					// expired, but DAPS was asked recently; do not queue every validation behind another fetch
+					return staleKey(key, keyId, null);
+				}
+				throw new SigningKeyNotFoundException("No key found for kid " + keyId
+						+ ", JWKS refetch is rate limited", null);
+			}
+			try {
+				refresh();
+			} catch (JwkException e) {
+				if (key != null) {
+					RSAPublicKey stale = staleKey(key, keyId, e);
+					logger.warn("Refresh of expired DAPS JWKS failed, using cached key for kid {}: {}", keyId,
+							e.getMessage());
+					return stale;
+				}
+				throw e;
+			}
+			key = lookup(keyId);
+		}
+		if (key == null) {
+			throw new SigningKeyNotFoundException("No key found in " + dapsJWKSUrl + " with kid " + keyId, null);
+		}
+		return key;
+	}
+
+	private RSAPublicKey lookup(String keyId) {
+		Map<String, RSAPublicKey> current = keys;
+		if (keyId == null) {
+			return current.size() == 1 ? current.values().iterator().next() : null;
+		}
+		return current.get(keyId);
+	}
+
+	private boolean isExpired() {
+		return clock.millis() - fetchedAt > ttlMillis;
+	}
+
+	/**
+	 * @return expired key, if it expired at most <code>maxStaleSeconds</code> ago
+	 */
+	private RSAPublicKey staleKey(RSAPublicKey key, String keyId, JwkException cause) throws JwkException {
+		if (clock.millis() - fetchedAt > ttlMillis + maxStaleMillis) {
+			throw new SigningKeyNotFoundException("Cached key for kid " + keyId + " expired more than "
+					+ TimeUnit.MILLISECONDS.toSeconds(maxStaleMillis) + "s ago and JWKS can not be refreshed", cause);
+		}
+		return key;
+	}
+
+	private void backgroundRefresh() {
+		synchronized (refreshLock) {
+			try {
+				refresh();
+			} catch (JwkException e) {
+				logger.warn("Background refresh of DAPS JWKS failed, keeping cached keys: {}", e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Fetches the JWKS and replaces the key map. Must be called holding refreshLock.
+	 */
+	private void refresh() throws JwkException {
+		lastFetchAttempt = clock.millis();
+		try {
+			List<Jwk> jwks = new UrlJwkProvider(dapsJWKSUrl).getAll();
+			Map<String, RSAPublicKey> fetched = new HashMap<>();
+			for (Jwk jwk : jwks) {
+				if (jwk.getPublicKey() instanceof RSAPublicKey) {
+					fetched.put(jwk.getId(), (RSAPublicKey) jwk.getPublicKey());
+				}
+			}
+			keys = Collections.unmodifiableMap(fetched);
+			fetchedAt = clock.millis();
+			refreshSuccess.increment();
+			logger.debug("DAPS JWKS refreshed, {} key(s) cached", fetched.size());
+		} catch (JwkException | RuntimeException e) {
+			refreshFailure.increment();
+			throw e instanceof JwkException ? (JwkException) e : new SigningKeyNotFoundException("Cannot fetch JWKS from " + dapsJWKSUrl, e);
+		}
+	}
+}
@@ -14,6 +14,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.stereotype.Service;
@@ -66,6 +67,7 @@ public class DapsOrbiterServiceImpl implements DapsService {
 	private URL dapsJWKSUrl;
 
 	@Autowired
+	@Qualifier("dapsHttpClient")
 	private OkHttpClient client;
 
 	@Autowired
@@ -0,0 +1,273 @@
+package it.eng.idsa.businesslogic.service.impl;
+
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.exceptions.JWTDecodeException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import it.eng.idsa.businesslogic.service.DapsService;
+
+/**
+ * Keeps the current DAT token as an immutable snapshot and renews it from DAPS in a single background fetch.<br>
+ * Once <code>refreshRatio</code> of the token lifetime has passed, callers keep getting the cached token while it is
+ * renewed; only when there is no valid token they wait for the fetch. Concurrent callers share the same fetch.<br>
+ * A failed fetch is retried with jittered backoff; after <code>circuitFailureThreshold</code> failed refreshes DAPS is
+ * not called for <code>circuitOpenSeconds</code>.
+ */
+@Component
+public class DapsTokenManager {
+
+	private static final Logger logger = LoggerFactory.getLogger(DapsTokenManager.class);
+
+	private final Supplier<String> fetcher;
+	private final double refreshRatio;
+	private final int maxAttempts;
+	private final long retryBackoffMillis;
+	private final int circuitFailureThreshold;
+	private final long circuitOpenMillis;
+	private final long waitTimeoutMillis;
+
+	private final Timer fetchSuccess;
+	private final Timer fetchFailure;
+	private final Counter refreshProactive;
+	private final Counter refreshExpired;
+	private final Counter circuitRejected;
+
+	private final AtomicReference<TokenSnapshot> snapshot = new AtomicReference<>(TokenSnapshot.EMPTY);
+	private final AtomicReference<CompletableFuture<TokenSnapshot>> inFlight = new AtomicReference<>();
+	private final ExecutorService executor;
+
+	// written only by the refresh thread
+	private volatile int consecutiveFailures;
+	private volatile long circuitOpenUntil;
+
+	@Autowired
+	public DapsTokenManager(Optional<DapsService> dapsService,
+			@Value("${application.daps.token.refreshRatio:0.8}") double refreshRatio,
+			@Value("${application.daps.token.maxAttempts:3}") int maxAttempts,
+			@Value("${application.daps.token.retryBackoffMillis:200}") long retryBackoffMillis,
+			@Value("${application.daps.token.circuitFailureThreshold:3}") int circuitFailureThreshold,
+			@Value("${application.daps.token.circuitOpenSeconds:30}") long circuitOpenSeconds,
+			@Value("${application.daps.token.waitTimeoutSeconds:30}") long waitTimeoutSeconds,
+			MeterRegistry meterRegistry) {
+		this(() -> dapsService.map(DapsService::getJwtToken).orElse(null), refreshRatio, maxAttempts, retryBackoffMillis,
+				circuitFailureThreshold, TimeUnit.SECONDS.toMillis(circuitOpenSeconds),
+				TimeUnit.SECONDS.toMillis(waitTimeoutSeconds), meterRegistry);
+	}
+
+	DapsTokenManager(Supplier<String> fetcher, double refreshRatio, int maxAttempts, long retryBackoffMillis,
+			int circuitFailureThreshold, long circuitOpenMillis, long waitTimeoutMillis, MeterRegistry meterRegistry) {
+		this.fetcher = fetcher;
+		this.refreshRatio = Math.max(0.1, Math.min(1.0, refreshRatio));
+		this.maxAttempts = Math.max(1, maxAttempts);
+		this.retryBackoffMillis = retryBackoffMillis;
+		this.circuitFailureThreshold = Math.max(1, circuitFailureThreshold);
+		this.circuitOpenMillis = circuitOpenMillis;
+		this.waitTimeoutMillis = waitTimeoutMillis;
+		this.fetchSuccess = Timer.builder("daps.token.fetch").tag("outcome", "success").register(meterRegistry);
+		this.fetchFailure = Timer.builder("daps.token.fetch").tag("outcome", "failure").register(meterRegistry);
+		this.refreshProactive = Counter.builder("daps.token.refresh").tag("trigger", "proactive").register(meterRegistry);
+		this.refreshExpired = Counter.builder("daps.token.refresh").tag("trigger", "expired").register(meterRegistry);
+		this.circuitRejected = Counter.builder("daps.token.circuit.rejected").register(meterRegistry);
+		Gauge.builder("daps.token.circuit.open", this, m -> m.isCircuitOpen() ? 1 : 0).register(meterRegistry);
+		this.executor = Executors.newSingleThreadExecutor(r -> {
+			Thread t = new Thread(r, "daps-token-refresh");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Returns the cached token, renewing it in background when it is due for refresh.<br>
+	 * Waits for DAPS only when there is no valid token.
+	 *
+	 * @return valid token, null if it could not be fetched
+	 */
+	public String getToken() {
+		long now = System.currentTimeMillis();
+		TokenSnapshot current = snapshot.get();
+		if (current.isValid(now)) {
+			if (now >= current.refreshAt) {
+				refresh(refreshProactive);
+			}
+			return current.token;
+		}
+		try {
+			TokenSnapshot fetched = refresh(refreshExpired).get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+			return fetched.isValid(System.currentTimeMillis()) ? fetched.token : null;
+		} catch (TimeoutException e) {
+			logger.error("DAPS token not received within {} ms", waitTimeoutMillis);
+		} catch (ExecutionException e) {
+			logger.error("DAPS token refresh failed", e.getCause());
+		} catch (InterruptedException e) {
+			logger.error("Waiting for DAPS token interrupted");
+			Thread.currentThread().interrupt();
+		}
+		return null;
+	}
+
+	boolean isCircuitOpen() {
+		return System.currentTimeMillis() < circuitOpenUntil;
+	}
+
+	/**
+	 * Starts a refresh unless one is already running
+	 * @return refresh in progress
+	 */
+	private CompletableFuture<TokenSnapshot> refresh(Counter trigger) {
+		while (true) {
+			CompletableFuture<TokenSnapshot> running = inFlight.get();
+			if (running != null) {
+				return running;
+			}
+			CompletableFuture<TokenSnapshot> started = new CompletableFuture<>();
+			if (inFlight.compareAndSet(null, started)) {
+				trigger.increment();
+				try {
+					executor.execute(() -> {
+						TokenSnapshot result = snapshot.get();
+						try {
+							result = fetch();
+						} finally {
+							inFlight.set(null);
+							started.complete(result);
+						}
+					});
+				} catch (RejectedExecutionException e) {
+					inFlight.set(null);
+					started.complete(snapshot.get());
+				}
+				return started;
+			}
+		}
+	}
+
+	private TokenSnapshot fetch() {
+		TokenSnapshot current = snapshot.get();
+		long now = System.currentTimeMillis();
+		// caller saw the snapshot before the previous refresh replaced it
+		if (current.isValid(now) && now < current.refreshAt) {
+			return current;
+		}
+		if (now < circuitOpenUntil) {
+			circuitRejected.increment();
+			logger.warn("DAPS circuit open, not requesting token for another {} ms", circuitOpenUntil - now);
+			return current;
+		}
+		for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+			long start = System.nanoTime();
+			TokenSnapshot fetched = decode(fetchToken());
+			if (fetched != null) {
+				fetchSuccess.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+				consecutiveFailures = 0;
+				snapshot.set(fetched);
+				logger.info("DAPS token renewed, expires at {}", new Date(fetched.expiresAt));
+				return fetched;
+			}
+			fetchFailure.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			if (attempt < maxAttempts && !sleep(backoff(attempt))) {
+				break;
+			}
+		}
+		if (++consecutiveFailures >= circuitFailureThreshold) {
+			circuitOpenUntil = System.currentTimeMillis() + circuitOpenMillis;
+			logger.error("DAPS token refresh failed {} times in a row, circuit open for {} ms", consecutiveFailures,
+					circuitOpenMillis);
+		}
+		return current;
+	}
+
+	private String fetchToken() {
+		try {
+			return fetcher.get();
+		} catch (RuntimeException e) {
+			logger.error("Error while fetching DAPS token", e);
+			return null;
+		}
+	}
+
+	private TokenSnapshot decode(String token) {
+		if (StringUtils.isBlank(token)) {
+			return null;
+		}
+		try {
+			Date expiresAt = JWT.decode(token).getExpiresAt();
+			long now = System.currentTimeMillis();
+			if (expiresAt == null || expiresAt.getTime() <= now) {
+				logger.error("DAPS token has no expiration time or is already expired");
+				return null;
+			}
+			long refreshAt = now + (long) ((expiresAt.getTime() - now) * refreshRatio);
+			return new TokenSnapshot(token, expiresAt.getTime(), refreshAt);
+		} catch (JWTDecodeException e) {
+			logger.error("Could not get token expiration time {}", e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Exponential backoff, half of it randomized so that connectors do not retry in lockstep
+	 */
+	private long backoff(int attempt) {
+		long delay = retryBackoffMillis << Math.min(attempt - 1, 10);
+		return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+	}
+
+	private boolean sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	private static final class TokenSnapshot {
+
+		static final TokenSnapshot EMPTY = new TokenSnapshot(null, 0, 0);
+
+		final String token;
+		final long expiresAt;
+		final long refreshAt;
+
+		TokenSnapshot(String token, long expiresAt, long refreshAt) {
+			this.token = token;
+			this.expiresAt = expiresAt;
+			this.refreshAt = refreshAt;
+		}
+
+		boolean isValid(long now) {
+			return token != null && now < expiresAt;
+		}
+	}
+}
@@ -1,8 +1,5 @@
 package it.eng.idsa.businesslogic.service.impl;
 
-import java.util.Date;
-
-import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,9 +8,6 @@ import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
-import com.auth0.jwt.JWT;
-import com.auth0.jwt.exceptions.JWTDecodeException;
-
 import de.fraunhofer.iais.eis.DynamicAttributeToken;
 import de.fraunhofer.iais.eis.DynamicAttributeTokenBuilder;
 import de.fraunhofer.iais.eis.TokenFormat;
@@ -30,9 +24,8 @@ public class DapsTokenProviderServiceImpl implements DapsTokenProviderService {
 	@Autowired(required = false)
 	private DapsService dapsService;
 
-	private String cachedToken;
-
-	private Date expirationTime;
+	@Autowired
+	private DapsTokenManager tokenManager;
 
 	@Value("${application.tokenCaching}")
 	private boolean tokenCaching;
@@ -51,22 +44,7 @@ public class DapsTokenProviderServiceImpl implements DapsTokenProviderService {
 			return UtilMessageService.TOKEN_VALUE;
 		}
 		if (tokenCaching) {
-			//Checking if cached token is still valid
-			if (cachedToken == null || new Date().after(expirationTime)) {
-				logger.info("Fetching new token");
-				cachedToken = dapsService.getJwtToken();
-				if (cachedToken != null) {
-					try {
-						expirationTime = JWT.decode(cachedToken).getExpiresAt();
-					} catch (JWTDecodeException e) {
-						logger.error("Could not get token expiration time {}", e.getMessage());
-						//Setting to default values since the JWT token was not correct
-						cachedToken = null;
-						expirationTime = null;
-					} 
-				} 
-			}
-			return cachedToken;
+			return tokenManager.getToken();
 		} else {
 			//Always new token
 			return dapsService.getJwtToken();
@@ -88,7 +66,7 @@ public class DapsTokenProviderServiceImpl implements DapsTokenProviderService {
 	
 	@EventListener(ApplicationReadyEvent.class)
 	public void fetchTokenOnStartup() {
-		if ((fetchTokenOnStartup && useDaps) && StringUtils.isBlank(cachedToken)) {
+		if (fetchTokenOnStartup && useDaps) {
 			logger.info("Fetching DAT token on startup");
 			provideToken();
 		}
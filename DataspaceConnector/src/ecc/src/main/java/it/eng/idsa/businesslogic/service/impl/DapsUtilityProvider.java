@@ -1,10 +1,8 @@
 package it.eng.idsa.businesslogic.service.impl;
 
-import java.net.URL;
 import java.security.PublicKey;
 import java.security.cert.Certificate;
 import java.security.interfaces.RSAPrivateKey;
-import java.security.interfaces.RSAPublicKey;
 import java.time.Instant;
 import java.util.Date;
 
@@ -15,14 +13,10 @@ import org.bouncycastle.asn1.x509.SubjectKeyIdentifier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.stereotype.Service;
 
-import com.auth0.jwk.Jwk;
 import com.auth0.jwk.JwkException;
-import com.auth0.jwk.JwkProvider;
-import com.auth0.jwk.UrlJwkProvider;
 import com.auth0.jwt.JWT;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTCreationException;
@@ -36,8 +30,8 @@ public class DapsUtilityProvider {
     @Autowired
     private DapsKeystoreProvider keystoreProvider;
     
-	@Value("${application.dapsJWKSUrl}")
-	private URL dapsJWKSUrl;
+    @Autowired
+    private DapsJwksKeyCache jwksKeyCache;
 	
     private String targetAudience = "idsc:IDS_CONNECTORS_ALL";
     
@@ -77,12 +71,9 @@ public class DapsUtilityProvider {
     
     public Algorithm provideAlgorithm(String tokenValue) {
     	DecodedJWT jwt = JWT.decode(tokenValue);
-    	JwkProvider provider = new UrlJwkProvider(dapsJWKSUrl);
-		Jwk jwk;
 		Algorithm algorithm = null;
 		try {
-			jwk = provider.get(jwt.getKeyId());
-			algorithm = Algorithm.RSA256((RSAPublicKey) jwk.getPublicKey(), null);
+			algorithm = Algorithm.RSA256(jwksKeyCache.getPublicKey(jwt.getKeyId()), null);
 		} catch (JwkException e) {
 			logger.error("Error while trying to validate token {}", e);
 		}
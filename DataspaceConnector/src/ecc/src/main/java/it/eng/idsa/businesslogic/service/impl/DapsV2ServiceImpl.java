@@ -15,6 +15,7 @@ import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.stereotype.Service;
@@ -48,6 +49,7 @@ public class DapsV2ServiceImpl implements DapsService {
 	private static final Logger logger = LoggerFactory.getLogger(DapsV2ServiceImpl.class);
 
 	@Autowired
+	@Qualifier("dapsHttpClient")
 	private OkHttpClient client;
 	
 	@Autowired
@@ -23,14 +23,12 @@ import org.springframework.transaction.annotation.Transactional;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
-import de.fraunhofer.iais.eis.DynamicAttributeTokenBuilder;
 import de.fraunhofer.iais.eis.Message;
 import de.fraunhofer.iais.eis.RejectionReason;
-import de.fraunhofer.iais.eis.Token;
-import de.fraunhofer.iais.eis.TokenFormat;
 import it.eng.idsa.businesslogic.service.MultipartMessageService;
 import it.eng.idsa.businesslogic.service.RejectionMessageService;
 import it.eng.idsa.businesslogic.util.MessagePart;
+import it.eng.idsa.businesslogic.util.SecurityTokenHeaderWriter;
 import it.eng.idsa.multipart.builder.MultipartMessageBuilder;
 import it.eng.idsa.multipart.domain.MultipartMessage;
 import it.eng.idsa.multipart.processor.MultipartMessageProcessor;
@@ -53,19 +51,14 @@ public class MultipartMessageServiceImpl implements MultipartMessageService {
 	@Autowired
 	private RejectionMessageService rejectionMessageService;
 	
+	private final SecurityTokenHeaderWriter securityTokenHeaderWriter = new SecurityTokenHeaderWriter();
+	
 	@Override
 	public String addToken(Message message, String token) {
 		String output = null;
 		try {
-			String msgSerialized = MultipartMessageProcessor.serializeToJsonLD(message);
-			Token tokenJsonValue = new DynamicAttributeTokenBuilder()._tokenFormat_(TokenFormat.JWT)._tokenValue_(token).build();
-			String tokenValueSerialized = MultipartMessageProcessor.serializeToJsonLD(tokenJsonValue);
-			JSONParser parser = new JSONParser();
-			JSONObject jsonObject = (JSONObject) parser.parse(msgSerialized);
-			JSONObject jsonObjectToken = (JSONObject) parser.parse(tokenValueSerialized);
-			jsonObject.put("ids:securityToken", jsonObjectToken);
-			output = MultipartMessageProcessor.serializeToJsonLD(jsonObject);
-		} catch (ParseException | IOException e) {
+			output = securityTokenHeaderWriter.write(message, token);
+		} catch (IOException e) {
 			logger.error("Error while adding token to message", e);
 		}
 		return output;
@@ -0,0 +1,316 @@
+package it.eng.idsa.businesslogic.service.impl;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.security.cert.X509Certificate;
+import java.time.Clock;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.bouncycastle.cert.ocsp.CertificateID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import it.eng.idsa.businesslogic.service.OCSPValidationService;
+import it.eng.idsa.businesslogic.util.OCSPValidation;
+import it.eng.idsa.businesslogic.util.OCSPValidation.OCSPResult;
+import it.eng.idsa.businesslogic.util.OCSPValidation.OCSP_STATUS;
+import it.eng.idsa.businesslogic.util.exception.OCSPValidationException;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+/**
+ * OCSP check of the target connector certificate, done in process with BouncyCastle.<br>
+ * Responses are cached by certificate id (issuer name hash, issuer key hash, serial number) until their
+ * <code>nextUpdate</code>; certificate chains presented by targets are cached per host and port. Concurrent
+ * checks of the same certificate share one responder request. When the status cannot be obtained the
+ * certificate is either accepted (soft-fail) or treated as <code>unknown</code>.
+ */
+@Service
+public class OCSPValidationServiceImpl implements OCSPValidationService {
+
+	private static final Logger logger = LoggerFactory.getLogger(OCSPValidationServiceImpl.class);
+
+	private final int timeoutMillis;
+	private final boolean softFail;
+	private final long defaultTtlMillis;
+	private final long maxTtlMillis;
+	private final long failureTtlMillis;
+	private final long chainTtlMillis;
+	private final int maxEntries;
+	private final Clock clock;
+	private final OkHttpClient client;
+
+	private final Map<CertificateID, CacheEntry<OCSP_STATUS>> responses = new ConcurrentHashMap<>();
+	private final Map<CertificateID, CompletableFuture<CacheEntry<OCSP_STATUS>>> responsesInFlight = new ConcurrentHashMap<>();
+	private final Map<String, CacheEntry<X509Certificate[]>> chains = new ConcurrentHashMap<>();
+	private final Map<String, CompletableFuture<CacheEntry<X509Certificate[]>>> chainsInFlight = new ConcurrentHashMap<>();
+
+	private final MeterRegistry meterRegistry;
+	private final Counter responseHits;
+	private final Counter responseMisses;
+	private final Counter chainHits;
+	private final Counter chainMisses;
+	private final Counter coalesced;
+	private final Timer responderSuccess;
+	private final Timer responderFailure;
+
+	@Autowired
+	public OCSPValidationServiceImpl(@Value("${application.ocsp.timeoutMillis:5000}") int timeoutMillis,
+			@Value("${application.ocsp.softFail:false}") boolean softFail,
+			@Value("${application.ocsp.cache.defaultTtlSeconds:3600}") long defaultTtlSeconds,
+			@Value("${application.ocsp.cache.maxTtlSeconds:86400}") long maxTtlSeconds,
+			@Value("${application.ocsp.cache.failureTtlSeconds:30}") long failureTtlSeconds,
+			@Value("${application.ocsp.cache.chainTtlSeconds:300}") long chainTtlSeconds,
+			@Value("${application.ocsp.cache.maxEntries:1000}") int maxEntries,
+			MeterRegistry meterRegistry) {
+		this(timeoutMillis, softFail, defaultTtlSeconds, maxTtlSeconds, failureTtlSeconds, chainTtlSeconds, maxEntries,
+				meterRegistry, Clock.systemUTC());
+	}
+
+	OCSPValidationServiceImpl(int timeoutMillis, boolean softFail, long defaultTtlSeconds, long maxTtlSeconds,
+			long failureTtlSeconds, long chainTtlSeconds, int maxEntries, MeterRegistry meterRegistry, Clock clock) {
+		this.timeoutMillis = timeoutMillis;
+		this.softFail = softFail;
+		this.defaultTtlMillis = TimeUnit.SECONDS.toMillis(defaultTtlSeconds);
+		this.maxTtlMillis = TimeUnit.SECONDS.toMillis(maxTtlSeconds);
+		this.failureTtlMillis = TimeUnit.SECONDS.toMillis(failureTtlSeconds);
+		this.chainTtlMillis = TimeUnit.SECONDS.toMillis(chainTtlSeconds);
+		this.maxEntries = maxEntries;
+		this.clock = clock;
+		this.client = new OkHttpClient.Builder()
+				.connectTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+				.readTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+				.callTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+				.build();
+		this.meterRegistry = meterRegistry;
+		this.responseHits = Counter.builder("ocsp.cache.requests").tag("cache", "response").tag("result", "hit").register(meterRegistry);
+		this.responseMisses = Counter.builder("ocsp.cache.requests").tag("cache", "response").tag("result", "miss").register(meterRegistry);
+		this.chainHits = Counter.builder("ocsp.cache.requests").tag("cache", "chain").tag("result", "hit").register(meterRegistry);
+		this.chainMisses = Counter.builder("ocsp.cache.requests").tag("cache", "chain").tag("result", "miss").register(meterRegistry);
+		this.coalesced = Counter.builder("ocsp.requests.coalesced").register(meterRegistry);
+		this.responderSuccess = Timer.builder("ocsp.responder.requests").tag("outcome", "success").register(meterRegistry);
+		this.responderFailure = Timer.builder("ocsp.responder.requests").tag("outcome", "failure").register(meterRegistry);
+		Gauge.builder("ocsp.cache.size", responses, Map::size).register(meterRegistry);
+	}
+
+	@Override
+	public boolean checkOCSPCertificate(String url, OCSP_STATUS desideredOCSPRevocationCheckValue) {
+		logger.info("desidered OCSP Revocation Check Value " + desideredOCSPRevocationCheckValue);
+		URL forwardToURL;
+		try {
+			forwardToURL = OCSPValidation.toTargetUrl(url);
+		} catch (MalformedURLException e) {
+			logger.error("Invalid URL '{}'", url);
+			return false;
+		}
+		String host = forwardToURL.getHost();
+		int port = forwardToURL.getPort() != -1 ? forwardToURL.getPort() : forwardToURL.getDefaultPort();
+
+		X509Certificate[] chain;
+		try {
+			chain = lookup(chains, chainsInFlight, host + ":" + port, chainHits, chainMisses,
+					() -> fetchChain(host, port));
+		} catch (OCSPValidationException e) {
+			return onFailure(e, desideredOCSPRevocationCheckValue);
+		}
+		return checkOCSPCertificate(chain, desideredOCSPRevocationCheckValue);
+	}
+
+	@Override
+	public boolean checkOCSPCertificate(X509Certificate[] chain, OCSP_STATUS desideredOCSPRevocationCheckValue) {
+		OCSP_STATUS status;
+		try {
+			if (chain == null || chain.length < 2) {
+				throw new OCSPValidationException("Certificate chain does not contain issuer certificate");
+			}
+			X509Certificate certificate = chain[0];
+			X509Certificate issuer = chain[1];
+			CertificateID certificateId = OCSPValidation.createCertificateId(certificate, issuer);
+			status = lookup(responses, responsesInFlight, certificateId, responseHits, responseMisses,
+					() -> queryResponder(certificate, issuer, certificateId));
+		} catch (OCSPValidationException e) {
+			return onFailure(e, desideredOCSPRevocationCheckValue);
+		}
+		return isAccepted(status, desideredOCSPRevocationCheckValue);
+	}
+
+	private boolean isAccepted(OCSP_STATUS status, OCSP_STATUS desideredOCSPRevocationCheckValue) {
+		logger.info("OCSP test result " + status);
+		Counter.builder("ocsp.validation").tag("status", status.name()).register(meterRegistry).increment();
+		if (OCSP_STATUS.revoked.equals(status)) {
+			logger.error("The target certificate is 'revoked'!!!");
+			return false;
+		} else if (OCSP_STATUS.unknown.equals(status) && OCSP_STATUS.good.equals(desideredOCSPRevocationCheckValue)) {
+			logger.error("The target certificate is 'unknown' but 'good' is required!!!");
+			return false;
+		}
+		return true;
+	}
+
+	private boolean onFailure(OCSPValidationException e, OCSP_STATUS desideredOCSPRevocationCheckValue) {
+		if (softFail) {
+			logger.warn("OCSP status could not be obtained, accepting certificate (soft-fail): {}", e.getMessage());
+			Counter.builder("ocsp.validation").tag("status", "error").register(meterRegistry).increment();
+			return true;
+		}
+		logger.warn("OCSP status could not be obtained, treating certificate as 'unknown': {}", e.getMessage());
+		return isAccepted(OCSP_STATUS.unknown, desideredOCSPRevocationCheckValue);
+	}
+
+	/**
+	 * Returns cached value or loads it; concurrent loads of the same key are coalesced into one.
+	 */
+	private <K, V> V lookup(Map<K, CacheEntry<V>> entries, Map<K, CompletableFuture<CacheEntry<V>>> inFlight, K key,
+			Counter hits, Counter misses, Supplier<CacheEntry<V>> loader) throws OCSPValidationException {
+		CacheEntry<V> entry = entries.get(key);
+		if (entry != null && !entry.isExpired(clock.millis())) {
+			hits.increment();
+			return entry.get();
+		}
+		misses.increment();
+		CompletableFuture<CacheEntry<V>> created = new CompletableFuture<>();
+		CompletableFuture<CacheEntry<V>> existing = inFlight.putIfAbsent(key, created);
+		if (existing != null) {
+			coalesced.increment();
+			try {
+				return existing.join().get();
+			} catch (CompletionException e) {
+				throw new OCSPValidationException("OCSP check failed", e.getCause());
+			}
+		}
+		try {
+			// loaded by another thread between cache check and registering this load
+			entry = entries.get(key);
+			if (entry == null || entry.isExpired(clock.millis())) {
+				entry = loader.get();
+				evictIfFull(entries);
+				entries.put(key, entry);
+			}
+			created.complete(entry);
+		} catch (RuntimeException e) {
+			created.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, created);
+		}
+		return entry.get();
+	}
+
+	private <K, V> void evictIfFull(Map<K, CacheEntry<V>> entries) {
+		if (entries.size() < maxEntries) {
+			return;
+		}
+		long now = clock.millis();
+		entries.values().removeIf(e -> e.isExpired(now));
+		Iterator<K> keys = entries.keySet().iterator();
+		while (entries.size() >= maxEntries && keys.hasNext()) {
+			keys.next();
+			keys.remove();
+		}
+	}
+
+	private CacheEntry<X509Certificate[]> fetchChain(String host, int port) {
+		try {
+			X509Certificate[] chain = OCSPValidation.fetchCertificateChain(host, port, timeoutMillis);
+			return CacheEntry.value(chain, clock.millis() + chainTtlMillis);
+		} catch (OCSPValidationException e) {
+			return CacheEntry.failure(e.getMessage(), clock.millis() + failureTtlMillis);
+		}
+	}
+
+	private CacheEntry<OCSP_STATUS> queryResponder(X509Certificate certificate, X509Certificate issuer,
+			CertificateID certificateId) {
+		String ocspUrl;
+		Request request;
+		try {
+			ocspUrl = OCSPValidation.getOcspUrl(certificate);
+			if (ocspUrl == null) {
+				logger.error("No OCSP server Uri found in certificate {}", certificate.getSubjectX500Principal());
+				return CacheEntry.value(OCSP_STATUS.unknown, clock.millis() + failureTtlMillis);
+			}
+			request = new Request.Builder()
+					.url(ocspUrl)
+					.post(RequestBody.create(OCSPValidation.createRequest(certificateId),
+							MediaType.get(OCSPValidation.OCSP_REQUEST_CONTENT_TYPE)))
+					.build();
+		} catch (OCSPValidationException | IllegalArgumentException e) {
+			return CacheEntry.failure(e.getMessage(), clock.millis() + failureTtlMillis);
+		}
+
+		long start = System.nanoTime();
+		try (Response response = client.newCall(request).execute()) {
+			if (!response.isSuccessful()) {
+				throw new OCSPValidationException("OCSP responder " + ocspUrl + " returned HTTP " + response.code());
+			}
+			OCSPResult result = OCSPValidation.parseResponse(response.body().bytes(), certificateId, issuer,
+					new Date(clock.millis()));
+			responderSuccess.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			logger.debug("OCSP responder {} returned '{}', next update {}", ocspUrl, result.getStatus(), result.getNextUpdate());
+			return CacheEntry.value(result.getStatus(), expiresAt(result));
+		} catch (OCSPValidationException | IOException e) {
+			responderFailure.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			return CacheEntry.failure("OCSP request to " + ocspUrl + " failed: " + e.getMessage(),
+					clock.millis() + failureTtlMillis);
+		}
+	}
+
+	private long expiresAt(OCSPResult result) {
+		long now = clock.millis();
+		long expiresAt = result.getNextUpdate() != null ? result.getNextUpdate().getTime() : now + defaultTtlMillis;
+		return Math.min(expiresAt, now + maxTtlMillis);
+	}
+
+	/**
+	 * Cached value or cached failure, failures are kept for a short time so that an unavailable
+	 * responder is not contacted for every message
+	 */
+	private static class CacheEntry<V> {
+
+		private final V value;
+		private final String failure;
+		private final long expiresAt;
+
+		private CacheEntry(V value, String failure, long expiresAt) {
+			this.value = value;
+			this.failure = failure;
+			this.expiresAt = expiresAt;
+		}
+
+		static <V> CacheEntry<V> value(V value, long expiresAt) {
+			return new CacheEntry<>(value, null, expiresAt);
+		}
+
+		static <V> CacheEntry<V> failure(String failure, long expiresAt) {
+			return new CacheEntry<>(null, failure, expiresAt);
+		}
+
+		boolean isExpired(long now) {
+			return now >= expiresAt;
+		}
+
+		V get() throws OCSPValidationException {
+			if (failure != null) {
+				throw new OCSPValidationException(failure);
+			}
+			return value;
+		}
+	}
+}
@@ -7,13 +7,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Service;
 
+import it.eng.idsa.businesslogic.configuration.HttpClientRegistry;
 import it.eng.idsa.businesslogic.service.SenderClientService;
+import it.eng.idsa.businesslogic.util.StreamingBodies;
 import it.eng.idsa.multipart.domain.MultipartMessage;
 import okhttp3.Headers;
 import okhttp3.MediaType;
 import okhttp3.MultipartBody;
 import okhttp3.MultipartBody.Part;
-import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
@@ -24,7 +25,7 @@ public class OkHttpSenderClientServiceImpl implements SenderClientService {
 	private static final String MEDIA_TYPE_HEADER_JSON_LD = "application/ld+json";
 	
 	@Autowired
-	private OkHttpClient client;
+	private HttpClientRegistry httpClientRegistry;
 	
 	@Override
 	public Response sendMultipartMixRequest(String targetURL, Headers httpHeaders, RequestBody requestBody) throws IOException {
@@ -33,7 +34,7 @@ public class OkHttpSenderClientServiceImpl implements SenderClientService {
 			      .url(targetURL)
 			      .post(requestBody)
 			      .build();
-			 return client.newCall(request).execute();
+			 return httpClientRegistry.clientFor(targetURL).newCall(request).execute();
 	}
 
 	@Override
@@ -43,7 +44,7 @@ public class OkHttpSenderClientServiceImpl implements SenderClientService {
 		      .url(targetURL)
 		      .post(requestBody)
 		      .build();
-		 return client.newCall(request).execute();
+		 return httpClientRegistry.clientFor(targetURL).newCall(request).execute();
 	}
 
 	@Override
@@ -51,7 +52,7 @@ public class OkHttpSenderClientServiceImpl implements SenderClientService {
 			throws IOException {
 		RequestBody body = null;
 		if(StringUtils.isNotBlank(payload)) {
-			body = RequestBody.create(
+			body = StreamingBodies.text(
 					payload,
 					MediaType.parse(payloadContentType != null ? payloadContentType : javax.ws.rs.core.MediaType.TEXT_PLAIN));
 		} else {
@@ -63,19 +64,19 @@ public class OkHttpSenderClientServiceImpl implements SenderClientService {
 			      .url(targetURL)
 			      .post(body);
 		Request request = requestBuilder.build();
-		return client.newCall(request).execute();
+		return httpClientRegistry.clientFor(targetURL).newCall(request).execute();
 	}
 
 	@Override
 	public RequestBody createMultipartMixRequest(MultipartMessage message, String payloadContentType) {
 		Part headerPart = Part.create(
 				Headers.of(HttpHeaders.CONTENT_DISPOSITION, "form-data; name=\"header\""),
-				RequestBody.create(message.getHeaderContentString(), MediaType.parse(MEDIA_TYPE_HEADER_JSON_LD)));
+				StreamingBodies.text(message.getHeaderContentString(), MediaType.parse(MEDIA_TYPE_HEADER_JSON_LD)));
 		
 		Part payloadPart = null;
 		if(message.getPayloadContent() != null) {
 			payloadPart = Part.create(Headers.of(HttpHeaders.CONTENT_DISPOSITION, "form-data; name=\"payload\""),
-			          RequestBody.create(message.getPayloadContent(), MediaType.parse(payloadContentType)));
+			          StreamingBodies.text(message.getPayloadContent(), MediaType.parse(payloadContentType)));
 		}
 		
 		MultipartBody.Builder multipartBodyBuilder = new MultipartBody.Builder()
@@ -91,15 +92,15 @@ public class OkHttpSenderClientServiceImpl implements SenderClientService {
 	public RequestBody createMultipartFormRequest(MultipartMessage message, String payloadContentType) {
 		Part headerPart = Part.create(
 				Headers.of(HttpHeaders.CONTENT_DISPOSITION, "form-data; name=\"header\""),
-				RequestBody.create(message.getHeaderContentString(), MediaType.parse(MEDIA_TYPE_HEADER_JSON_LD)));
+				StreamingBodies.text(message.getHeaderContentString(), MediaType.parse(MEDIA_TYPE_HEADER_JSON_LD)));
 		
 		Part payloadPart = null;
 		if(message.getPayloadContent() != null && message.getPayloadHeader().get(HttpHeaders.CONTENT_DISPOSITION) != null) {
 			payloadPart = Part.create(Headers.of(HttpHeaders.CONTENT_DISPOSITION, message.getPayloadHeader().get(HttpHeaders.CONTENT_DISPOSITION)),
-			          RequestBody.create(message.getPayloadContent(), MediaType.parse(payloadContentType)));
+			          StreamingBodies.text(message.getPayloadContent(), MediaType.parse(payloadContentType)));
 		} else if(message.getPayloadContent() != null){
 			payloadPart = Part.create(Headers.of(HttpHeaders.CONTENT_DISPOSITION, "form-data; name=\"payload\""),
-			          RequestBody.create(message.getPayloadContent(), MediaType.parse(payloadContentType)));
+			          StreamingBodies.text(message.getPayloadContent(), MediaType.parse(payloadContentType)));
 		}
 		
 		MultipartBody.Builder multipartBodyBuilder = new MultipartBody.Builder()
@@ -114,7 +115,7 @@ public class OkHttpSenderClientServiceImpl implements SenderClientService {
 	@Override
 	public Response sendMultipartMixRequestPayload(String targetURL, Headers httpHeaders, String payload) throws IOException {
 		RequestBody body = null;
-		body = RequestBody.create(
+		body = StreamingBodies.text(
 			payload,
 			null);
 	
@@ -123,7 +124,7 @@ public class OkHttpSenderClientServiceImpl implements SenderClientService {
 			      .url(targetURL)
 			      .post(body);
 		Request request = requestBuilder.build();
-		return client.newCall(request).execute();
+		return httpClientRegistry.clientFor(targetURL).newCall(request).execute();
 	}
 
 }
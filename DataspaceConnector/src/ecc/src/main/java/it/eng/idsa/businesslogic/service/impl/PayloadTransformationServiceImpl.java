@@ -0,0 +1,239 @@
+package it.eng.idsa.businesslogic.service.impl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.ExtendedExchange;
+import org.apache.camel.support.SynchronizationAdapter;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.InvalidMimeTypeException;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import it.eng.idsa.businesslogic.service.PayloadTransformationService;
+import it.eng.idsa.businesslogic.util.SpillBuffer;
+import it.eng.idsa.businesslogic.util.StreamingBase64;
+import it.eng.idsa.businesslogic.util.TrueConnectorConstants;
+import it.eng.idsa.multipart.builder.MultipartMessageBuilder;
+import it.eng.idsa.multipart.domain.MultipartMessage;
+import it.eng.idsa.multipart.util.MultipartMessageKey;
+import okio.Buffer;
+import okio.Source;
+import okio.Timeout;
+
+/**
+ * Base64 encoding of payload, done in chunks by {@link StreamingBase64}.<br>
+ * Payloads with content type matching <code>application.encodeDecodePayload.passThroughContentTypes</code> are not
+ * encoded. On decode, encoded content is kept in exchange property {@link TrueConnectorConstants#ENCODED_PAYLOAD} -
+ * in memory up to <code>spoolThresholdBytes</code>, in a temporary file otherwise - and used when the same payload is
+ * encoded again later in the route.
+ */
+@Service
+public class PayloadTransformationServiceImpl implements PayloadTransformationService {
+
+	private static final Logger logger = LoggerFactory.getLogger(PayloadTransformationServiceImpl.class);
+
+	private final List<MimeType> passThroughContentTypes;
+	private final long spoolThresholdBytes;
+	private final Path spoolDirectory;
+
+	@Autowired
+	public PayloadTransformationServiceImpl(
+			@Value("#{'${application.encodeDecodePayload.passThroughContentTypes:}'.split(',')}") List<String> passThroughContentTypes,
+			@Value("${application.encodeDecodePayload.spoolThresholdBytes:1048576}") long spoolThresholdBytes,
+			@Value("${application.multipart.tempDirectory:${java.io.tmpdir}}") String spoolDirectory) {
+		this.passThroughContentTypes = passThroughContentTypes.stream()
+				.filter(StringUtils::isNotBlank)
+				.map(String::trim)
+				.map(MimeTypeUtils::parseMimeType)
+				.collect(Collectors.toList());
+		this.spoolThresholdBytes = spoolThresholdBytes;
+		this.spoolDirectory = Paths.get(spoolDirectory);
+	}
+
+	@Override
+	public MultipartMessage encode(Exchange exchange, MultipartMessage multipartMessage) {
+		EncodedPayload previous = exchange.getProperty(TrueConnectorConstants.ENCODED_PAYLOAD, EncodedPayload.class);
+		if (previous != null) {
+			exchange.removeProperty(TrueConnectorConstants.ENCODED_PAYLOAD);
+		}
+		try {
+			String payload = multipartMessage.getPayloadContent();
+			if (payload == null || isPassThrough(multipartMessage)) {
+				return multipartMessage;
+			}
+			String encoded;
+			if (previous != null && previous.isEncodingOf(payload)) {
+				logger.debug("Payload not changed, using received Base64 content");
+				encoded = previous.read();
+			} else {
+				encoded = StreamingBase64.encode(payload);
+			}
+			return withPayload(multipartMessage, encoded);
+		} finally {
+			if (previous != null) {
+				previous.close();
+			}
+		}
+	}
+
+	@Override
+	public MultipartMessage decode(Exchange exchange, MultipartMessage multipartMessage) {
+		String encoded = multipartMessage.getPayloadContent();
+		if (encoded == null || isPassThrough(multipartMessage)) {
+			return multipartMessage;
+		}
+		String payload = StreamingBase64.decode(encoded);
+		keep(exchange, encoded, payload);
+		return withPayload(multipartMessage, payload);
+	}
+
+	@Override
+	public boolean isPassThrough(MultipartMessage multipartMessage) {
+		if (passThroughContentTypes.isEmpty()) {
+			return false;
+		}
+		String contentType = contentType(multipartMessage);
+		if (StringUtils.isBlank(contentType)) {
+			return false;
+		}
+		try {
+			MimeType mimeType = MimeTypeUtils.parseMimeType(contentType);
+			return passThroughContentTypes.stream().anyMatch(type -> type.includes(mimeType));
+		} catch (InvalidMimeTypeException e) {
+			logger.warn("Invalid payload content type {}", contentType);
+			return false;
+		}
+	}
+
+	private String contentType(MultipartMessage multipartMessage) {
+		Map<String, String> payloadHeader = multipartMessage.getPayloadHeader();
+		if (payloadHeader != null && payloadHeader.get(MultipartMessageKey.CONTENT_TYPE.label) != null) {
+			return payloadHeader.get(MultipartMessageKey.CONTENT_TYPE.label);
+		}
+		Map<String, String> httpHeaders = multipartMessage.getHttpHeaders();
+		return httpHeaders != null ? httpHeaders.get("Payload-Content-Type") : null;
+	}
+
+	private void keep(Exchange exchange, String encoded, String payload) {
+		EncodedPayload previous = exchange.getProperty(TrueConnectorConstants.ENCODED_PAYLOAD, EncodedPayload.class);
+		if (previous != null) {
+			previous.close();
+		}
+		SpillBuffer content;
+		try {
+			content = SpillBuffer.read(new StringSource(encoded), spoolThresholdBytes, spoolDirectory);
+		} catch (IOException e) {
+			logger.warn("Could not keep Base64 payload, it will be encoded again - {}", e.getMessage());
+			exchange.removeProperty(TrueConnectorConstants.ENCODED_PAYLOAD);
+			return;
+		}
+		EncodedPayload encodedPayload = new EncodedPayload(payload, content);
+		exchange.setProperty(TrueConnectorConstants.ENCODED_PAYLOAD, encodedPayload);
+		if (content.isSpilled()) {
+			// file is deleted also when the route ends before payload is encoded again
+			ExtendedExchange extendedExchange = exchange.adapt(ExtendedExchange.class);
+			if (extendedExchange != null) {
+				extendedExchange.addOnCompletion(new SynchronizationAdapter() {
+					@Override
+					public void onDone(Exchange exchange) {
+						encodedPayload.close();
+					}
+				});
+			}
+		}
+	}
+
+	private MultipartMessage withPayload(MultipartMessage multipartMessage, String payload) {
+		return new MultipartMessageBuilder()
+				.withHttpHeader(multipartMessage.getHttpHeaders())
+				.withHeaderHeader(multipartMessage.getHeaderHeader())
+				.withHeaderContent(multipartMessage.getHeaderContent())
+				.withPayloadHeader(multipartMessage.getPayloadHeader())
+				.withPayloadContent(payload)
+				.withToken(multipartMessage.getToken())
+				.build();
+	}
+
+	/**
+	 * Base64 content received in the exchange, together with the payload decoded from it
+	 */
+	static class EncodedPayload {
+
+		private final String payload;
+		private final SpillBuffer content;
+
+		EncodedPayload(String payload, SpillBuffer content) {
+			this.payload = payload;
+			this.content = content;
+		}
+
+		boolean isEncodingOf(String other) {
+			return payload == other || payload.equals(other);
+		}
+
+		boolean isSpooled() {
+			return content.isSpilled();
+		}
+
+		String read() {
+			try {
+				return content.readString(StandardCharsets.US_ASCII);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		void close() {
+			content.close();
+		}
+	}
+
+	/**
+	 * Source over Base64 String; content is ASCII so characters are written as single bytes, in segments
+	 */
+	private static class StringSource implements Source {
+
+		private static final int SEGMENT = 8192;
+
+		private final String text;
+		private int position;
+
+		StringSource(String text) {
+			this.text = text;
+		}
+
+		@Override
+		public long read(Buffer sink, long byteCount) {
+			if (position >= text.length()) {
+				return -1;
+			}
+			int end = (int) Math.min(text.length(), position + Math.min(byteCount, SEGMENT));
+			sink.writeUtf8(text, position, end);
+			long read = end - position;
+			position = end;
+			return read;
+		}
+
+		@Override
+		public Timeout timeout() {
+			return Timeout.NONE;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
@@ -0,0 +1,404 @@
+package it.eng.idsa.businesslogic.service.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import de.fraunhofer.iais.eis.Resource;
+import de.fraunhofer.iais.eis.ids.jsonld.Serializer;
+import it.eng.idsa.businesslogic.audit.TrueConnectorEvent;
+import it.eng.idsa.businesslogic.audit.TrueConnectorEventType;
+import it.eng.idsa.businesslogic.entity.ResourceIngestionJob;
+import it.eng.idsa.businesslogic.entity.ResourceIngestionJob.State;
+import it.eng.idsa.businesslogic.repository.ResourceIngestionJobRepository;
+import it.eng.idsa.businesslogic.service.ResourceIngestionService;
+import it.eng.idsa.businesslogic.service.resources.OfferedResourceService;
+import it.eng.idsa.businesslogic.util.AES256;
+import it.eng.idsa.businesslogic.util.TensorECC;
+
+/**
+ * Runs resource ingestion jobs step by step, each step on its own bounded worker pool
+ * (<code>application.resourceIngestion.*Threads</code>, <code>queueCapacity</code>).<br>
+ * Job state is saved after every step, the suspect profile and its encrypted form are kept in
+ * <code>application.resourceIngestion.directory</code> until the job ends. A sweeper dispatches jobs that are due -
+ * on startup it resumes jobs interrupted by restart from their last completed step, later it picks up jobs waiting
+ * for a retry or for a free worker. Failed step is retried up to <code>maxAttempts</code> times.
+ */
+@Service
+public class ResourceIngestionServiceImpl implements ResourceIngestionService {
+
+	private static final Logger logger = LoggerFactory.getLogger(ResourceIngestionServiceImpl.class);
+
+	private static final Serializer serializer = new Serializer();
+
+	/**
+	 * Step executed for a job in given state
+	 */
+	enum Step {
+		INDEX, ENCRYPT, STORE, REGISTER;
+
+		static Step after(State state) {
+			return values()[state.ordinal()];
+		}
+
+		State completes() {
+			return State.values()[ordinal() + 1];
+		}
+	}
+
+	private final ResourceIngestionJobRepository repository;
+	private final TensorECC tensorECC;
+	private final OfferedResourceService offeredResourceService;
+	private final ApplicationEventPublisher publisher;
+	private final Path directory;
+	private final int maxAttempts;
+	private final long retryDelayMillis;
+	private final long sweepIntervalMillis;
+	private final Map<Step, Executor> workers;
+
+	private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+	private ScheduledExecutorService sweeper;
+
+	@Autowired
+	public ResourceIngestionServiceImpl(ResourceIngestionJobRepository repository, TensorECC tensorECC,
+			OfferedResourceService offeredResourceService, ApplicationEventPublisher publisher,
+			@Value("${application.resourceIngestion.directory:${java.io.tmpdir}/resource-ingestion}") String directory,
+			@Value("${application.resourceIngestion.indexThreads:2}") int indexThreads,
+			@Value("${application.resourceIngestion.encryptThreads:2}") int encryptThreads,
+			@Value("${application.resourceIngestion.storeThreads:2}") int storeThreads,
+			@Value("${application.resourceIngestion.registerThreads:1}") int registerThreads,
+			@Value("${application.resourceIngestion.queueCapacity:100}") int queueCapacity,
+			@Value("${application.resourceIngestion.maxAttempts:3}") int maxAttempts,
+			@Value("${application.resourceIngestion.retryDelayMillis:30000}") long retryDelayMillis,
+			@Value("${application.resourceIngestion.sweepIntervalMillis:5000}") long sweepIntervalMillis) {
+		this(repository, tensorECC, offeredResourceService, publisher, Paths.get(directory), maxAttempts,
+				retryDelayMillis, sweepIntervalMillis,
+				workerPools(Map.of(Step.INDEX, indexThreads, Step.ENCRYPT, encryptThreads, Step.STORE, storeThreads,
+						Step.REGISTER, registerThreads), queueCapacity));
+	}
+
+	ResourceIngestionServiceImpl(ResourceIngestionJobRepository repository, TensorECC tensorECC,
+			OfferedResourceService offeredResourceService, ApplicationEventPublisher publisher, Path directory,
+			int maxAttempts, long retryDelayMillis, long sweepIntervalMillis, Map<Step, Executor> workers) {
+		this.repository = repository;
+		this.tensorECC = tensorECC;
+		this.offeredResourceService = offeredResourceService;
+		this.publisher = publisher;
+		this.directory = directory;
+		this.maxAttempts = Math.max(maxAttempts, 1);
+		this.retryDelayMillis = retryDelayMillis;
+		this.sweepIntervalMillis = sweepIntervalMillis;
+		this.workers = workers;
+	}
+
+	private static Map<Step, Executor> workerPools(Map<Step, Integer> threads, int queueCapacity) {
+		Map<Step, Executor> pools = new EnumMap<>(Step.class);
+		for (Step step : Step.values()) {
+			AtomicInteger count = new AtomicInteger();
+			int size = Math.max(threads.get(step), 1);
+			pools.put(step, new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS,
+					new ArrayBlockingQueue<>(Math.max(queueCapacity, 1)), r -> {
+						Thread t = new Thread(r, "resource-ingestion-" + step.name().toLowerCase() + "-" + count.incrementAndGet());
+						t.setDaemon(true);
+						return t;
+					}));
+		}
+		return pools;
+	}
+
+	@PostConstruct
+	public void start() {
+		sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "resource-ingestion-sweeper");
+			t.setDaemon(true);
+			return t;
+		});
+		sweeper.scheduleWithFixedDelay(this::resume, 0, sweepIntervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	public void stop() {
+		if (sweeper != null) {
+			sweeper.shutdownNow();
+		}
+		// interrupted steps are executed again after restart
+		for (Executor worker : workers.values()) {
+			if (worker instanceof ExecutorService) {
+				((ExecutorService) worker).shutdownNow();
+			}
+		}
+	}
+
+	@Override
+	public ResourceIngestionJob submit(String jobId, URI catalog, Resource resource, MultipartFile suspectProfileZip,
+			String user, boolean sensitive, String solidToken, String principal) throws IOException {
+		Files.createDirectories(directory);
+		try (InputStream profile = suspectProfileZip.getInputStream()) {
+			Files.copy(profile, profileFile(jobId), StandardCopyOption.REPLACE_EXISTING);
+		}
+		String resourceId = resource.getId().toString();
+		String suspectProfileId = resourceId.substring(resourceId.lastIndexOf("/") + 1);
+		ResourceIngestionJob job = new ResourceIngestionJob(jobId, catalog.toString(), resourceId,
+				serializer.serialize(resource), suspectProfileId, user, principal, sensitive,
+				solidToken != null ? AES256.encrypt(solidToken) : null, System.currentTimeMillis());
+		try {
+			repository.save(job);
+		} catch (RuntimeException e) {
+			deleteFiles(jobId);
+			throw e;
+		}
+		logger.info("Resource ingestion job {} created for offered resource '{}'", jobId, resourceId);
+		dispatch(job);
+		return job;
+	}
+
+	@Override
+	public Optional<ResourceIngestionJob> getJob(String jobId) {
+		return repository.findById(jobId);
+	}
+
+	@Override
+	public List<ResourceIngestionJob> getActiveJobs() {
+		return repository.findByFailedFalseAndStateNotOrderByCreatedAtAsc(State.REGISTERED);
+	}
+
+	/**
+	 * Dispatches active jobs that are due and not already queued or running
+	 */
+	public void resume() {
+		try {
+			long now = System.currentTimeMillis();
+			for (ResourceIngestionJob job : getActiveJobs()) {
+				if (job.getNextAttemptAt() <= now) {
+					dispatch(job);
+				}
+			}
+		} catch (RuntimeException e) {
+			logger.error("Error while resuming resource ingestion jobs", e);
+		}
+	}
+
+	private void dispatch(ResourceIngestionJob job) {
+		if (!inFlight.add(job.getId())) {
+			return;
+		}
+		Step step = Step.after(job.getState());
+		try {
+			workers.get(step).execute(() -> run(step, job.getId()));
+		} catch (RejectedExecutionException e) {
+			inFlight.remove(job.getId());
+			logger.info("Workers for step {} are busy, job {} waits for next sweep", step, job.getId());
+		}
+	}
+
+	private void run(Step step, String jobId) {
+		ResourceIngestionJob job = null;
+		boolean completed = false;
+		try {
+			job = repository.findById(jobId).orElse(null);
+			if (job == null || !job.isActive() || Step.after(job.getState()) != step) {
+				return;
+			}
+			logger.info("Resource ingestion job {}, executing step {}", jobId, step);
+			execute(step, job);
+			job.setState(step.completes());
+			job.setAttempts(0);
+			job.setLastError(null);
+			job.setUpdatedAt(System.currentTimeMillis());
+			repository.save(job);
+			completed = true;
+		} catch (Exception e) {
+			if (job != null) {
+				onFailure(step, job, e);
+			} else {
+				logger.error("Could not load resource ingestion job {}", jobId, e);
+			}
+		} finally {
+			inFlight.remove(jobId);
+		}
+		if (completed) {
+			if (job.getState().isCompleted()) {
+				deleteFiles(jobId);
+				logger.info("Resource ingestion job {} completed", jobId);
+				publish(job, TrueConnectorEventType.OFFERED_RESOURCE_CREATED);
+			} else {
+				dispatch(job);
+			}
+		}
+	}
+
+	private void execute(Step step, ResourceIngestionJob job) throws IOException {
+		switch (step) {
+		case INDEX:
+			if (!Boolean.TRUE.equals(tensorECC.indexBiometricSamples(new StoredSuspectProfile(profileFile(job.getId())),
+					job.getSuspectProfileId(), job.getOwner(), job.isSensitive(), solidToken(job)))) {
+				throw new IOException("Indexing of biometric data has failed.");
+			}
+			break;
+		case ENCRYPT:
+			byte[] encrypted = tensorECC.queryEncryptor("face", new StoredSuspectProfile(profileFile(job.getId())),
+					job.getSuspectProfileId() + ".zip", job.getOwner());
+			if (encrypted == null) {
+				throw new IOException("Encryption of suspect profile has failed.");
+			}
+			Files.write(encryptedFile(job.getId()), encrypted);
+			break;
+		case STORE:
+			if (!Boolean.TRUE.equals(tensorECC.storeSuspectProfile(solidToken(job), job.getOwner(),
+					job.getSuspectProfileId(), Files.readAllBytes(encryptedFile(job.getId()))))) {
+				throw new IOException("Storing of suspect profile has failed.");
+			}
+			// token is not needed after the profile is stored
+			job.setSolidToken(null);
+			break;
+		case REGISTER:
+			Resource resource = serializer.deserialize(job.getResource(), Resource.class);
+			offeredResourceService.addOfferedResource(URI.create(job.getCatalog()), resource);
+			break;
+		}
+	}
+
+	private void onFailure(Step step, ResourceIngestionJob job, Exception e) {
+		long now = System.currentTimeMillis();
+		job.setAttempts(job.getAttempts() + 1);
+		job.setLastError(StringUtils.abbreviate(step + ": " + e.getMessage(), 1024));
+		job.setUpdatedAt(now);
+		boolean failed = job.getAttempts() >= maxAttempts;
+		if (failed) {
+			logger.error("Resource ingestion job {} failed at step {} after {} attempts", job.getId(), step,
+					job.getAttempts(), e);
+			job.setFailed(true);
+			job.setSolidToken(null);
+		} else {
+			job.setNextAttemptAt(now + retryDelayMillis * job.getAttempts());
+			logger.warn("Resource ingestion job {} step {} failed, attempt {}, retrying in {} ms: {}", job.getId(),
+					step, job.getAttempts(), job.getNextAttemptAt() - now, e.getMessage());
+		}
+		try {
+			repository.save(job);
+		} catch (RuntimeException ex) {
+			logger.error("Could not save resource ingestion job {}", job.getId(), ex);
+		}
+		if (failed) {
+			deleteFiles(job.getId());
+			publish(job, TrueConnectorEventType.OFFERED_RESOURCE_CREATION_FAILED);
+		}
+	}
+
+	private void publish(ResourceIngestionJob job, TrueConnectorEventType type) {
+		Map<String, Object> details = new HashMap<>();
+		details.put("correlationId", job.getId());
+		details.put("resourceId", job.getResourceId());
+		publisher.publishEvent(new TrueConnectorEvent(job.getPrincipal(), type, details));
+	}
+
+	private String solidToken(ResourceIngestionJob job) {
+		return job.getSolidToken() != null ? AES256.decrypt(job.getSolidToken()) : null;
+	}
+
+	private Path profileFile(String jobId) {
+		return directory.resolve(jobId + ".zip");
+	}
+
+	private Path encryptedFile(String jobId) {
+		return directory.resolve(jobId + ".zip.enc");
+	}
+
+	private void deleteFiles(String jobId) {
+		try {
+			Files.deleteIfExists(profileFile(jobId));
+			Files.deleteIfExists(encryptedFile(jobId));
+		} catch (IOException e) {
+			logger.warn("Could not delete files of resource ingestion job {}: {}", jobId, e.getMessage());
+		}
+	}
+
+	/**
+	 * Suspect profile stored for the job, passed to {@link TensorECC} the same way as the uploaded file
+	 */
+	static class StoredSuspectProfile implements MultipartFile {
+
+		private final Path file;
+
+		StoredSuspectProfile(Path file) {
+			this.file = file;
+		}
+
+		@Override
+		public String getName() {
+			return "suspectProfileZip";
+		}
+
+		@Override
+		public String getOriginalFilename() {
+			return file.getFileName().toString();
+		}
+
+		@Override
+		public String getContentType() {
+			return "application/zip";
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return getSize() == 0;
+		}
+
+		@Override
+		public long getSize() {
+			try {
+				return Files.size(file);
+			} catch (IOException e) {
+				return 0;
+			}
+		}
+
+		@Override
+		public byte[] getBytes() throws IOException {
+			return Files.readAllBytes(file);
+		}
+
+		@Override
+		public InputStream getInputStream() throws IOException {
+			return Files.newInputStream(file);
+		}
+
+		@Override
+		public void transferTo(File dest) throws IOException {
+			Files.copy(file, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+}
@@ -2,6 +2,7 @@ package it.eng.idsa.businesslogic.service.impl;
 
 import java.io.IOException;
 import java.net.URI;
+import java.security.SecureRandom;
 import java.security.cert.CertificateEncodingException;
 import java.util.ArrayList;
 import java.util.List;
@@ -54,7 +55,6 @@ import it.eng.idsa.businesslogic.service.SelfDescriptionService;
 import it.eng.idsa.businesslogic.service.resources.SelfDescription;
 import it.eng.idsa.businesslogic.service.resources.SelfDescriptionManager;
 import it.eng.idsa.businesslogic.util.BigPayload;
-import it.eng.idsa.multipart.processor.MultipartMessageProcessor;
 import it.eng.idsa.multipart.util.DateUtil;
 import it.eng.idsa.multipart.util.UtilMessageService;
 
@@ -67,6 +67,9 @@ public class SelfDescriptionServiceImpl implements SelfDescriptionService {
 	
 	private static final Logger logger = LoggerFactory.getLogger(SelfDescriptionServiceImpl.class);
 	
+	// versions start from 1 on every startup, tags from a previous run must not match
+	private static final String ETAG_PREFIX = Long.toHexString(new SecureRandom().nextLong());
+	
 	private Optional<DapsTokenProviderService> dapsProvider;
 	private SelfDescriptionConfiguration selfDescriptionConfiguration;
 	private Connector connector;
@@ -146,21 +149,29 @@ public class SelfDescriptionServiceImpl implements SelfDescriptionService {
 	}
 
 	public Connector getConnector() {
-		logger.debug("Parsing whole self description document to remove non valid resources");
-		String stringConnector = UtilMessageService.getMessageAsString(SelfDescription.getInstance().getConnector());
+		String validConnector = getConnectorSelfDescription();
+		if (validConnector == null) {
+			return null;
+		}
 		try {
-			return selfDescriptionManager.getValidConnector(new Serializer().deserialize(stringConnector, Connector.class));
+			return new Serializer().deserialize(validConnector, Connector.class);
 		} catch (IOException e) {
 			logger.error("Error while deserializing connector", e);
 			return null;
 		}
 	}
 
+	/**
+	 * Valid self description document, computed once per version of the document.
+	 */
 	@Override
 	public String getConnectorSelfDescription() {
 		String result = null;
 		try {
-			result = MultipartMessageProcessor.serializeToJsonLD(getConnector());
+			result = SelfDescription.getInstance().getSnapshot().getValidJsonLd(connector -> {
+				logger.debug("Parsing whole self description document to remove non valid resources");
+				return selfDescriptionManager.getValidConnector(connector);
+			});
 		} catch (IOException e) {
 			logger.error("Error while serializing", e);
 		}
@@ -168,6 +179,11 @@ public class SelfDescriptionServiceImpl implements SelfDescriptionService {
 	}
 
 
+	@Override
+	public String getConnectorSelfDescriptionETag() {
+		return "\"" + ETAG_PREFIX + "-" + SelfDescription.getInstance().getSnapshot().getVersion() + "\"";
+	}
+
 	private java.util.List<ResourceCatalog> getCatalog() {
 		URI defaultTarget = URI.create("http://w3id.org/engrd/connector/artifact/1");
 		URI bigResource = URI.create("http://w3id.org/engrd/connector/artifact/big");
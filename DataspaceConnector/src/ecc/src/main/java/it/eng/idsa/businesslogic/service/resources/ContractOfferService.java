@@ -30,29 +30,17 @@ public class ContractOfferService {
 	
 	public Connector addContractOfferToResource(ContractOffer contractOffer, URI resourceId)
 			throws JsonSyntaxException, IOException {
-		Connector connector = sdManager.addContractOfferToResource(SelfDescription.getInstance().getConnector(),
-				contractOffer, resourceId);
-		SelfDescription.getInstance().setBaseConnector(connector);
-		sdManager.saveConnector();
-		return connector;
+		return sdManager.applyChange(SelfDescriptionChange.addContractOffer(resourceId, contractOffer));
 	}
 	
 	public Connector updateContractOfferToResource(ContractOffer contractOffer, URI resourceId)
 			throws JsonSyntaxException, IOException {
-		Connector connector = sdManager.updateContractOfferToResource(SelfDescription.getInstance().getConnector(),
-				contractOffer, resourceId);
-		SelfDescription.getInstance().setBaseConnector(connector);
-		sdManager.saveConnector();
-		return connector;
+		return sdManager.applyChange(SelfDescriptionChange.updateContractOffer(resourceId, contractOffer));
 	}
 
 	public Connector deleteContractOfferService(URI contractOffer) 
 			throws JsonSyntaxException, IOException {
 		
-		Connector connector =  sdManager.removeContractOfferFromResource(SelfDescription.getInstance().getConnector(), 
-				contractOffer);
-		SelfDescription.getInstance().setBaseConnector(connector);
-		sdManager.saveConnector();
-		return connector;
+		return sdManager.applyChange(SelfDescriptionChange.deleteContractOffer(contractOffer));
 	}
 }
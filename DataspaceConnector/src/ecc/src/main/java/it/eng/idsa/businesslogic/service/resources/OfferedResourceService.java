@@ -27,28 +27,16 @@ public class OfferedResourceService {
 
 	public Connector addOfferedResource(URI resourceCatalogId, Resource resource) {
 		logger.debug("Adding resource '{}' to catalog '{}'", resource.getId(), resourceCatalogId);
-		Connector connector = sdManager.addOfferedResource(SelfDescription.getInstance().getConnector(), resourceCatalogId,
-				resource);
-		SelfDescription.getInstance().setBaseConnector(connector);
-		sdManager.saveConnector();
-		return connector;
+		return sdManager.applyChange(SelfDescriptionChange.addOfferedResource(resourceCatalogId, resource));
 	}
 	
 	public Connector updateOfferedResource(URI resourceCatalogId, Resource resource) {
 		logger.debug("Updating resource '{}' for catalog '{}'", resource.getId(), resourceCatalogId);
-		Connector connector = sdManager.updateOfferedResource(SelfDescription.getInstance().getConnector(), resourceCatalogId,
-				resource);
-		SelfDescription.getInstance().setBaseConnector(connector);
-		sdManager.saveConnector();
-		return connector;
+		return sdManager.applyChange(SelfDescriptionChange.updateOfferedResource(resourceCatalogId, resource));
 	}
 	
 	public Connector deleteOfferedResource(URI resourceId) {
 		logger.debug("Deleting resource '{}'", resourceId);
-		Connector connector = sdManager.deleteOfferedResource(SelfDescription.getInstance().getConnector(), 
-				resourceId);
-		SelfDescription.getInstance().setBaseConnector(connector);
-		sdManager.saveConnector();
-		return connector;
+		return sdManager.applyChange(SelfDescriptionChange.deleteOfferedResource(resourceId));
 	}
 }
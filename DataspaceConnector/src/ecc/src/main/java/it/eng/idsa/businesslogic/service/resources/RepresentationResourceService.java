@@ -30,29 +30,17 @@ public class RepresentationResourceService {
 	
 	public Connector addRepresentationToResource(Representation representation, URI resourceId)
 			throws JsonSyntaxException, IOException {
-		Connector connector = sdManager.addRepresentationToResource(SelfDescription.getInstance().getConnector(),
-				representation, resourceId);
-		SelfDescription.getInstance().setBaseConnector(connector);
-		sdManager.saveConnector();
-		return connector;
+		return sdManager.applyChange(SelfDescriptionChange.addRepresentation(resourceId, representation));
 	}
 	
 	public Connector updateRepresentationToResource(Representation representation, URI resourceId)
 			throws JsonSyntaxException, IOException {
-		Connector connector = sdManager.updateRepresentationToResource(SelfDescription.getInstance().getConnector(),
-				representation, resourceId);
-		SelfDescription.getInstance().setBaseConnector(connector);
-		sdManager.saveConnector();
-		return connector;
+		return sdManager.applyChange(SelfDescriptionChange.updateRepresentation(resourceId, representation));
 	}
 
 	public Connector deleteRepresentation(URI representation) 
 			throws JsonSyntaxException, IOException {
-		Connector connector = sdManager.removeRepresentationFromResource(SelfDescription.getInstance().getConnector(), 
-				representation);
-		SelfDescription.getInstance().setBaseConnector(connector);
-		sdManager.saveConnector();
-		return connector;
+		return sdManager.applyChange(SelfDescriptionChange.deleteRepresentation(representation));
 	}
 	
 
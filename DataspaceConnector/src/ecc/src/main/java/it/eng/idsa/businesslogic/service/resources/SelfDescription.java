@@ -4,7 +4,7 @@ import de.fraunhofer.iais.eis.Connector;
 
 public class SelfDescription {
 	
-	private Connector connector = null;
+	private volatile SelfDescriptionSnapshot snapshot = new SelfDescriptionSnapshot(null, 0);
 	
 	private SelfDescription() {        
     }
@@ -17,11 +17,21 @@ public class SelfDescription {
         return SingletonHelper.INSTANCE;
     }
 
-	public void setBaseConnector(Connector connector) {
-		this.connector = connector;
+	/**
+	 * Publishes connector as new version of the self description document.<br>
+	 * Connector must not be modified afterwards.
+	 *
+	 * @param connector new self description document
+	 */
+	public synchronized void setBaseConnector(Connector connector) {
+		this.snapshot = new SelfDescriptionSnapshot(connector, snapshot.getVersion() + 1);
 	}
     
 	public Connector getConnector() {
-		return connector;
+		return snapshot.getConnector();
+	}
+
+	public SelfDescriptionSnapshot getSnapshot() {
+		return snapshot;
 	}
 }
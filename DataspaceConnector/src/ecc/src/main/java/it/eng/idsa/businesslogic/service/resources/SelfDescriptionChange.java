@@ -0,0 +1,139 @@
+package it.eng.idsa.businesslogic.service.resources;
+
+import java.net.URI;
+
+import de.fraunhofer.iais.eis.Connector;
+import de.fraunhofer.iais.eis.ContractOffer;
+import de.fraunhofer.iais.eis.Representation;
+import de.fraunhofer.iais.eis.Resource;
+
+/**
+ * Single modification of the self description document.<br>
+ * Changes are applied with {@link SelfDescriptionManager} and recorded in the {@link SelfDescriptionJournal},
+ * so that the document can be rebuilt by replaying them over the last persisted version.
+ */
+public class SelfDescriptionChange {
+
+	public enum Operation {
+		ADD_RESOURCE(Resource.class),
+		UPDATE_RESOURCE(Resource.class),
+		DELETE_RESOURCE(null),
+		ADD_REPRESENTATION(Representation.class),
+		UPDATE_REPRESENTATION(Representation.class),
+		DELETE_REPRESENTATION(null),
+		ADD_CONTRACT_OFFER(ContractOffer.class),
+		UPDATE_CONTRACT_OFFER(ContractOffer.class),
+		DELETE_CONTRACT_OFFER(null);
+
+		private final Class<?> elementType;
+
+		Operation(Class<?> elementType) {
+			this.elementType = elementType;
+		}
+
+		public Class<?> getElementType() {
+			return elementType;
+		}
+	}
+
+	private final Operation operation;
+	private final URI target;
+	private final Object element;
+
+	/**
+	 * @param operation type of the change
+	 * @param target    resource catalog id for resources, resource id for representations and contract offers,
+	 *                  id of the element itself for deletes
+	 * @param element   added or updated element, null for deletes
+	 */
+	public SelfDescriptionChange(Operation operation, URI target, Object element) {
+		this.operation = operation;
+		this.target = target;
+		this.element = element;
+	}
+
+	public static SelfDescriptionChange addOfferedResource(URI resourceCatalogId, Resource resource) {
+		return new SelfDescriptionChange(Operation.ADD_RESOURCE, resourceCatalogId, resource);
+	}
+
+	public static SelfDescriptionChange updateOfferedResource(URI resourceCatalogId, Resource resource) {
+		return new SelfDescriptionChange(Operation.UPDATE_RESOURCE, resourceCatalogId, resource);
+	}
+
+	public static SelfDescriptionChange deleteOfferedResource(URI resourceId) {
+		return new SelfDescriptionChange(Operation.DELETE_RESOURCE, resourceId, null);
+	}
+
+	public static SelfDescriptionChange addRepresentation(URI resourceId, Representation representation) {
+		return new SelfDescriptionChange(Operation.ADD_REPRESENTATION, resourceId, representation);
+	}
+
+	public static SelfDescriptionChange updateRepresentation(URI resourceId, Representation representation) {
+		return new SelfDescriptionChange(Operation.UPDATE_REPRESENTATION, resourceId, representation);
+	}
+
+	public static SelfDescriptionChange deleteRepresentation(URI representationId) {
+		return new SelfDescriptionChange(Operation.DELETE_REPRESENTATION, representationId, null);
+	}
+
+	public static SelfDescriptionChange addContractOffer(URI resourceId, ContractOffer contractOffer) {
+		return new SelfDescriptionChange(Operation.ADD_CONTRACT_OFFER, resourceId, contractOffer);
+	}
+
+	public static SelfDescriptionChange updateContractOffer(URI resourceId, ContractOffer contractOffer) {
+		return new SelfDescriptionChange(Operation.UPDATE_CONTRACT_OFFER, resourceId, contractOffer);
+	}
+
+	public static SelfDescriptionChange deleteContractOffer(URI contractOfferId) {
+		return new SelfDescriptionChange(Operation.DELETE_CONTRACT_OFFER, contractOfferId, null);
+	}
+
+	/**
+	 * Applies change to connector.
+	 *
+	 * @param manager   manager performing the modification
+	 * @param connector connector to modify
+	 * @return modified connector
+	 */
+	Connector apply(SelfDescriptionManager manager, Connector connector) {
+		switch (operation) {
+		case ADD_RESOURCE:
+			return manager.addOfferedResource(connector, target, (Resource) element);
+		case UPDATE_RESOURCE:
+			return manager.updateOfferedResource(connector, target, (Resource) element);
+		case DELETE_RESOURCE:
+			return manager.deleteOfferedResource(connector, target);
+		case ADD_REPRESENTATION:
+			return manager.addRepresentationToResource(connector, (Representation) element, target);
+		case UPDATE_REPRESENTATION:
+			return manager.updateRepresentationToResource(connector, (Representation) element, target);
+		case DELETE_REPRESENTATION:
+			return manager.removeRepresentationFromResource(connector, target);
+		case ADD_CONTRACT_OFFER:
+			return manager.addContractOfferToResource(connector, (ContractOffer) element, target);
+		case UPDATE_CONTRACT_OFFER:
+			return manager.updateContractOfferToResource(connector, (ContractOffer) element, target);
+		case DELETE_CONTRACT_OFFER:
+			return manager.removeContractOfferFromResource(connector, target);
+		default:
+			throw new IllegalStateException("Unsupported self description change " + operation);
+		}
+	}
+
+	public Operation getOperation() {
+		return operation;
+	}
+
+	public URI getTarget() {
+		return target;
+	}
+
+	public Object getElement() {
+		return element;
+	}
+
+	@Override
+	public String toString() {
+		return operation + " " + target;
+	}
+}
@@ -0,0 +1,132 @@
+package it.eng.idsa.businesslogic.service.resources;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.fraunhofer.iais.eis.ids.jsonld.Serializer;
+import it.eng.idsa.multipart.processor.MultipartMessageProcessor;
+
+/**
+ * Append-only log of self description changes, stored next to the self description document.<br>
+ * Every change is appended as one JSON line instead of rewriting the whole document. Compaction writes the
+ * current document (to a temporary file, then moved over the old one) and truncates the journal.
+ */
+public class SelfDescriptionJournal {
+
+	private static final Logger logger = LoggerFactory.getLogger(SelfDescriptionJournal.class);
+
+	public static final String JOURNAL_SUFFIX = ".journal";
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+	private static final String OPERATION = "operation";
+	private static final String TARGET = "target";
+	private static final String ELEMENT = "element";
+
+	private final Path documentFile;
+	private final Path journalFile;
+	private int entries;
+
+	public SelfDescriptionJournal(Path documentFile) {
+		this.documentFile = documentFile;
+		this.journalFile = documentFile.resolveSibling(documentFile.getFileName() + JOURNAL_SUFFIX);
+	}
+
+	/**
+	 * Appends change to the journal, the write is synced to disk before returning.
+	 *
+	 * @param change applied change
+	 * @throws IOException if change cannot be written
+	 */
+	public synchronized void append(SelfDescriptionChange change) throws IOException {
+		Map<String, String> entry = new LinkedHashMap<>();
+		entry.put(OPERATION, change.getOperation().name());
+		entry.put(TARGET, change.getTarget().toString());
+		if (change.getElement() != null) {
+			entry.put(ELEMENT, MultipartMessageProcessor.serializeToJsonLD(change.getElement()));
+		}
+		byte[] line = (MAPPER.writeValueAsString(entry) + "\n").getBytes(StandardCharsets.UTF_8);
+		Files.write(journalFile, line, StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.DSYNC);
+		entries++;
+	}
+
+	/**
+	 * Reads changes recorded since the last compaction.<br>
+	 * Incomplete last line (interrupted write) is ignored.
+	 *
+	 * @return changes in the order they were applied
+	 * @throws IOException if journal exists but cannot be read
+	 */
+	public synchronized List<SelfDescriptionChange> read() throws IOException {
+		List<SelfDescriptionChange> changes = new ArrayList<>();
+		if (!Files.exists(journalFile)) {
+			entries = 0;
+			return changes;
+		}
+		Serializer serializer = new Serializer();
+		try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.isBlank()) {
+					continue;
+				}
+				Map<String, String> entry;
+				try {
+					entry = MAPPER.readValue(line, new TypeReference<Map<String, String>>() {});
+				} catch (IOException e) {
+					logger.warn("Ignoring incomplete self description journal entry: {}", e.getMessage());
+					break;
+				}
+				SelfDescriptionChange.Operation operation = SelfDescriptionChange.Operation.valueOf(entry.get(OPERATION));
+				Object element = entry.get(ELEMENT) != null
+						? serializer.deserialize(entry.get(ELEMENT), operation.getElementType())
+						: null;
+				changes.add(new SelfDescriptionChange(operation, URI.create(entry.get(TARGET)), element));
+			}
+		}
+		entries = changes.size();
+		return changes;
+	}
+
+	/**
+	 * Replaces the persisted document and truncates the journal.
+	 *
+	 * @param document whole self description document
+	 * @throws IOException if document cannot be written
+	 */
+	public synchronized void compact(String document) throws IOException {
+		Path tempFile = documentFile.resolveSibling(documentFile.getFileName() + ".tmp");
+		Files.write(tempFile, document.getBytes(StandardCharsets.UTF_8));
+		try {
+			Files.move(tempFile, documentFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(tempFile, documentFile, StandardCopyOption.REPLACE_EXISTING);
+		}
+		Files.deleteIfExists(journalFile);
+		logger.debug("Self description document compacted, {} journal entries merged", entries);
+		entries = 0;
+	}
+
+	/**
+	 * @return number of changes in the journal
+	 */
+	public synchronized int size() {
+		return entries;
+	}
+}
@@ -1,22 +1,26 @@
 package it.eng.idsa.businesslogic.service.resources;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.ListIterator;
-import java.util.Optional;
 import java.util.function.Predicate;
 
+import javax.annotation.PreDestroy;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import de.fraunhofer.iais.eis.Artifact;
 import de.fraunhofer.iais.eis.BaseConnectorImpl;
 import de.fraunhofer.iais.eis.Connector;
 import de.fraunhofer.iais.eis.ContractOffer;
@@ -45,6 +49,62 @@ public class SelfDescriptionManager {
   @Autowired
   private ShutdownConnector shutdownConnector;
 
+  /**
+   * Number of journal entries after which the whole document is persisted again
+   */
+  @Value("${application.selfdescription.journal.compactionThreshold:100}")
+  private int compactionThreshold;
+
+  private final Object writeLock = new Object();
+
+  private SelfDescriptionJournal journal;
+
+  /**
+   * Applies change to a copy of the current self description document, appends the change to the journal and
+   * publishes the result.<br>
+   * Changes are applied one at a time; readers keep using the previous version until the new one is published. A
+   * change that can not be persisted is not published.
+   * 
+   * @param change change to apply
+   * @return new connector instance
+   * @throws JsonException if the change can not be persisted
+   */
+  public Connector applyChange(SelfDescriptionChange change) {
+    synchronized (writeLock) {
+      Connector connector;
+      try {
+        connector = SelfDescription.getInstance().getSnapshot().copyConnector();
+      } catch (IOException e) {
+        throw new JsonException("Error while copying self description document", e);
+      }
+      connector = change.apply(this, connector);
+      persist(change, connector);
+      SelfDescription.getInstance().setBaseConnector(connector);
+      logger.debug("Applied change {}", change);
+      if (journal().size() >= compactionThreshold) {
+        saveConnector();
+      }
+      return connector;
+    }
+  }
+
+  /**
+   * Appends change to the journal, if that fails persists the whole new document instead
+   */
+  private void persist(SelfDescriptionChange change, Connector connector) {
+    try {
+      journal().append(change);
+      return;
+    } catch (IOException e) {
+      logger.error("Error while appending change to self description journal, persisting whole document", e);
+    }
+    try {
+      journal().compact(MultipartMessageProcessor.serializeToJsonLD(connector));
+    } catch (IOException e) {
+      throw new JsonException("Error while persisting self description document", e);
+    }
+  }
+
   /**
    * Offered Resource
    */
@@ -132,15 +192,18 @@ public class SelfDescriptionManager {
    * @return Offered Resource
    */
   public Resource getOfferedResource(Connector connector, URI resourceId) {
-
-    Optional<Resource> resource = Optional.ofNullable(connector.getResourceCatalog().stream()
-        .flatMap(rc -> rc.getOfferedResource().stream())
-        .filter(or -> or.getId().equals(resourceId))
-        .findFirst()
-        .orElse(null));
-
-    if (resource.isPresent()) {
-      return resource.get();
+    SelfDescriptionSnapshot snapshot = SelfDescription.getInstance().getSnapshot();
+    // published document is indexed, other connector instances are searched
+    Resource resource = snapshot.getConnector() == connector
+        ? snapshot.getResource(resourceId)
+        : connector.getResourceCatalog().stream()
+            .flatMap(rc -> rc.getOfferedResource().stream())
+            .filter(or -> or.getId().equals(resourceId))
+            .findFirst()
+            .orElse(null);
+
+    if (resource != null) {
+      return resource;
     }
     throw new ResourceNotFoundException("Resource with id '" + resourceId + "' not found");
   }
@@ -170,14 +233,17 @@ public class SelfDescriptionManager {
    * @return Representation
    */
   public Representation getRepresentation(Connector connector, URI representationId) {
-    Optional<Representation> representation = Optional.ofNullable(connector.getResourceCatalog().stream()
-        .flatMap(rc -> rc.getOfferedResource().stream())
-        .flatMap(or -> or.getRepresentation().stream())
-        .filter(r -> r.getId().equals(representationId))
-        .findFirst()
-        .orElse(null));
-    if (representation.isPresent()) {
-      return representation.get();
+    SelfDescriptionSnapshot snapshot = SelfDescription.getInstance().getSnapshot();
+    Representation representation = snapshot.getConnector() == connector
+        ? snapshot.getRepresentation(representationId)
+        : connector.getResourceCatalog().stream()
+            .flatMap(rc -> rc.getOfferedResource().stream())
+            .flatMap(or -> or.getRepresentation().stream())
+            .filter(r -> r.getId().equals(representationId))
+            .findFirst()
+            .orElse(null);
+    if (representation != null) {
+      return representation;
     }
     throw new ResourceNotFoundException(String.format("Did not find representation with id '%s'", representationId));
   }
@@ -262,21 +328,32 @@ public class SelfDescriptionManager {
    * @return Contract Offer
    */
   public ContractOffer getContractOffer(URI contractOfferId) {
-    BaseConnectorImpl connector = (BaseConnectorImpl) SelfDescription.getInstance().getConnector();
-
-    for (ResourceCatalog resourceCatalog : connector.getResourceCatalog()) {
-      for (Resource resource : resourceCatalog.getOfferedResource()) {
-        for (ContractOffer co : resource.getContractOffer()) {
-          if (co.getId().equals(contractOfferId)) {
-            logger.debug("Found contract offer with id '{}'", contractOfferId);
-            return co;
-          }
-        }
-      }
+    ContractOffer co = SelfDescription.getInstance().getSnapshot().getContractOffer(contractOfferId);
+    if (co != null) {
+      logger.debug("Found contract offer with id '{}'", contractOfferId);
+      return co;
     }
     throw new ResourceNotFoundException(String.format("Did not find contract offer with id '%s'", contractOfferId));
   }
 
+  /**
+   * Artifact
+   */
+
+  /**
+   * Get Artifact with Id from the current self description document
+   * 
+   * @param artifactId id of the Artifact
+   * @return Artifact
+   */
+  public Artifact getArtifact(URI artifactId) {
+    Artifact artifact = SelfDescription.getInstance().getSnapshot().getArtifact(artifactId);
+    if (artifact != null) {
+      return artifact;
+    }
+    throw new ResourceNotFoundException(String.format("Did not find artifact with id '%s'", artifactId));
+  }
+
   /**
    * Add or update contract offer to resource
    * 
@@ -386,25 +463,30 @@ public class SelfDescriptionManager {
     return connector;
   }
 
+  /**
+   * Persists the whole current document and truncates the journal
+   */
   public void saveConnector() {
     logger.info("Persisting connector to file storage");
-    try {
-      String connectorAsString = MultipartMessageProcessor
-          .serializeToJsonLD(SelfDescription.getInstance().getConnector());
-      FileOutputStream fos = null;
+    synchronized (writeLock) {
       try {
-        fos = new FileOutputStream(
-            selfDescriptionConfiguration.getFileLocation()
-                + File.separator
-                + SelfDescriptionConfiguration.SELF_DESCRIPTION_FILE_NAME);
-        fos.write(connectorAsString.getBytes());
-      } finally {
-        if (fos != null) {
-          fos.close();
-        }
+        journal().compact(SelfDescription.getInstance().getSnapshot().getJsonLd());
+      } catch (IOException e) {
+        logger.error("Error while trying to save connector to filesystem", e);
+      }
+    }
+  }
+
+  /**
+   * Periodic compaction, so that the journal does not grow while the connector is idle
+   */
+  @Scheduled(fixedDelayString = "${application.selfdescription.journal.compactionIntervalMillis:600000}")
+  @PreDestroy
+  public void compactJournal() {
+    synchronized (writeLock) {
+      if (journal().size() > 0) {
+        saveConnector();
       }
-    } catch (IOException e) {
-      logger.error("Error while trying to save connector to filesystem", e);
     }
   }
 
@@ -422,8 +504,13 @@ public class SelfDescriptionManager {
         content = Files.readString(selfDescriptionFile.toPath(), StandardCharsets.UTF_8);
         logger.debug("Deserializing from file...");
         connector = new Serializer().deserialize(content, Connector.class);
+        List<SelfDescriptionChange> changes = journal().read();
+        connector = replay(connector, changes);
         logger.debug("Setting loaded connector...");
         SelfDescription.getInstance().setBaseConnector(connector);
+        if (!changes.isEmpty()) {
+          saveConnector();
+        }
         logger.debug("Done with loading connector from file.");
       } catch (IOException e) {
         logger.error("Error while loading connector from file '{}', reason {}",
@@ -436,4 +523,27 @@ public class SelfDescriptionManager {
     return connector;
   }
 
+  private Connector replay(Connector connector, List<SelfDescriptionChange> changes) {
+    logger.info("Replaying {} change(s) from self description journal", changes.size());
+    for (SelfDescriptionChange change : changes) {
+      try {
+        connector = change.apply(this, connector);
+      } catch (BadRequestException | ResourceNotFoundException e) {
+        // change already contained in the document, e.g. compaction interrupted before journal was truncated
+        logger.warn("Skipping journal entry {} - {}", change, e.getMessage());
+      }
+    }
+    return connector;
+  }
+
+  private SelfDescriptionJournal journal() {
+    synchronized (writeLock) {
+      if (journal == null) {
+        journal = new SelfDescriptionJournal(Paths.get(selfDescriptionConfiguration.getFileLocation(),
+            SelfDescriptionConfiguration.SELF_DESCRIPTION_FILE_NAME));
+      }
+      return journal;
+    }
+  }
+
 }
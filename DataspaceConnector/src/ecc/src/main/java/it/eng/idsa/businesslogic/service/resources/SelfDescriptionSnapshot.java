@@ -0,0 +1,149 @@
+package it.eng.idsa.businesslogic.service.resources;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import de.fraunhofer.iais.eis.Artifact;
+import de.fraunhofer.iais.eis.Connector;
+import de.fraunhofer.iais.eis.ContractOffer;
+import de.fraunhofer.iais.eis.Representation;
+import de.fraunhofer.iais.eis.Resource;
+import de.fraunhofer.iais.eis.ResourceCatalog;
+import de.fraunhofer.iais.eis.ids.jsonld.Serializer;
+import it.eng.idsa.multipart.processor.MultipartMessageProcessor;
+
+/**
+ * Self description document published at a given version.<br>
+ * Offered resources, representations, artifacts and contract offers are indexed by id when the snapshot is
+ * created, serialized JSON-LD forms are computed once and reused until the next change. Connector held by the
+ * snapshot must be treated as read only; changes are applied to {@link #copyConnector()} and published as a new
+ * snapshot.
+ */
+public class SelfDescriptionSnapshot {
+
+	private final Connector connector;
+	private final long version;
+
+	private final Map<URI, Resource> resources;
+	private final Map<URI, Representation> representations;
+	private final Map<URI, Artifact> artifacts;
+	private final Map<URI, ContractOffer> contractOffers;
+
+	private volatile String jsonLd;
+	private volatile String validJsonLd;
+
+	SelfDescriptionSnapshot(Connector connector, long version) {
+		this.connector = connector;
+		this.version = version;
+
+		Map<URI, Resource> resources = new HashMap<>();
+		Map<URI, Representation> representations = new HashMap<>();
+		Map<URI, Artifact> artifacts = new HashMap<>();
+		Map<URI, ContractOffer> contractOffers = new HashMap<>();
+		if (connector != null && connector.getResourceCatalog() != null) {
+			for (ResourceCatalog resourceCatalog : connector.getResourceCatalog()) {
+				if (resourceCatalog.getOfferedResource() == null) {
+					continue;
+				}
+				for (Resource resource : resourceCatalog.getOfferedResource()) {
+					// first match wins, same as searching catalogs in order
+					resources.putIfAbsent(resource.getId(), resource);
+					if (resource.getRepresentation() != null) {
+						for (Representation representation : resource.getRepresentation()) {
+							representations.putIfAbsent(representation.getId(), representation);
+							if (representation.getInstance() != null) {
+								for (Object instance : representation.getInstance()) {
+									if (instance instanceof Artifact) {
+										artifacts.putIfAbsent(((Artifact) instance).getId(), (Artifact) instance);
+									}
+								}
+							}
+						}
+					}
+					if (resource.getContractOffer() != null) {
+						for (ContractOffer contractOffer : resource.getContractOffer()) {
+							contractOffers.putIfAbsent(contractOffer.getId(), contractOffer);
+						}
+					}
+				}
+			}
+		}
+		this.resources = Collections.unmodifiableMap(resources);
+		this.representations = Collections.unmodifiableMap(representations);
+		this.artifacts = Collections.unmodifiableMap(artifacts);
+		this.contractOffers = Collections.unmodifiableMap(contractOffers);
+	}
+
+	public Connector getConnector() {
+		return connector;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public Resource getResource(URI resourceId) {
+		return resources.get(resourceId);
+	}
+
+	public Representation getRepresentation(URI representationId) {
+		return representations.get(representationId);
+	}
+
+	public Artifact getArtifact(URI artifactId) {
+		return artifacts.get(artifactId);
+	}
+
+	public ContractOffer getContractOffer(URI contractOfferId) {
+		return contractOffers.get(contractOfferId);
+	}
+
+	public int getResourceCount() {
+		return resources.size();
+	}
+
+	/**
+	 * Whole document as JSON-LD, serialized on first use.
+	 *
+	 * @return self description document
+	 * @throws IOException if serialization fails
+	 */
+	public String getJsonLd() throws IOException {
+		String result = jsonLd;
+		if (result == null) {
+			result = MultipartMessageProcessor.serializeToJsonLD(connector);
+			jsonLd = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Document filtered with validator as JSON-LD, computed on first use.
+	 *
+	 * @param validator removes elements that should not be published, works on a copy of the connector
+	 * @return valid self description document
+	 * @throws IOException if serialization fails
+	 */
+	public String getValidJsonLd(UnaryOperator<Connector> validator) throws IOException {
+		String result = validJsonLd;
+		if (result == null) {
+			result = MultipartMessageProcessor.serializeToJsonLD(validator.apply(copyConnector()));
+			validJsonLd = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Deep copy of the connector, safe to modify.
+	 *
+	 * @return new connector instance
+	 * @throws IOException if connector cannot be copied
+	 */
+	public Connector copyConnector() throws IOException {
+		return new Serializer().deserialize(getJsonLd(), Connector.class);
+	}
+}
@@ -2,11 +2,10 @@ package it.eng.idsa.businesslogic.service.user;
 
 import static java.util.Optional.ofNullable;
 
-import java.util.HashMap;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.PostConstruct;
 import javax.servlet.http.HttpServletRequest;
@@ -24,6 +23,7 @@ import org.springframework.stereotype.Service;
 
 import it.eng.idsa.businesslogic.audit.TrueConnectorEvent;
 import it.eng.idsa.businesslogic.audit.TrueConnectorEventType;
+import it.eng.idsa.businesslogic.service.auth.AuthenticationCache;
 import it.eng.idsa.businesslogic.util.TrueConnectorConstants;
 
 @Service
@@ -47,12 +47,16 @@ public class InMemoryUserCrudService implements TrueConnectorUserDetailsService
 	@Autowired
 	private PasswordEncoder encoder;
 
-	Map<String, User> users = new HashMap<>();
+	@Autowired
+	private AuthenticationCache authenticationCache;
+
+	Map<String, User> users = new ConcurrentHashMap<>();
+	Map<String, User> usersByUsername = new ConcurrentHashMap<>();
 
 	@PostConstruct
 	public void setup() {
 		userConfiguration.getUserCredentials().keySet().forEach(user -> {
-			users.put(user, new User(UUID.randomUUID().toString(), user, userConfiguration.getPasswordForUser(user),
+			save(new User(UUID.randomUUID().toString(), user, userConfiguration.getPasswordForUser(user),
 					TrueConnectorConstants.API_USER_ROLE));
 		});
 	}
@@ -73,8 +77,20 @@ public class InMemoryUserCrudService implements TrueConnectorUserDetailsService
 		return findByUsername(username).orElseThrow(() -> new BadCredentialsException("Invalid credentials"));
 	}
 
+	/**
+	 * Adds or replaces the user; credentials of the user verified before are not used any more
+	 * @param user user
+	 * @return previous user with the same id, null if there was none
+	 */
 	public User save(User user) {
-		return users.put(user.getId(), user);
+		User previous = users.put(user.getId(), user);
+		if (previous != null && !previous.getUsername().equals(user.getUsername())) {
+			usersByUsername.remove(previous.getUsername(), previous);
+			authenticationCache.invalidate(previous.getUsername());
+		}
+		usersByUsername.put(user.getUsername(), user);
+		authenticationCache.invalidate(user.getUsername());
+		return previous;
 	}
 
 	public Optional<User> find(String id) {
@@ -82,7 +98,7 @@ public class InMemoryUserCrudService implements TrueConnectorUserDetailsService
 	}
 
 	private Optional<User> findByUsername(String username) {
-		return users.values().stream().filter(u -> Objects.equals(username, u.getUsername())).findFirst();
+		return username == null ? Optional.empty() : ofNullable(usersByUsername.get(username));
 	}
 
 	public Optional<User> findByUsernameAndPassword(String username, String password) {
@@ -91,8 +107,18 @@ public class InMemoryUserCrudService implements TrueConnectorUserDetailsService
 			logger.info("User '{}' is blocked!", username);
 			throw new RuntimeException("blocked");
 		}
-		return users.values().stream()
-				.filter(u -> Objects.equals(username, u.getUsername()) && (encoder.matches(password, u.getPassword())))
-				.findFirst();
+		Optional<User> user = findByUsername(username);
+		if (user.isEmpty() || password == null) {
+			return Optional.empty();
+		}
+		String passwordHash = user.get().getPassword();
+		if (authenticationCache.isVerified(username, password, passwordHash)) {
+			return user;
+		}
+		if (encoder.matches(password, passwordHash)) {
+			authenticationCache.verified(username, password, passwordHash);
+			return user;
+		}
+		return Optional.empty();
 	}
 }
@@ -0,0 +1,423 @@
+package it.eng.idsa.businesslogic.usagecontrol.service;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import it.eng.idsa.businesslogic.util.Helper;
+
+/**
+ * Local cache of usage control enforcement results, so repeated requests for the same artifact under an unchanged
+ * contract agreement do not call the usage control app every time.<br>
+ * Results are cached by contract agreement, artifact, consumer and payload, only for contract agreements uploaded
+ * through {@link UsageControlService#uploadPolicy(String)}, whose constraints are known:
+ * <ul>
+ * <li>an entry expires at the next instant a temporal constraint, contract start or contract end can change the
+ * decision, and at the latest after <code>application.usageControl.cache.ttlSeconds</code></li>
+ * <li>policies with counting constraints (<code>COUNT</code>, <code>INCREMENT_COUNTER</code>) or temporal constraints
+ * that can not be evaluated locally are always enforced by the usage control app</li>
+ * <li>uploading or rolling back a policy removes the entries of its contract agreement</li>
+ * </ul>
+ * Denied or failed enforcements are not cached. Every upload registers the contract agreement with a new generation;
+ * an entry is used only for the generation it was enforced under, and is stored under the registration entry so it
+ * can not be added after the policy was replaced or removed.
+ */
+@Component
+public class UsageControlDecisionCache {
+
+	private static final Logger logger = LoggerFactory.getLogger(UsageControlDecisionCache.class);
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private final boolean enabled;
+	private final long ttlMillis;
+	private final int maxEntries;
+	private final Clock clock;
+
+	private final AtomicLong generations = new AtomicLong();
+	private final Map<URI, RegisteredPolicy> policies = new ConcurrentHashMap<>();
+	private final Map<DecisionKey, CacheEntry> decisions = new ConcurrentHashMap<>();
+
+	private final Counter hits;
+	private final Counter misses;
+	private final Counter bypassed;
+
+	@Autowired
+	public UsageControlDecisionCache(@Value("${application.usageControl.cache.enabled:true}") boolean enabled,
+			@Value("${application.usageControl.cache.ttlSeconds:300}") long ttlSeconds,
+			@Value("${application.usageControl.cache.maxEntries:1000}") int maxEntries,
+			MeterRegistry meterRegistry) {
+		this(enabled, ttlSeconds, maxEntries, meterRegistry, Clock.systemUTC());
+	}
+
+	UsageControlDecisionCache(boolean enabled, long ttlSeconds, int maxEntries, MeterRegistry meterRegistry, Clock clock) {
+		this.enabled = enabled;
+		this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+		this.maxEntries = maxEntries;
+		this.clock = clock;
+		this.hits = Counter.builder("usagecontrol.cache.requests").tag("result", "hit").register(meterRegistry);
+		this.misses = Counter.builder("usagecontrol.cache.requests").tag("result", "miss").register(meterRegistry);
+		this.bypassed = Counter.builder("usagecontrol.cache.requests").tag("result", "bypass").register(meterRegistry);
+		Gauge.builder("usagecontrol.cache.size", decisions, Map::size).register(meterRegistry);
+	}
+
+	/**
+	 * Returns cached result of the enforcement or enforces the policy
+	 * @param contractAgreement contract agreement uri
+	 * @param artifact requested artifact uri
+	 * @param consumer consumer connector, null if the usage control app enforces for this connector only
+	 * @param payload payload the policy is enforced on
+	 * @param enforcement call to the usage control app
+	 * @return result of the enforcement
+	 * @throws Exception exception of the enforcement
+	 */
+	public String enforce(URI contractAgreement, URI artifact, URI consumer, String payload,
+			Callable<String> enforcement) throws Exception {
+		RegisteredPolicy policy = enabled && contractAgreement != null ? policies.get(contractAgreement) : null;
+		if (policy == null || !policy.bounds.cacheable) {
+			bypassed.increment();
+			return enforcement.call();
+		}
+		DecisionKey key = new DecisionKey(contractAgreement, artifact, consumer, digest(payload));
+		long now = clock.millis();
+		CacheEntry entry = decisions.get(key);
+		if (entry != null && entry.generation == policy.generation && now < entry.expiresAt) {
+			hits.increment();
+			return entry.result;
+		}
+		misses.increment();
+		String result = enforcement.call();
+		long expiresAt = policy.bounds.expiresAt(now, ttlMillis);
+		if (result != null && expiresAt > now) {
+			// policy may have been replaced while enforcing; upload and removal wait for the registration entry
+			policies.computeIfPresent(contractAgreement, (id, current) -> {
+				if (current.generation == policy.generation) {
+					evictIfFull(now);
+					decisions.put(key, new CacheEntry(result, expiresAt, policy.generation));
+				}
+				return current;
+			});
+		}
+		return result;
+	}
+
+	/**
+	 * Registers constraints of the uploaded contract agreement and removes its cached results
+	 * @param contractAgreement contract agreement in JSON-LD
+	 */
+	public void policyUploaded(String contractAgreement) {
+		PolicyBounds policy;
+		URI id;
+		try {
+			JsonNode node = MAPPER.readTree(contractAgreement);
+			if (!node.path("@id").isTextual()) {
+				throw new IllegalArgumentException("Contract agreement without @id");
+			}
+			id = URI.create(node.path("@id").asText());
+			policy = PolicyBounds.of(node);
+		} catch (JsonProcessingException | IllegalArgumentException e) {
+			logger.warn("Could not read uploaded contract agreement, clearing usage control cache: {}", e.getMessage());
+			policies.clear();
+			decisions.clear();
+			return;
+		}
+		policies.put(id, new RegisteredPolicy(policy, generations.incrementAndGet()));
+		decisions.keySet().removeIf(key -> key.contractAgreement.equals(id));
+		logger.debug("Contract agreement {} registered, cacheable: {}", id, policy.cacheable);
+	}
+
+	/**
+	 * Forgets the contract agreement and removes its cached results
+	 * @param contractAgreementUUID UUID of the contract agreement
+	 */
+	public void policyRemoved(String contractAgreementUUID) {
+		if (contractAgreementUUID == null) {
+			policies.clear();
+			decisions.clear();
+			return;
+		}
+		policies.keySet().removeIf(id -> contractAgreementUUID.equals(uuid(id)));
+		decisions.keySet().removeIf(key -> contractAgreementUUID.equals(uuid(key.contractAgreement)));
+	}
+
+	private static String uuid(URI contractAgreement) {
+		return contractAgreement.getPath() != null ? Helper.getUUID(contractAgreement) : null;
+	}
+
+	private void evictIfFull(long now) {
+		if (decisions.size() < maxEntries) {
+			return;
+		}
+		decisions.values().removeIf(e -> now >= e.expiresAt);
+		Iterator<DecisionKey> keys = decisions.keySet().iterator();
+		while (decisions.size() >= maxEntries && keys.hasNext()) {
+			keys.next();
+			keys.remove();
+		}
+	}
+
+	private static String digest(String payload) {
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-256")
+					.digest(String.valueOf(payload).getBytes(StandardCharsets.UTF_8));
+			return Base64.getEncoder().encodeToString(hash);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 not available", e);
+		}
+	}
+
+	private static final class RegisteredPolicy {
+		private final PolicyBounds bounds;
+		private final long generation;
+
+		RegisteredPolicy(PolicyBounds bounds, long generation) {
+			this.bounds = bounds;
+			this.generation = generation;
+		}
+	}
+
+	/**
+	 * Instants at which the decision of a policy can change; not cacheable if the decision depends on usage count
+	 * or on time that can not be evaluated locally
+	 */
+	static final class PolicyBounds {
+
+		private static final PolicyBounds NOT_CACHEABLE = new PolicyBounds(false, List.of());
+
+		final boolean cacheable;
+		private final List<Instant> boundaries;
+
+		private PolicyBounds(boolean cacheable, List<Instant> boundaries) {
+			this.cacheable = cacheable;
+			this.boundaries = boundaries;
+		}
+
+		long expiresAt(long now, long ttlMillis) {
+			long expiresAt = now + ttlMillis;
+			for (Instant boundary : boundaries) {
+				long millis = boundary.toEpochMilli();
+				if (millis > now && millis < expiresAt) {
+					expiresAt = millis;
+				}
+			}
+			return expiresAt;
+		}
+
+		static PolicyBounds of(JsonNode contractAgreement) {
+			List<Instant> boundaries = new ArrayList<>();
+			Instant contractStart = null;
+			JsonNode start = field(contractAgreement, "contractStart");
+			if (start != null) {
+				contractStart = parseInstant(value(start));
+				if (contractStart == null) {
+					return NOT_CACHEABLE;
+				}
+				boundaries.add(contractStart);
+			}
+			JsonNode end = field(contractAgreement, "contractEnd");
+			if (end != null) {
+				Instant contractEnd = parseInstant(value(end));
+				if (contractEnd == null) {
+					return NOT_CACHEABLE;
+				}
+				boundaries.add(contractEnd);
+			}
+			return collect(contractAgreement, contractStart, boundaries) ? new PolicyBounds(true, boundaries)
+					: NOT_CACHEABLE;
+		}
+
+		/**
+		 * Walks rules, duties and logical constraints of the policy
+		 * @return false if the policy is not cacheable
+		 */
+		private static boolean collect(JsonNode node, Instant contractStart, List<Instant> boundaries) {
+			if (node.isArray()) {
+				for (JsonNode element : node) {
+					if (!collect(element, contractStart, boundaries)) {
+						return false;
+					}
+				}
+				return true;
+			}
+			if (!node.isObject()) {
+				return true;
+			}
+			JsonNode action = field(node, "action");
+			if (action != null && "INCREMENT_COUNTER".equals(term(action))) {
+				return false;
+			}
+			JsonNode leftOperand = field(node, "leftOperand");
+			if (leftOperand != null && !constraint(term(leftOperand), field(node, "rightOperand"), contractStart,
+					boundaries)) {
+				return false;
+			}
+			Iterator<JsonNode> children = node.elements();
+			while (children.hasNext()) {
+				if (!collect(children.next(), contractStart, boundaries)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private static boolean constraint(String leftOperand, JsonNode rightOperand, Instant contractStart,
+				List<Instant> boundaries) {
+			switch (String.valueOf(leftOperand)) {
+			case "COUNT":
+				return false;
+			case "POLICY_EVALUATION_TIME":
+			case "DATE_TIME":
+				Instant instant = parseInstant(value(rightOperand));
+				if (instant == null) {
+					return false;
+				}
+				boundaries.add(instant);
+				return true;
+			case "ELAPSED_TIME":
+				if (contractStart == null) {
+					return false;
+				}
+				try {
+					boundaries.add(contractStart.plus(Duration.parse(value(rightOperand))));
+					return true;
+				} catch (DateTimeParseException | NullPointerException e) {
+					return false;
+				}
+			default:
+				return true;
+			}
+		}
+
+		private static JsonNode field(JsonNode node, String name) {
+			Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+			while (fields.hasNext()) {
+				Map.Entry<String, JsonNode> field = fields.next();
+				String key = field.getKey();
+				if (key.equals(name) || key.endsWith(":" + name) || key.endsWith("/" + name)) {
+					return field.getValue();
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * @return last segment of the referenced term, e.g. <code>COUNT</code> for
+		 *         <code>https://w3id.org/idsa/code/COUNT</code> or <code>idsc:COUNT</code>
+		 */
+		private static String term(JsonNode node) {
+			if (node.isArray()) {
+				for (JsonNode element : node) {
+					String term = term(element);
+					if ("INCREMENT_COUNTER".equals(term)) {
+						return term;
+					}
+				}
+				return node.size() > 0 ? term(node.get(0)) : null;
+			}
+			String id = node.isObject() ? node.path("@id").asText(null) : node.asText(null);
+			if (id == null) {
+				return null;
+			}
+			return id.substring(Math.max(id.lastIndexOf('/'), id.lastIndexOf(':')) + 1);
+		}
+
+		private static String value(JsonNode node) {
+			if (node == null) {
+				return null;
+			}
+			if (node.isArray()) {
+				return node.size() == 1 ? value(node.get(0)) : null;
+			}
+			return node.isObject() ? node.path("@value").asText(null) : node.asText(null);
+		}
+
+		private static Instant parseInstant(String value) {
+			if (value == null) {
+				return null;
+			}
+			try {
+				return OffsetDateTime.parse(value).toInstant();
+			} catch (DateTimeParseException e) {
+				try {
+					return ZonedDateTime.parse(value).toInstant();
+				} catch (DateTimeParseException e1) {
+					return null;
+				}
+			}
+		}
+	}
+
+	private static final class DecisionKey {
+		private final URI contractAgreement;
+		private final URI artifact;
+		private final URI consumer;
+		private final String payloadDigest;
+
+		DecisionKey(URI contractAgreement, URI artifact, URI consumer, String payloadDigest) {
+			this.contractAgreement = contractAgreement;
+			this.artifact = artifact;
+			this.consumer = consumer;
+			this.payloadDigest = payloadDigest;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof DecisionKey)) {
+				return false;
+			}
+			DecisionKey other = (DecisionKey) o;
+			return contractAgreement.equals(other.contractAgreement) && Objects.equals(artifact, other.artifact)
+					&& Objects.equals(consumer, other.consumer) && payloadDigest.equals(other.payloadDigest);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(contractAgreement, artifact, consumer, payloadDigest);
+		}
+	}
+
+	private static final class CacheEntry {
+		private final String result;
+		private final long expiresAt;
+		private final long generation;
+
+		CacheEntry(String result, long expiresAt, long generation) {
+			this.result = result;
+			this.expiresAt = expiresAt;
+			this.generation = generation;
+		}
+	}
+}
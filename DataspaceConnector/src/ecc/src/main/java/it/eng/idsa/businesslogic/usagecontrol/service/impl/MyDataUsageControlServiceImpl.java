@@ -31,6 +31,7 @@ import it.eng.idsa.businesslogic.usagecontrol.model.Meta;
 import it.eng.idsa.businesslogic.usagecontrol.model.TargetArtifact;
 import it.eng.idsa.businesslogic.usagecontrol.model.UsageControlObject;
 import it.eng.idsa.businesslogic.usagecontrol.service.UcRestCallService;
+import it.eng.idsa.businesslogic.usagecontrol.service.UsageControlDecisionCache;
 import it.eng.idsa.businesslogic.usagecontrol.service.UsageControlService;
 import it.eng.idsa.businesslogic.util.MessagePart;
 import retrofit2.Call;
@@ -47,6 +48,8 @@ public class MyDataUsageControlServiceImpl implements UsageControlService {
 	
 	private CommunicationService communicationService;
 	
+	private UsageControlDecisionCache decisionCache;
+	
 	private String usageControlDataAppURL;
 	
 	private String policyEndpoint = "policy/usage/odrl";
@@ -58,11 +61,13 @@ public class MyDataUsageControlServiceImpl implements UsageControlService {
 
 	public MyDataUsageControlServiceImpl(UcRestCallService ucRestCallService, 
 			CommunicationService communicationService,
+			UsageControlDecisionCache decisionCache,
 			@Value("${spring.ids.ucapp.baseUrl}") String usageControlDataAppURL,
 			Gson gson) {
 		super();
 		this.ucRestCallService = ucRestCallService;
 		this.communicationService = communicationService;
+		this.decisionCache = decisionCache;
 		this.usageControlDataAppURL = usageControlDataAppURL;
 		this.gson = gson;
 	}
@@ -82,6 +87,12 @@ public class MyDataUsageControlServiceImpl implements UsageControlService {
 		idsUseObject.setMsgTarget(getIdsMsgTarget());
 		idsUseObject.setDataObject(ucObj.getPayload());
 
+		// creation date of the usage control object changes with every response, only data object is enforced
+		return decisionCache.enforce(contractAgreementUri, ucObj.getMeta().getTargetArtifact().getId(),
+				ucObj.getMeta().getAssignee(), String.valueOf(ucObj.getPayload()), () -> enforce(idsUseObject));
+	}
+
+	private String enforce(IdsUseObject idsUseObject) throws Exception {
 		Object result = null;
 		try {
 			Call<Object> callSync = ucRestCallService.enforceUsageControl(idsUseObject);
@@ -172,7 +183,11 @@ public class MyDataUsageControlServiceImpl implements UsageControlService {
 	public String uploadPolicy(String payloadContent) {
 		String ucDataAppAddPolicyEndpoint = usageControlDataAppURL + policyEndpoint;
 		logger.info("ContractAgreementMessage detected, sending payload to Usage Contol DataApp at '{}'", ucDataAppAddPolicyEndpoint);
-		return communicationService.sendDataAsJson(ucDataAppAddPolicyEndpoint, payloadContent, "application/ld+json;charset=UTF-8");
+		try {
+			return communicationService.sendDataAsJson(ucDataAppAddPolicyEndpoint, payloadContent, "application/ld+json;charset=UTF-8");
+		} finally {
+			decisionCache.policyUploaded(payloadContent);
+		}
 	}
 	
 	private JsonElement getDataObject(String s) {
@@ -192,8 +207,7 @@ public class MyDataUsageControlServiceImpl implements UsageControlService {
 
 	@Override
 	public void rollbackPolicyUpload(String contractAgreementUUID) {
-		// TODO Auto-generated method stub
-		
+		decisionCache.policyRemoved(contractAgreementUUID);
 	}
 	
 	@Override
@@ -1,6 +1,5 @@
 package it.eng.idsa.businesslogic.usagecontrol.service.impl;
 
-import java.io.IOException;
 import java.net.URI;
 
 import org.slf4j.Logger;
@@ -13,6 +12,7 @@ import org.springframework.stereotype.Service;
 import de.fraunhofer.iais.eis.ArtifactRequestMessage;
 import de.fraunhofer.iais.eis.ArtifactResponseMessage;
 import it.eng.idsa.businesslogic.service.CommunicationService;
+import it.eng.idsa.businesslogic.usagecontrol.service.UsageControlDecisionCache;
 import it.eng.idsa.businesslogic.usagecontrol.service.UsageControlService;
 
 @Service
@@ -36,8 +36,11 @@ public class PlatoonUsageControlServiceImpl implements UsageControlService {
 	@Autowired
 	private CommunicationService communicationService;
 
+	@Autowired
+	private UsageControlDecisionCache decisionCache;
+
 	@Override
-	public String enforceUsageControl(URI uri, URI requestedArtifact, String ucObject) throws IOException {
+	public String enforceUsageControl(URI uri, URI requestedArtifact, String ucObject) throws Exception {
 
 		logger.info("Enforcing contract agreement:" + uri.toString(), " for requested artifact:" + requestedArtifact.toString());
 
@@ -45,7 +48,9 @@ public class PlatoonUsageControlServiceImpl implements UsageControlService {
 				.append("?contractAgreementUri=").append(uri).append("&requestedArtifact=").append(requestedArtifact)
 				.append(("&consuming=true"));
 
-		return communicationService.sendDataAsJson(ucUrl.toString(), ucObject, CONTENT_TYPE);
+		// enforced by the usage control app of this connector, as consumer
+		return decisionCache.enforce(uri, requestedArtifact, null, ucObject,
+				() -> communicationService.sendDataAsJson(ucUrl.toString(), ucObject, CONTENT_TYPE));
 	}
 
 	@Override
@@ -59,11 +64,16 @@ public class PlatoonUsageControlServiceImpl implements UsageControlService {
 	public String uploadPolicy(String payloadContent) {
 		String ucUrl = platoonURL + policyUploadEndpoint;
 
-		return communicationService.sendDataAsJson(ucUrl, payloadContent, CONTENT_TYPE);
+		try {
+			return communicationService.sendDataAsJson(ucUrl, payloadContent, CONTENT_TYPE);
+		} finally {
+			decisionCache.policyUploaded(payloadContent);
+		}
 	}
 
 	@Override
 	public void rollbackPolicyUpload(String contractAgreementUUID) {
+		decisionCache.policyRemoved(contractAgreementUUID);
 		if (isEnabledUsageControl) {
 			logger.info("Rolling back policy upload");
 			communicationService.deleteRequest(platoonURL + policyUploadEndpoint + contractAgreementUUID);
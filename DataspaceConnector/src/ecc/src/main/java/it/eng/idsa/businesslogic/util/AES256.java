@@ -1,82 +1,78 @@
 package it.eng.idsa.businesslogic.util;
 
-import java.security.SecureRandom;
-import java.security.spec.KeySpec;
-import java.util.Base64;
-
-import javax.crypto.Cipher;
-import javax.crypto.SecretKey;
-import javax.crypto.SecretKeyFactory;
-import javax.crypto.spec.GCMParameterSpec;
-import javax.crypto.spec.PBEKeySpec;
-import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.lang3.ObjectUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Encryption of values stored by the connector, like audit events.<br>
+ * Keys are derived once, when the class is loaded. Secret of the current key is taken from
+ * <code>AES256-SECRET-KEY</code> with id <code>AES256-SECRET-KEY-ID</code> (default 1); previous keys, still needed to
+ * read stored values after rotation, from <code>AES256-PREVIOUS-SECRET-KEYS</code> as <code>id=secret</code> pairs
+ * separated by <code>,</code>
+ */
 public class AES256 {
 
 	private static final Logger logger = LoggerFactory.getLogger(AES256.class);
 
-	private static final int KEY_LENGTH = 256;
-	private static final int ITERATION_COUNT = 65536;
-	private static String secretKey;
 	private static final String salt = "hd2y3vxlLv";
-	private static String algorithm = "AES/GCM/NoPadding";
-	
-	static {
-		secretKey = ObjectUtils.isNotEmpty(System.getenv("AES256-SECRET-KEY")) ? 
+
+	private static final AesGcmCrypto CRYPTO = createCrypto();
+
+	private static AesGcmCrypto createCrypto() {
+		String secretKey = ObjectUtils.isNotEmpty(System.getenv("AES256-SECRET-KEY")) ? 
 				System.getenv("AES256-SECRET-KEY") : "FPrnUtKJIGX1EMs";
+		String keyId = ObjectUtils.isNotEmpty(System.getenv("AES256-SECRET-KEY-ID")) ?
+				System.getenv("AES256-SECRET-KEY-ID") : "1";
+		Map<String, String> secrets = new LinkedHashMap<>();
+		secrets.put(keyId, secretKey);
+		String previousKeys = System.getenv("AES256-PREVIOUS-SECRET-KEYS");
+		if (ObjectUtils.isNotEmpty(previousKeys)) {
+			for (String previousKey : previousKeys.split(",")) {
+				int separator = previousKey.indexOf('=');
+				if (separator > 0) {
+					secrets.putIfAbsent(previousKey.substring(0, separator).trim(), previousKey.substring(separator + 1));
+				}
+			}
+		}
+		try {
+			return new AesGcmCrypto(keyId, secrets, salt);
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException("Could not derive AES256 keys", e);
+		}
 	}
-	
+
 	public static String encrypt(String strToEncrypt) {
 		try {
-			SecureRandom secureRandom = new SecureRandom();
-			byte[] ivBytes = new byte[16];
-			secureRandom.nextBytes(ivBytes);
-
-			SecretKeyFactory factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
-			KeySpec spec = new PBEKeySpec(secretKey.toCharArray(), salt.getBytes(), ITERATION_COUNT, KEY_LENGTH);
-			SecretKey tmp = factory.generateSecret(spec);
-			SecretKeySpec secretKeySpec = new SecretKeySpec(tmp.getEncoded(), "AES");
-			GCMParameterSpec gcmParameterSpec = new GCMParameterSpec(128, ivBytes);
-			
-			Cipher cipher = Cipher.getInstance(algorithm);
-			cipher.init(Cipher.ENCRYPT_MODE, secretKeySpec, gcmParameterSpec);
-
-			byte[] cipherText = cipher.doFinal(strToEncrypt.getBytes("UTF-8"));
-			byte[] encryptedData = new byte[ivBytes.length + cipherText.length];
-			System.arraycopy(ivBytes, 0, encryptedData, 0, ivBytes.length);
-			System.arraycopy(cipherText, 0, encryptedData, ivBytes.length, cipherText.length);
-
-			return Base64.getEncoder().encodeToString(encryptedData);
+			return CRYPTO.encrypt(strToEncrypt);
 		} catch (Exception e) {
 			logger.error("Error while encrypting", e);
 			return null;
 		}
 	}
 
+	/**
+	 * Encrypts all values, reusing the cipher of the calling thread.
+	 * @param stringsToEncrypt values to encrypt
+	 * @return encrypted values, in the same order; element is null if that value could not be encrypted
+	 */
+	public static List<String> encrypt(List<String> stringsToEncrypt) {
+		List<String> encrypted = new ArrayList<>(stringsToEncrypt.size());
+		for (String strToEncrypt : stringsToEncrypt) {
+			encrypted.add(encrypt(strToEncrypt));
+		}
+		return encrypted;
+	}
+
 	public static String decrypt(String strToDecrypt) {
 		try {
-			byte[] encryptedData = Base64.getDecoder().decode(strToDecrypt);
-			byte[] ivBytes = new byte[16];
-			System.arraycopy(encryptedData, 0, ivBytes, 0, ivBytes.length);
-
-			SecretKeyFactory factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
-			KeySpec spec = new PBEKeySpec(secretKey.toCharArray(), salt.getBytes(), ITERATION_COUNT, KEY_LENGTH);
-			SecretKey tmp = factory.generateSecret(spec);
-			SecretKeySpec secretKeySpec = new SecretKeySpec(tmp.getEncoded(), "AES");
-			GCMParameterSpec gcmParameterSpec = new GCMParameterSpec(128, ivBytes);
-
-			Cipher cipher = Cipher.getInstance(algorithm);
-			cipher.init(Cipher.DECRYPT_MODE, secretKeySpec, gcmParameterSpec);
-
-			byte[] cipherText = new byte[encryptedData.length - 16];
-			System.arraycopy(encryptedData, 16, cipherText, 0, cipherText.length);
-
-			byte[] decryptedText = cipher.doFinal(cipherText);
-			return new String(decryptedText, "UTF-8");
+			return CRYPTO.decrypt(strToDecrypt);
 		} catch (Exception e) {
 			logger.error("Error while decrypting", e);
 			return null;
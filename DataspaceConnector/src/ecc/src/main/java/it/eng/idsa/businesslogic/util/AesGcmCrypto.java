@@ -0,0 +1,139 @@
+package it.eng.idsa.businesslogic.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.security.spec.KeySpec;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * AES-256/GCM encryption with keys derived once from their secrets.<br>
+ * Values are encrypted with the current key as <code>v2:&lt;keyId&gt;:&lt;base64(iv | ciphertext)&gt;</code>, so
+ * the key can be rotated while values encrypted with previous keys stay readable. Values without version prefix are
+ * in the original format, <code>base64(iv | ciphertext)</code> with a 16 byte IV and no key id; they are decrypted with
+ * every known key until one authenticates.
+ */
+public class AesGcmCrypto {
+
+	static final String VERSION_PREFIX = "v2:";
+
+	private static final String ALGORITHM = "AES/GCM/NoPadding";
+	private static final int KEY_LENGTH = 256;
+	private static final int ITERATION_COUNT = 65536;
+	private static final int TAG_LENGTH = 128;
+	private static final int IV_LENGTH = 12;
+	private static final int LEGACY_IV_LENGTH = 16;
+
+	private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
+	/**
+	 * Cipher instances are not thread safe, but can be re-initialized, so each thread keeps its own
+	 */
+	private static final ThreadLocal<Cipher> CIPHER = ThreadLocal.withInitial(() -> {
+		try {
+			return Cipher.getInstance(ALGORITHM);
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException("Cipher " + ALGORITHM + " not available", e);
+		}
+	});
+
+	private final String currentKeyId;
+	private final SecretKeySpec currentKey;
+	private final Map<String, SecretKeySpec> keys;
+
+	/**
+	 * @param currentKeyId id of the key used for encryption, letters and digits
+	 * @param secrets secrets by key id, must contain the current key
+	 * @param salt salt for key derivation
+	 * @throws GeneralSecurityException if a key can not be derived
+	 */
+	public AesGcmCrypto(String currentKeyId, Map<String, String> secrets, String salt) throws GeneralSecurityException {
+		if (!currentKeyId.matches("[A-Za-z0-9]+")) {
+			throw new IllegalArgumentException("Key id must contain only letters and digits: " + currentKeyId);
+		}
+		if (!secrets.containsKey(currentKeyId)) {
+			throw new IllegalArgumentException("No secret for current key " + currentKeyId);
+		}
+		Map<String, SecretKeySpec> derived = new LinkedHashMap<>();
+		// current key is tried first for values in the original format
+		derived.put(currentKeyId, deriveKey(secrets.get(currentKeyId), salt));
+		for (Map.Entry<String, String> secret : secrets.entrySet()) {
+			if (!derived.containsKey(secret.getKey())) {
+				derived.put(secret.getKey(), deriveKey(secret.getValue(), salt));
+			}
+		}
+		this.currentKeyId = currentKeyId;
+		this.currentKey = derived.get(currentKeyId);
+		this.keys = Collections.unmodifiableMap(derived);
+	}
+
+	public String encrypt(String value) throws GeneralSecurityException {
+		byte[] iv = new byte[IV_LENGTH];
+		SECURE_RANDOM.nextBytes(iv);
+		Cipher cipher = CIPHER.get();
+		cipher.init(Cipher.ENCRYPT_MODE, currentKey, new GCMParameterSpec(TAG_LENGTH, iv));
+		byte[] plain = value.getBytes(StandardCharsets.UTF_8);
+		ByteBuffer encrypted = ByteBuffer.allocate(IV_LENGTH + cipher.getOutputSize(plain.length));
+		encrypted.put(iv);
+		cipher.doFinal(ByteBuffer.wrap(plain), encrypted);
+		return VERSION_PREFIX + currentKeyId + ":" + Base64.getEncoder().encodeToString(encrypted.array());
+	}
+
+	public String decrypt(String value) throws GeneralSecurityException {
+		if (!value.startsWith(VERSION_PREFIX)) {
+			return decryptLegacy(Base64.getDecoder().decode(value));
+		}
+		int separator = value.indexOf(':', VERSION_PREFIX.length());
+		if (separator < 0) {
+			throw new GeneralSecurityException("Malformed encrypted value");
+		}
+		String keyId = value.substring(VERSION_PREFIX.length(), separator);
+		SecretKeySpec key = keys.get(keyId);
+		if (key == null) {
+			throw new GeneralSecurityException("Unknown key " + keyId);
+		}
+		return decrypt(Base64.getDecoder().decode(value.substring(separator + 1)), key, IV_LENGTH);
+	}
+
+	private String decryptLegacy(byte[] encrypted) throws GeneralSecurityException {
+		GeneralSecurityException failure = null;
+		for (SecretKeySpec key : keys.values()) {
+			try {
+				return decrypt(encrypted, key, LEGACY_IV_LENGTH);
+			} catch (GeneralSecurityException e) {
+				failure = e;
+			}
+		}
+		throw failure;
+	}
+
+	private String decrypt(byte[] encrypted, SecretKeySpec key, int ivLength) throws GeneralSecurityException {
+		if (encrypted.length < ivLength) {
+			throw new GeneralSecurityException("Malformed encrypted value");
+		}
+		Cipher cipher = CIPHER.get();
+		cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH, encrypted, 0, ivLength));
+		byte[] plain = cipher.doFinal(encrypted, ivLength, encrypted.length - ivLength);
+		return new String(plain, StandardCharsets.UTF_8);
+	}
+
+	public String getCurrentKeyId() {
+		return currentKeyId;
+	}
+
+	static SecretKeySpec deriveKey(String secret, String salt) throws GeneralSecurityException {
+		SecretKeyFactory factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
+		KeySpec spec = new PBEKeySpec(secret.toCharArray(), salt.getBytes(), ITERATION_COUNT, KEY_LENGTH);
+		return new SecretKeySpec(factory.generateSecret(spec).getEncoded(), "AES");
+	}
+}
@@ -1,201 +1,314 @@
 package it.eng.idsa.businesslogic.util;
 
-import java.io.File;
 import java.io.IOException;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
 import java.net.MalformedURLException;
+import java.net.Socket;
 import java.net.URL;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.List;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.Date;
 
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+import org.bouncycastle.asn1.ASN1Primitive;
+import org.bouncycastle.asn1.DEROctetString;
+import org.bouncycastle.asn1.x509.AccessDescription;
+import org.bouncycastle.asn1.x509.AuthorityInformationAccess;
+import org.bouncycastle.asn1.x509.ExtendedKeyUsage;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.GeneralName;
+import org.bouncycastle.asn1.x509.KeyPurposeId;
+import org.bouncycastle.cert.CertException;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateHolder;
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+import org.bouncycastle.cert.ocsp.CertificateID;
+import org.bouncycastle.cert.ocsp.CertificateStatus;
+import org.bouncycastle.cert.ocsp.OCSPException;
+import org.bouncycastle.cert.ocsp.OCSPReq;
+import org.bouncycastle.cert.ocsp.OCSPReqBuilder;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+import org.bouncycastle.cert.ocsp.RevokedStatus;
+import org.bouncycastle.cert.ocsp.SingleResp;
+import org.bouncycastle.operator.ContentVerifierProvider;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaContentVerifierProviderBuilder;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
 import org.hibernate.validator.internal.constraintvalidators.hv.URLValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import it.eng.idsa.businesslogic.service.ProcessExecutor;
-import it.eng.idsa.businesslogic.service.impl.ProcessExecutorImpl;
 import it.eng.idsa.businesslogic.util.exception.OCSPValidationException;
 
+/**
+ * OCSP (RFC 6960) protocol helpers, implemented in process with BouncyCastle.<br>
+ * Caching, request coalescing and failure policy are handled by
+ * {@link it.eng.idsa.businesslogic.service.OCSPValidationService}.
+ */
 public class OCSPValidation {
 
 	private static final Logger logger = LoggerFactory.getLogger(OCSPValidation.class);
 
-	public enum OCSP_STATUS { good, none, unknown, revoked }; 
-	
-	public static boolean checkOCSPCerificate(String url, OCSP_STATUS desideredOCSPRevocationCheckValue)
-			throws OCSPValidationException {
-		logger.info("desidered OCSP Revocation Check Value " + desideredOCSPRevocationCheckValue);
+	public enum OCSP_STATUS { good, none, unknown, revoked };
+
+	public static final String OCSP_REQUEST_CONTENT_TYPE = "application/ocsp-request";
+	public static final String OCSP_RESPONSE_CONTENT_TYPE = "application/ocsp-response";
+
+	/**
+	 * Allowed difference between local clock and responder clock
+	 */
+	private static final long CLOCK_SKEW_MILLIS = 5 * 60 * 1000L;
+
+	private OCSPValidation() {
+	}
+
+	/**
+	 * Status returned by the OCSP responder for a single certificate
+	 */
+	public static class OCSPResult {
+
+		private final OCSP_STATUS status;
+		private final Date thisUpdate;
+		private final Date nextUpdate;
 
+		public OCSPResult(OCSP_STATUS status, Date thisUpdate, Date nextUpdate) {
+			this.status = status;
+			this.thisUpdate = thisUpdate;
+			this.nextUpdate = nextUpdate;
+		}
+
+		public OCSP_STATUS getStatus() {
+			return status;
+		}
+
+		public Date getThisUpdate() {
+			return thisUpdate;
+		}
+
+		/**
+		 * @return time until the status is valid, null if responder did not set it
+		 */
+		public Date getNextUpdate() {
+			return nextUpdate;
+		}
+	}
+
+	/**
+	 * Converts Forward-To value to URL, wss scheme is replaced with https.
+	 *
+	 * @param url Forward-To value
+	 * @return URL of the target connector
+	 * @throws MalformedURLException if url is not valid
+	 */
+	public static URL toTargetUrl(String url) throws MalformedURLException {
 		URLValidator validator = new URLValidator();
+		if (validator.isValid(url, null)) {
+			return new URL(url);
+		}
+		return new URL(url.replaceFirst("wss", "https"));
+	}
 
-		URL forwardToURL = null;
+	/**
+	 * Performs TLS handshake with the target and returns the certificate chain it presents.<br>
+	 * Chain is only read, it is not validated here; trust is enforced by the connection that sends the message.
+	 *
+	 * @param host          target host
+	 * @param port          target port
+	 * @param timeoutMillis connect and read timeout
+	 * @return certificate chain, server certificate first
+	 * @throws OCSPValidationException if handshake fails
+	 */
+	public static X509Certificate[] fetchCertificateChain(String host, int port, int timeoutMillis)
+			throws OCSPValidationException {
 		try {
-			if (validator.isValid(url, null)) {
-				forwardToURL = new URL(url);
-			} else {
-				forwardToURL = new URL(url.replaceFirst("wss", "https"));
+			SSLContext sslContext = SSLContext.getInstance("TLS");
+			sslContext.init(null, new TrustManager[] { new ChainCapturingTrustManager() }, new SecureRandom());
+			// closed also when connect fails or the SSL socket can not be created; closing it twice is harmless
+			try (Socket socket = new Socket()) {
+				socket.connect(new InetSocketAddress(host, port), timeoutMillis);
+				socket.setSoTimeout(timeoutMillis);
+				try (SSLSocket sslSocket = (SSLSocket) sslContext.getSocketFactory().createSocket(socket, host, port,
+						true)) {
+					sslSocket.startHandshake();
+					Certificate[] peerCertificates = sslSocket.getSession().getPeerCertificates();
+					return Arrays.copyOf(peerCertificates, peerCertificates.length, X509Certificate[].class);
+				}
 			}
-		} catch (MalformedURLException e) {
-			logger.error("Invalid URL '%'", url);
-			return false;
+		} catch (IOException | GeneralSecurityException | ArrayStoreException e) {
+			throw new OCSPValidationException("Could not read certificate chain from " + host + ":" + port, e);
 		}
+	}
 
-		OCSPValidation validation = new OCSPValidation();
-		OCSP_STATUS result = validation.validateRemoteCertificate(forwardToURL);
-
-		logger.info("OCSP test result " + result);
+	/**
+	 * Reads OCSP responder URL from Authority Information Access extension
+	 *
+	 * @param certificate certificate to check
+	 * @return responder URL or null if certificate does not have one
+	 * @throws OCSPValidationException if extension cannot be parsed
+	 */
+	public static String getOcspUrl(X509Certificate certificate) throws OCSPValidationException {
+		byte[] extensionValue = certificate.getExtensionValue(Extension.authorityInfoAccess.getId());
+		if (extensionValue == null) {
+			return null;
+		}
+		AuthorityInformationAccess aia;
+		try {
+			aia = AuthorityInformationAccess.getInstance(
+					ASN1Primitive.fromByteArray(DEROctetString.getInstance(extensionValue).getOctets()));
+		} catch (IOException | IllegalArgumentException e) {
+			throw new OCSPValidationException("Could not read Authority Information Access extension", e);
+		}
+		for (AccessDescription accessDescription : aia.getAccessDescriptions()) {
+			if (AccessDescription.id_ad_ocsp.equals(accessDescription.getAccessMethod())
+					&& accessDescription.getAccessLocation().getTagNo() == GeneralName.uniformResourceIdentifier) {
+				return accessDescription.getAccessLocation().getName().toString();
+			}
+		}
+		return null;
+	}
 
-		if (result.equals(OCSP_STATUS.revoked)) {
-			logger.error("The target certificate is 'revoked'!!!");
-			return false;
-		} else if (result.equals(OCSP_STATUS.unknown)
-				&& desideredOCSPRevocationCheckValue.equals(OCSPValidation.OCSP_STATUS.good)) {
-			logger.error("The target certificate is 'unknown' but 'good' is required!!!");
+	/**
+	 * Creates OCSP certificate identifier (issuer name hash, issuer key hash and serial number)
+	 *
+	 * @param certificate certificate to check
+	 * @param issuer      certificate of the issuer
+	 * @return certificate id
+	 * @throws OCSPValidationException if id cannot be created
+	 */
+	public static CertificateID createCertificateId(X509Certificate certificate, X509Certificate issuer)
+			throws OCSPValidationException {
+		return createCertificateId(certificate.getSerialNumber(), issuer);
+	}
 
-			return false;
+	public static CertificateID createCertificateId(BigInteger serialNumber, X509Certificate issuer)
+			throws OCSPValidationException {
+		try {
+			return new CertificateID(new JcaDigestCalculatorProviderBuilder().build().get(CertificateID.HASH_SHA1),
+					new JcaX509CertificateHolder(issuer), serialNumber);
+		} catch (OperatorCreationException | CertificateEncodingException | OCSPException e) {
+			throw new OCSPValidationException("Could not create OCSP certificate id", e);
 		}
+	}
 
-		return true;
+	/**
+	 * @param certificateId certificate to ask for
+	 * @return DER encoded OCSP request
+	 * @throws OCSPValidationException if request cannot be created
+	 */
+	public static byte[] createRequest(CertificateID certificateId) throws OCSPValidationException {
+		try {
+			OCSPReq request = new OCSPReqBuilder().addRequest(certificateId).build();
+			return request.getEncoded();
+		} catch (OCSPException | IOException e) {
+			throw new OCSPValidationException("Could not create OCSP request", e);
+		}
 	}
-	
-	private OCSP_STATUS validateRemoteCertificate(URL url) throws OCSPValidationException {
-		ProcessExecutor processExecutor = new ProcessExecutorImpl();
-				
-		String host = url.getHost();
-		int port = url.getPort();
-		
-		if(port == -1 && url.getProtocol().equals("https")) {
-			port = 443;
-		}
-		
-		String tmpdir = System.getProperty("java.io.tmpdir") + File.separator;
-		
-		logger.debug("temp dir -> " + tmpdir);
-		
-		List<String> startCmdList = getStartCmdList();
-				
-		/* get Host Certificate */
-		List<String> cmdList = new ArrayList<String>(startCmdList);
-		cmdList.add("echo | openssl s_client -connect " + host + ":" + port + " -servername " + host);
-		String getCertificateResponse = processExecutor.executeProcess(cmdList);
-		String serverCertificate = getCertificatesInString(getCertificateResponse, null);
-		
-		if(serverCertificate.length() > 0) {
-			try {
-				Files.write(Paths.get(tmpdir + host + ".pem"), serverCertificate.getBytes(StandardCharsets.UTF_8));
-				logger.info("File " + tmpdir + host + ".pem correctly saved.");
-			} catch (IOException e) {
-				logger.warn(e.getMessage(), e.getCause());
-				throw new OCSPValidationException("OCSPValidationException() cause:", e.getCause());
-			}			
-		} else {
-			logger.error("File " + tmpdir + host + ".pem is empty.");
-			new File(tmpdir + host + ".pem").delete();
-			return OCSP_STATUS.unknown;
-		}
-		
-		/* get OCSP URI if exist */
-		cmdList = new ArrayList<String>(startCmdList);
-		cmdList.add("openssl x509 -noout -ocsp_uri -in " + tmpdir + host + ".pem");
-		String existOCSPUriResponse = processExecutor.executeProcess(cmdList);
-		logger.info("Checking for OCSP server Uri. Response " + existOCSPUriResponse);
-		
-		if(existOCSPUriResponse.isBlank()) {
-			logger.error("No OCSP server Uri found. Response " + getCertificateResponse);
-			
-			File hostCertificate = new File(tmpdir + host + ".pem");
-			hostCertificate.delete();
-			
-			return OCSP_STATUS.unknown;
-		}
-		
+
+	/**
+	 * Parses responder answer and verifies that it is signed by the issuer or by a responder
+	 * the issuer delegated OCSP signing to.
+	 *
+	 * @param response      DER encoded OCSP response
+	 * @param certificateId certificate that was asked for
+	 * @param issuer        certificate of the issuer
+	 * @param now           current time
+	 * @return status of the certificate
+	 * @throws OCSPValidationException if response is not successful, not valid or does not contain the certificate
+	 */
+	public static OCSPResult parseResponse(byte[] response, CertificateID certificateId, X509Certificate issuer, Date now)
+			throws OCSPValidationException {
 		try {
-			URL ocspUri = new URL(existOCSPUriResponse);
-			
-			/* get Certificate Chain */			
-			cmdList = new ArrayList<String>(startCmdList);
-			cmdList.add("echo | openssl s_client -connect " + host + ":" + port + " -showcerts");
-			String getChainResponse = processExecutor.executeProcess(cmdList);
-			String chainCertificate = getCertificatesInString(getChainResponse, serverCertificate);
-			if(!chainCertificate.isBlank()) {
-				try {
-					Files.write(Paths.get(tmpdir + host + "_chain.pem"), chainCertificate.getBytes(StandardCharsets.UTF_8));
-					logger.info("File" + tmpdir + host + "_chain.pem correctly saved.");				
-				} catch (IOException e) {
-					logger.warn(e.getMessage(), e.getCause());
-					throw new OCSPValidationException("OCSPValidationException() cause:", e.getCause());
+			OCSPResp ocspResponse = new OCSPResp(response);
+			if (ocspResponse.getStatus() != OCSPResp.SUCCESSFUL) {
+				throw new OCSPValidationException("OCSP responder returned status " + ocspResponse.getStatus());
+			}
+			BasicOCSPResp basicResponse = (BasicOCSPResp) ocspResponse.getResponseObject();
+			if (!isSignatureValid(basicResponse, issuer, now)) {
+				throw new OCSPValidationException("OCSP response signature is not valid");
+			}
+			for (SingleResp singleResponse : basicResponse.getResponses()) {
+				if (!certificateId.equals(singleResponse.getCertID())) {
+					continue;
+				}
+				Date thisUpdate = singleResponse.getThisUpdate();
+				Date nextUpdate = singleResponse.getNextUpdate();
+				if (thisUpdate.getTime() > now.getTime() + CLOCK_SKEW_MILLIS) {
+					throw new OCSPValidationException("OCSP response thisUpdate is in the future");
 				}
-			} else {
-				logger.error("File " + tmpdir + host + "_chain.pem NOT saved.");
-				return OCSP_STATUS.unknown;
+				if (nextUpdate != null && nextUpdate.getTime() < now.getTime() - CLOCK_SKEW_MILLIS) {
+					throw new OCSPValidationException("OCSP response is expired, nextUpdate " + nextUpdate);
+				}
+				CertificateStatus certificateStatus = singleResponse.getCertStatus();
+				OCSP_STATUS status;
+				if (certificateStatus == CertificateStatus.GOOD) {
+					status = OCSP_STATUS.good;
+				} else if (certificateStatus instanceof RevokedStatus) {
+					status = OCSP_STATUS.revoked;
+				} else {
+					status = OCSP_STATUS.unknown;
+				}
+				return new OCSPResult(status, thisUpdate, nextUpdate);
 			}
-					
-			/* sending OCSP request */
-			cmdList = new ArrayList<String>(startCmdList);
-			cmdList.add("openssl ocsp -issuer " + tmpdir + host + "_chain.pem -cert " + tmpdir + host + ".pem -text -url "+ ocspUri);
-			String ocspTestResponse = processExecutor.executeProcess(cmdList);
-			logger.debug("OCSP test response " + ocspTestResponse);
-						
-			if(ocspTestResponse.contains(": " + OCSP_STATUS.revoked.name())) {
-				return OCSP_STATUS.revoked;
-			} else if(ocspTestResponse.contains(": " + OCSP_STATUS.good.name())) {
-				return OCSP_STATUS.good;
-			} else if(ocspTestResponse.contains(": " + OCSP_STATUS.unknown.name())) {
-				return OCSP_STATUS.unknown;
-			}			
-		} catch (MalformedURLException e) {
-			logger.warn("No OCSP URI found!!!");
-			logger.warn(e.getMessage(), e.getCause());
-			throw new OCSPValidationException("OCSPValidationException() cause:", e.getCause());
-		} finally {
-			/* delete cert files*/
-			new File(tmpdir + host + ".pem").delete();
-			new File(tmpdir + host + "_chain.pem").delete();
-							
-			logger.debug("delete .pem file from FileSystem");
-		}
-				
-		return OCSP_STATUS.unknown;
+			throw new OCSPValidationException("OCSP response does not contain requested certificate");
+		} catch (IOException | OCSPException | ClassCastException e) {
+			throw new OCSPValidationException("Could not parse OCSP response", e);
+		}
 	}
 
-	private List<String> getStartCmdList() {
-		List<String> startCmdList = new ArrayList<String>();
-		if(System.getProperty("os.name").toLowerCase().contains("win")) {
-			logger.info("Running on windows");
-			startCmdList.add("cmd.exe");
-			startCmdList.add("/c");
-		} else {
-			startCmdList.add("/bin/sh");
-			startCmdList.add("-c");
-		}
-		return startCmdList;
-	}		
-
-	private String getCertificatesInString(String startingChain, String certificateToExclude) {
-		String remainString = startingChain;
-		
-		List<String> certificatesInChain = new ArrayList<String>();
-		
-		while(remainString.indexOf("-----BEGIN CERTIFICATE-----") != -1) {
-			int indexEndCerificate = remainString.indexOf("-----END CERTIFICATE-----") + 25;
-			certificatesInChain.add(
-					remainString.substring(remainString.indexOf("-----BEGIN CERTIFICATE-----"), 
-							indexEndCerificate));
-			remainString = remainString.substring(indexEndCerificate);			
-		}
-		
-		StringBuffer result = new StringBuffer();
-		
-		for (String certificateCurr : certificatesInChain) {
-			if(!(certificateCurr + "\n").equals(certificateToExclude)) {
-				result.append(certificateCurr + "\n");
+	private static boolean isSignatureValid(BasicOCSPResp basicResponse, X509Certificate issuer, Date now)
+			throws OCSPException {
+		try {
+			JcaContentVerifierProviderBuilder verifierBuilder = new JcaContentVerifierProviderBuilder();
+			if (basicResponse.isSignatureValid(verifierBuilder.build(issuer))) {
+				return true;
+			}
+			// delegated responder - certificate issued by the issuer for OCSP signing
+			ContentVerifierProvider issuerVerifier = verifierBuilder.build(issuer.getPublicKey());
+			for (X509CertificateHolder responderCertificate : basicResponse.getCerts()) {
+				if (responderCertificate.isValidOn(now)
+						&& responderCertificate.getIssuer().equals(new JcaX509CertificateHolder(issuer).getSubject())
+						&& isOcspSigner(responderCertificate)
+						&& responderCertificate.isSignatureValid(issuerVerifier)
+						&& basicResponse.isSignatureValid(verifierBuilder.build(responderCertificate))) {
+					return true;
+				}
 			}
+		} catch (OperatorCreationException | CertificateEncodingException | CertException e) {
+			logger.warn("Could not verify OCSP response signature: {}", e.getMessage());
 		}
-		
-		return result.toString();		
+		return false;
 	}
-	
-}
 
+	private static boolean isOcspSigner(X509CertificateHolder certificate) {
+		ExtendedKeyUsage extendedKeyUsage = ExtendedKeyUsage.fromExtensions(certificate.getExtensions());
+		return extendedKeyUsage != null && extendedKeyUsage.hasKeyPurposeId(KeyPurposeId.id_kp_OCSPSigning);
+	}
+
+	/**
+	 * Accepts any chain, used only to read the chain presented by the target
+	 */
+	private static class ChainCapturingTrustManager implements X509TrustManager {
+
+		@Override
+		public void checkClientTrusted(X509Certificate[] chain, String authType) {
+		}
+
+		@Override
+		public void checkServerTrusted(X509Certificate[] chain, String authType) {
+		}
+
+		@Override
+		public X509Certificate[] getAcceptedIssuers() {
+			return new X509Certificate[0];
+		}
+	}
+}
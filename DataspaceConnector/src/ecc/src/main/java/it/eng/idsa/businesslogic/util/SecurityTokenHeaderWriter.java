@@ -0,0 +1,100 @@
+package it.eng.idsa.businesslogic.util;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.fraunhofer.iais.eis.DynamicAttributeTokenBuilder;
+import de.fraunhofer.iais.eis.Message;
+import de.fraunhofer.iais.eis.Token;
+import de.fraunhofer.iais.eis.TokenFormat;
+import it.eng.idsa.multipart.processor.MultipartMessageProcessor;
+
+/**
+ * Sets <code>ids:securityToken</code> of a serialized IDS message header.<br>
+ * The header is copied token by token in one pass, replacing the existing security token or adding it at the end. The
+ * token itself is serialized once per token value, the DAPS token changes only when it is renewed.
+ */
+public class SecurityTokenHeaderWriter {
+
+	private static final String SECURITY_TOKEN = "ids:securityToken";
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private volatile SerializedToken serializedToken;
+
+	/**
+	 * @param message IDS message
+	 * @param token   DAT token value
+	 * @return JSON-LD of the message with the token
+	 * @throws IOException if the message can not be serialized
+	 */
+	public String write(Message message, String token) throws IOException {
+		return write(MultipartMessageProcessor.serializeToJsonLD(message), token);
+	}
+
+	/**
+	 * @param header JSON-LD of IDS message
+	 * @param token  DAT token value
+	 * @return JSON-LD of the message with the token
+	 * @throws IOException if the header is not a JSON object
+	 */
+	public String write(String header, String token) throws IOException {
+		JsonNode tokenNode = tokenNode(token);
+		StringWriter out = new StringWriter(header.length() + token.length() + 512);
+		try (JsonParser parser = MAPPER.getFactory().createParser(header);
+				JsonGenerator generator = MAPPER.getFactory().createGenerator(out)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new IOException("Message header is not a JSON object");
+			}
+			generator.writeStartObject();
+			boolean tokenWritten = false;
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String name = parser.getCurrentName();
+				parser.nextToken();
+				if (SECURITY_TOKEN.equals(name)) {
+					parser.skipChildren();
+					if (!tokenWritten) {
+						generator.writeFieldName(SECURITY_TOKEN);
+						generator.writeTree(tokenNode);
+						tokenWritten = true;
+					}
+				} else {
+					generator.writeFieldName(name);
+					generator.copyCurrentStructure(parser);
+				}
+			}
+			if (!tokenWritten) {
+				generator.writeFieldName(SECURITY_TOKEN);
+				generator.writeTree(tokenNode);
+			}
+			generator.writeEndObject();
+		}
+		return out.toString();
+	}
+
+	private JsonNode tokenNode(String token) throws IOException {
+		SerializedToken current = serializedToken;
+		if (current == null || !current.value.equals(token)) {
+			Token dat = new DynamicAttributeTokenBuilder()._tokenFormat_(TokenFormat.JWT)._tokenValue_(token).build();
+			current = new SerializedToken(token, MAPPER.readTree(MultipartMessageProcessor.serializeToJsonLD(dat)));
+			serializedToken = current;
+		}
+		return current.node;
+	}
+
+	private static final class SerializedToken {
+
+		private final String value;
+		private final JsonNode node;
+
+		SerializedToken(String value, JsonNode node) {
+			this.value = value;
+			this.node = node;
+		}
+	}
+}
@@ -0,0 +1,140 @@
+package it.eng.idsa.businesslogic.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.Okio;
+import okio.Source;
+
+/**
+ * Content of a received part; kept in memory up to <code>threshold</code> bytes, bigger content is moved to a
+ * temporary file, deleted on {@link #close()}.
+ */
+public class SpillBuffer implements Closeable {
+
+	private static final Logger logger = LoggerFactory.getLogger(SpillBuffer.class);
+
+	private static final long SEGMENT = 8192;
+
+	private Buffer memory;
+	private Path file;
+	private long size;
+
+	private SpillBuffer() {
+	}
+
+	/**
+	 * Reads the source to its end
+	 * @param source    content, not closed
+	 * @param threshold maximum number of bytes kept in memory
+	 * @param directory directory for the temporary file
+	 * @return buffer holding the content
+	 * @throws IOException if the source cannot be read or the file cannot be written
+	 */
+	public static SpillBuffer read(Source source, long threshold, Path directory) throws IOException {
+		SpillBuffer buffer = new SpillBuffer();
+		try {
+			buffer.fill(source, threshold, directory);
+		} catch (IOException e) {
+			buffer.close();
+			throw e;
+		}
+		return buffer;
+	}
+
+	private void fill(Source source, long threshold, Path directory) throws IOException {
+		Buffer content = new Buffer();
+		long read;
+		while ((read = source.read(content, SEGMENT)) != -1) {
+			size += read;
+			if (content.size() > threshold) {
+				file = Files.createTempFile(directory, "multipart_", ".part");
+				logger.debug("Part over {} bytes, spilling to {}", threshold, file);
+				try (BufferedSink sink = Okio.buffer(Okio.sink(file))) {
+					sink.writeAll(content);
+					size += sink.writeAll(source);
+				}
+				return;
+			}
+		}
+		memory = content;
+	}
+
+	public long size() {
+		return size;
+	}
+
+	public boolean isSpilled() {
+		return file != null;
+	}
+
+	/**
+	 * @return new stream over the content, to be closed by the caller
+	 */
+	public InputStream inputStream() throws IOException {
+		return file != null ? Files.newInputStream(file) : memory.copy().inputStream();
+	}
+
+	/**
+	 * Decodes the whole content, for parts that are needed as text
+	 * @param charset charset of the content
+	 * @return content
+	 */
+	public String readString(Charset charset) throws IOException {
+		if (file == null) {
+			return memory.copy().readString(charset);
+		}
+		try (BufferedSource source = Okio.buffer(Okio.source(file))) {
+			return source.readString(charset);
+		}
+	}
+
+	/**
+	 * @param contentType content type of the body, can be null
+	 * @return body writing the content to the sink, valid until the buffer is closed
+	 */
+	public RequestBody requestBody(MediaType contentType) throws IOException {
+		return file != null ? StreamingBodies.file(file, contentType) : new RequestBody() {
+			@Override
+			public MediaType contentType() {
+				return contentType;
+			}
+
+			@Override
+			public long contentLength() {
+				return size;
+			}
+
+			@Override
+			public void writeTo(BufferedSink sink) throws IOException {
+				sink.writeAll(memory.copy());
+			}
+		};
+	}
+
+	@Override
+	public void close() {
+		if (memory != null) {
+			memory.clear();
+		}
+		if (file != null) {
+			try {
+				Files.deleteIfExists(file);
+			} catch (IOException e) {
+				logger.error("Could not delete part file {}", file, e);
+			}
+		}
+	}
+}
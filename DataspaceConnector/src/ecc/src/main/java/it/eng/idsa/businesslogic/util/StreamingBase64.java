@@ -0,0 +1,172 @@
+package it.eng.idsa.businesslogic.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Base64 encoding and decoding of text payloads, done in chunks.<br>
+ * Text is encoded as UTF-8 and base64 encoded while it is read, so neither the UTF-8 bytes of the whole payload nor
+ * a base64 byte array are created; only the resulting String is.
+ */
+public final class StreamingBase64 {
+
+	private static final int CHUNK = 8192;
+
+	private StreamingBase64() {
+	}
+
+	/**
+	 * @param text payload
+	 * @return base64 of the UTF-8 encoded payload
+	 */
+	public static String encode(String text) {
+		StringBuilder encoded = new StringBuilder(encodedLength(text));
+		try (Writer writer = new OutputStreamWriter(Base64.getEncoder().wrap(new AsciiOutputStream(encoded)),
+				StandardCharsets.UTF_8)) {
+			for (int start = 0; start < text.length(); start += CHUNK) {
+				writer.write(text, start, Math.min(CHUNK, text.length() - start));
+			}
+		} catch (IOException e) {
+			// writes only to memory
+			throw new UncheckedIOException(e);
+		}
+		return encoded.toString();
+	}
+
+	/**
+	 * @param base64 base64 of UTF-8 encoded text
+	 * @return decoded text
+	 * @throws IllegalArgumentException if the content is not valid base64
+	 */
+	public static String decode(String base64) {
+		StringBuilder decoded = new StringBuilder(base64.length() / 4 * 3);
+		char[] buffer = new char[CHUNK];
+		try (Reader reader = new InputStreamReader(Base64.getDecoder().wrap(new AsciiInputStream(base64)),
+				StandardCharsets.UTF_8)) {
+			int read;
+			while ((read = reader.read(buffer)) != -1) {
+				decoded.append(buffer, 0, read);
+			}
+		} catch (IOException e) {
+			// decoder reports illegal characters and padding as IOException
+			throw new IllegalArgumentException(e.getMessage(), e);
+		}
+		return decoded.toString();
+	}
+
+	/**
+	 * Encodes the stream, for payloads that are not kept in memory
+	 * @param in  content, not closed
+	 * @param out receives base64 content, not closed
+	 */
+	public static void encode(InputStream in, OutputStream out) throws IOException {
+		OutputStream encoder = Base64.getEncoder().wrap(new NonClosingOutputStream(out));
+		in.transferTo(encoder);
+		// writes the padding
+		encoder.close();
+	}
+
+	/**
+	 * @param in  base64 content, not closed
+	 * @param out receives decoded content, not closed
+	 */
+	public static void decode(InputStream in, OutputStream out) throws IOException {
+		Base64.getDecoder().wrap(in).transferTo(out);
+	}
+
+	private static int encodedLength(String text) {
+		long bytes = okio.Utf8.size(text);
+		return (int) Math.min(Integer.MAX_VALUE - 8, (bytes + 2) / 3 * 4);
+	}
+
+	/**
+	 * Appends base64 output, which is ASCII, to the builder
+	 */
+	private static class AsciiOutputStream extends OutputStream {
+
+		private final StringBuilder builder;
+
+		AsciiOutputStream(StringBuilder builder) {
+			this.builder = builder;
+		}
+
+		@Override
+		public void write(int b) {
+			builder.append((char) (b & 0xFF));
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			for (int i = off; i < off + len; i++) {
+				builder.append((char) (b[i] & 0xFF));
+			}
+		}
+	}
+
+	/**
+	 * Reads the characters of a base64 String as bytes, characters over 0xFF are passed as invalid byte
+	 */
+	private static class AsciiInputStream extends InputStream {
+
+		private final String text;
+		private int position;
+
+		AsciiInputStream(String text) {
+			this.text = text;
+		}
+
+		@Override
+		public int read() {
+			if (position >= text.length()) {
+				return -1;
+			}
+			char c = text.charAt(position++);
+			return c <= 0xFF ? c : '?';
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (position >= text.length()) {
+				return -1;
+			}
+			int count = Math.min(len, text.length() - position);
+			for (int i = 0; i < count; i++) {
+				char c = text.charAt(position++);
+				b[off + i] = (byte) (c <= 0xFF ? c : '?');
+			}
+			return count;
+		}
+	}
+
+	private static class NonClosingOutputStream extends OutputStream {
+
+		private final OutputStream out;
+
+		NonClosingOutputStream(OutputStream out) {
+			this.out = out;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+		}
+
+		@Override
+		public void close() throws IOException {
+			out.flush();
+		}
+	}
+}
@@ -0,0 +1,129 @@
+package it.eng.idsa.businesslogic.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Source;
+import okio.Utf8;
+
+/**
+ * Request bodies written directly to the OkHttp sink.<br>
+ * Unlike <code>RequestBody.create(String)</code> the content is not copied into a byte array first, so a multipart
+ * body built from these parts holds no extra copy of the payload while it is sent.
+ */
+public final class StreamingBodies {
+
+	private StreamingBodies() {
+	}
+
+	/**
+	 * Same content type and encoding as <code>RequestBody.create(String, MediaType)</code>: without charset UTF-8 is
+	 * used and added to the content type.
+	 * @param content     text
+	 * @param contentType content type of the part, can be null
+	 * @return request body with known length
+	 */
+	public static RequestBody text(String content, MediaType contentType) {
+		Charset charset = contentType != null ? contentType.charset() : null;
+		if (charset == null) {
+			return utf8(content, contentType != null ? MediaType.parse(contentType + "; charset=utf-8") : null);
+		}
+		if (StandardCharsets.UTF_8.equals(charset)) {
+			return utf8(content, contentType);
+		}
+		return RequestBody.create(content, contentType);
+	}
+
+	/**
+	 * @param content     text, encoded as UTF-8 while it is written
+	 * @param contentType content type of the part, can be null
+	 * @return request body with known length
+	 */
+	public static RequestBody utf8(String content, MediaType contentType) {
+		long contentLength = Utf8.size(content);
+		return new RequestBody() {
+			@Override
+			public MediaType contentType() {
+				return contentType;
+			}
+
+			@Override
+			public long contentLength() {
+				return contentLength;
+			}
+
+			@Override
+			public void writeTo(BufferedSink sink) throws IOException {
+				sink.writeUtf8(content);
+			}
+		};
+	}
+
+	/**
+	 * Body that can be written only once, retries and redirects with a body fail
+	 * @param in            content, closed after it is written
+	 * @param contentType   content type of the part, can be null
+	 * @param contentLength number of bytes, -1 if unknown
+	 * @return request body
+	 */
+	public static RequestBody stream(InputStream in, MediaType contentType, long contentLength) {
+		return new RequestBody() {
+			@Override
+			public MediaType contentType() {
+				return contentType;
+			}
+
+			@Override
+			public long contentLength() {
+				return contentLength;
+			}
+
+			@Override
+			public boolean isOneShot() {
+				return true;
+			}
+
+			@Override
+			public void writeTo(BufferedSink sink) throws IOException {
+				try (Source source = Okio.source(in)) {
+					sink.writeAll(source);
+				}
+			}
+		};
+	}
+
+	/**
+	 * @param file        content
+	 * @param contentType content type of the part, can be null
+	 * @return request body, file is read every time the body is written
+	 */
+	public static RequestBody file(Path file, MediaType contentType) throws IOException {
+		long contentLength = Files.size(file);
+		return new RequestBody() {
+			@Override
+			public MediaType contentType() {
+				return contentType;
+			}
+
+			@Override
+			public long contentLength() {
+				return contentLength;
+			}
+
+			@Override
+			public void writeTo(BufferedSink sink) throws IOException {
+				try (Source source = Okio.source(file)) {
+					sink.writeAll(source);
+				}
+			}
+		};
+	}
+}
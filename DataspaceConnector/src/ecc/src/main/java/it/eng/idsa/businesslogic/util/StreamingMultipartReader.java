@@ -0,0 +1,211 @@
+package it.eng.idsa.businesslogic.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import it.eng.idsa.multipart.builder.MultipartMessageBuilder;
+import it.eng.idsa.multipart.domain.MultipartMessage;
+import it.eng.idsa.multipart.processor.MultipartMessageProcessor;
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.MultipartReader;
+import okhttp3.ResponseBody;
+
+/**
+ * Reads multipart responses part by part from the response stream.<br>
+ * Each part is copied into a {@link SpillBuffer}, parts over <code>application.multipart.spillThresholdBytes</code> go
+ * to a temporary file instead of the heap; the response is never read into a single String. {@link MultipartMessage}
+ * holds the payload as text, so a payload over <code>application.multipart.maxPayloadBytes</code> is rejected instead
+ * of being read back into the heap.
+ */
+@Component
+public class StreamingMultipartReader {
+
+	private static final Logger logger = LoggerFactory.getLogger(StreamingMultipartReader.class);
+
+	private static final Pattern PART_NAME = Pattern.compile("name=\"?([^\";]+)\"?");
+
+	private final long spillThreshold;
+	private final long maxPayloadBytes;
+	private final Path tempDirectory;
+
+	public StreamingMultipartReader(@Value("${application.multipart.spillThresholdBytes:1048576}") long spillThreshold,
+			@Value("${application.multipart.maxPayloadBytes:209715200}") long maxPayloadBytes,
+			@Value("${application.multipart.tempDirectory:${java.io.tmpdir}}") String tempDirectory) {
+		this.spillThreshold = spillThreshold;
+		this.maxPayloadBytes = maxPayloadBytes;
+		this.tempDirectory = Paths.get(tempDirectory);
+	}
+
+	/**
+	 * Reads the response into a multipart message.<br>
+	 * Header part is the part named <code>header</code>, or the first part; payload part is the part named
+	 * <code>payload</code>, or the second part. Body without multipart boundary is parsed as text.
+	 *
+	 * @param body response body, consumed
+	 * @return multipart message
+	 * @throws PayloadTooLargeException if the payload is over the maximum payload size
+	 * @throws IOException              if the body cannot be read or is not a valid multipart body
+	 */
+	public MultipartMessage read(ResponseBody body) throws IOException {
+		MediaType contentType = body.contentType();
+		if (contentType == null || contentType.parameter("boundary") == null) {
+			logger.debug("Response is not multipart with boundary, parsing it as text");
+			return MultipartMessageProcessor.parseMultipartMessage(body.string());
+		}
+		try (Parts parts = readParts(body)) {
+			ReceivedPart header = parts.get(MessagePart.HEADER, 0);
+			if (header == null) {
+				throw new IOException("Multipart response has no header part");
+			}
+			MultipartMessageBuilder builder = new MultipartMessageBuilder()
+					.withHeaderHeader(header.getHeaderMap())
+					.withHeaderContent(header.getContent().readString(header.getCharset()));
+			ReceivedPart payload = parts.get(MessagePart.PAYLOAD, 1);
+			if (payload != null) {
+				if (payload.getContent().size() > maxPayloadBytes) {
+					throw new PayloadTooLargeException(payload.getContent().size(), maxPayloadBytes);
+				}
+				// MultipartMessage holds the payload as text, it is decoded once, from the part buffer
+				builder.withPayloadHeader(payload.getHeaderMap())
+						.withPayloadContent(payload.getContent().readString(payload.getCharset()));
+			}
+			return builder.build();
+		}
+	}
+
+	/**
+	 * Reads all parts of the response.
+	 *
+	 * @param body multipart response body, consumed
+	 * @return parts, to be closed by the caller to delete the spilled content
+	 * @throws IOException if the body cannot be read or has no boundary
+	 */
+	public Parts readParts(ResponseBody body) throws IOException {
+		Parts parts = new Parts();
+		try (MultipartReader reader = new MultipartReader(body)) {
+			MultipartReader.Part part;
+			while ((part = reader.nextPart()) != null) {
+				try (MultipartReader.Part current = part) {
+					parts.add(new ReceivedPart(current.headers(),
+							SpillBuffer.read(current.body(), spillThreshold, tempDirectory)));
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			parts.close();
+			throw e;
+		}
+		return parts;
+	}
+
+	/**
+	 * Payload part is bigger than the spill threshold and can not be held as text
+	 */
+	public static class PayloadTooLargeException extends IOException {
+
+		private static final long serialVersionUID = 1L;
+
+		public PayloadTooLargeException(long size, long maxSize) {
+			super("Multipart payload of " + size + " bytes is over the limit of " + maxSize + " bytes");
+		}
+	}
+
+	public static class Parts implements Closeable {
+
+		private final List<ReceivedPart> parts = new ArrayList<>();
+
+		void add(ReceivedPart part) {
+			parts.add(part);
+		}
+
+		public List<ReceivedPart> getParts() {
+			return parts;
+		}
+
+		/**
+		 * @param name  name from content disposition
+		 * @param index position used when no part has the name
+		 * @return part, null if there is none
+		 */
+		public ReceivedPart get(String name, int index) {
+			for (ReceivedPart part : parts) {
+				if (name.equals(part.getName())) {
+					return part;
+				}
+			}
+			return index < parts.size() ? parts.get(index) : null;
+		}
+
+		@Override
+		public void close() {
+			parts.forEach(ReceivedPart::close);
+		}
+	}
+
+	public static class ReceivedPart implements Closeable {
+
+		private final Headers headers;
+		private final SpillBuffer content;
+
+		ReceivedPart(Headers headers, SpillBuffer content) {
+			this.headers = headers;
+			this.content = content;
+		}
+
+		public Headers getHeaders() {
+			return headers;
+		}
+
+		public Map<String, String> getHeaderMap() {
+			Map<String, String> map = new HashMap<>();
+			headers.names().forEach(name -> map.put(name, headers.get(name)));
+			return map;
+		}
+
+		/**
+		 * @return name from content disposition, null if not set
+		 */
+		public String getName() {
+			String disposition = headers.get(HttpHeaders.CONTENT_DISPOSITION);
+			if (disposition == null) {
+				return null;
+			}
+			Matcher matcher = PART_NAME.matcher(disposition);
+			return matcher.find() ? matcher.group(1) : null;
+		}
+
+		/**
+		 * @return charset from content type, UTF-8 if not set
+		 */
+		public Charset getCharset() {
+			String contentType = headers.get(HttpHeaders.CONTENT_TYPE);
+			MediaType mediaType = contentType != null ? MediaType.parse(contentType) : null;
+			return mediaType != null ? mediaType.charset(StandardCharsets.UTF_8) : StandardCharsets.UTF_8;
+		}
+
+		public SpillBuffer getContent() {
+			return content;
+		}
+
+		@Override
+		public void close() {
+			content.close();
+		}
+	}
+}
@@ -5,8 +5,6 @@ import java.io.*;
 import java.util.*;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipEntry;
-import java.util.concurrent.Semaphore;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -39,17 +37,20 @@ public class TensorECC {
   private static String encryptorAPI;
   private static String indexerAPI;
   private static TENSORConnectorRegistry registry;
+  private final TensorIndexingPipeline indexingPipeline;
 
   public TensorECC(
     @Value("${application.dataSharingPlatformAPI}") String dataSharingPlatformAPI, 
     @Value("${application.encryptorAPI}") String encryptorAPI, 
     @Value("${application.indexerAPI}") String indexerAPI,
-    TENSORConnectorRegistry registry) {
+    TENSORConnectorRegistry registry,
+    TensorIndexingPipeline indexingPipeline) {
     super();
     this.dataSharingPlatformAPI = dataSharingPlatformAPI;
     this.encryptorAPI = encryptorAPI;
     this.indexerAPI = indexerAPI;
     this.registry = registry;
+    this.indexingPipeline = indexingPipeline;
   }
 
   public static Map<String, List<TensorBiometricFile>> prepareBiometricFilesList(MultipartFile suspectProfileZip) throws IOException {
@@ -122,79 +123,6 @@ public class TensorECC {
       return biometricFilesList;
   }
 
-  // Limit to 2 concurrent requests to gpi-solid
-  private static final Semaphore semaphore = new Semaphore(2);
-
-  private static void sendRequest(TensorBiometricFile file, String biometricType, String user, String suspectProfileId, boolean sensitive, String solidToken) {
-    System.out.println("Sending request for " + suspectProfileId);
-    URL url;
-    HttpURLConnection connection = null;
-    JSONObject jsonObject = null;
-
-    try {   
-      //String biometricDataUrl = uploadBiometricSample(file, user, solidToken, suspectProfileId);
-      String encodedBiometricFile = encodeBiometricSample(file, user, solidToken, suspectProfileId);
-      url = new URL(indexerAPI + "/indexLocalData");
-      connection = (HttpURLConnection) url.openConnection();
-      connection.setDoInput(true);
-      connection.setDoOutput(true);
-      connection.setRequestMethod("POST");
-      connection.setRequestProperty("Content-type", "application/json; charset=UTF-8");
-
-      try (OutputStream os = connection.getOutputStream();
-          OutputStreamWriter osw = new OutputStreamWriter(os);
-          BufferedWriter wr = new BufferedWriter(osw)) {
-
-        // JSONObject bodyObject = new JSONObject();
-        // bodyObject.put("suspect_id", suspectProfileId);
-        // bodyObject.put("biometric_type", biometricType);
-        // bodyObject.put("full_biometric_data_url", encodedBiometricFile);
-        // bodyObject.put("owner", user);
-        // bodyObject.put("sensitive", sensitive);
-
-        // String body = bodyObject.toJSONString();
-        Map<String, Object> bodyMap = new HashMap<>();
-        bodyMap.put("suspect_id", suspectProfileId);
-        bodyMap.put("biometric_type", biometricType);
-        bodyMap.put("full_biometric_data_url", encodedBiometricFile);
-        bodyMap.put("owner", user);
-        bodyMap.put("sensitive", sensitive);
-
-        String body = new ObjectMapper().writeValueAsString(bodyMap);
-
-        wr.write(body);
-      }
-      System.out.println("Starting index for suspect " + suspectProfileId + " at " + System.currentTimeMillis());
-
-      int responseCode = connection.getResponseCode();
-      System.out.println("indexBiometricFile: " + responseCode);
-      System.out.println("Finished index for suspect " + suspectProfileId + " at " + System.currentTimeMillis() + " with response code " + responseCode);
-      connection.disconnect();
-    } catch (Exception e) {
-      e.printStackTrace();
-    }
-  }
-
-  public static void indexBiometricFile(TensorBiometricFile file, String biometricType, String user, String suspectProfileId, boolean sensitive, String solidToken) {
-    try {
-      // Acquire a "slot" for concurrency
-      semaphore.acquire();
-
-      // Optional: small sleep to reduce burstiness
-      Thread.sleep(5000); 
-
-      // --- Existing logic to send the request ---
-      sendRequest(file, biometricType, user, suspectProfileId, sensitive, solidToken);
-      Thread.sleep(10000); 
-    } catch (InterruptedException e) {
-      Thread.currentThread().interrupt();
-      System.err.println("Interrupted while waiting for semaphore: " + e.getMessage());
-    } finally {
-      // Release the slot so other threads can proceed
-      semaphore.release();
-    }
-  }
-
   public static String encodeBiometricSample(TensorBiometricFile file, String user, String solidToken, String suspectProfileId) {
     if (file == null || file.getContent() == null) {
         throw new IllegalArgumentException("Biometric file or content cannot be null");
@@ -266,35 +194,22 @@ public class TensorECC {
   }
 
 
-  public static Boolean indexBiometricSamples(MultipartFile biometricFileZip, String suspectProfileId, String user, boolean sensitive, String solidToken) {
+  public Boolean indexBiometricSamples(MultipartFile biometricFileZip, String suspectProfileId, String user, boolean sensitive, String solidToken) {
     try {
       Map<String, List<TensorBiometricFile>> files = prepareBiometricFilesList(biometricFileZip);
 
-      List<TensorBiometricFile> faceFiles = files.get("face");
-      List<TensorBiometricFile> fingerprintFiles = files.get("fingerprint");
-      List<TensorBiometricFile> voiceFiles = files.get("voice");
-      // Face
-      if (faceFiles != null) {
-        for (TensorBiometricFile file : faceFiles) {
-          System.out.println("Face file: " + file.getFileName() + " content type : " + file.getContentType());
-          indexBiometricFile(file, "image", user, suspectProfileId, sensitive, solidToken);
-        }
+      // Directory names in the suspect profile zip mapped to indexer biometric types
+      Map<String, List<TensorBiometricFile>> samples = new HashMap<>();
+      if (files.get("face") != null) {
+        samples.put("image", files.get("face"));
       }
-      // Fingerprint
-      if (fingerprintFiles != null) {
-        for (TensorBiometricFile file : fingerprintFiles) {
-          System.out.println("Fingerprint file: " + file.getFileName() + " content type : " + file.getContentType());
-          indexBiometricFile(file, "fingerprint", user, suspectProfileId, sensitive, solidToken);
-        }
+      if (files.get("fingerprint") != null) {
+        samples.put("fingerprint", files.get("fingerprint"));
       }
-      // Voice
-      if (voiceFiles != null) {
-        for (TensorBiometricFile file : voiceFiles) {
-          System.out.println("Voice file: " + file.getFileName() + " content type : " + file.getContentType());
-          indexBiometricFile(file, "voice", user, suspectProfileId, sensitive, solidToken);
-        }
+      if (files.get("voice") != null) {
+        samples.put("voice", files.get("voice"));
       }
-      return true;
+      return indexingPipeline.indexAll(samples, user, suspectProfileId, sensitive);
 
     } catch (Exception e) {
       logger.error("Error while indexing suspect profile biometric samples", e);
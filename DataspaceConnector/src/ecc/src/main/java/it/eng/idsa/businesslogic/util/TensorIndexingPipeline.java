@@ -0,0 +1,303 @@
+package it.eng.idsa.businesslogic.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Sends biometric samples to the indexer <code>/indexLocalData</code> endpoint.<br>
+ * Samples are queued into a bounded work queue and processed by a fixed worker pool, with
+ * all modalities of a suspect profile indexed in parallel. The number of requests in flight
+ * towards the indexer adapts to its response codes and latency (AIMD), failed requests are
+ * retried with jittered exponential backoff.
+ */
+@Component
+public class TensorIndexingPipeline {
+
+  private static final Logger logger = LoggerFactory.getLogger(TensorIndexingPipeline.class);
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final String indexerAPI;
+  private final int maxAttempts;
+  private final long baseBackoffMillis;
+  private final long maxBackoffMillis;
+  private final int connectTimeoutMillis;
+  private final int readTimeoutMillis;
+
+  private final ThreadPoolExecutor executor;
+  private final AdaptiveConcurrencyLimit limit;
+  private final MeterRegistry meterRegistry;
+
+  public TensorIndexingPipeline(
+    @Value("${application.indexerAPI}") String indexerAPI,
+    @Value("${application.indexer.workers:4}") int workers,
+    @Value("${application.indexer.queueCapacity:100}") int queueCapacity,
+    @Value("${application.indexer.minConcurrency:1}") int minConcurrency,
+    @Value("${application.indexer.maxConcurrency:4}") int maxConcurrency,
+    @Value("${application.indexer.targetLatencyMillis:10000}") long targetLatencyMillis,
+    @Value("${application.indexer.maxAttempts:3}") int maxAttempts,
+    @Value("${application.indexer.baseBackoffMillis:500}") long baseBackoffMillis,
+    @Value("${application.indexer.maxBackoffMillis:30000}") long maxBackoffMillis,
+    @Value("${application.indexer.connectTimeoutMillis:10000}") int connectTimeoutMillis,
+    @Value("${application.indexer.readTimeoutMillis:120000}") int readTimeoutMillis,
+    MeterRegistry meterRegistry) {
+    this.indexerAPI = indexerAPI;
+    this.maxAttempts = maxAttempts;
+    this.baseBackoffMillis = baseBackoffMillis;
+    this.maxBackoffMillis = maxBackoffMillis;
+    this.connectTimeoutMillis = connectTimeoutMillis;
+    this.readTimeoutMillis = readTimeoutMillis;
+    this.meterRegistry = meterRegistry;
+    this.limit = new AdaptiveConcurrencyLimit(minConcurrency, maxConcurrency, targetLatencyMillis);
+
+    AtomicInteger threadCount = new AtomicInteger();
+    // CallerRunsPolicy - when the queue is full the uploading thread indexes the sample itself,
+    // which slows down producers instead of dropping samples
+    this.executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        r -> {
+          Thread t = new Thread(r, "tensor-indexer-" + threadCount.incrementAndGet());
+          t.setDaemon(true);
+          return t;
+        },
+        new ThreadPoolExecutor.CallerRunsPolicy());
+
+    Gauge.builder("tensor.indexer.queue.depth", executor, e -> e.getQueue().size()).register(meterRegistry);
+    Gauge.builder("tensor.indexer.concurrency.limit", limit, AdaptiveConcurrencyLimit::getLimit).register(meterRegistry);
+    Gauge.builder("tensor.indexer.inflight", limit, AdaptiveConcurrencyLimit::getInFlight).register(meterRegistry);
+  }
+
+  /**
+   * Indexes all samples, grouped by biometric type, and waits for the result.
+   *
+   * @param samples map biometric type (image, fingerprint, voice) to samples
+   * @return true if every sample has been indexed
+   */
+  public boolean indexAll(Map<String, List<TensorBiometricFile>> samples, String user, String suspectProfileId, boolean sensitive) {
+    List<CompletableFuture<Boolean>> results = new ArrayList<>();
+    for (Map.Entry<String, List<TensorBiometricFile>> modality : samples.entrySet()) {
+      for (TensorBiometricFile file : modality.getValue()) {
+        results.add(submit(file, modality.getKey(), user, suspectProfileId, sensitive));
+      }
+    }
+    boolean allIndexed = true;
+    for (CompletableFuture<Boolean> result : results) {
+      allIndexed &= result.join();
+    }
+    logger.info("Indexed {} biometric samples for suspect {} - success: {}", results.size(), suspectProfileId, allIndexed);
+    return allIndexed;
+  }
+
+  public CompletableFuture<Boolean> submit(TensorBiometricFile file, String biometricType, String user, String suspectProfileId, boolean sensitive) {
+    return CompletableFuture.supplyAsync(() -> index(file, biometricType, user, suspectProfileId, sensitive), executor);
+  }
+
+  private boolean index(TensorBiometricFile file, String biometricType, String user, String suspectProfileId, boolean sensitive) {
+    byte[] body;
+    try {
+      Map<String, Object> bodyMap = new HashMap<>();
+      bodyMap.put("suspect_id", suspectProfileId);
+      bodyMap.put("biometric_type", biometricType);
+      bodyMap.put("full_biometric_data_url", Base64.getEncoder().encodeToString(file.getContent()));
+      bodyMap.put("owner", user);
+      bodyMap.put("sensitive", sensitive);
+      body = MAPPER.writeValueAsBytes(bodyMap);
+    } catch (IOException e) {
+      logger.error("Could not create indexer request for {}", file.getFileName(), e);
+      return false;
+    }
+
+    for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+      int responseCode = -1;
+      long start = System.nanoTime();
+      try {
+        limit.acquire();
+        start = System.nanoTime();
+        try {
+          responseCode = post(body);
+        } finally {
+          long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+          limit.release(latencyMillis, isOverloaded(responseCode));
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      } catch (IOException e) {
+        logger.warn("Indexing {} for suspect {} failed on attempt {}: {}", file.getFileName(), suspectProfileId, attempt, e.getMessage());
+      }
+      String outcome = responseCode >= 200 && responseCode < 300 ? "success" : "failure";
+      Timer.builder("tensor.indexer.request")
+          .tag("modality", biometricType)
+          .tag("outcome", outcome)
+          .register(meterRegistry)
+          .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+      if ("success".equals(outcome)) {
+        logger.debug("Indexed {} ({}) for suspect {}", file.getFileName(), biometricType, suspectProfileId);
+        return true;
+      }
+      if (responseCode != -1 && !isRetryable(responseCode)) {
+        logger.error("Indexer rejected {} for suspect {} with response code {}", file.getFileName(), suspectProfileId, responseCode);
+        return false;
+      }
+      if (attempt < maxAttempts && !sleep(backoff(attempt))) {
+        return false;
+      }
+    }
+    logger.error("Giving up indexing {} for suspect {} after {} attempts", file.getFileName(), suspectProfileId, maxAttempts);
+    return false;
+  }
+
+  private int post(byte[] body) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) new URL(indexerAPI + "/indexLocalData").openConnection();
+    connection.setConnectTimeout(connectTimeoutMillis);
+    connection.setReadTimeout(readTimeoutMillis);
+    connection.setDoOutput(true);
+    connection.setRequestMethod("POST");
+    connection.setRequestProperty("Content-type", "application/json; charset=UTF-8");
+    connection.setFixedLengthStreamingMode(body.length);
+    try (OutputStream os = connection.getOutputStream()) {
+      os.write(body);
+    }
+    int responseCode = connection.getResponseCode();
+    // response is drained and closed, not disconnected, so the connection can be kept alive
+    try (InputStream is = responseCode < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+      if (is != null) {
+        is.readAllBytes();
+      }
+    }
+    return responseCode;
+  }
+
+  private static boolean isOverloaded(int responseCode) {
+    return responseCode == -1 || responseCode == 429 || responseCode == 503;
+  }
+
+  private static boolean isRetryable(int responseCode) {
+    return responseCode == 408 || responseCode == 429 || responseCode >= 500;
+  }
+
+  /**
+   * Full jitter exponential backoff.
+   */
+  long backoff(int attempt) {
+    long cap = Math.min(maxBackoffMillis, baseBackoffMillis * (1L << Math.min(attempt - 1, 20)));
+    return ThreadLocalRandom.current().nextLong(cap + 1);
+  }
+
+  private static boolean sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  int getConcurrencyLimit() {
+    return limit.getLimit();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  /**
+   * Additive increase / multiplicative decrease limit of concurrent indexer requests.<br>
+   * Limit grows by one after a fast successful response and is halved when the indexer responds
+   * slower than the target latency or signals overload.
+   */
+  static class AdaptiveConcurrencyLimit {
+
+    private final int min;
+    private final int max;
+    private final long targetLatencyMillis;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private int limit;
+    private int inFlight;
+
+    AdaptiveConcurrencyLimit(int min, int max, long targetLatencyMillis) {
+      this.min = Math.max(1, min);
+      this.max = Math.max(this.min, max);
+      this.targetLatencyMillis = targetLatencyMillis;
+      this.limit = this.min;
+    }
+
+    void acquire() throws InterruptedException {
+      lock.lock();
+      try {
+        while (inFlight >= limit) {
+          available.await();
+        }
+        inFlight++;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    void release(long latencyMillis, boolean overloaded) {
+      lock.lock();
+      try {
+        inFlight--;
+        if (overloaded || latencyMillis > targetLatencyMillis) {
+          limit = Math.max(min, limit / 2);
+        } else if (limit < max) {
+          limit++;
+        }
+        available.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    int getLimit() {
+      lock.lock();
+      try {
+        return limit;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    int getInFlight() {
+      lock.lock();
+      try {
+        return inFlight;
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+}
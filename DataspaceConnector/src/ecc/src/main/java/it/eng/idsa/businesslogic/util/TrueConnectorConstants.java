@@ -3,4 +3,5 @@ package it.eng.idsa.businesslogic.util;
 public interface TrueConnectorConstants {
 	static final String CORRELATION_ID = "correlation-id";
 	static final String API_USER_ROLE = "API_USER";
+	static final String ENCODED_PAYLOAD = "Encoded-Payload";
 }
@@ -1,7 +1,9 @@
 package it.eng.idsa.businesslogic.web.rest;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
@@ -35,11 +37,17 @@ public class SelfDescription {
     @Operation(summary = "Valid self description document", tags = "Self description controller - only valid documents")
 	@ApiResponses(value = {
 			@ApiResponse(responseCode = "200", description = "Valid self description document", 
-					content = { @Content(mediaType = "application/json", schema = @Schema(implementation = BaseConnectorImpl.class)) }) })
+					content = { @Content(mediaType = "application/json", schema = @Schema(implementation = BaseConnectorImpl.class)) }),
+			@ApiResponse(responseCode = "304", description = "Self description not changed since version in If-None-Match header") })
     @GetMapping(path = "/", produces = MediaType.APPLICATION_JSON_VALUE)
     @Auditable(eventType = TrueConnectorEventType.SELF_DESCRIPTION)
     @ResponseBody
-    public String selfDescriptions() {
-        return selfDescriptionService.getConnectorSelfDescription();
+    public ResponseEntity<String> selfDescriptions() {
+    	// tag taken before document, if version changes in between client just fetches it again on next request
+    	String eTag = selfDescriptionService.getConnectorSelfDescriptionETag();
+        return ResponseEntity.ok()
+        		.cacheControl(CacheControl.noCache())
+        		.eTag(eTag)
+        		.body(selfDescriptionService.getConnectorSelfDescription());
     }
 }
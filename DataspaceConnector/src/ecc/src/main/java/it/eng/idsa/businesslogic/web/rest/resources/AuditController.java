@@ -1,7 +1,7 @@
 package it.eng.idsa.businesslogic.web.rest.resources;
 
 import java.time.LocalDate;
-import java.util.List;
+import java.time.LocalDateTime;
 
 import javax.servlet.http.HttpServletRequest;
 
@@ -14,10 +14,12 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.headers.Header;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -25,6 +27,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import it.eng.idsa.businesslogic.entity.AuditLog;
 import it.eng.idsa.businesslogic.service.AuditEventService;
+import it.eng.idsa.businesslogic.service.AuditLogPage;
 
 @Tag(name = "Audit controller", description = "Returns audit logs.")
 @RestController
@@ -33,26 +36,42 @@ public class AuditController {
 
 	private static final Logger logger = LoggerFactory.getLogger(AuditController.class);
 
+	public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
 	private AuditEventService auditService;
 
 	public AuditController(AuditEventService auditService) {
 		this.auditService = auditService;
 	}
 
-	@Operation(summary = "All audit logs", tags = "Audit controller - all audit logs")
-	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "All audit logs", content = {
-			@Content(mediaType = "application/json", schema = @Schema(implementation = AuditLog.class)) }) })
+	@Operation(summary = "Page of audit logs, in order of timestamp", tags = "Audit controller - all audit logs")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Page of audit logs", headers = {
+			@Header(name = NEXT_CURSOR_HEADER, description = "Cursor of the next page, missing on the last page") },
+			content = { @Content(mediaType = "application/json",
+					array = @ArraySchema(schema = @Schema(implementation = AuditLog.class))) }),
+			@ApiResponse(responseCode = "400", description = "Invalid cursor or limit") })
 	@GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
-	@ResponseBody
-	public ResponseEntity<List<AuditLog>> getAuditLogs(
-			@RequestParam(value = "date", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+	public ResponseEntity<StreamingResponseBody> getAuditLogs(
+			@RequestParam(value = "date", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+			@RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+			@RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+			@RequestParam(value = "eventType", required = false) String eventType,
+			@RequestParam(value = "correlationId", required = false) String correlationId,
+			@RequestParam(value = "cursor", required = false) String cursor,
+			@RequestParam(value = "limit", defaultValue = "100") int limit) {
 		if (date != null) {
-			logger.info("Fetching audit logs for date: {}", date);
-			return ResponseEntity.ok(auditService.getAuditEventsForDate(date));
-		} else {
-			logger.info("Fetching all audit logs");
-			return ResponseEntity.ok(auditService.getAllAuditEvents());
+			from = date.atStartOfDay();
+			to = date.plusDays(1).atStartOfDay();
+		}
+		logger.info("Fetching audit logs from: {}, to: {}, event type: {}, correlation id: {}", from, to, eventType,
+				correlationId);
+		AuditLogPage page = auditService.getAuditEvents(from, to, eventType, correlationId, cursor, limit);
+		ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+		if (page.getNextCursor() != null) {
+			response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
 		}
+		return response.contentType(MediaType.APPLICATION_JSON)
+				.body(out -> auditService.writeAuditEvents(page, out));
 	}
 	
 	 @ExceptionHandler(IllegalArgumentException.class)
@@ -18,7 +18,10 @@ import java.net.URL;
 
 import java.util.UUID;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import javax.imageio.ImageIO;
 import javax.print.attribute.standard.Media;
@@ -33,6 +36,7 @@ import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -62,8 +66,11 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import it.eng.idsa.businesslogic.audit.Auditable;
 import it.eng.idsa.businesslogic.audit.TrueConnectorEvent;
 import it.eng.idsa.businesslogic.audit.TrueConnectorEventType;
+import it.eng.idsa.businesslogic.entity.ResourceIngestionJob;
+import it.eng.idsa.businesslogic.service.ResourceIngestionService;
 import it.eng.idsa.businesslogic.service.resources.JsonException;
 import it.eng.idsa.businesslogic.service.resources.OfferedResourceService;
+import it.eng.idsa.businesslogic.service.resources.ResourceNotFoundException;
 import it.eng.idsa.multipart.processor.MultipartMessageProcessor;
 import it.eng.idsa.businesslogic.util.TensorECC;
 
@@ -80,13 +87,16 @@ public class OfferedResourceController {
 
   private ApplicationEventPublisher publisher;
   private final TensorECC tensorECC;
+  private final ResourceIngestionService ingestionService;
 
-  public OfferedResourceController(@Value("${application.dataSharingPlatformAPI}") String dataSharingPlatformAPI, OfferedResourceService service, ApplicationEventPublisher publisher, TensorECC tensorECC) {
+  public OfferedResourceController(@Value("${application.dataSharingPlatformAPI}") String dataSharingPlatformAPI, OfferedResourceService service, ApplicationEventPublisher publisher, TensorECC tensorECC,
+      ResourceIngestionService ingestionService) {
     super();
     this.dataSharingPlatformAPI = dataSharingPlatformAPI;
     this.service = service;
     this.publisher = publisher;
     this.tensorECC = tensorECC;
+    this.ingestionService = ingestionService;
   }
 
   @Operation(tags = "Offered resource controller", summary = "Get requested resource")
@@ -102,13 +112,14 @@ public class OfferedResourceController {
     return ResponseEntity.ok(MultipartMessageProcessor.serializeToJsonLD(resourceGet));
   }
 
-  @Operation(tags = "Offered resource controller", summary = "Add new resource")
+  @Operation(tags = "Offered resource controller", summary = "Add new resource", description = "Suspect profile is indexed, "
+      + "encrypted, stored and registered in the background, progress is available on the returned job")
   @ApiResponses(value = {
-      @ApiResponse(responseCode = "200", description = "Returns modified connector", content = {
-          @Content(mediaType = "multipart/form-data", schema = @Schema(implementation = BaseConnectorImpl.class)) }) })
+      @ApiResponse(responseCode = "202", description = "Returns created resource ingestion job", content = {
+          @Content(mediaType = "application/json") }) })
   @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
   @ResponseBody
-  public ResponseEntity<String> addOrUpdateResource(@RequestHeader("catalog") URI catalog,
+  public ResponseEntity<Map<String, Object>> addOrUpdateResource(@RequestHeader("catalog") URI catalog,
       @RequestHeader("solidToken") String solidToken,
       @RequestPart(value = "suspectProfileZip", required = true) MultipartFile resourceFile,
       @RequestPart("suspectProfileInfo") String suspectProfileInfo,
@@ -119,66 +130,70 @@ public class OfferedResourceController {
     // Check for potential errors before proceeding to creations
     String contentType = resourceFile.getContentType();
 
-    // We will set the suspect profile Id to the value of correlationId
+    // Correlation id of the request is the id of the ingestion job
     String correlationId = UUID.randomUUID().toString();
-    System.out.println("correlationId " + correlationId);
     // Check whether appropriate type is provided in the request body parts
     if (!"application/zip".equals(contentType) && !"application/x-zip-compressed".equals(contentType)) {
       throw new IOException("Provided file is not of type zip.");
     }
     publisher.publishEvent(
         new TrueConnectorEvent(request, TrueConnectorEventType.HTTP_REQUEST_RECEIVED, correlationId, suspectProfileInfo));
-    Connector modifiedConnector = null;
+    ResourceIngestionJob job = null;
     try {
-      // Part 4: Register resource in Connector's Catalog
       Serializer s = new Serializer();
       Resource r = s.deserialize(suspectProfileInfo, Resource.class);
       logger.info("Adding offered resource with id '{}' to catalog '{}'", r.getId(), catalog);
-      
-      String suspectProfileId = r.getId().toString().substring(r.getId().toString().lastIndexOf("/") + 1);
-      System.out.println(suspectProfileId); 
-
-      // Part 1: Use Indexer Component to generate the Hashed Indexes and store the produced results in the Solid Pod
-      System.out.println("Raw sensitive string from request: " + sensitive);
-
-      boolean isSensitive = "true".equalsIgnoreCase(sensitive);
-
-      // if (isSensitive) {
-      //   Boolean indexingComplete = tensorECC.indexBiometricSamples(
-      //     resourceFile,
-      //     suspectProfileId.toString(),
-      //     user,
-      //     isSensitive,
-      //     solidToken
-      //   );
-
-      //   if (!indexingComplete) {
-      //     throw new IOException("Indexing of biometric data has failed.");
-      //   }
-      // } else {
-      //   // Optionally, log that indexing was skipped
-      //   System.out.println("Sensitive flag is false. Skipping biometric indexing.");
-      // }
-
-      Boolean indexingComplete = tensorECC.indexBiometricSamples(resourceFile, suspectProfileId.toString(), user, isSensitive, solidToken);
-      if (!indexingComplete) {
-        throw new IOException("Indexing of biometric data has failed.");
-      }
-
-      // Part 2: Encrypt suspect profile
-      byte[] encryptedSuspectProfile = tensorECC.queryEncryptor("face", resourceFile, suspectProfileId + ".zip", user);
-
-      // Part 3: Use DSP & Solid Pod to store the AES encrypted resources to the Solid Pod
-      Boolean storingComplete = tensorECC.storeSuspectProfile(solidToken, user, suspectProfileId, encryptedSuspectProfile);
-
-      modifiedConnector = service.addOfferedResource(catalog, r);
-      publisher.publishEvent(new TrueConnectorEvent(request, TrueConnectorEventType.OFFERED_RESOURCE_CREATED, suspectProfileId)); 
+
+      String principal = request.getUserPrincipal() != null ? request.getUserPrincipal().getName() : "anonymousUser";
+      job = ingestionService.submit(correlationId, catalog, r, resourceFile, user, "true".equalsIgnoreCase(sensitive),
+          solidToken, principal);
     } catch (IOException e) {
       publisher.publishEvent(
           new TrueConnectorEvent(request, TrueConnectorEventType.OFFERED_RESOURCE_CREATION_FAILED, correlationId));
       throw new JsonException("Error while processing request\n" + e.getMessage());
     }
-    return ResponseEntity.ok(MultipartMessageProcessor.serializeToJsonLD(modifiedConnector));
+    return ResponseEntity.accepted()
+        .location(URI.create("jobs/" + job.getId()))
+        .body(jobStatus(job));
+  }
+
+  @Operation(tags = "Offered resource controller", summary = "Status of resource ingestion job")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Returns state and progress of the job", content = {
+          @Content(mediaType = "application/json") }) })
+  @GetMapping(path = "jobs/{jobId}", produces = MediaType.APPLICATION_JSON_VALUE)
+  @ResponseBody
+  public ResponseEntity<Map<String, Object>> getJob(@PathVariable("jobId") String jobId) {
+    ResourceIngestionJob job = ingestionService.getJob(jobId)
+        .orElseThrow(() -> new ResourceNotFoundException("Resource ingestion job with id '" + jobId + "' not found"));
+    return ResponseEntity.ok(jobStatus(job));
+  }
+
+  @Operation(tags = "Offered resource controller", summary = "Resource ingestion jobs in progress")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Returns state and progress of jobs not completed or failed", content = {
+          @Content(mediaType = "application/json") }) })
+  @GetMapping(path = "jobs", produces = MediaType.APPLICATION_JSON_VALUE)
+  @ResponseBody
+  public ResponseEntity<List<Map<String, Object>>> getActiveJobs() {
+    return ResponseEntity.ok(ingestionService.getActiveJobs().stream()
+        .map(OfferedResourceController::jobStatus)
+        .collect(Collectors.toList()));
+  }
+
+  private static Map<String, Object> jobStatus(ResourceIngestionJob job) {
+    Map<String, Object> status = new LinkedHashMap<>();
+    status.put("jobId", job.getId());
+    status.put("resourceId", job.getResourceId());
+    status.put("catalog", job.getCatalog());
+    status.put("state", job.getState());
+    status.put("status", job.isFailed() ? "FAILED" : job.getState().isCompleted() ? "COMPLETED" : "IN_PROGRESS");
+    status.put("progress", job.getProgress());
+    status.put("attempts", job.getAttempts());
+    status.put("lastError", job.getLastError());
+    status.put("createdAt", job.getCreatedAt());
+    status.put("updatedAt", job.getUpdatedAt());
+    return status;
   }
 
   @Operation(tags = "Offered resource controller", summary = "Update existing resource")
@@ -21,7 +21,6 @@ import it.eng.idsa.businesslogic.audit.Auditable;
 import it.eng.idsa.businesslogic.audit.TrueConnectorEventType;
 import it.eng.idsa.businesslogic.service.resources.JsonException;
 import it.eng.idsa.businesslogic.service.resources.SelfDescription;
-import it.eng.idsa.multipart.processor.MultipartMessageProcessor;
 
 @Tag(name = "Self description controller", description = "Returns document as is, regardless if it's valid or not")
 @RestController
@@ -39,9 +38,7 @@ public class SelfDescriptionController {
 	public ResponseEntity<String> getSelfDescription()  {
 		logger.debug("Fetching self description");
 		try {
-			return ResponseEntity.ok(
-					MultipartMessageProcessor.serializeToJsonLD(
-							SelfDescription.getInstance().getConnector()));
+			return ResponseEntity.ok(SelfDescription.getInstance().getSnapshot().getJsonLd());
 		} catch (IOException e) {
 			throw new JsonException("Error while fetching self description document via API");
 		}
@@ -0,0 +1,143 @@
+package it.eng.idsa.businesslogic.audit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.camel.CamelAuthorizationException;
+import org.apache.camel.CamelContext;
+import org.apache.camel.CamelExecutionException;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.ProducerTemplate;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import it.eng.idsa.businesslogic.processor.exception.ExceptionProcessorReceiver;
+
+/**
+ * Sample messages are sent through Camel routes with the metrics route policy and a processor advised by
+ * {@link CamelProcessorAspect}
+ */
+public class ConnectorMetricsTest {
+
+	private PrometheusMeterRegistry meterRegistry;
+	private CamelContext camelContext;
+	private ProducerTemplate producerTemplate;
+	private CountDownLatch release = new CountDownLatch(1);
+
+	@BeforeEach
+	public void setup() throws Exception {
+		meterRegistry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+
+		CamelProcessorAspect aspect = new CamelProcessorAspect();
+		ReflectionTestUtils.setField(aspect, "publisher", mock(ApplicationEventPublisher.class));
+		ReflectionTestUtils.setField(aspect, "meterRegistry", meterRegistry);
+		AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new ExceptionProcessorReceiver());
+		proxyFactory.addAspect(aspect);
+		Processor processor = proxyFactory.getProxy();
+
+		camelContext = new DefaultCamelContext();
+		camelContext.addRoutePolicyFactory(new RouteMetricsPolicyFactory(meterRegistry));
+		camelContext.addRoutes(new RouteBuilder() {
+			@Override
+			public void configure() {
+				onException(IllegalStateException.class)
+					.handled(true)
+					.setBody(constant("Rejected"));
+
+				from("direct:sample").routeId("sample")
+					.process(exchange -> {
+						if (exchange.getMessage().getHeader("deny", false, Boolean.class)) {
+							exchange.setProperty(Exchange.EXCEPTION_CAUGHT,
+									new CamelAuthorizationException("Denied", exchange));
+						}
+					})
+					// fails with NullPointerException when there is no exception to map
+					.process(processor)
+					.removeProperty(Exchange.EXCEPTION_CAUGHT);
+
+				from("direct:rejected").routeId("rejected")
+					.throwException(new IllegalStateException("Rejected"));
+
+				from("direct:slow").routeId("slow")
+					.process(exchange -> release.await(5, TimeUnit.SECONDS));
+			}
+		});
+		camelContext.start();
+		producerTemplate = camelContext.createProducerTemplate();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		camelContext.stop();
+	}
+
+	@Test
+	public void metricsOfSampleMessages() {
+		for (int i = 0; i < 5; i++) {
+			assertEquals("Access denied", producerTemplate.requestBodyAndHeader("direct:sample", "message", "deny", true));
+		}
+		for (int i = 0; i < 2; i++) {
+			assertThrows(CamelExecutionException.class, () -> producerTemplate.requestBody("direct:sample", "message"));
+		}
+		assertEquals("Rejected", producerTemplate.requestBody("direct:rejected", "message"));
+
+		assertEquals(5, meterRegistry.get("connector.processor").tag("processor", "ExceptionProcessorReceiver")
+				.tag("outcome", "success").timer().count());
+		assertEquals(2, meterRegistry.get("connector.processor").tag("processor", "ExceptionProcessorReceiver")
+				.tag("outcome", "failure").tag("exception", "NullPointerException").timer().count());
+
+		assertEquals(5, meterRegistry.get("connector.route").tag("route", "sample").tag("outcome", "success").timer().count());
+		assertEquals(2, meterRegistry.get("connector.route").tag("route", "sample").tag("outcome", "failure").timer().count());
+		assertEquals(2, meterRegistry.get("connector.route.errors").tag("route", "sample")
+				.tag("exception", "NullPointerException").counter().count());
+		// handled by onException, still counted as error
+		assertEquals(1, meterRegistry.get("connector.route.errors").tag("route", "rejected")
+				.tag("exception", "IllegalStateException").counter().count());
+		assertEquals(0, meterRegistry.get("connector.route.inflight").tag("route", "sample").gauge().value());
+	}
+
+	@Test
+	public void inflightExchanges() throws Exception {
+		CompletableFuture<Object> first = producerTemplate.asyncRequestBody("direct:slow", "message");
+		CompletableFuture<Object> second = producerTemplate.asyncRequestBody("direct:slow", "message");
+		long deadline = System.currentTimeMillis() + 5000;
+		while (meterRegistry.get("connector.route.inflight").tag("route", "slow").gauge().value() < 2
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+
+		assertEquals(2, meterRegistry.get("connector.route.inflight").tag("route", "slow").gauge().value());
+		release.countDown();
+		first.get(5, TimeUnit.SECONDS);
+		second.get(5, TimeUnit.SECONDS);
+		assertEquals(0, meterRegistry.get("connector.route.inflight").tag("route", "slow").gauge().value());
+	}
+
+	@Test
+	public void prometheusFormat() {
+		producerTemplate.requestBodyAndHeader("direct:sample", "message", "deny", true);
+
+		String scrape = meterRegistry.scrape();
+
+		assertTrue(scrape.contains("connector_route_seconds_bucket{"), scrape);
+		assertTrue(scrape.contains("connector_route_seconds_count{outcome=\"success\",route=\"sample\""), scrape);
+		assertTrue(scrape.contains("connector_route_inflight{route=\"sample\""), scrape);
+		assertTrue(scrape.contains("connector_processor_seconds_count{exception=\"none\",outcome=\"success\","
+				+ "processor=\"ExceptionProcessorReceiver\""), scrape);
+	}
+}
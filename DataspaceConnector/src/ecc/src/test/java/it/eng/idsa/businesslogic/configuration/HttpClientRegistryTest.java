@@ -0,0 +1,185 @@
+package it.eng.idsa.businesslogic.configuration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.eng.idsa.businesslogic.configuration.HttpClientConfiguration.Client;
+import it.eng.idsa.businesslogic.configuration.HttpClientConfiguration.Destination;
+import it.eng.idsa.businesslogic.configuration.HttpClientRegistry.BulkheadFullException;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Calls an embedded clearing house stub that hangs and an embedded data app stub that answers immediately
+ */
+public class HttpClientRegistryTest {
+
+	private static final int CLEARING_HOUSE_CALLS = 4;
+
+	private MeterRegistry meterRegistry;
+	private HttpClientRegistry registry;
+
+	private HttpServer clearingHouse;
+	private HttpServer dataApp;
+	private final CountDownLatch clearingHouseEntered = new CountDownLatch(CLEARING_HOUSE_CALLS);
+	private final CountDownLatch clearingHouseRelease = new CountDownLatch(1);
+
+	private ExecutorService executor;
+
+	@BeforeEach
+	public void setup() throws IOException {
+		meterRegistry = new SimpleMeterRegistry();
+
+		clearingHouse = stub(exchange -> {
+			clearingHouseEntered.countDown();
+			try {
+				clearingHouseRelease.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			respond(exchange);
+		});
+		dataApp = stub(exchange -> respond(exchange));
+
+		HttpClientConfiguration configuration = new HttpClientConfiguration();
+		Client clearingHouseClient = new Client();
+		clearingHouseClient.setMaxConcurrentCalls(CLEARING_HOUSE_CALLS);
+		configuration.getClients().put(Destination.CLEARING_HOUSE, clearingHouseClient);
+
+		Map<Destination, String> urls = new EnumMap<>(Destination.class);
+		urls.put(Destination.CLEARING_HOUSE, baseUrl(clearingHouse) + "/");
+		urls.put(Destination.DATA_APP, baseUrl(dataApp) + "/data");
+		urls.put(Destination.BROKER, "");
+
+		OkHttpClient base = new OkHttpClient();
+		registry = new HttpClientRegistry(base, base, configuration, urls, meterRegistry);
+		executor = Executors.newCachedThreadPool();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		clearingHouseRelease.countDown();
+		executor.shutdownNow();
+		registry.shutdown();
+		clearingHouse.stop(0);
+		dataApp.stop(0);
+	}
+
+	@Test
+	public void routesByOrigin() {
+		assertEquals(Destination.CLEARING_HOUSE, registry.destinationOf(baseUrl(clearingHouse) + "/messages/log/1"));
+		assertEquals(Destination.DATA_APP, registry.destinationOf(baseUrl(dataApp) + "/other"));
+		assertEquals(Destination.CONNECTOR, registry.destinationOf("https://remote.connector:8889/data"));
+		assertEquals(Destination.CONNECTOR, registry.destinationOf("not a url"));
+		assertNotSame(registry.client(Destination.CLEARING_HOUSE), registry.client(Destination.DATA_APP));
+		assertNotSame(registry.client(Destination.CLEARING_HOUSE).connectionPool(),
+				registry.client(Destination.DATA_APP).connectionPool());
+	}
+
+	@Test
+	public void reusesConnections() throws IOException {
+		call(baseUrl(dataApp) + "/data");
+		call(baseUrl(dataApp) + "/data");
+
+		assertEquals(1, acquired("false"));
+		assertEquals(1, acquired("true"));
+		assertEquals(1, meterRegistry.get("http.client.pool.connections").tag("destination", "data_app")
+				.tag("state", "idle").gauge().value());
+	}
+
+	@Test
+	public void slowDestinationDoesNotBlockOthers() throws Exception {
+		String clearingHouseUrl = baseUrl(clearingHouse) + "/messages/log/1";
+		String dataAppUrl = baseUrl(dataApp) + "/data";
+		// warm up data app connection
+		call(dataAppUrl);
+
+		List<Future<Integer>> hanging = new ArrayList<>();
+		for (int i = 0; i < CLEARING_HOUSE_CALLS; i++) {
+			hanging.add(executor.submit(() -> call(clearingHouseUrl)));
+		}
+		assertTrue(clearingHouseEntered.await(10, TimeUnit.SECONDS));
+		assertEquals(CLEARING_HOUSE_CALLS, meterRegistry.get("http.client.bulkhead.calls")
+				.tag("destination", "clearing_house").gauge().value());
+
+		assertThrows(BulkheadFullException.class, () -> call(clearingHouseUrl));
+
+		for (int i = 0; i < 50; i++) {
+			assertEquals(200, call(dataAppUrl));
+		}
+		assertEquals(1, meterRegistry.get("http.client.bulkhead.rejected").tag("destination", "clearing_house")
+				.counter().count());
+		assertEquals(1, meterRegistry.get("http.client.bulkhead.saturated").tag("destination", "clearing_house")
+				.counter().count());
+		assertEquals(0, meterRegistry.get("http.client.bulkhead.saturated").tag("destination", "data_app")
+				.counter().count());
+
+		clearingHouseRelease.countDown();
+		for (Future<Integer> future : hanging) {
+			assertEquals(200, future.get(10, TimeUnit.SECONDS));
+		}
+		assertEquals(0, meterRegistry.get("http.client.bulkhead.calls").tag("destination", "clearing_house")
+				.gauge().value());
+	}
+
+	private int call(String url) throws IOException {
+		Request request = new Request.Builder().url(url).build();
+		try (Response response = registry.clientFor(url).newCall(request).execute()) {
+			response.body().string();
+			return response.code();
+		}
+	}
+
+	private double acquired(String reused) {
+		return meterRegistry.get("http.client.connections.acquired").tag("destination", "data_app")
+				.tag("reused", reused).counter().count();
+	}
+
+	private HttpServer stub(HttpHandler handler) throws IOException {
+		HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/", handler);
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.start();
+		return server;
+	}
+
+	private static void respond(HttpExchange exchange) throws IOException {
+		byte[] response = "OK".getBytes();
+		exchange.sendResponseHeaders(200, response.length);
+		try (OutputStream os = exchange.getResponseBody()) {
+			os.write(response);
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private static String baseUrl(HttpServer server) {
+		return "http://localhost:" + server.getAddress().getPort();
+	}
+}
@@ -1,7 +1,11 @@
 package it.eng.idsa.businesslogic.listener;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Collection;
@@ -50,8 +54,11 @@ public class LoggingAuditEventListenerTest {
 	public void onTrueConnectorEvent() {
 		multipartMessage = new MultipartMessage(null, null, UtilMessageService.getArtifactRequestMessage(), null, null,
 				null, null, null);
-		TrueConnectorEvent tcEvent = new TrueConnectorEvent(TrueConnectorEventType.CONNECTOR, multipartMessage);
+		TrueConnectorEvent tcEvent = new TrueConnectorEvent(TrueConnectorEventType.CONNECTOR, multipartMessage, "correlation");
 		listener.on(tcEvent);
+
+		verify(auditEventService).recordAuditEvent(contains(TrueConnectorEventType.CONNECTOR.name()),
+				eq(TrueConnectorEventType.CONNECTOR.name()), eq("correlation"));
 	}
 
 	@Test
@@ -64,5 +71,8 @@ public class LoggingAuditEventListenerTest {
 		when(filterInvocation.getRequestUrl()).thenReturn("/some/url/test");
 
 		listener.on(event);
+
+		verify(auditEventService).recordAuditEvent(contains("/some/url/test"),
+				eq(TrueConnectorEventType.USER_AUTHORIZATION_FAILURE.name()), isNull());
 	}
 }
@@ -5,6 +5,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Base64;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
@@ -21,6 +22,7 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import it.eng.idsa.businesslogic.service.impl.PayloadTransformationServiceImpl;
 import it.eng.idsa.businesslogic.util.MultipartMessageUtil;
 import it.eng.idsa.multipart.domain.MultipartMessage;
 import it.eng.idsa.multipart.util.UtilMessageService;
@@ -44,6 +46,8 @@ public class DeModifyPayloadProcessorTest {
 	public void setup() {
 		MockitoAnnotations.openMocks(this);
 		ReflectionTestUtils.setField(processor, "encodeDecodePayload", Boolean.TRUE, Boolean.class);
+		ReflectionTestUtils.setField(processor, "payloadTransformationService",
+				new PayloadTransformationServiceImpl(List.of("application/octet-stream"), 1024, System.getProperty("java.io.tmpdir")));
 		
 		when(exchange.getMessage()).thenReturn(camelMessage);
 	}
@@ -7,6 +7,8 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Base64;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.camel.Exchange;
 import org.apache.camel.Message;
@@ -19,7 +21,9 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import it.eng.idsa.businesslogic.service.impl.PayloadTransformationServiceImpl;
 import it.eng.idsa.businesslogic.util.MultipartMessageUtil;
+import it.eng.idsa.multipart.builder.MultipartMessageBuilder;
 import it.eng.idsa.multipart.domain.MultipartMessage;
 import it.eng.idsa.multipart.util.UtilMessageService;
 
@@ -42,6 +46,8 @@ public class ModifyPayloadProcessorTest {
 	public void setup() {
 		MockitoAnnotations.openMocks(this);
 		ReflectionTestUtils.setField(processor, "encodeDecodePayload", Boolean.TRUE, Boolean.class);
+		ReflectionTestUtils.setField(processor, "payloadTransformationService",
+				new PayloadTransformationServiceImpl(List.of("application/octet-stream"), 1024, System.getProperty("java.io.tmpdir")));
 	}
 	
 	@Test
@@ -67,4 +73,18 @@ public class ModifyPayloadProcessorTest {
 		
 		verify(camelMessage, times(0)).setBody(any(MultipartMessage.class));
 	}
+	
+	@Test
+	public void modifyPayload_passThroughContentType() throws Exception {
+		when(exchange.getMessage()).thenReturn(camelMessage);
+		multipartMessage = new MultipartMessageBuilder()
+				.withHeaderContent(UtilMessageService.getArtifactResponseMessage())
+				.withPayloadHeader(Map.of("Content-Type", "application/octet-stream"))
+				.withPayloadContent("PAYLOAD")
+				.build();
+		when(camelMessage.getBody(MultipartMessage.class)).thenReturn(multipartMessage);
+		processor.process(exchange);
+		
+		verify(camelMessage, times(0)).setBody(any(MultipartMessage.class));
+	}
 }
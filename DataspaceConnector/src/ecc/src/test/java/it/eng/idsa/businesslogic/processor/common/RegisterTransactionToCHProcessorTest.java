@@ -22,6 +22,7 @@ import de.fraunhofer.iais.eis.RejectionReason;
 import it.eng.idsa.businesslogic.configuration.ClearingHouseConfiguration;
 import it.eng.idsa.businesslogic.service.ClearingHouseService;
 import it.eng.idsa.businesslogic.service.RejectionMessageService;
+import it.eng.idsa.businesslogic.service.impl.ClearingHouseOutbox;
 import it.eng.idsa.businesslogic.usagecontrol.service.UsageControlService;
 import it.eng.idsa.businesslogic.util.Helper;
 import it.eng.idsa.multipart.domain.MultipartMessage;
@@ -41,6 +42,9 @@ public class RegisterTransactionToCHProcessorTest {
 	@Mock
 	private ClearingHouseService chs;
 	
+	@Mock
+	private ClearingHouseOutbox outbox;
+	
 	@Mock
 	private UsageControlService ucs;
 	
@@ -70,7 +74,7 @@ public class RegisterTransactionToCHProcessorTest {
 		MockitoAnnotations.openMocks(this);
 		clearingHouseService = Optional.of(chs);
 		usageControlService = Optional.of(ucs);
-		processor = new RegisterTransactionToCHProcessor(configuration, clearingHouseService, usageControlService, rejectionMessageService, publisher, false, false);
+		processor = new RegisterTransactionToCHProcessor(configuration, clearingHouseService, Optional.of(outbox), usageControlService, rejectionMessageService, publisher, false, false);
 		requestMessage = UtilMessageService.getArtifactRequestMessage();
 		contractAgreementMessage = UtilMessageService.getContractAgreementMessage();
 		contractAgreement  = UtilMessageService.getContractAgreement();
@@ -84,37 +88,37 @@ public class RegisterTransactionToCHProcessorTest {
 		
 		processor.process(exchange);
 		
-		verify(clearingHouseService.get(), times(0)).registerTransaction(requestMessage, null);
+		verify(outbox, times(0)).registerTransaction(requestMessage, null);
 	}
 	
 	@Test
 	public void clearingHouseInteractionSuccesfullArtifactMessage() throws Exception {
 		when(multipartMessage.getHeaderContent()).thenReturn(requestMessage);
-		when(chs.registerTransaction(any(), any())).thenReturn(true);
+		when(outbox.registerTransaction(any(), any())).thenReturn(true);
 		
 		processor.process(exchange);
 		
 		verify(rejectionMessageService, times(0)).sendRejectionMessage(requestMessage, RejectionReason.INTERNAL_RECIPIENT_ERROR);
-		verify(clearingHouseService.get()).registerTransaction(requestMessage, null);
+		verify(outbox).registerTransaction(requestMessage, null);
 	}
 	
 	@Test
 	public void clearingHouseInteractionFailedArtifactMessage() throws Exception {
 		when(multipartMessage.getHeaderContent()).thenReturn(requestMessage);
-		when(chs.registerTransaction(any(), any())).thenReturn(false);
+		when(outbox.registerTransaction(any(), any())).thenReturn(false);
 		
 		when(exchange.getProperty("Original-Message-Header")).thenReturn(requestMessage);
 		
 		processor.process(exchange);
 		
 		verify(rejectionMessageService).sendRejectionMessage(requestMessage, RejectionReason.INTERNAL_RECIPIENT_ERROR);
-		verify(clearingHouseService.get()).registerTransaction(requestMessage, null);
+		verify(outbox).registerTransaction(requestMessage, null);
 	}
 	
 	@Test
 	public void clearingHouseInteractionSuccesfullContractAgreementMessage() throws Exception {
 		when(multipartMessage.getHeaderContent()).thenReturn(getMessageProcessedNotificationMessage());
-		when(chs.registerTransaction(any(), any())).thenReturn(true);
+		when(outbox.registerTransaction(any(), any())).thenReturn(true);
 		
 		when(exchange.getProperty("Original-Message-Header")).thenReturn(contractAgreementMessage);
 		when(exchange.getProperty("Original-Message-Payload")).thenReturn(UtilMessageService.getMessageAsString(contractAgreement));
@@ -122,13 +126,13 @@ public class RegisterTransactionToCHProcessorTest {
 		processor.process(exchange);
 		
 		verify(rejectionMessageService, times(0)).sendRejectionMessage(contractAgreementMessage, RejectionReason.INTERNAL_RECIPIENT_ERROR);
-		verify(clearingHouseService.get()).registerTransaction(contractAgreementMessage, Helper.getUUID(contractAgreement.getId()));
+		verify(outbox).registerTransaction(contractAgreementMessage, Helper.getUUID(contractAgreement.getId()));
 	}
 	
 	@Test
 	public void clearingHouseInteractionFailedContractAgreementMessage() throws Exception {
 		when(multipartMessage.getHeaderContent()).thenReturn(getMessageProcessedNotificationMessage());
-		when(chs.registerTransaction(any(), any())).thenReturn(false);
+		when(outbox.registerTransaction(any(), any())).thenReturn(false);
 		
 		when(exchange.getProperty("Original-Message-Header")).thenReturn(contractAgreementMessage);
 		when(exchange.getProperty("Original-Message-Payload")).thenReturn(UtilMessageService.getMessageAsString(contractAgreement));
@@ -136,14 +140,14 @@ public class RegisterTransactionToCHProcessorTest {
 		processor.process(exchange);
 		
 		verify(rejectionMessageService).sendRejectionMessage(contractAgreementMessage, RejectionReason.INTERNAL_RECIPIENT_ERROR);
-		verify(clearingHouseService.get()).registerTransaction(contractAgreementMessage, Helper.getUUID(contractAgreement.getId()));
+		verify(outbox).registerTransaction(contractAgreementMessage, Helper.getUUID(contractAgreement.getId()));
 	}
 	
 	@Test
 	public void clearingHouseInteractionSuccesfullPIDCreation() throws Exception {
 		ReflectionTestUtils.setField(processor, "isReceiver", true);
 		when(multipartMessage.getHeaderContent()).thenReturn(getMessageProcessedNotificationMessage());
-		when(chs.registerTransaction(any(), any())).thenReturn(true);
+		when(outbox.registerTransaction(any(), any())).thenReturn(true);
 		when(chs.createProcessIdAtClearingHouse(any(), any())).thenReturn("somePid");
 		
 		when(exchange.getProperty("Original-Message-Header")).thenReturn(contractAgreementMessage);
@@ -152,7 +156,7 @@ public class RegisterTransactionToCHProcessorTest {
 		processor.process(exchange);
 		
 		verify(rejectionMessageService, times(0)).sendRejectionMessage(contractAgreementMessage, RejectionReason.INTERNAL_RECIPIENT_ERROR);
-		verify(clearingHouseService.get()).registerTransaction(contractAgreementMessage, Helper.getUUID(contractAgreement.getId()));
+		verify(outbox).registerTransaction(contractAgreementMessage, Helper.getUUID(contractAgreement.getId()));
 		verify(clearingHouseService.get()).createProcessIdAtClearingHouse(contractAgreementMessage.getSecurityToken().getTokenValue(), Helper.getUUID(contractAgreement.getId()));
 	}
 	
@@ -160,7 +164,7 @@ public class RegisterTransactionToCHProcessorTest {
 	public void clearingHouseInteractionPIDCreationFailed() throws Exception {
 		ReflectionTestUtils.setField(processor, "isReceiver", true);
 		when(multipartMessage.getHeaderContent()).thenReturn(getMessageProcessedNotificationMessage());
-		when(chs.registerTransaction(any(), any())).thenReturn(true);
+		when(outbox.registerTransaction(any(), any())).thenReturn(true);
 		when(chs.createProcessIdAtClearingHouse(any(), any())).thenReturn(null);
 		
 		when(exchange.getProperty("Original-Message-Header")).thenReturn(contractAgreementMessage);
@@ -169,7 +173,7 @@ public class RegisterTransactionToCHProcessorTest {
 		processor.process(exchange);
 		
 		verify(rejectionMessageService).sendRejectionMessage(contractAgreementMessage, RejectionReason.INTERNAL_RECIPIENT_ERROR);
-		verify(clearingHouseService.get(), times(0)).registerTransaction(contractAgreementMessage, Helper.getUUID(contractAgreement.getId()));
+		verify(outbox, times(0)).registerTransaction(contractAgreementMessage, Helper.getUUID(contractAgreement.getId()));
 		verify(clearingHouseService.get()).createProcessIdAtClearingHouse(contractAgreementMessage.getSecurityToken().getTokenValue(), Helper.getUUID(contractAgreement.getId()));
 		verify(usageControlService.get()).rollbackPolicyUpload(Helper.getUUID(contractAgreement.getId()));
 	}
@@ -3,9 +3,11 @@ package it.eng.idsa.businesslogic.processor.receiver;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -14,6 +16,8 @@ import org.apache.camel.Message;
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.entity.ContentType;
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -24,6 +28,8 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import de.fraunhofer.iais.eis.RejectionReason;
+import it.eng.idsa.businesslogic.processor.receiver.websocket.server.WebSocketConnection;
+import it.eng.idsa.businesslogic.processor.receiver.websocket.server.WebSocketFrames;
 import it.eng.idsa.businesslogic.service.HttpHeaderService;
 import it.eng.idsa.businesslogic.service.MultipartMessageService;
 import it.eng.idsa.businesslogic.util.HeaderCleaner;
@@ -63,6 +69,11 @@ public class ReceiverSendDataToBusinessLogicProcessorTest {
 	@Mock
 	private MultipartMessageService multipartMessageService;
 
+	@Mock
+	private Session session;
+	@Mock
+	private RemoteEndpoint remote;
+
 	private Map<String, Object> headers;
 
 	@BeforeEach
@@ -121,6 +132,26 @@ public class ReceiverSendDataToBusinessLogicProcessorTest {
     	assertTrue(value.getValue().contains("multipart/mix"));
 	}
 
+	@Test
+	public void sendDataOverWebSocket() throws Exception {
+		ReflectionTestUtils.setField(processor, "eccHttpSendRouter", RouterType.MULTIPART_MIX, String.class);
+		MultipartMessage mm = new MultipartMessageBuilder()
+				.withHeaderContent(UtilMessageService.getArtifactResponseMessage())
+				.withPayloadContent(PAYLOAD_CONTENT).build();
+		when(message.getBody(MultipartMessage.class)).thenReturn(mm);
+		when(session.getRemote()).thenReturn(remote);
+		WebSocketConnection.Reply reply = new WebSocketConnection(session, WebSocketFrames.DEFAULT_FRAME_SIZE).nextReply();
+		when(exchange.getProperty(ReceiverWebSocketMessageDispatcher.WEBSOCKET_REPLY, WebSocketConnection.Reply.class))
+				.thenReturn(reply);
+
+		processor.process(exchange);
+
+		assertTrue(reply.isCompleted());
+		ArgumentCaptor<ByteBuffer> response = ArgumentCaptor.forClass(ByteBuffer.class);
+		verify(remote).sendPartialBytes(response.capture(), eq(true));
+		assertTrue(new String(response.getValue().array()).contains(PAYLOAD_CONTENT));
+	}
+
 	private Map<String, Object> createHeadersAsMessge() {
 		headers = new HashMap<>();
 		headers.put("Content-Type", ContentType.APPLICATION_JSON);
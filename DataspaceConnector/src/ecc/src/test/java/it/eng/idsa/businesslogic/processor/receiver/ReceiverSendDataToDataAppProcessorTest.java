@@ -27,6 +27,7 @@ import it.eng.idsa.businesslogic.service.RejectionMessageService;
 import it.eng.idsa.businesslogic.service.impl.SendDataToBusinessLogicServiceImpl;
 import it.eng.idsa.businesslogic.util.MultipartMessageUtil;
 import it.eng.idsa.businesslogic.util.RequestResponseUtil;
+import it.eng.idsa.businesslogic.util.StreamingMultipartReader;
 import it.eng.idsa.multipart.domain.MultipartMessage;
 import it.eng.idsa.multipart.processor.MultipartMessageProcessor;
 import it.eng.idsa.multipart.util.UtilMessageService;
@@ -65,6 +66,8 @@ public class ReceiverSendDataToDataAppProcessorTest {
 		when(exchange.getMessage()).thenReturn(message);
 		when(message.getBody(MultipartMessage.class)).thenReturn(multipartMessage);
 		when(configuration.getOpenDataAppReceiver()).thenReturn("http://openDataAppReceiver");
+		ReflectionTestUtils.setField(processor, "multipartReader",
+				new StreamingMultipartReader(1024 * 1024, 1024 * 1024 * 200, System.getProperty("java.io.tmpdir")));
 	}
 	
 	@Test
@@ -0,0 +1,140 @@
+package it.eng.idsa.businesslogic.processor.receiver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import it.eng.idsa.businesslogic.configuration.WebSocketServerConfigurationB;
+import it.eng.idsa.businesslogic.processor.receiver.websocket.server.HttpWebSocketMessagingServletB;
+import it.eng.idsa.businesslogic.processor.receiver.websocket.server.HttpWebSocketServerBean;
+import it.eng.idsa.businesslogic.processor.receiver.websocket.server.WebSocketConnection;
+import it.eng.idsa.businesslogic.processor.receiver.websocket.server.WebSocketFrames;
+import it.eng.idsa.businesslogic.processor.sender.websocket.client.FileStreamingBean;
+import it.eng.idsa.businesslogic.processor.sender.websocket.client.WebSocketSessionManager;
+
+/**
+ * Several WSS clients send messages concurrently to the receiver server, the route answers after a random delay
+ */
+public class ReceiverWebSocketMessageDispatcherTest {
+
+	private static final String FAIL = "FAIL";
+
+	private CamelContext camelContext;
+	private HttpWebSocketServerBean server;
+	private ReceiverWebSocketMessageDispatcher dispatcher;
+	private List<WebSocketSessionManager> clients = new ArrayList<>();
+	private String url;
+
+	@BeforeEach
+	public void setup() throws Exception {
+		camelContext = new DefaultCamelContext();
+		camelContext.addRoutes(new RouteBuilder() {
+			@Override
+			public void configure() {
+				from(ReceiverWebSocketMessageDispatcher.ENDPOINT).routeId("WSS").process(exchange -> {
+					String message = exchange.getMessage().getBody(String.class);
+					if (message.startsWith(FAIL)) {
+						throw new IllegalStateException("Route failed");
+					}
+					Thread.sleep(ThreadLocalRandom.current().nextInt(5));
+					exchange.getProperty(ReceiverWebSocketMessageDispatcher.WEBSOCKET_REPLY, WebSocketConnection.Reply.class)
+							.complete(("ECHO " + message).getBytes(StandardCharsets.UTF_8));
+				});
+			}
+		});
+		camelContext.start();
+
+		int port = freePort();
+		server = new HttpWebSocketServerBean();
+		ResourceLoader resourceLoader = new DefaultResourceLoader();
+		ReflectionTestUtils.setField(server, "resourceLoader", resourceLoader, ResourceLoader.class);
+		ReflectionTestUtils.setField(server, "keyStoreLocation", "classpath:ssl-server.jks", String.class);
+		ReflectionTestUtils.setField(server, "keyStoreType", "JKS", String.class);
+		ReflectionTestUtils.setField(server, "keyStorePassword", "changeit", String.class);
+		server.setPort(port);
+		server.setMessagingServlet(HttpWebSocketMessagingServletB.class);
+		url = "wss://localhost:" + port + HttpWebSocketServerBean.WS_URL;
+
+		WebSocketServerConfigurationB configuration = mock(WebSocketServerConfigurationB.class);
+		when(configuration.httpsServerWebSocket()).thenReturn(server);
+		dispatcher = new ReceiverWebSocketMessageDispatcher(camelContext.createProducerTemplate(), configuration, 4, 4);
+		dispatcher.start();
+	}
+
+	@AfterEach
+	public void destroy() throws Exception {
+		for (WebSocketSessionManager client : clients) {
+			client.shutdown();
+		}
+		dispatcher.stop();
+		server.onDestroy();
+		camelContext.stop();
+	}
+
+	@Test
+	public void concurrentClientsReceiveTheirResponses() throws Exception {
+		int connections = 4;
+		int messages = 100;
+		ExecutorService executor = Executors.newFixedThreadPool(16);
+		List<Future<?>> results = new ArrayList<>();
+		for (int c = 0; c < connections; c++) {
+			WebSocketSessionManager client = client();
+			for (int m = 0; m < messages; m++) {
+				String message = "MESSAGE-" + c + "-" + m + "-" + "x".repeat(ThreadLocalRandom.current().nextInt(100_000));
+				results.add(executor.submit(() -> {
+					byte[] response = client.send(url, message.substring(0, 16), message.getBytes(StandardCharsets.UTF_8));
+					assertEquals("ECHO " + message, new String(response, StandardCharsets.UTF_8));
+					return null;
+				}));
+			}
+		}
+		for (Future<?> result : results) {
+			result.get();
+		}
+		executor.shutdown();
+	}
+
+	@Test
+	public void connectionIsClosedWhenMessageIsNotAnswered() throws Exception {
+		WebSocketSessionManager client = client();
+
+		assertEquals("ECHO MESSAGE", new String(client.send(url, "1", "MESSAGE".getBytes()), StandardCharsets.UTF_8));
+		assertThrows(IOException.class, () -> client.send(url, "2", FAIL.getBytes()));
+		assertEquals("ECHO MESSAGE", new String(client.send(url, "3", "MESSAGE".getBytes()), StandardCharsets.UTF_8));
+	}
+
+	private WebSocketSessionManager client() {
+		FileStreamingBean fileStreamingBean = new FileStreamingBean();
+		fileStreamingBean.setFrameSize(WebSocketFrames.DEFAULT_FRAME_SIZE);
+		WebSocketSessionManager client = new WebSocketSessionManager(fileStreamingBean, 30, 300, 10, 50, 1000, 5);
+		clients.add(client);
+		return client;
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+}
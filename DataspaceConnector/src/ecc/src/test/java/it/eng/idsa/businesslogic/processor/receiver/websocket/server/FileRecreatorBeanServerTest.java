@@ -1,9 +1,9 @@
 package it.eng.idsa.businesslogic.processor.receiver.websocket.server;
 
-import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -11,6 +11,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import it.eng.idsa.businesslogic.configuration.WebSocketServerConfiguration;
 
@@ -31,14 +32,34 @@ public class FileRecreatorBeanServerTest {
 	@BeforeEach
 	public void setup() {
 		MockitoAnnotations.openMocks(this);
-		when(frameBufferBean.remove()).thenReturn(message.getBytes(StandardCharsets.UTF_8));
-		when(frameBufferBean.remove()).thenReturn(InputStreamSocketListenerServer.END_BINARY_FRAME_SEPARATOR.getBytes(StandardCharsets.UTF_8));
 	}
 	
 	@Test
 	public void run() {
+		when(frameBufferBean.removeFrame()).thenReturn(ByteBuffer.wrap(WebSocketFrames.START_BINARY_FRAME_SEPARATOR),
+				ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8)),
+				ByteBuffer.wrap(WebSocketFrames.END_BINARY_FRAME_SEPARATOR));
+
 		fileRecreatorBeanServer.run();
 		
-		verify(recreatedmultipartMessage).set(any(String.class));
+		verify(recreatedmultipartMessage).set(message);
+	}
+
+	@Test
+	public void run_reassemblesFramesWithExactLength() {
+		FrameBufferBean frameBuffer = new FrameBufferBean(WebSocketFrames.MIN_FRAME_SIZE, 8);
+		ReflectionTestUtils.setField(fileRecreatorBeanServer, "frameBuffer", frameBuffer);
+		String content = "Ä-" + "x".repeat(3000) + "-€";
+		byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+		frameBuffer.add(WebSocketFrames.START_BINARY_FRAME_SEPARATOR);
+		for (int offset = 0; offset < bytes.length; offset += WebSocketFrames.MIN_FRAME_SIZE) {
+			// frames arrive in a buffer reused by the WebSocket implementation
+			frameBuffer.add(ByteBuffer.wrap(bytes, offset, Math.min(WebSocketFrames.MIN_FRAME_SIZE, bytes.length - offset)));
+		}
+		frameBuffer.add(WebSocketFrames.END_BINARY_FRAME_SEPARATOR);
+
+		fileRecreatorBeanServer.run();
+
+		verify(recreatedmultipartMessage).set(content);
 	}
 }
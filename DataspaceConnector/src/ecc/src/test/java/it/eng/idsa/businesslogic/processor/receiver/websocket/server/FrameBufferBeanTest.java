@@ -2,6 +2,10 @@ package it.eng.idsa.businesslogic.processor.receiver.websocket.server;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -28,4 +32,33 @@ public class FrameBufferBeanTest {
 		assertNotNull(result);
 		assertEquals(message, new String(result));
 	}
+
+	@Test
+	public void holdsMultipleFramesInOrder() {
+		for (int i = 0; i < 3; i++) {
+			frameBufferBean.add((message + i).getBytes());
+		}
+
+		for (int i = 0; i < 3; i++) {
+			assertEquals(message + i, new String(frameBufferBean.remove()));
+		}
+	}
+
+	@Test
+	public void copiesFrameIntoPooledBuffer() {
+		ByteBuffer received = ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8));
+		frameBufferBean.add(received);
+		// WebSocket implementation reuses its buffer after the callback
+		received.clear();
+		received.put("REUSED!".getBytes(StandardCharsets.UTF_8));
+
+		ByteBuffer frame = frameBufferBean.removeFrame();
+		assertTrue(frame.isDirect());
+		assertEquals(message, StandardCharsets.UTF_8.decode(frame).toString());
+		frameBufferBean.release(frame);
+
+		frameBufferBean.add(ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8)));
+		// released buffer is reused for the next frame
+		assertTrue(frame == frameBufferBean.removeFrame());
+	}
 }
@@ -40,8 +40,7 @@ public class HttpWebSocketListenerServerATest {
 		when(webSocketServerConfiguration.frameBufferWebSocket()).thenReturn(frameBufferBean);
 		httpWebSocketListenerServerA.onWebSocketPartialBinary(byteBuffer, false);
 		
-		byte[] arr = new byte[byteBuffer.remaining()];
-		verify(frameBufferBean).add(arr);
+		verify(frameBufferBean).add(byteBuffer);
 	}
 
 	@Test
@@ -52,6 +51,6 @@ public class HttpWebSocketListenerServerATest {
 		
 		httpWebSocketListenerServerA.onWebSocketPartialText("MESSAGE", false);
 		
-		verify(frameBufferBean).add("MESSAGE".getBytes());
+		verify(frameBufferBean).add(ByteBuffer.wrap("MESSAGE".getBytes()));
 	}
 }
@@ -1,58 +1,74 @@
 package it.eng.idsa.businesslogic.processor.receiver.websocket.server;
 
 
-import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 
+import org.eclipse.jetty.websocket.api.Session;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
-import it.eng.idsa.businesslogic.configuration.WebSocketServerConfigurationB;
-
 public class HttpWebSocketListenerServerBTest {
 
-	@InjectMocks
-	private HttpWebSocketListenerServerB httpWebSocketListenerServerB;
+	private HttpWebSocketListenerServerB httpWebSocketListenerServerB = new HttpWebSocketListenerServerB();
 
 	@Mock
-	private ByteBuffer byteBuffer;
-	@Mock
-	private WebSocketServerConfigurationB webSocketServerConfiguration;
-	@Mock
-	private ResponseMessageSendPartialServer responseMessageSendPartialServer;
-	@Mock
-	private FrameBufferBean frameBufferBean;
+	private Session session;
+
+	private List<String> messages = new ArrayList<>();
 
 	@BeforeEach
 	public void setup() {
 		MockitoAnnotations.openMocks(this);
-		when(byteBuffer.remaining()).thenReturn(10);
-		HttpWebSocketMessagingLogicB.getInstance().setWebSocketServerConfiguration(webSocketServerConfiguration);
+		HttpWebSocketMessagingLogicB.getInstance().setMessageHandler((connection, message) -> messages.add(message));
+		httpWebSocketListenerServerB.onWebSocketConnect(session);
+	}
+
+	@AfterEach
+	public void reset() {
+		HttpWebSocketMessagingLogicB.getInstance().setMessageHandler(null);
 	}
 	
 	@Test
 	public void onWebSocketPartialBinary() throws Exception {
-		when(webSocketServerConfiguration.responseMessageSendPartialWebSocket()).thenReturn(responseMessageSendPartialServer);
-		when(webSocketServerConfiguration.frameBufferWebSocket()).thenReturn(frameBufferBean);
-		httpWebSocketListenerServerB.onWebSocketPartialBinary(byteBuffer, false);
+		httpWebSocketListenerServerB.onWebSocketPartialBinary(frame(WebSocketFrames.START_BINARY_FRAME_SEPARATOR), false);
+		httpWebSocketListenerServerB.onWebSocketPartialBinary(frame("MESSAGE"), false);
+		httpWebSocketListenerServerB.onWebSocketPartialBinary(frame(WebSocketFrames.END_BINARY_FRAME_SEPARATOR), true);
 		
-		byte[] arr = new byte[byteBuffer.remaining()];
-		verify(frameBufferBean).add(arr);
+		assertEquals(List.of("MESSAGE"), messages);
 	}
 
 	@Test
 	public void onWebSocketPartialText() {
-		when(webSocketServerConfiguration.responseMessageSendPartialWebSocket()).thenReturn(responseMessageSendPartialServer);
-		when(webSocketServerConfiguration.frameBufferWebSocket()).thenReturn(frameBufferBean);
-		httpWebSocketListenerServerB.onWebSocketPartialBinary(byteBuffer, false);
-		
+		httpWebSocketListenerServerB.onWebSocketPartialText(new String(WebSocketFrames.START_BINARY_FRAME_SEPARATOR, StandardCharsets.UTF_8), false);
 		httpWebSocketListenerServerB.onWebSocketPartialText("MESSAGE", false);
+		httpWebSocketListenerServerB.onWebSocketPartialText(InputStreamSocketListenerServer.END_BINARY_FRAME_SEPARATOR, true);
 		
-		verify(frameBufferBean).add("MESSAGE".getBytes());
+		assertEquals(List.of("MESSAGE"), messages);
+	}
+
+	@Test
+	public void framesAfterCloseAreIgnored() {
+		httpWebSocketListenerServerB.onWebSocketClose(1000, "Normal");
+
+		httpWebSocketListenerServerB.onWebSocketPartialBinary(frame(WebSocketFrames.START_BINARY_FRAME_SEPARATOR), false);
+		httpWebSocketListenerServerB.onWebSocketPartialBinary(frame(WebSocketFrames.END_BINARY_FRAME_SEPARATOR), true);
+
+		assertEquals(0, messages.size());
+	}
+
+	private ByteBuffer frame(String content) {
+		return frame(content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private ByteBuffer frame(byte[] content) {
+		return ByteBuffer.wrap(content);
 	}
 }
@@ -8,6 +8,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
 
 import org.eclipse.jetty.websocket.api.Session;
 import org.junit.jupiter.api.AfterEach;
@@ -59,14 +60,14 @@ public class HttpWebSocketMessagingLogicATest {
 	public void testOnMessage_lastFrame() throws UnsupportedEncodingException {
 		when(webSocketServerConfigurationA.frameBufferWebSocket()).thenReturn(frameBufferBean);
 		HttpWebSocketMessagingLogicA.getInstance().onMessage(session, InputStreamSocketListenerServer.CLOSURE_FRAME.getBytes("UTF-8"));
-		verify(webSocketServerConfigurationA.frameBufferWebSocket(), times(0)).add(any());
+		verify(webSocketServerConfigurationA.frameBufferWebSocket(), times(0)).add(any(ByteBuffer.class));
 	}
 	
 	@Test
 	public void testOnMessage_receivedFrame() {
 		when(webSocketServerConfigurationA.frameBufferWebSocket()).thenReturn(frameBufferBean);
 		HttpWebSocketMessagingLogicA.getInstance().onMessage(session, "someFrame".getBytes());
-		verify(webSocketServerConfigurationA.frameBufferWebSocket()).add(any());
+		verify(webSocketServerConfigurationA.frameBufferWebSocket()).add(any(ByteBuffer.class));
 	}
 	
 	@Test
@@ -74,10 +75,10 @@ public class HttpWebSocketMessagingLogicATest {
 		when(webSocketServerConfigurationA.frameBufferWebSocket()).thenReturn(frameBufferBean);
 		responseMessageSendPartialServer.setWebSocketServerConfiguration(webSocketServerConfigurationA);
 		ArgumentCaptor<Session> valueCapture = ArgumentCaptor.forClass(Session.class);
-		doNothing().when(responseMessageSendPartialServer).setup(valueCapture.capture());
+		doNothing().when(responseMessageSendPartialServer).sendResponseLater(valueCapture.capture());
 		when(webSocketServerConfigurationA.responseMessageSendPartialWebSocket()).thenReturn(responseMessageSendPartialServer);
 		HttpWebSocketMessagingLogicA.getInstance().onMessage(session, InputStreamSocketListenerServer.END_BINARY_FRAME_SEPARATOR.getBytes("UTF-8"));
-		verify(responseMessageSendPartialServer).setup(valueCapture.capture());
+		verify(responseMessageSendPartialServer).sendResponseLater(valueCapture.capture());
 		assertEquals(session, valueCapture.getValue());
 	}
 }
@@ -2,69 +2,81 @@ package it.eng.idsa.businesslogic.processor.receiver.websocket.server;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.doNothing;
-import static org.mockito.Mockito.times;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
 
-import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.eclipse.jetty.websocket.api.Session;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
-import it.eng.idsa.businesslogic.configuration.WebSocketServerConfigurationB;
-
 public class HttpWebSocketMessagingLogicBTest {
 
-	@InjectMocks
-	private HttpWebSocketMessagingLogicB httpWebSocketMessagingLogicB;
-	
-	@Mock
-	private WebSocketServerConfigurationB webSocketServerConfigurationB;
-	
-	@Mock
-	private FrameBufferBean frameBufferBean;
-	
-	@Mock
-	private ResponseMessageSendPartialServer responseMessageSendPartialServer;
-	
 	@Mock
 	private Session session;
-	
+
+	private List<String> messages = new ArrayList<>();
+
 	@BeforeEach
 	public void init () {
 		MockitoAnnotations.openMocks(this);
-		HttpWebSocketMessagingLogicB.getInstance().setWebSocketServerConfiguration(webSocketServerConfigurationB);
+		HttpWebSocketMessagingLogicB.getInstance().setMessageHandler((connection, message) -> messages.add(message));
 	}
 	
 	@AfterEach
 	public void reset() {
-		HttpWebSocketMessagingLogicB.getInstance().setWebSocketServerConfiguration(null);
-		
+		HttpWebSocketMessagingLogicB.getInstance().setMessageHandler(null);
 	}
 	
 	@Test
-	public void testOnMessage_lastFrame() throws UnsupportedEncodingException {
-		when(webSocketServerConfigurationB.frameBufferWebSocket()).thenReturn(frameBufferBean);
-		HttpWebSocketMessagingLogicB.getInstance().onMessage(session, InputStreamSocketListenerServer.CLOSURE_FRAME.getBytes("UTF-8"));
-		verify(webSocketServerConfigurationB.frameBufferWebSocket(), times(0)).add(any());
+	public void testOnMessage_lastFrame() {
+		WebSocketConnection connection = HttpWebSocketMessagingLogicB.getInstance().connect(session);
+
+		HttpWebSocketMessagingLogicB.getInstance().onMessage(connection, frame(WebSocketFrames.CLOSURE_FRAME));
+
+		assertEquals(0, messages.size());
 	}
 	
 	@Test
-	public void testOnMessage_endBinaryFrame() throws UnsupportedEncodingException {
-		when(webSocketServerConfigurationB.frameBufferWebSocket()).thenReturn(frameBufferBean);
-		responseMessageSendPartialServer.setWebSocketServerConfiguration(webSocketServerConfigurationB);
-		ArgumentCaptor<Session> valueCapture = ArgumentCaptor.forClass(Session.class);
-		doNothing().when(responseMessageSendPartialServer).setup(valueCapture.capture());
-		when(webSocketServerConfigurationB.responseMessageSendPartialWebSocket()).thenReturn(responseMessageSendPartialServer);
-		HttpWebSocketMessagingLogicB.getInstance().onMessage(session, InputStreamSocketListenerServer.END_BINARY_FRAME_SEPARATOR.getBytes("UTF-8"));
-		verify(responseMessageSendPartialServer).setup(valueCapture.capture());
-		assertEquals(session, valueCapture.getValue());
+	public void testOnMessage_endBinaryFrame() {
+		WebSocketConnection connection = HttpWebSocketMessagingLogicB.getInstance().connect(session);
+
+		HttpWebSocketMessagingLogicB.getInstance().onMessage(connection, frame(WebSocketFrames.START_BINARY_FRAME_SEPARATOR));
+		HttpWebSocketMessagingLogicB.getInstance().onMessage(connection, frame("MULTIPART "));
+		HttpWebSocketMessagingLogicB.getInstance().onMessage(connection, frame("MESSAGE"));
+		assertEquals(0, messages.size());
+		HttpWebSocketMessagingLogicB.getInstance().onMessage(connection, frame(WebSocketFrames.END_BINARY_FRAME_SEPARATOR));
+
+		assertEquals(List.of("MULTIPART MESSAGE"), messages);
+		verify(session, never()).close(anyInt(), anyString());
+	}
+
+	@Test
+	public void testOnMessage_receiverNotReady() {
+		HttpWebSocketMessagingLogicB.getInstance().setMessageHandler(null);
+		WebSocketConnection connection = HttpWebSocketMessagingLogicB.getInstance().connect(session);
+
+		HttpWebSocketMessagingLogicB.getInstance().onMessage(connection, frame(WebSocketFrames.START_BINARY_FRAME_SEPARATOR));
+		HttpWebSocketMessagingLogicB.getInstance().onMessage(connection, frame("MESSAGE"));
+		HttpWebSocketMessagingLogicB.getInstance().onMessage(connection, frame(WebSocketFrames.END_BINARY_FRAME_SEPARATOR));
+
+		verify(session).close(anyInt(), any());
+	}
+
+	private ByteBuffer frame(String content) {
+		return frame(content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private ByteBuffer frame(byte[] content) {
+		return ByteBuffer.wrap(content);
 	}
 }
@@ -51,6 +51,6 @@ public class InputStreamSocketListenerServerTest {
 		inputStreamSocketListenerServer.onMessage(session, InputStreamSocketListenerServer.END_BINARY_FRAME_SEPARATOR.getBytes(StandardCharsets.UTF_8));
 		
 		verify(frameBufferBean).add(InputStreamSocketListenerServer.END_BINARY_FRAME_SEPARATOR.getBytes(StandardCharsets.UTF_8));
-		verify(responseMessageSendPartialServer).setup(any(Session.class));
+		verify(responseMessageSendPartialServer).sendResponseLater(any(Session.class));
 	}
 }
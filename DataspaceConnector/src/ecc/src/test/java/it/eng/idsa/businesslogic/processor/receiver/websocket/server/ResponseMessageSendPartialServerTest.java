@@ -5,6 +5,11 @@ import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -14,6 +19,7 @@ import org.eclipse.jetty.websocket.api.RemoteEndpoint;
 import org.eclipse.jetty.websocket.api.Session;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -53,12 +59,36 @@ public class ResponseMessageSendPartialServerTest {
 		verify(remote).sendPartialBytes(any(ByteBuffer.class), eq(true));
 	}
 	
+	@Test
+	public void sendResponseLater_inOrderOfMessages() throws IOException {
+		Session otherSession = mock(Session.class);
+		RemoteEndpoint otherRemote = mock(RemoteEndpoint.class);
+		when(otherSession.getRemote()).thenReturn(otherRemote);
+		byte[] first = "FIRST".getBytes(StandardCharsets.UTF_8);
+		byte[] second = "SECOND".getBytes(StandardCharsets.UTF_8);
+		when(responseMessageBuffer.remove()).thenReturn(first, second);
+
+		responseMessageSendPartialServer.sendResponseLater(session);
+		responseMessageSendPartialServer.sendResponseLater(otherSession);
+
+		verify(otherRemote, timeout(1000)).sendPartialBytes(ByteBuffer.wrap(second), true);
+		verify(remote).sendPartialBytes(ByteBuffer.wrap(first), true);
+		InOrder order = inOrder(remote, otherRemote);
+		order.verify(remote).sendPartialBytes(any(ByteBuffer.class), eq(true));
+		order.verify(otherRemote).sendPartialBytes(any(ByteBuffer.class), eq(true));
+	}
+
 	@Test
 	public void run_extended() throws IOException {
-		byte[] responseMessageLong = UtilMessageService.getMessageAsString(UtilMessageService.getArtifactRequestMessage()).getBytes(StandardCharsets.UTF_8);
+		responseMessageSendPartialServer.setFrameSize(WebSocketFrames.MIN_FRAME_SIZE);
+		byte[] responseMessageLong = UtilMessageService.getMessageAsString(UtilMessageService.getArtifactRequestMessage())
+				.repeat(8).getBytes(StandardCharsets.UTF_8);
 		when(responseMessageBuffer.remove()).thenReturn(responseMessageLong);
 		responseMessageSendPartialServer.run();
 		
+		int frames = (responseMessageLong.length + WebSocketFrames.MIN_FRAME_SIZE - 1) / WebSocketFrames.MIN_FRAME_SIZE;
 		verify(remote, atLeast(3)).sendPartialBytes(any(ByteBuffer.class), eq(false));
+		verify(remote, times(frames - 1)).sendPartialBytes(argThat(b -> b.remaining() == WebSocketFrames.MIN_FRAME_SIZE), eq(false));
+		verify(remote).sendPartialBytes(argThat(b -> b.remaining() == responseMessageLong.length - (frames - 1) * WebSocketFrames.MIN_FRAME_SIZE), eq(true));
 	}
 }
@@ -0,0 +1,104 @@
+package it.eng.idsa.businesslogic.processor.receiver.websocket.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class WebSocketConnectionTest {
+
+	@Mock
+	private Session session;
+	@Mock
+	private RemoteEndpoint remote;
+
+	private WebSocketConnection connection;
+
+	private ByteArrayOutputStream partial = new ByteArrayOutputStream();
+	private List<String> sent = new ArrayList<>();
+
+	@BeforeEach
+	public void setup() throws Exception {
+		MockitoAnnotations.openMocks(this);
+		when(session.getRemote()).thenReturn(remote);
+		doAnswer(invocation -> {
+			ByteBuffer frame = invocation.getArgument(0);
+			byte[] bytes = new byte[frame.remaining()];
+			frame.get(bytes);
+			partial.writeBytes(bytes);
+			boolean isLast = invocation.getArgument(1);
+			if (isLast) {
+				sent.add(partial.toString(StandardCharsets.UTF_8));
+				partial.reset();
+			}
+			return null;
+		}).when(remote).sendPartialBytes(any(ByteBuffer.class), anyBoolean());
+		connection = new WebSocketConnection(session, WebSocketFrames.MIN_FRAME_SIZE);
+	}
+
+	@Test
+	public void messageIsRecreatedFromFrames() {
+		String message = "Ä€".repeat(3000);
+		byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+
+		assertNull(connection.onFrame(ByteBuffer.wrap(WebSocketFrames.START_BINARY_FRAME_SEPARATOR)));
+		for (int offset = 0; offset < bytes.length; offset += 1000) {
+			assertNull(connection.onFrame(ByteBuffer.wrap(bytes, offset, Math.min(1000, bytes.length - offset))));
+		}
+
+		assertEquals(message, connection.onFrame(ByteBuffer.wrap(WebSocketFrames.END_BINARY_FRAME_SEPARATOR)));
+	}
+
+	@Test
+	public void startFrameDiscardsIncompleteMessage() {
+		connection.onFrame(ByteBuffer.wrap(WebSocketFrames.START_BINARY_FRAME_SEPARATOR));
+		connection.onFrame(ByteBuffer.wrap("INCOMPLETE".getBytes()));
+		connection.onFrame(ByteBuffer.wrap(WebSocketFrames.START_BINARY_FRAME_SEPARATOR));
+		connection.onFrame(ByteBuffer.wrap("MESSAGE".getBytes()));
+
+		assertNull(connection.onFrame(ByteBuffer.wrap(WebSocketFrames.CLOSURE_FRAME)));
+		assertEquals("MESSAGE", connection.onFrame(ByteBuffer.wrap(WebSocketFrames.END_BINARY_FRAME_SEPARATOR)));
+	}
+
+	@Test
+	public void responsesAreSentInOrderOfMessages() {
+		WebSocketConnection.Reply first = connection.nextReply();
+		WebSocketConnection.Reply second = connection.nextReply();
+		WebSocketConnection.Reply third = connection.nextReply();
+
+		third.complete("third".getBytes());
+		second.complete("second".getBytes());
+		assertTrue(sent.isEmpty());
+
+		first.complete("first".repeat(1000).getBytes());
+
+		assertEquals(List.of("first".repeat(1000), "second", "third"), sent);
+	}
+
+	@Test
+	public void replyIsCompletedOnce() {
+		WebSocketConnection.Reply reply = connection.nextReply();
+
+		reply.complete("response".getBytes());
+		reply.complete("rejection".getBytes());
+
+		assertTrue(reply.isCompleted());
+		assertEquals(List.of("response"), sent);
+	}
+}
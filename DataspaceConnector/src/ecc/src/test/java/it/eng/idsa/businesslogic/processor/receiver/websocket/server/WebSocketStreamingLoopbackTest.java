@@ -0,0 +1,82 @@
+package it.eng.idsa.businesslogic.processor.receiver.websocket.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.asynchttpclient.ws.WebSocket;
+import org.eclipse.jetty.websocket.api.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.netty.buffer.ByteBuf;
+import it.eng.idsa.businesslogic.configuration.WebSocketServerConfiguration;
+import it.eng.idsa.businesslogic.processor.sender.websocket.client.FileStreamingBean;
+
+/**
+ * Sender frames are handed to the receiver logic in process, WebSocket transport is not involved
+ */
+public class WebSocketStreamingLoopbackTest {
+
+	private WebSocketServerConfiguration configuration;
+	private FrameBufferBean frameBuffer;
+	private RecreatedMultipartMessageBean recreatedMessage;
+
+	@BeforeEach
+	public void setup() {
+		configuration = mock(WebSocketServerConfiguration.class);
+		when(configuration.responseMessageSendPartialWebSocket()).thenReturn(mock(ResponseMessageSendPartialServer.class));
+		HttpWebSocketMessagingLogicA.getInstance().setWebSocketServerConfiguration(configuration);
+		recreatedMessage = new RecreatedMultipartMessageBean();
+	}
+
+	@AfterEach
+	public void reset() {
+		HttpWebSocketMessagingLogicA.getInstance().setWebSocketServerConfiguration(null);
+	}
+
+	@Test
+	public void messageIsRecreatedForFrameSizes() throws Exception {
+		String message = "--boundary\r\n" + "Ä€".repeat(5000) + "\r\n--boundary--";
+		for (int frameSize : new int[] { WebSocketFrames.MIN_FRAME_SIZE, WebSocketFrames.DEFAULT_FRAME_SIZE, WebSocketFrames.MAX_FRAME_SIZE }) {
+			assertEquals(message, loopback(message, frameSize));
+		}
+	}
+
+	private String loopback(String message, int frameSize) throws Exception {
+		frameBuffer = new FrameBufferBean(frameSize, WebSocketFrames.DEFAULT_QUEUE_CAPACITY);
+		when(configuration.frameBufferWebSocket()).thenReturn(frameBuffer);
+		FileRecreatorBeanServer recreator = new FileRecreatorBeanServer();
+		ReflectionTestUtils.setField(recreator, "frameBuffer", frameBuffer);
+		ReflectionTestUtils.setField(recreator, "recreatedmultipartMessage", recreatedMessage);
+		Thread recreatorThread = new Thread(recreator, "FileRecreator_loopback");
+		recreatorThread.start();
+
+		Session session = mock(Session.class);
+		WebSocket webSocket = mock(WebSocket.class);
+		when(webSocket.isOpen()).thenReturn(true);
+		when(webSocket.sendBinaryFrame(any(byte[].class), anyBoolean(), anyInt())).thenAnswer(invocation -> {
+			HttpWebSocketMessagingLogicA.getInstance().onMessage(session, (byte[]) invocation.getArgument(0));
+			return null;
+		});
+		when(webSocket.sendContinuationFrame(any(ByteBuf.class), anyBoolean(), anyInt())).thenAnswer(invocation -> {
+			ByteBuf frame = invocation.getArgument(0);
+			HttpWebSocketMessagingLogicA.getInstance().onMessage(session, frame.nioBuffer());
+			return null;
+		});
+
+		FileStreamingBean sender = new FileStreamingBean();
+		sender.setFrameSize(frameSize);
+		sender.setup(webSocket);
+		sender.sendMultipartMessage(message);
+
+		String recreated = recreatedMessage.remove();
+		recreatorThread.join();
+		return recreated;
+	}
+}
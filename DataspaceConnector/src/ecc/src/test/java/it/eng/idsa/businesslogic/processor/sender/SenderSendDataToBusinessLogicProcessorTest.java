@@ -4,6 +4,7 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -21,14 +22,17 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import de.fraunhofer.iais.eis.Message;
+import de.fraunhofer.iais.eis.RejectionReason;
 import it.eng.idsa.businesslogic.processor.exception.ExceptionForProcessor;
 import it.eng.idsa.businesslogic.service.HttpHeaderService;
+import it.eng.idsa.businesslogic.service.OCSPValidationService;
 import it.eng.idsa.businesslogic.service.RejectionMessageService;
 import it.eng.idsa.businesslogic.service.SendDataToBusinessLogicService;
 import it.eng.idsa.businesslogic.util.MockUtil;
 import it.eng.idsa.businesslogic.util.OCSPValidation.OCSP_STATUS;
 import it.eng.idsa.businesslogic.util.RequestResponseUtil;
 import it.eng.idsa.businesslogic.util.RouterType;
+import it.eng.idsa.businesslogic.util.StreamingMultipartReader;
 import it.eng.idsa.multipart.builder.MultipartMessageBuilder;
 import it.eng.idsa.multipart.domain.MultipartMessage;
 import it.eng.idsa.multipart.processor.MultipartMessageProcessor;
@@ -46,6 +50,8 @@ public class SenderSendDataToBusinessLogicProcessorTest {
 	private SendDataToBusinessLogicService sendDataToBusinessLogicService;
 	@Mock
 	private HttpHeaderService httpHeaderService;
+	@Mock
+	private OCSPValidationService ocspValidationService;
 	
 	@Mock
 	private Exchange exchange;
@@ -83,6 +89,8 @@ public class SenderSendDataToBusinessLogicProcessorTest {
 				.build();
 		multipartResponse = MultipartMessageProcessor.multipartMessagetoString(multipartMessage);
 		ReflectionTestUtils.setField(processor, "desideredOCSPRevocationCheckValue", OCSP_STATUS.none, OCSP_STATUS.class);
+		ReflectionTestUtils.setField(processor, "multipartReader",
+				new StreamingMultipartReader(1024 * 1024, 1024 * 1024 * 200, System.getProperty("java.io.tmpdir")));
 	}
 
 	@Test
@@ -278,6 +286,24 @@ public class SenderSendDataToBusinessLogicProcessorTest {
 		verify(sendDataToBusinessLogicService).sendMessageFormData(FORWARD_TO, multipartMessage, headers);
 	}
 	
+	@Test
+	public void ocspCheckFailed() throws Exception {
+		ReflectionTestUtils.setField(processor, "eccHttpSendRouter", RouterType.MULTIPART_MIX, String.class);
+		ReflectionTestUtils.setField(processor, "desideredOCSPRevocationCheckValue", OCSP_STATUS.good, OCSP_STATUS.class);
+		mockExchangeHeaderAndBody();
+		when(ocspValidationService.checkOCSPCertificate(FORWARD_TO, OCSP_STATUS.good)).thenReturn(false);
+		doThrow(ExceptionForProcessor.class).when(rejectionMessageService)
+			.sendRejectionMessage(any(), any(RejectionReason.class));
+		
+		assertThrows(ExceptionForProcessor.class,
+	            ()->{
+	            	processor.process(exchange);
+	            });
+		
+		verify(rejectionMessageService).sendRejectionMessage(any(), any(RejectionReason.class));
+		verify(sendDataToBusinessLogicService, never()).sendMessageBinary(any(), any(), any());
+	}
+	
 	private void mockExchangeHeaderAndBody() {
 		when(exchange.getMessage()).thenReturn(camelMessage);
 		when(camelMessage.getHeaders()).thenReturn(headers);
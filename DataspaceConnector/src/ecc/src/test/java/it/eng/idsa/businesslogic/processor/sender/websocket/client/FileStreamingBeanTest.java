@@ -1,9 +1,18 @@
 package it.eng.idsa.businesslogic.processor.sender.websocket.client;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
 import java.util.concurrent.ExecutionException;
@@ -15,7 +24,9 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import io.netty.buffer.ByteBuf;
 import it.eng.idsa.businesslogic.configuration.WebSocketClientConfiguration;
+import it.eng.idsa.businesslogic.processor.receiver.websocket.server.WebSocketFrames;
 import it.eng.idsa.businesslogic.util.MultipartMessageUtil;
 
 public class FileStreamingBeanTest {
@@ -45,6 +56,33 @@ public class FileStreamingBeanTest {
 		streamingBean.sendMultipartMessage(MultipartMessageUtil.getMultipartMessageAsString());
 		
 		verify(webSocket).sendBinaryFrame(START_BINARY_FRAME_SEPARATOR.getBytes(), false, 0);
-		verify(webSocket).sendBinaryFrame(END_BINARY_FRAME_SEPARATOR.getBytes(), false, 0);
+		verify(webSocket).sendBinaryFrame(END_BINARY_FRAME_SEPARATOR.getBytes(), true, 0);
+	}
+
+	@Test
+	public void sendMultipartMessage_framesOfConfiguredSize() throws Exception {
+		when(webSocket.isOpen()).thenReturn(true);
+		streamingBean.setFrameSize(WebSocketFrames.MIN_FRAME_SIZE);
+		String message = "x".repeat(2 * WebSocketFrames.MIN_FRAME_SIZE + 10);
+		ByteArrayOutputStream sent = new ByteArrayOutputStream();
+		int[] lastFrameLength = new int[1];
+		when(webSocket.sendContinuationFrame(any(ByteBuf.class), anyBoolean(), anyInt())).thenAnswer(invocation -> {
+			ByteBuf frame = invocation.getArgument(0);
+			byte[] bytes = new byte[frame.readableBytes()];
+			frame.readBytes(bytes);
+			sent.writeBytes(bytes);
+			Boolean finalFragment = invocation.getArgument(1);
+			if (finalFragment) {
+				lastFrameLength[0] = bytes.length;
+			}
+			return null;
+		});
+
+		streamingBean.sendMultipartMessage(message);
+
+		verify(webSocket, times(2)).sendContinuationFrame(any(ByteBuf.class), eq(false), eq(0));
+		verify(webSocket).sendContinuationFrame(any(ByteBuf.class), eq(true), eq(0));
+		assertEquals(10, lastFrameLength[0]);
+		assertArrayEquals(message.getBytes(StandardCharsets.UTF_8), sent.toByteArray());
 	}
 }
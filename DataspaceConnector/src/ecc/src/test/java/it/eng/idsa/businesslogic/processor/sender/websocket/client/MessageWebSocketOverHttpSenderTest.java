@@ -1,134 +1,217 @@
 package it.eng.idsa.businesslogic.processor.sender.websocket.client;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.mockito.ArgumentMatchers.any;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.verify;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.security.KeyManagementException;
-import java.security.NoSuchAlgorithmException;
-import java.util.concurrent.ExecutionException;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import org.apache.http.ParseException;
-import org.asynchttpclient.ws.WebSocket;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WebSocketPartialListener;
+import org.eclipse.jetty.websocket.servlet.WebSocketServlet;
+import org.eclipse.jetty.websocket.servlet.WebSocketServletFactory;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.core.io.DefaultResourceLoader;
-import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import de.fraunhofer.iais.eis.Message;
-import it.eng.idsa.businesslogic.processor.receiver.websocket.server.HttpWebSocketMessagingServletA;
+import de.fraunhofer.iais.eis.RejectionReason;
 import it.eng.idsa.businesslogic.processor.receiver.websocket.server.HttpWebSocketServerBean;
+import it.eng.idsa.businesslogic.processor.receiver.websocket.server.WebSocketFrames;
 import it.eng.idsa.businesslogic.service.RejectionMessageService;
 import it.eng.idsa.multipart.util.UtilMessageService;
 
+/**
+ * Messages are sent over WSS to a loopback Jetty server that answers each message with its content
+ */
 public class MessageWebSocketOverHttpSenderTest {
 
-	@InjectMocks
 	private MessageWebSocketOverHttpSender sender;
+	private WebSocketSessionManager sessionManager;
 
 	@Mock
 	private RejectionMessageService rejectionMessageService;
-	@Mock
-    private FileStreamingBean fileStreamingBean;
-	
-	private ResponseMessageBufferClient responseMessageBufferClient;
-	private InputStreamSocketListenerClient inputStreamSocketListenerClient;
-	
-	private ResourceLoader resourceLoader;
-	@Mock
-	private Resource resourceKeyStore;
-	
+
 	private HttpWebSocketServerBean server;
-	
+
 	private String webSocketHost = "localhost";
-	private Integer webSocketPort = 1234;
+	private Integer webSocketPort;
 	private String header;
 	private String payload = "PAYLOAD";
-	
+
 	@BeforeEach
-	public void setup() {
+	public void setup() throws IOException {
 		MockitoAnnotations.openMocks(this);
-		responseMessageBufferClient = new ResponseMessageBufferClient();
-		ReflectionTestUtils.setField(responseMessageBufferClient, "responseMessageIsReceived", true, boolean.class);
-		ReflectionTestUtils.setField(responseMessageBufferClient, "responseMessage", "RESPONSE".getBytes(StandardCharsets.UTF_8));
-		
-		inputStreamSocketListenerClient = new InputStreamSocketListenerClient();
-
+		EchoListener.connections.set(0);
+		EchoListener.sessions.clear();
 		header = UtilMessageService.getMessageAsString(UtilMessageService.getArtifactRequestMessage());
-		
-		ReflectionTestUtils.setField(sender, "responseMessageBufferClient", responseMessageBufferClient, ResponseMessageBufferClient.class);
-		ReflectionTestUtils.setField(sender, "inputStreamSocketListenerWebSocketClient", inputStreamSocketListenerClient, InputStreamSocketListenerClient.class);
-		
+
+		webSocketPort = freePort();
 		server = new HttpWebSocketServerBean();
-		resourceLoader = new DefaultResourceLoader();
+		ResourceLoader resourceLoader = new DefaultResourceLoader();
 		ReflectionTestUtils.setField(server, "resourceLoader", resourceLoader, ResourceLoader.class);
 		ReflectionTestUtils.setField(server, "keyStoreLocation", "classpath:ssl-server.jks", String.class);
 		ReflectionTestUtils.setField(server, "keyStoreType", "JKS", String.class);
 		ReflectionTestUtils.setField(server, "keyStorePassword", "changeit", String.class);
-		
 		server.setPort(webSocketPort);
-		server.setMessagingServlet(HttpWebSocketMessagingServletA.class);
+		server.setMessagingServlet(EchoServlet.class);
 		server.createServer();
+
+		sessionManager = sessionManager();
+		sender = new MessageWebSocketOverHttpSender(rejectionMessageService, sessionManager);
 	}
-	
+
 	@AfterEach
 	public void destroy() throws Exception {
-		if(server != null) {
+		sessionManager.shutdown();
+		if (server != null) {
 			server.onDestroy();
 		}
 	}
-	
+
 	@Test
-	public void sendMultipartMessageWebSocketOverHttps1() throws KeyManagementException, ParseException, NoSuchAlgorithmException, IOException, InterruptedException, ExecutionException {
-		
-		String response = sender.sendMultipartMessageWebSocketOverHttps(webSocketHost, webSocketPort, header, payload);
-		
-		assertEquals("RESPONSE", response);
-		verify(fileStreamingBean).setup(any(WebSocket.class));
-        verify(fileStreamingBean).sendMultipartMessage(any(String.class));
+	public void sendMultipartMessageWebSocketOverHttps() throws Exception {
+		Message message = UtilMessageService.getArtifactRequestMessage();
+
+		assertTrue(sender.sendMultipartMessageWebSocketOverHttps(webSocketHost, webSocketPort, header, payload).contains(payload));
+		assertTrue(sender.sendMultipartMessageWebSocketOverHttps(webSocketHost, webSocketPort, header, payload, message).contains(payload));
+		assertTrue(sender.sendMultipartMessageWebSocketOverHttps(webSocketHost, webSocketPort, null, header, payload).contains(payload));
+		assertTrue(sender.sendMultipartMessageWebSocketOverHttps(webSocketHost, webSocketPort, null, header, payload, message).contains(payload));
+
+		assertEquals(1, EchoListener.connections.get());
 	}
-	
+
 	@Test
-	public void sendMultipartMessageWebSocketOverHttps2() throws KeyManagementException, ParseException, NoSuchAlgorithmException, IOException, InterruptedException, ExecutionException {
-		Message message = UtilMessageService.getArtifactRequestMessage();
-		
-		String response = sender.sendMultipartMessageWebSocketOverHttps(webSocketHost, webSocketPort, header, payload, message);
-		
-		assertEquals("RESPONSE", response);
-		verify(fileStreamingBean).setup(any(WebSocket.class));
-        verify(fileStreamingBean).sendMultipartMessage(any(String.class));
+	public void messagesInFlightShareOneConnection() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Future<Boolean>> responses = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			String messagePayload = "PAYLOAD-" + i + "-";
+			responses.add(executor.submit(() -> sender
+					.sendMultipartMessageWebSocketOverHttps(webSocketHost, webSocketPort, header, messagePayload)
+					.contains(messagePayload)));
+		}
+		for (Future<Boolean> response : responses) {
+			assertTrue(response.get());
+		}
+		executor.shutdown();
+
+		assertEquals(1, EchoListener.connections.get());
 	}
-	
+
 	@Test
-	public void sendMultipartMessageWebSocketOverHttps3() throws KeyManagementException, ParseException, NoSuchAlgorithmException, IOException, InterruptedException, ExecutionException {
-		String response = sender.sendMultipartMessageWebSocketOverHttps(webSocketHost, webSocketPort, null, header, payload);
-		
-		assertEquals("RESPONSE", response);
-		verify(fileStreamingBean).setup(any(WebSocket.class));
-        verify(fileStreamingBean).sendMultipartMessage(any(String.class));
+	public void reconnectsWhenConnectionIsLost() throws Exception {
+		sender.sendMultipartMessageWebSocketOverHttps(webSocketHost, webSocketPort, header, payload);
+		for (Session session : EchoListener.sessions) {
+			session.close(1001, "Going away");
+		}
+		long deadline = System.currentTimeMillis() + 5000;
+		while (EchoListener.connections.get() < 2 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+
+		assertTrue(sender.sendMultipartMessageWebSocketOverHttps(webSocketHost, webSocketPort, header, payload).contains(payload));
+		assertEquals(2, EchoListener.connections.get());
 	}
-	
+
 	@Test
-	public void sendMultipartMessageWebSocketOverHttps4() throws KeyManagementException, ParseException, NoSuchAlgorithmException, IOException, InterruptedException, ExecutionException {
+	public void rejectionWhenReceiverIsNotAvailable() throws Exception {
 		Message message = UtilMessageService.getArtifactRequestMessage();
-		String webSocketPath = null;
+		int port = freePort();
+
+		assertThrows(IOException.class,
+				() -> sender.sendMultipartMessageWebSocketOverHttps(webSocketHost, port, header, payload, message));
 
-		String response = sender.sendMultipartMessageWebSocketOverHttps(webSocketHost, webSocketPort, webSocketPath, header, payload, message);
-		
-		assertEquals("RESPONSE", response);
-		verify(fileStreamingBean).setup(any(WebSocket.class));
-        verify(fileStreamingBean).sendMultipartMessage(any(String.class));
+		verify(rejectionMessageService).sendRejectionMessage(message, RejectionReason.INTERNAL_RECIPIENT_ERROR);
+		assertFalse(sessionManager.isOpen("wss://" + webSocketHost + ":" + port + HttpWebSocketServerBean.WS_URL));
 	}
-	
-}
 
+	private WebSocketSessionManager sessionManager() {
+		FileStreamingBean fileStreamingBean = new FileStreamingBean();
+		fileStreamingBean.setFrameSize(WebSocketFrames.DEFAULT_FRAME_SIZE);
+		return new WebSocketSessionManager(fileStreamingBean, 30, 300, 10, 50, 1000, 5);
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	public static class EchoServlet extends WebSocketServlet {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public void configure(WebSocketServletFactory factory) {
+			factory.register(EchoListener.class);
+		}
+	}
+
+	/**
+	 * Answers each message with its content, in the order messages are received on the connection
+	 */
+	public static class EchoListener implements WebSocketPartialListener {
+
+		static final AtomicInteger connections = new AtomicInteger();
+		static final Set<Session> sessions = ConcurrentHashMap.newKeySet();
 
+		private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+		private Session session;
 
+		@Override
+		public void onWebSocketConnect(Session session) {
+			this.session = session;
+			sessions.add(session);
+			connections.incrementAndGet();
+		}
+
+		@Override
+		public void onWebSocketClose(int statusCode, String reason) {
+			sessions.remove(session);
+		}
+
+		@Override
+		public void onWebSocketError(Throwable cause) {
+		}
+
+		@Override
+		public void onWebSocketPartialBinary(ByteBuffer payload, boolean fin) {
+			if (WebSocketFrames.is(payload, WebSocketFrames.START_BINARY_FRAME_SEPARATOR)) {
+				content.reset();
+			} else if (WebSocketFrames.is(payload, WebSocketFrames.END_BINARY_FRAME_SEPARATOR)) {
+				try {
+					session.getRemote().sendBytes(ByteBuffer.wrap(content.toByteArray()));
+				} catch (IOException e) {
+					session.close(1011, e.getMessage());
+				}
+			} else {
+				byte[] bytes = new byte[payload.remaining()];
+				payload.get(bytes);
+				content.writeBytes(bytes);
+			}
+		}
+
+		@Override
+		public void onWebSocketPartialText(String payload, boolean fin) {
+		}
+	}
+}
@@ -0,0 +1,165 @@
+package it.eng.idsa.businesslogic.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import it.eng.idsa.businesslogic.entity.AuditLog;
+import it.eng.idsa.businesslogic.repository.AuditLogQueryRepository;
+import it.eng.idsa.businesslogic.util.AES256;
+
+/**
+ * Reads from an in-memory H2 database with the same AuditLogs table Hibernate creates
+ */
+public class AuditEventServiceTest {
+
+	private static final LocalDateTime START = LocalDateTime.of(2024, 3, 1, 10, 0);
+
+	private JdbcTemplate jdbcTemplate;
+	private ObjectMapper objectMapper;
+	private AuditEventService auditEventService;
+
+	@BeforeEach
+	public void setup() {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(
+				"jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("CREATE TABLE audit_logs (id BIGINT PRIMARY KEY, timestamp TIMESTAMP, event_type VARCHAR(64), "
+				+ "correlation_id VARCHAR(255), event CLOB)");
+		jdbcTemplate.execute("CREATE INDEX idx_audit_logs_timestamp ON audit_logs (timestamp, id)");
+
+		objectMapper = new ObjectMapper().findAndRegisterModules()
+				.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+		auditEventService = new AuditEventService();
+		ReflectionTestUtils.setField(auditEventService, "auditLogQueryRepository", new AuditLogQueryRepository(jdbcTemplate));
+		ReflectionTestUtils.setField(auditEventService, "objectMapper", objectMapper);
+		ReflectionTestUtils.setField(auditEventService, "maxPageSize", 20);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		jdbcTemplate.execute("SHUTDOWN");
+	}
+
+	@Test
+	public void pagesFollowEachOther() throws IOException {
+		// two events per second, so pages are split between events with the same timestamp
+		for (int i = 0; i < 25; i++) {
+			insert(i, START.plusSeconds(i / 2), i % 2 == 0 ? "EVENT_A" : "EVENT_B", "correlation-" + i / 5, "event " + i);
+		}
+
+		List<Long> ids = new ArrayList<>();
+		String cursor = null;
+		int pages = 0;
+		do {
+			AuditLogPage page = auditEventService.getAuditEvents(null, null, null, null, cursor, 7);
+			List<AuditLog> logs = write(page);
+			logs.forEach(log -> ids.add(log.getId()));
+			cursor = page.getNextCursor();
+			pages++;
+		} while (cursor != null);
+
+		assertEquals(4, pages);
+		assertEquals(25, ids.size());
+		for (int i = 0; i < 25; i++) {
+			assertEquals(i, ids.get(i));
+		}
+	}
+
+	@Test
+	public void lastFullPageHasNoCursor() {
+		for (int i = 0; i < 10; i++) {
+			insert(i, START.plusSeconds(i), "EVENT_A", null, "event " + i);
+		}
+
+		assertNull(auditEventService.getAuditEvents(null, null, null, null, null, 10).getNextCursor());
+		assertNotNull(auditEventService.getAuditEvents(null, null, null, null, null, 9).getNextCursor());
+	}
+
+	@Test
+	public void filters() {
+		for (int i = 0; i < 30; i++) {
+			insert(i, START.plusMinutes(i), i % 3 == 0 ? "EVENT_A" : "EVENT_B", "correlation-" + i / 10, "event " + i);
+		}
+
+		assertEquals(10, auditEventService.getAuditEvents(null, null, "EVENT_A", null, null, 20).size());
+		assertEquals(10, auditEventService.getAuditEvents(null, null, null, "correlation-1", null, 20).size());
+		assertEquals(4, auditEventService.getAuditEvents(null, null, "EVENT_A", "correlation-2", null, 20).size());
+		// from inclusive, to exclusive
+		assertEquals(5, auditEventService.getAuditEvents(START.plusMinutes(5), START.plusMinutes(10), null, null, null, 20)
+				.size());
+	}
+
+	@Test
+	public void limitIsCapped() {
+		for (int i = 0; i < 30; i++) {
+			insert(i, START.plusSeconds(i), "EVENT_A", null, "event " + i);
+		}
+
+		AuditLogPage page = auditEventService.getAuditEvents(null, null, null, null, null, 1000);
+
+		assertEquals(20, page.size());
+		assertNotNull(page.getNextCursor());
+		assertThrows(IllegalArgumentException.class,
+				() -> auditEventService.getAuditEvents(null, null, null, null, null, 0));
+	}
+
+	@Test
+	public void onlyPageIsDecrypted() throws IOException {
+		insert(0, START, "EVENT_A", null, "event 0");
+		insert(1, START.plusSeconds(1), "EVENT_A", null, "event 1");
+		// would be logged as decryption error if it was read
+		jdbcTemplate.update("INSERT INTO audit_logs VALUES (2, ?, 'EVENT_A', NULL, 'not encrypted')",
+				Timestamp.valueOf(START.plusSeconds(2)));
+
+		AuditLogPage page = auditEventService.getAuditEvents(null, null, null, null, null, 2);
+		List<AuditLog> logs = write(page);
+
+		assertEquals(2, logs.size());
+		assertEquals("event 0", logs.get(0).getEvent());
+		assertEquals("event 1", logs.get(1).getEvent());
+		assertEquals("EVENT_A", logs.get(1).getEventType());
+		assertEquals(START.plusSeconds(1), logs.get(1).getTimestamp());
+		assertNotNull(page.getNextCursor());
+	}
+
+	@Test
+	public void invalidCursor() {
+		assertThrows(IllegalArgumentException.class,
+				() -> auditEventService.getAuditEvents(null, null, null, null, "not a cursor", 10));
+		assertThrows(IllegalArgumentException.class,
+				() -> auditEventService.getAuditEvents(null, null, null, null, "MjAyNC0wMy0wMQ", 10));
+	}
+
+	private void insert(long id, LocalDateTime timestamp, String eventType, String correlationId, String event) {
+		jdbcTemplate.update("INSERT INTO audit_logs VALUES (?, ?, ?, ?, ?)", id, Timestamp.valueOf(timestamp), eventType,
+				correlationId, AES256.encrypt(event));
+	}
+
+	private List<AuditLog> write(AuditLogPage page) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		auditEventService.writeAuditEvents(page, out);
+		return objectMapper.readValue(out.toByteArray(), new TypeReference<List<AuditLog>>() {
+		});
+	}
+}
@@ -3,6 +3,9 @@ package it.eng.idsa.businesslogic.service.auth;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -11,11 +14,15 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.LockedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import com.google.common.base.Ticker;
+
 import it.eng.idsa.businesslogic.service.user.InMemoryUserCrudService;
+import it.eng.idsa.businesslogic.service.user.LoginAttemptService;
 
 public class AuthManagerTest {
 
@@ -28,6 +35,10 @@ public class AuthManagerTest {
 	@Mock
 	private InMemoryUserCrudService userDetailsService;
 	@Mock
+	private AuthenticationCache authenticationCache;
+	@Mock
+	private LoginAttemptService loginAttemptService;
+	@Mock
 	private Authentication authentication;
 	@Mock
 	private UserDetails userDetails;
@@ -60,4 +71,47 @@ public class AuthManagerTest {
 		assertThrows(BadCredentialsException.class,
                 () -> authManager.authenticate(authentication));
 	}
+	
+	@Test
+	public void verifiedCredentialsAreNotCheckedAgain() {
+		authManager = new AuthManager(passwordEncoder, userDetailsService, new AuthenticationCache(60000, 10, Ticker.systemTicker()),
+				loginAttemptService);
+		when(authentication.getName()).thenReturn("username");
+		when(authentication.getCredentials()).thenReturn("password");
+		when(userDetails.getPassword()).thenReturn("encodedPassword");
+		when(userDetailsService.loadCamelUserByUsername(authentication.getName())).thenReturn(userDetails);
+		when(passwordEncoder.matches("password", "encodedPassword")).thenReturn(true);
+		
+		assertNotNull(authManager.authenticate(authentication));
+		assertNotNull(authManager.authenticate(authentication));
+		
+		verify(passwordEncoder, times(1)).matches("password", "encodedPassword");
+		verify(loginAttemptService, times(1)).loginSucceeded("username");
+	}
+	
+	@Test
+	public void failedAuthenticationIsCounted() {
+		when(authentication.getName()).thenReturn("username");
+		when(authentication.getCredentials()).thenReturn("password");
+		when(userDetails.getPassword()).thenReturn("encodedPassword");
+		when(userDetailsService.loadCamelUserByUsername(authentication.getName())).thenReturn(userDetails);
+		when(passwordEncoder.matches(any(String.class), any(String.class))).thenReturn(false);
+		
+		assertThrows(BadCredentialsException.class, () -> authManager.authenticate(authentication));
+		
+		verify(loginAttemptService).loginFailed("username");
+		verify(authenticationCache).invalidate("username");
+		verify(authenticationCache, never()).verified(any(String.class), any(String.class), any(String.class));
+	}
+	
+	@Test
+	public void blockedUserIsRejected() {
+		when(authentication.getName()).thenReturn("username");
+		when(loginAttemptService.isBlocked("username")).thenReturn(true);
+		
+		assertThrows(LockedException.class, () -> authManager.authenticate(authentication));
+		
+		verify(authenticationCache).invalidate("username");
+		verify(passwordEncoder, never()).matches(any(String.class), any(String.class));
+	}
 }
@@ -0,0 +1,73 @@
+package it.eng.idsa.businesslogic.service.auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.base.Ticker;
+
+public class AuthenticationCacheTest {
+
+	private final AtomicLong nanos = new AtomicLong();
+	private AuthenticationCache cache;
+
+	@BeforeEach
+	public void setup() {
+		cache = new AuthenticationCache(60000, 100, new Ticker() {
+			@Override
+			public long read() {
+				return nanos.get();
+			}
+		});
+	}
+
+	@Test
+	public void verifiedCredentialsAreFound() {
+		cache.verified("user", "password", "hash");
+
+		assertTrue(cache.isVerified("user", "password", "hash"));
+		assertFalse(cache.isVerified("user", "other", "hash"));
+		assertFalse(cache.isVerified("other", "password", "hash"));
+	}
+
+	@Test
+	public void changedPasswordHashIsNotVerified() {
+		cache.verified("user", "password", "hash");
+
+		assertFalse(cache.isVerified("user", "password", "newHash"));
+	}
+
+	@Test
+	public void entriesExpire() {
+		cache.verified("user", "password", "hash");
+		nanos.addAndGet(TimeUnit.SECONDS.toNanos(61));
+
+		assertFalse(cache.isVerified("user", "password", "hash"));
+	}
+
+	@Test
+	public void invalidateRemovesOnlyEntriesOfUser() {
+		cache.verified("user", "password", "hash");
+		cache.verified("user", "password2", "hash");
+		cache.verified("other", "password", "hash");
+
+		cache.invalidate("user");
+
+		assertEquals(1, cache.size());
+		assertTrue(cache.isVerified("other", "password", "hash"));
+	}
+
+	@Test
+	public void zeroTtlDisablesCache() {
+		AuthenticationCache disabled = new AuthenticationCache(0, 100, Ticker.systemTicker());
+		disabled.verified("user", "password", "hash");
+
+		assertFalse(disabled.isVerified("user", "password", "hash"));
+	}
+}
@@ -0,0 +1,207 @@
+package it.eng.idsa.businesslogic.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.eng.idsa.businesslogic.entity.AuditLog;
+import it.eng.idsa.businesslogic.repository.AuditEventRepository;
+import it.eng.idsa.businesslogic.service.impl.AuditLogWriteBehind.OverflowPolicy;
+import it.eng.idsa.businesslogic.util.AES256;
+
+public class AuditLogWriteBehindTest {
+
+	private AuditEventRepository auditEventRepository;
+	/**
+	 * Batches passed to saveAll, in order
+	 */
+	private List<List<AuditLog>> savedBatches;
+	private MeterRegistry meterRegistry;
+	private AuditLogWriteBehind writeBehind;
+
+	@BeforeEach
+	public void setup() {
+		savedBatches = new CopyOnWriteArrayList<>();
+		auditEventRepository = repository(null);
+		meterRegistry = new SimpleMeterRegistry();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		if (writeBehind != null) {
+			writeBehind.stopFlusher();
+		}
+	}
+
+	@Test
+	public void batchIsWrittenWhenFlushSizeReached() throws InterruptedException {
+		writeBehind = writeBehind(auditEventRepository, 100, 10, 60000, OverflowPolicy.BLOCK);
+
+		for (int i = 0; i < 10; i++) {
+			assertTrue(writeBehind.submit("event " + i));
+		}
+
+		assertTrue(await(() -> rows() == 10));
+		assertEquals(1, savedBatches.size());
+		for (int i = 0; i < 10; i++) {
+			assertEquals("event " + i, AES256.decrypt(savedBatches.get(0).get(i).getEvent()));
+		}
+		assertEquals(10, meterRegistry.get("audit.writebehind.writes").tag("outcome", "written").counter().count());
+		assertEquals(1, meterRegistry.get("audit.writebehind.flush").timer().count());
+	}
+
+	@Test
+	public void batchIsWrittenWhenFlushIntervalElapsed() throws InterruptedException {
+		writeBehind = writeBehind(auditEventRepository, 100, 100, 100, OverflowPolicy.BLOCK);
+
+		writeBehind.submit("event 1");
+		writeBehind.submit("event 2");
+
+		assertTrue(await(() -> rows() == 2));
+	}
+
+	@Test
+	public void remainingEventsAreWrittenOnStop() {
+		writeBehind = writeBehind(auditEventRepository, 100, 100, 200, OverflowPolicy.BLOCK);
+		for (int i = 0; i < 5; i++) {
+			writeBehind.submit("event " + i);
+		}
+
+		writeBehind.stopFlusher();
+
+		assertEquals(5, rows());
+		// after stop events are written synchronously
+		writeBehind.submit("late event");
+		assertEquals(6, rows());
+	}
+
+	@Test
+	public void disabledWritesSynchronously() {
+		writeBehind = new AuditLogWriteBehind(auditEventRepository, false, 100, 100, 1000, OverflowPolicy.BLOCK, meterRegistry);
+		writeBehind.startFlusher();
+
+		writeBehind.submit("event");
+
+		assertEquals(1, rows());
+	}
+
+	@Test
+	public void dropPolicyDropsWhenBufferFull() throws InterruptedException {
+		CountDownLatch release = new CountDownLatch(1);
+		writeBehind = writeBehind(repository(release), 2, 1, 60000, OverflowPolicy.DROP);
+
+		writeBehind.submit("in flight");
+		assertTrue(await(() -> writeBehind.depth() == 0));
+		assertTrue(writeBehind.submit("buffered 1"));
+		assertTrue(writeBehind.submit("buffered 2"));
+		assertFalse(writeBehind.submit("dropped"));
+		release.countDown();
+
+		assertEquals(3, meterRegistry.get("audit.writebehind.events").tag("result", "queued").counter().count());
+		assertEquals(1, meterRegistry.get("audit.writebehind.events").tag("result", "dropped").counter().count());
+	}
+
+	@Test
+	public void blockPolicyWaitsForSpace() throws InterruptedException {
+		CountDownLatch release = new CountDownLatch(1);
+		writeBehind = writeBehind(repository(release), 2, 1, 60000, OverflowPolicy.BLOCK);
+
+		writeBehind.submit("in flight");
+		assertTrue(await(() -> writeBehind.depth() == 0));
+		writeBehind.submit("buffered 1");
+		writeBehind.submit("buffered 2");
+		Thread producer = new Thread(() -> writeBehind.submit("blocked"));
+		producer.start();
+		producer.join(200);
+		assertTrue(producer.isAlive());
+
+		release.countDown();
+		producer.join(5000);
+
+		assertFalse(producer.isAlive());
+		assertEquals(1, meterRegistry.get("audit.writebehind.events").tag("result", "blocked").counter().count());
+		assertEquals(0, meterRegistry.get("audit.writebehind.events").tag("result", "dropped").counter().count());
+	}
+
+	@Test
+	public void eventTypeAndCorrelationIdAreStored() throws InterruptedException {
+		writeBehind = writeBehind(auditEventRepository, 100, 1, 60000, OverflowPolicy.BLOCK);
+
+		writeBehind.submit("event", "CONNECTOR_SEND", "correlation-1");
+
+		assertTrue(await(() -> rows() == 1));
+		AuditLog auditLog = savedBatches.get(0).get(0);
+		assertEquals("CONNECTOR_SEND", auditLog.getEventType());
+		assertEquals("correlation-1", auditLog.getCorrelationId());
+		assertNull(auditLog.getId());
+	}
+
+	@Test
+	public void failedBatchIsCounted() {
+		AuditEventRepository failing = mock(AuditEventRepository.class);
+		when(failing.saveAll(anyList())).thenThrow(new DataAccessResourceFailureException("database down"));
+		writeBehind = new AuditLogWriteBehind(failing, false, 100, 100, 1000, OverflowPolicy.BLOCK, meterRegistry);
+
+		writeBehind.submit("event");
+
+		assertEquals(1, meterRegistry.get("audit.writebehind.writes").tag("outcome", "failed").counter().count());
+	}
+
+	private AuditLogWriteBehind writeBehind(AuditEventRepository auditEventRepository, int capacity, int flushSize, long flushIntervalMillis,
+			OverflowPolicy policy) {
+		AuditLogWriteBehind writeBehind = new AuditLogWriteBehind(auditEventRepository, true, capacity, flushSize, flushIntervalMillis,
+				policy, meterRegistry);
+		writeBehind.startFlusher();
+		return writeBehind;
+	}
+
+	/**
+	 * @param release if not null, saveAll waits for it
+	 */
+	private AuditEventRepository repository(CountDownLatch release) {
+		AuditEventRepository repository = mock(AuditEventRepository.class);
+		when(repository.saveAll(anyList())).thenAnswer(invocation -> {
+			if (release != null) {
+				release.await(5, TimeUnit.SECONDS);
+			}
+			List<AuditLog> saved = invocation.getArgument(0);
+			List<AuditLog> batch = new ArrayList<>(saved);
+			savedBatches.add(batch);
+			return batch;
+		});
+		return repository;
+	}
+
+	private int rows() {
+		return savedBatches.stream().mapToInt(List::size).sum();
+	}
+
+	private boolean await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (System.currentTimeMillis() < deadline) {
+			if (condition.getAsBoolean()) {
+				return true;
+			}
+			Thread.sleep(20);
+		}
+		return condition.getAsBoolean();
+	}
+}
@@ -0,0 +1,260 @@
+package it.eng.idsa.businesslogic.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+
+import com.sun.net.httpserver.HttpServer;
+
+import de.fraunhofer.iais.eis.Message;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.eng.idsa.businesslogic.configuration.ClearingHouseConfiguration;
+import it.eng.idsa.businesslogic.configuration.ClearingHouseConfiguration.DeliveryMode;
+import it.eng.idsa.businesslogic.configuration.SelfDescriptionConfiguration;
+import it.eng.idsa.businesslogic.entity.ClearingHouseOutboxEntry;
+import it.eng.idsa.businesslogic.repository.ClearingHouseOutboxRepository;
+import it.eng.idsa.businesslogic.service.DapsTokenProviderService;
+import it.eng.idsa.businesslogic.service.SendDataToBusinessLogicService;
+import it.eng.idsa.multipart.domain.MultipartMessage;
+import it.eng.idsa.multipart.util.UtilMessageService;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+
+/**
+ * Clearing House is replaced with an in-process HTTP stub, outbox table with an in-memory repository
+ */
+public class ClearingHouseOutboxTest {
+
+	private static final String PID = "fa17023f-3059-4b89-b3ae-c9cd4340ccd9";
+
+	@Mock
+	private ClearingHouseConfiguration configuration;
+	@Mock
+	private SelfDescriptionConfiguration selfDescriptionConfiguration;
+	@Mock
+	private DapsTokenProviderService dapsProvider;
+	@Mock
+	private SendDataToBusinessLogicService sendDataToBusinessLogicService;
+	@Mock
+	private ClearingHouseOutboxRepository repository;
+
+	private HttpServer clearingHouse;
+	private final List<String> received = new CopyOnWriteArrayList<>();
+	private volatile int responseCode = 201;
+
+	private final List<ClearingHouseOutboxEntry> table = new CopyOnWriteArrayList<>();
+	private final AtomicLong ids = new AtomicLong();
+
+	private ClearingHouseServiceImpl clearingHouseService;
+	private MeterRegistry meterRegistry;
+	private Message message;
+
+	@BeforeEach
+	public void setup() throws Exception {
+		MockitoAnnotations.openMocks(this);
+		meterRegistry = new SimpleMeterRegistry();
+		message = UtilMessageService.getArtifactRequestMessageWithTransferContract(UtilMessageService.REQUESTED_ARTIFACT.toString(),
+				"http://w3id.org/engrd/connector/examplecontract/" + PID);
+
+		clearingHouse = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		clearingHouse.createContext("/messages/log/", exchange -> {
+			received.add(exchange.getRequestURI().getPath().substring("/messages/log/".length()) + " "
+					+ new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+			exchange.sendResponseHeaders(responseCode, -1);
+			exchange.close();
+		});
+		clearingHouse.start();
+
+		when(configuration.getBaseUrl()).thenReturn("http://localhost:" + clearingHouse.getAddress().getPort());
+		when(configuration.getLogEndpoint()).thenReturn("/messages/log/");
+		when(dapsProvider.getDynamicAtributeToken()).thenReturn(UtilMessageService.getDynamicAttributeToken());
+		when(selfDescriptionConfiguration.getConnectorURI()).thenReturn(URI.create("http://auto-generated"));
+		OkHttpClient client = new OkHttpClient();
+		when(sendDataToBusinessLogicService.sendMessageFormData(any(), any(), any())).thenAnswer(invocation -> {
+			MultipartMessage multipartMessage = invocation.getArgument(1);
+			Request request = new Request.Builder()
+					.url((String) invocation.getArgument(0))
+					.post(RequestBody.create(multipartMessage.getPayloadContent(), MediaType.get("application/ld+json")))
+					.build();
+			return client.newCall(request).execute();
+		});
+		clearingHouseService = new ClearingHouseServiceImpl(configuration, selfDescriptionConfiguration, dapsProvider,
+				sendDataToBusinessLogicService, null);
+
+		mockRepository();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		clearingHouse.stop(0);
+	}
+
+	@Test
+	public void syncModeSendsInMessageFlow() {
+		ClearingHouseOutbox outbox = outbox(DeliveryMode.SYNC, 10, 100, 0);
+
+		assertTrue(outbox.registerTransaction(message, null));
+
+		assertEquals(1, received.size());
+		assertTrue(received.get(0).startsWith(PID));
+		assertTrue(table.isEmpty());
+	}
+
+	@Test
+	public void outboxIsDispatchedInBatches() {
+		ClearingHouseOutbox outbox = outbox(DeliveryMode.OUTBOX, 2, 100, 0);
+
+		for (int i = 0; i < 5; i++) {
+			assertTrue(outbox.registerTransaction(message, null));
+		}
+		assertEquals(0, received.size());
+		assertEquals(5, meterRegistry.get("clearinghouse.outbox.depth").gauge().value());
+
+		outbox.dispatch();
+
+		assertEquals(5, received.size());
+		assertTrue(received.get(0).contains(message.getId().toString()));
+		assertTrue(table.isEmpty());
+		assertEquals(0, meterRegistry.get("clearinghouse.outbox.depth").gauge().value());
+		assertEquals(5, meterRegistry.get("clearinghouse.outbox.dispatch").tag("outcome", "delivered").counter().count());
+		assertEquals(5, meterRegistry.get("clearinghouse.outbox.dispatch.lag").timer().count());
+	}
+
+	@Test
+	public void failedDispatchIsRetriedWithBackoff() throws InterruptedException {
+		ClearingHouseOutbox outbox = outbox(DeliveryMode.OUTBOX, 10, 100, 0);
+		responseCode = 500;
+		outbox.registerTransaction(message, null);
+		outbox.registerTransaction(message, null);
+
+		outbox.dispatch();
+		// dispatcher stops at first failure and pauses
+		assertEquals(1, received.size());
+		outbox.dispatch();
+		assertEquals(1, received.size());
+		assertEquals(1, table.get(0).getAttempts());
+
+		responseCode = 201;
+		Thread.sleep(150);
+		outbox.dispatch();
+
+		assertEquals(3, received.size());
+		assertTrue(table.isEmpty());
+		assertEquals(1, meterRegistry.get("clearinghouse.outbox.dispatch").tag("outcome", "retry").counter().count());
+	}
+
+	@Test
+	public void pendingTransactionsSurviveRestart() {
+		ClearingHouseOutbox outbox = outbox(DeliveryMode.OUTBOX, 10, 100, 0);
+		outbox.registerTransaction(message, null);
+		outbox.registerTransaction(message, null);
+		outbox.stopDispatcher();
+
+		meterRegistry = new SimpleMeterRegistry();
+		ClearingHouseOutbox restarted = outbox(DeliveryMode.OUTBOX, 10, 100, 0);
+		assertEquals(2, meterRegistry.get("clearinghouse.outbox.depth").gauge().value());
+		restarted.dispatch();
+
+		assertEquals(2, received.size());
+		assertTrue(table.isEmpty());
+	}
+
+	@Test
+	public void fullOutboxFallsBackToSync() {
+		ClearingHouseOutbox outbox = outbox(DeliveryMode.OUTBOX, 10, 1, 0);
+
+		assertTrue(outbox.registerTransaction(message, null));
+		assertEquals(0, received.size());
+		assertTrue(outbox.registerTransaction(message, null));
+
+		assertEquals(1, received.size());
+		assertEquals(1, table.size());
+		assertEquals(1, meterRegistry.get("clearinghouse.outbox.enqueue").tag("result", "sync").counter().count());
+	}
+
+	@Test
+	public void bestEffortDropsWhenFull() {
+		ClearingHouseOutbox outbox = outbox(DeliveryMode.BEST_EFFORT, 10, 1, 0);
+
+		assertTrue(outbox.registerTransaction(message, null));
+		assertTrue(outbox.registerTransaction(message, null));
+
+		assertEquals(0, received.size());
+		assertTrue(table.isEmpty());
+		assertEquals(1, meterRegistry.get("clearinghouse.outbox.depth").gauge().value());
+		assertEquals(1, meterRegistry.get("clearinghouse.outbox.enqueue").tag("result", "dropped").counter().count());
+
+		outbox.dispatch();
+		assertEquals(1, received.size());
+	}
+
+	@Test
+	public void transactionIsMarkedFailedAfterMaxAttempts() {
+		ClearingHouseOutbox outbox = outbox(DeliveryMode.OUTBOX, 10, 100, 1);
+		responseCode = 400;
+		outbox.registerTransaction(message, null);
+
+		outbox.dispatch();
+
+		assertEquals(1, table.size());
+		assertTrue(table.get(0).isFailed());
+		assertEquals(0, meterRegistry.get("clearinghouse.outbox.depth").gauge().value());
+		assertEquals(1, meterRegistry.get("clearinghouse.outbox.dispatch").tag("outcome", "failed").counter().count());
+	}
+
+	private ClearingHouseOutbox outbox(DeliveryMode mode, int batchSize, int maxDepth, int maxAttempts) {
+		when(configuration.getDeliveryMode()).thenReturn(mode);
+		return new ClearingHouseOutbox(clearingHouseService, configuration, repository, batchSize, maxDepth, maxAttempts,
+				500, 100, 1000, meterRegistry);
+	}
+
+	private void mockRepository() {
+		when(repository.save(any(ClearingHouseOutboxEntry.class))).thenAnswer(invocation -> {
+			ClearingHouseOutboxEntry entry = invocation.getArgument(0);
+			if (entry.getId() == null) {
+				entry.setId(ids.incrementAndGet());
+				table.add(entry);
+			}
+			return entry;
+		});
+		when(repository.findByFailedFalseAndNextAttemptAtLessThanEqualOrderByIdAsc(anyLong(), any(Pageable.class)))
+				.thenAnswer(invocation -> {
+					long now = invocation.getArgument(0);
+					Pageable pageable = invocation.getArgument(1);
+					return table.stream()
+							.filter(e -> !e.isFailed() && e.getNextAttemptAt() <= now)
+							.limit(pageable.getPageSize())
+							.collect(Collectors.toCollection(ArrayList::new));
+				});
+		when(repository.findFirstByFailedFalseOrderByIdAsc())
+				.thenAnswer(invocation -> table.stream().filter(e -> !e.isFailed()).findFirst());
+		when(repository.countByFailedFalse()).thenAnswer(invocation -> table.stream().filter(e -> !e.isFailed()).count());
+		doAnswer(invocation -> {
+			Iterable<ClearingHouseOutboxEntry> entries = invocation.getArgument(0);
+			entries.forEach(table::remove);
+			return null;
+		}).when(repository).deleteAllInBatch(any());
+	}
+}
@@ -0,0 +1,198 @@
+package it.eng.idsa.businesslogic.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.auth0.jwk.JwkException;
+import com.auth0.jwk.SigningKeyNotFoundException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class DapsJwksKeyCacheTest {
+
+	@TempDir
+	Path tempDir;
+
+	private Path jwksFile;
+	private MeterRegistry meterRegistry;
+	private RSAPublicKey key1;
+	private RSAPublicKey key2;
+
+	@BeforeEach
+	public void setup() throws NoSuchAlgorithmException, IOException {
+		meterRegistry = new SimpleMeterRegistry();
+		KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+		generator.initialize(2048);
+		key1 = (RSAPublicKey) generator.generateKeyPair().getPublic();
+		key2 = (RSAPublicKey) generator.generateKeyPair().getPublic();
+		jwksFile = tempDir.resolve("jwks.json");
+		writeJwks(jwk("kid-1", key1));
+	}
+
+	@Test
+	public void keyIsServedFromCache() throws Exception {
+		DapsJwksKeyCache cache = cache(60);
+
+		assertEquals(key1.getModulus(), cache.getPublicKey("kid-1").getModulus());
+		// JWKS removed, key must still be returned from cache
+		Files.delete(jwksFile);
+		assertEquals(key1.getModulus(), cache.getPublicKey("kid-1").getModulus());
+
+		assertEquals(1, meterRegistry.get("daps.jwks.cache.requests").tag("result", "hit").counter().count());
+		assertEquals(1, meterRegistry.get("daps.jwks.cache.requests").tag("result", "miss").counter().count());
+		assertEquals(1, meterRegistry.get("daps.jwks.cache.refresh").tag("outcome", "success").counter().count());
+	}
+
+	@Test
+	public void unknownKidTriggersRefetch() throws Exception {
+		DapsJwksKeyCache cache = cache(0);
+		assertNotNull(cache.getPublicKey("kid-1"));
+
+		writeJwks(jwk("kid-1", key1), jwk("kid-2", key2));
+
+		assertEquals(key2.getModulus(), cache.getPublicKey("kid-2").getModulus());
+		assertEquals(2, meterRegistry.get("daps.jwks.cache.refresh").tag("outcome", "success").counter().count());
+	}
+
+	@Test
+	public void unknownKidRefetchIsRateLimited() throws Exception {
+		DapsJwksKeyCache cache = cache(60);
+		assertNotNull(cache.getPublicKey("kid-1"));
+
+		writeJwks(jwk("kid-1", key1), jwk("kid-2", key2));
+
+		assertThrows(SigningKeyNotFoundException.class, () -> cache.getPublicKey("kid-2"));
+		assertEquals(1, meterRegistry.get("daps.jwks.cache.refresh").tag("outcome", "success").counter().count());
+	}
+
+	@Test
+	public void missingJwksFails() throws IOException {
+		Files.delete(jwksFile);
+		DapsJwksKeyCache cache = cache(0);
+
+		assertThrows(JwkException.class, () -> cache.getPublicKey("kid-1"));
+		assertEquals(1, meterRegistry.get("daps.jwks.cache.refresh").tag("outcome", "failure").counter().count());
+	}
+
+	@Test
+	public void expiredKeyUsedWhenDapsIsDown() throws Exception {
+		DapsJwksKeyCache cache = cache(0, 0);
+		assertNotNull(cache.getPublicKey("kid-1"));
+
+		Files.delete(jwksFile);
+		Thread.sleep(5);
+
+		assertEquals(key1.getModulus(), cache.getPublicKey("kid-1").getModulus());
+		assertThrows(JwkException.class, () -> cache.getPublicKey("kid-2"));
+		assertEquals(2, meterRegistry.get("daps.jwks.cache.refresh").tag("outcome", "failure").counter().count());
+	}
+
+	@Test
+	public void expiredKeyRefetchIsRateLimited() throws Exception {
+		DapsJwksKeyCache cache = cache(0, 60);
+		assertNotNull(cache.getPublicKey("kid-1"));
+
+		Files.delete(jwksFile);
+		Thread.sleep(5);
+
+		assertEquals(key1.getModulus(), cache.getPublicKey("kid-1").getModulus());
+		assertEquals(key1.getModulus(), cache.getPublicKey("kid-1").getModulus());
+		assertEquals(0, meterRegistry.get("daps.jwks.cache.refresh").tag("outcome", "failure").counter().count());
+		assertEquals(1, meterRegistry.get("daps.jwks.cache.refresh").tag("outcome", "success").counter().count());
+	}
+
+	@Test
+	public void expiredKeyIsRejectedAfterMaxStale() throws Exception {
+		MutableClock clock = new MutableClock(Instant.parse("2024-03-01T10:00:00Z").toEpochMilli());
+		DapsJwksKeyCache cache = new DapsJwksKeyCache(jwksFile.toUri().toURL(), true, 60, 900, 0, 120, meterRegistry,
+				clock);
+		assertNotNull(cache.getPublicKey("kid-1"));
+
+		Files.delete(jwksFile);
+		clock.advance(TimeUnit.SECONDS.toMillis(61));
+		assertEquals(key1.getModulus(), cache.getPublicKey("kid-1").getModulus());
+
+		// expired 121 seconds ago, over the 120 seconds bound
+		clock.advance(TimeUnit.SECONDS.toMillis(120));
+		assertThrows(SigningKeyNotFoundException.class, () -> cache.getPublicKey("kid-1"));
+		assertEquals(2, meterRegistry.get("daps.jwks.cache.refresh").tag("outcome", "failure").counter().count());
+	}
+
+	private DapsJwksKeyCache cache(long minRefetchIntervalSeconds) throws IOException {
+		return cache(3600, minRefetchIntervalSeconds);
+	}
+
+	private DapsJwksKeyCache cache(long ttlSeconds, long minRefetchIntervalSeconds) throws IOException {
+		return new DapsJwksKeyCache(jwksFile.toUri().toURL(), true, ttlSeconds, 900, minRefetchIntervalSeconds, 3600,
+				meterRegistry);
+	}
+
+	private void writeJwks(String... jwks) throws IOException {
+		Files.write(jwksFile, ("{\"keys\":[" + String.join(",", jwks) + "]}").getBytes(StandardCharsets.UTF_8));
+	}
+
+	private String jwk(String kid, RSAPublicKey key) {
+		return "{\"kty\":\"RSA\",\"use\":\"sig\",\"alg\":\"RS256\",\"kid\":\"" + kid + "\","
+				+ "\"n\":\"" + base64Url(key.getModulus()) + "\","
+				+ "\"e\":\"" + base64Url(key.getPublicExponent()) + "\"}";
+	}
+
+	private String base64Url(BigInteger value) {
+		byte[] bytes = value.toByteArray();
+		if (bytes[0] == 0) {
+			byte[] unsigned = new byte[bytes.length - 1];
+			System.arraycopy(bytes, 1, unsigned, 0, unsigned.length);
+			bytes = unsigned;
+		}
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+	}
+
+	private static class MutableClock extends Clock {
+
+		private volatile long millis;
+
+		MutableClock(long millis) {
+			this.millis = millis;
+		}
+
+		void advance(long delta) {
+			millis += delta;
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return Instant.ofEpochMilli(millis);
+		}
+	}
+}
@@ -0,0 +1,215 @@
+package it.eng.idsa.businesslogic.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.FormBody;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Tokens are fetched over HTTP from a local mock DAPS issuing unsigned JWTs
+ */
+public class DapsTokenManagerTest {
+
+	private HttpServer daps;
+	private OkHttpClient client;
+	private String tokenUrl;
+	private MeterRegistry meterRegistry;
+	private DapsTokenManager tokenManager;
+
+	private final AtomicInteger requests = new AtomicInteger();
+	private final AtomicInteger failuresLeft = new AtomicInteger();
+	private volatile long lifetimeMillis = 60000;
+	private volatile long delayMillis;
+
+	@BeforeEach
+	public void setup() throws IOException {
+		daps = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		daps.setExecutor(Executors.newCachedThreadPool());
+		daps.createContext("/token", exchange -> {
+			int request = requests.incrementAndGet();
+			try {
+				Thread.sleep(delayMillis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			if (failuresLeft.getAndDecrement() > 0) {
+				exchange.sendResponseHeaders(503, -1);
+				exchange.close();
+				return;
+			}
+			String token = JWT.create()
+					.withJWTId(String.valueOf(request))
+					.withExpiresAt(new Date(System.currentTimeMillis() + lifetimeMillis))
+					.sign(Algorithm.none());
+			byte[] body = ("{\"access_token\":\"" + token + "\"}").getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(200, body.length);
+			exchange.getResponseBody().write(body);
+			exchange.close();
+		});
+		daps.start();
+		tokenUrl = "http://localhost:" + daps.getAddress().getPort() + "/token";
+		client = new OkHttpClient();
+		meterRegistry = new SimpleMeterRegistry();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		if (tokenManager != null) {
+			tokenManager.shutdown();
+		}
+		daps.stop(0);
+	}
+
+	@Test
+	public void concurrentCallersShareOneFetch() throws Exception {
+		delayMillis = 200;
+		tokenManager = tokenManager(0.8, 3, 2, 60000);
+		int callers = 64;
+		ExecutorService pool = Executors.newFixedThreadPool(callers);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<String>> tokens = new ArrayList<>();
+		for (int i = 0; i < callers; i++) {
+			tokens.add(pool.submit(() -> {
+				start.await();
+				return tokenManager.getToken();
+			}));
+		}
+		start.countDown();
+
+		Set<String> distinct = ConcurrentHashMap.newKeySet();
+		for (Future<String> token : tokens) {
+			distinct.add(token.get(5, TimeUnit.SECONDS));
+		}
+		pool.shutdown();
+
+		assertEquals(1, distinct.size());
+		assertNotNull(distinct.iterator().next());
+		assertEquals(1, requests.get());
+		assertEquals(1, meterRegistry.get("daps.token.fetch").tag("outcome", "success").timer().count());
+		assertEquals(1, meterRegistry.get("daps.token.refresh").tag("trigger", "expired").counter().count());
+	}
+
+	@Test
+	public void tokenIsRenewedBeforeExpiration() throws Exception {
+		lifetimeMillis = 3000;
+		tokenManager = tokenManager(0.5, 3, 2, 60000);
+		String first = tokenManager.getToken();
+		assertNotNull(first);
+
+		String current = first;
+		long deadline = System.currentTimeMillis() + 5000;
+		while (current.equals(first) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(50);
+			current = tokenManager.getToken();
+			// cached token is returned while the new one is fetched
+			assertNotNull(current);
+		}
+
+		assertNotEquals(first, current);
+		assertEquals(2, requests.get());
+		assertEquals(1, meterRegistry.get("daps.token.refresh").tag("trigger", "proactive").counter().count());
+	}
+
+	@Test
+	public void failedFetchIsRetried() {
+		failuresLeft.set(2);
+		tokenManager = tokenManager(0.8, 3, 2, 60000);
+
+		assertNotNull(tokenManager.getToken());
+
+		assertEquals(3, requests.get());
+		assertEquals(2, meterRegistry.get("daps.token.fetch").tag("outcome", "failure").timer().count());
+	}
+
+	@Test
+	public void circuitOpensAfterRepeatedFailures() {
+		failuresLeft.set(Integer.MAX_VALUE);
+		tokenManager = tokenManager(0.8, 1, 2, 60000);
+
+		assertNull(tokenManager.getToken());
+		assertNull(tokenManager.getToken());
+		assertTrue(tokenManager.isCircuitOpen());
+		assertNull(tokenManager.getToken());
+
+		assertEquals(2, requests.get());
+		assertEquals(1, meterRegistry.get("daps.token.circuit.rejected").counter().count());
+		assertEquals(1, meterRegistry.get("daps.token.circuit.open").gauge().value());
+	}
+
+	@Test
+	public void circuitClosesAfterOpenPeriod() throws InterruptedException {
+		failuresLeft.set(1);
+		tokenManager = tokenManager(0.8, 1, 1, 200);
+
+		assertNull(tokenManager.getToken());
+		assertTrue(tokenManager.isCircuitOpen());
+		Thread.sleep(300);
+
+		assertNotNull(tokenManager.getToken());
+		assertEquals(2, requests.get());
+	}
+
+	@Test
+	public void expiredTokenFromDapsIsRejected() {
+		lifetimeMillis = -60000;
+		tokenManager = tokenManager(0.8, 1, 5, 60000);
+
+		assertNull(tokenManager.getToken());
+	}
+
+	private DapsTokenManager tokenManager(double refreshRatio, int maxAttempts, int circuitFailureThreshold,
+			long circuitOpenMillis) {
+		return new DapsTokenManager(this::fetchFromDaps, refreshRatio, maxAttempts, 10, circuitFailureThreshold,
+				circuitOpenMillis, 5000, meterRegistry);
+	}
+
+	/**
+	 * Same request and response handling as DapsV2ServiceImpl, without the client assertion
+	 */
+	private String fetchFromDaps() {
+		Request request = new Request.Builder()
+				.url(tokenUrl)
+				.post(new FormBody.Builder().add("grant_type", "client_credentials").build())
+				.build();
+		try (Response response = client.newCall(request).execute()) {
+			if (!response.isSuccessful()) {
+				return null;
+			}
+			return new ObjectMapper().readTree(response.body().string()).get("access_token").asText();
+		} catch (IOException e) {
+			return null;
+		}
+	}
+}
@@ -25,6 +25,9 @@ public class DapsTokenProviderServiceImplTest {
 	@Mock
 	private DapsService dapsService;
 
+	@Mock
+	private DapsTokenManager tokenManager;
+
 	@InjectMocks
 	private DapsTokenProviderServiceImpl dapsTokenProviderServiceImpl;
 
@@ -40,34 +43,16 @@ public class DapsTokenProviderServiceImplTest {
 	}
 
 	@Test
-	public void fetchNewTokenIfCachedTokenIsNullTest() {
-		assertNotNull(dapsTokenProviderServiceImpl.provideToken());
-		verify(dapsService).getJwtToken();
+	public void cachedTokenIsProvidedByTokenManagerTest() {
+		when(tokenManager.getToken()).thenReturn(dapsToken);
+		assertEquals(dapsToken, dapsTokenProviderServiceImpl.provideToken());
+		verify(tokenManager).getToken();
+		verify(dapsService, times(0)).getJwtToken();
 	}
 
 	@Test
-	public void tokenExpiredAndFetchedNewTokenTest() {
-		ReflectionTestUtils.setField(dapsTokenProviderServiceImpl, "cachedToken", dapsToken);
-		ReflectionTestUtils.setField(dapsTokenProviderServiceImpl, "expirationTime", JwTokenUtil.isExpired(true));
-		assertNotNull(dapsTokenProviderServiceImpl.provideToken());
-		verify(dapsService).getJwtToken();
-	}
-	
-	@Test
-	public void fetchNewTokenWhenExpiredTest() {
-		when(dapsService.getJwtToken()).thenReturn("ABC");
-		ReflectionTestUtils.setField(dapsTokenProviderServiceImpl, "cachedToken", dapsToken);
-		ReflectionTestUtils.setField(dapsTokenProviderServiceImpl, "expirationTime", JwTokenUtil.isExpired(true));
+	public void tokenNotAvailableTest() {
 		assertNull(dapsTokenProviderServiceImpl.provideToken());
-		verify(dapsService).getJwtToken();
-	}
-
-	@Test
-	public void failedToFetchNewTokenWhenExpiredTest() {
-		ReflectionTestUtils.setField(dapsTokenProviderServiceImpl, "cachedToken", dapsToken);
-		ReflectionTestUtils.setField(dapsTokenProviderServiceImpl, "expirationTime", JwTokenUtil.isExpired(false));
-		assertNotNull(dapsTokenProviderServiceImpl.provideToken());
-		verify(dapsService, times(0)).getJwtToken();
 	}
 
 	@Test
@@ -75,6 +60,7 @@ public class DapsTokenProviderServiceImplTest {
 		ReflectionTestUtils.setField(dapsTokenProviderServiceImpl, "tokenCaching", false);
 		assertNotNull(dapsTokenProviderServiceImpl.provideToken());
 		verify(dapsService).getJwtToken();
+		verify(tokenManager, times(0)).getToken();
 	}
 
 	@Test
@@ -5,7 +5,6 @@ import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
-import java.net.URL;
 import java.security.Key;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
@@ -22,7 +21,6 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.core.io.DefaultResourceLoader;
-import org.springframework.test.util.ReflectionTestUtils;
 
 import com.auth0.jwk.Jwk;
 
@@ -33,6 +31,8 @@ public class DapsUtilityProviderTest {
 
 	@Mock
 	private DapsKeystoreProvider keystoreProvider;
+	@Mock
+	private DapsJwksKeyCache jwksKeyCache;
 	
 	private X509Certificate x509Certificate;
 	
@@ -44,7 +44,6 @@ public class DapsUtilityProviderTest {
 	@Mock
 	private Key mockKey;
 
-	private URL dapsJWKSUrl;
 	private String keyStoreName;
 	private String keyStorePassword;
 	private String keystoreAliasName;
@@ -59,13 +58,10 @@ public class DapsUtilityProviderTest {
 	@BeforeEach
 	public void init() throws KeyStoreException, NoSuchAlgorithmException, CertificateException, IOException {
 		MockitoAnnotations.openMocks(this);
-		dapsJWKSUrl = new URL("https://dap.aisec.fraunhofer.de");
 		keyStoreName = "classpath:ssl-server.jks";    
 		keyStorePassword = "changeit";
 		keystoreAliasName = "execution-core-container";
 		
-		ReflectionTestUtils.setField(dapsUtilityProvider, "dapsJWKSUrl", dapsJWKSUrl);
-		
 		keyStore = KeyStore.getInstance("JKS");
 		keyStore.load(new DefaultResourceLoader().getResource(keyStoreName).getInputStream(), keyStorePassword.toCharArray());
 		
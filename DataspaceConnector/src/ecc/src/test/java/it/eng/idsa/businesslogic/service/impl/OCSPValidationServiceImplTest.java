@@ -0,0 +1,355 @@
+package it.eng.idsa.businesslogic.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLServerSocket;
+import javax.net.ssl.SSLSocket;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.AccessDescription;
+import org.bouncycastle.asn1.x509.AuthorityInformationAccess;
+import org.bouncycastle.asn1.x509.BasicConstraints;
+import org.bouncycastle.asn1.x509.CRLReason;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.GeneralName;
+import org.bouncycastle.cert.X509v3CertificateBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+import org.bouncycastle.cert.ocsp.BasicOCSPRespBuilder;
+import org.bouncycastle.cert.ocsp.CertificateStatus;
+import org.bouncycastle.cert.ocsp.OCSPReq;
+import org.bouncycastle.cert.ocsp.OCSPRespBuilder;
+import org.bouncycastle.cert.ocsp.Req;
+import org.bouncycastle.cert.ocsp.RespID;
+import org.bouncycastle.cert.ocsp.RevokedStatus;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.eng.idsa.businesslogic.util.OCSPValidation;
+import it.eng.idsa.businesslogic.util.OCSPValidation.OCSP_STATUS;
+
+/**
+ * Runs against a CA generated for the test and an embedded OCSP responder
+ */
+public class OCSPValidationServiceImplTest {
+
+	private static final X500Name CA_NAME = new X500Name("CN=Test CA");
+	private static final String UNAVAILABLE_OCSP_URL = "http://localhost:1/ocsp";
+
+	private MeterRegistry meterRegistry;
+	private MutableClock clock;
+
+	private HttpServer responder;
+	private String ocspUrl;
+	private final AtomicInteger responderRequests = new AtomicInteger();
+	private final Set<BigInteger> revokedSerials = ConcurrentHashMap.newKeySet();
+	private volatile long nextUpdateMillis;
+	private volatile PrivateKey responderKey;
+	private volatile CountDownLatch responderRelease;
+
+	private KeyPair caKeys;
+	private X509Certificate caCertificate;
+	private AtomicInteger serial = new AtomicInteger(100);
+
+	private SSLServerSocket tlsServer;
+
+	@BeforeEach
+	public void setup() throws Exception {
+		meterRegistry = new SimpleMeterRegistry();
+		clock = new MutableClock(System.currentTimeMillis());
+		caKeys = generateKeyPair();
+		caCertificate = createCaCertificate();
+		responderKey = caKeys.getPrivate();
+		nextUpdateMillis = TimeUnit.MINUTES.toMillis(10);
+
+		responder = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		responder.createContext("/ocsp", exchange -> {
+			responderRequests.incrementAndGet();
+			try {
+				CountDownLatch release = responderRelease;
+				if (release != null) {
+					release.await(10, TimeUnit.SECONDS);
+				}
+				byte[] response = respond(exchange.getRequestBody().readAllBytes());
+				exchange.getResponseHeaders().add("Content-Type", OCSPValidation.OCSP_RESPONSE_CONTENT_TYPE);
+				exchange.sendResponseHeaders(200, response.length);
+				try (OutputStream os = exchange.getResponseBody()) {
+					os.write(response);
+				}
+			} catch (Exception e) {
+				exchange.sendResponseHeaders(500, -1);
+			} finally {
+				exchange.close();
+			}
+		});
+		responder.setExecutor(Executors.newCachedThreadPool());
+		responder.start();
+		ocspUrl = "http://localhost:" + responder.getAddress().getPort() + "/ocsp";
+	}
+
+	@AfterEach
+	public void tearDown() throws IOException {
+		responder.stop(0);
+		if (tlsServer != null) {
+			tlsServer.close();
+		}
+	}
+
+	@Test
+	public void goodCertificateIsServedFromCache() throws Exception {
+		OCSPValidationServiceImpl service = service(false);
+		X509Certificate[] chain = chain(ocspUrl);
+
+		assertTrue(service.checkOCSPCertificate(chain, OCSP_STATUS.good));
+		assertTrue(service.checkOCSPCertificate(chain, OCSP_STATUS.good));
+
+		assertEquals(1, responderRequests.get());
+		assertEquals(1, meterRegistry.get("ocsp.cache.requests").tag("cache", "response").tag("result", "hit").counter().count());
+		assertEquals(1, meterRegistry.get("ocsp.cache.requests").tag("cache", "response").tag("result", "miss").counter().count());
+		assertEquals(2, meterRegistry.get("ocsp.validation").tag("status", "good").counter().count());
+		assertEquals(1, meterRegistry.get("ocsp.responder.requests").tag("outcome", "success").timer().count());
+	}
+
+	@Test
+	public void revokedCertificateIsRejected() throws Exception {
+		OCSPValidationServiceImpl service = service(false);
+		X509Certificate[] chain = chain(ocspUrl);
+		revokedSerials.add(chain[0].getSerialNumber());
+
+		assertFalse(service.checkOCSPCertificate(chain, OCSP_STATUS.unknown));
+		assertEquals(1, meterRegistry.get("ocsp.validation").tag("status", "revoked").counter().count());
+	}
+
+	@Test
+	public void cachedResponseExpiresAtNextUpdate() throws Exception {
+		OCSPValidationServiceImpl service = service(false);
+		X509Certificate[] chain = chain(ocspUrl);
+
+		assertTrue(service.checkOCSPCertificate(chain, OCSP_STATUS.good));
+		clock.advance(TimeUnit.MINUTES.toMillis(5));
+		assertTrue(service.checkOCSPCertificate(chain, OCSP_STATUS.good));
+		assertEquals(1, responderRequests.get());
+
+		revokedSerials.add(chain[0].getSerialNumber());
+		clock.advance(TimeUnit.MINUTES.toMillis(6));
+		assertFalse(service.checkOCSPCertificate(chain, OCSP_STATUS.good));
+		assertEquals(2, responderRequests.get());
+	}
+
+	@Test
+	public void concurrentChecksShareOneRequest() throws Exception {
+		OCSPValidationServiceImpl service = service(false);
+		X509Certificate[] chain = chain(ocspUrl);
+		responderRelease = new CountDownLatch(1);
+		int threads = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<Boolean>> results = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				results.add(executor.submit(() -> service.checkOCSPCertificate(chain, OCSP_STATUS.good)));
+			}
+			long deadline = System.currentTimeMillis() + 10000;
+			while (meterRegistry.get("ocsp.requests.coalesced").counter().count() < threads - 1
+					&& System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			responderRelease.countDown();
+			for (Future<Boolean> result : results) {
+				assertTrue(result.get(10, TimeUnit.SECONDS));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertEquals(1, responderRequests.get());
+		assertEquals(threads - 1, meterRegistry.get("ocsp.requests.coalesced").counter().count());
+	}
+
+	@Test
+	public void unavailableResponderIsTreatedAsUnknown() throws Exception {
+		OCSPValidationServiceImpl service = service(false);
+		X509Certificate[] chain = chain(UNAVAILABLE_OCSP_URL);
+
+		assertFalse(service.checkOCSPCertificate(chain, OCSP_STATUS.good));
+		assertTrue(service.checkOCSPCertificate(chain, OCSP_STATUS.unknown));
+		// failure is cached, responder is not contacted again
+		assertEquals(1, meterRegistry.get("ocsp.responder.requests").tag("outcome", "failure").timer().count());
+	}
+
+	@Test
+	public void unavailableResponderIsAcceptedWithSoftFail() throws Exception {
+		OCSPValidationServiceImpl service = service(true);
+
+		assertTrue(service.checkOCSPCertificate(chain(UNAVAILABLE_OCSP_URL), OCSP_STATUS.good));
+		assertEquals(1, meterRegistry.get("ocsp.validation").tag("status", "error").counter().count());
+	}
+
+	@Test
+	public void responseWithInvalidSignatureIsRejected() throws Exception {
+		OCSPValidationServiceImpl service = service(false);
+		responderKey = generateKeyPair().getPrivate();
+
+		assertFalse(service.checkOCSPCertificate(chain(ocspUrl), OCSP_STATUS.good));
+		assertEquals(1, meterRegistry.get("ocsp.validation").tag("status", "unknown").counter().count());
+	}
+
+	@Test
+	public void certificateWithoutResponderUrlIsUnknown() throws Exception {
+		OCSPValidationServiceImpl service = service(false);
+
+		assertFalse(service.checkOCSPCertificate(chain(null), OCSP_STATUS.good));
+		assertEquals(0, responderRequests.get());
+	}
+
+	@Test
+	public void chainIsReadFromTarget() throws Exception {
+		KeyPair serverKeys = generateKeyPair();
+		X509Certificate serverCertificate = createCertificate(serverKeys, ocspUrl);
+		int port = startTlsServer(serverKeys.getPrivate(), serverCertificate);
+		OCSPValidationServiceImpl service = service(false);
+
+		assertTrue(service.checkOCSPCertificate("https://localhost:" + port + "/data", OCSP_STATUS.good));
+		assertTrue(service.checkOCSPCertificate("https://localhost:" + port + "/data", OCSP_STATUS.good));
+
+		assertEquals(1, responderRequests.get());
+		assertEquals(1, meterRegistry.get("ocsp.cache.requests").tag("cache", "chain").tag("result", "hit").counter().count());
+	}
+
+	private OCSPValidationServiceImpl service(boolean softFail) {
+		return new OCSPValidationServiceImpl(2000, softFail, 3600, 86400, 30, 300, 100, meterRegistry, clock);
+	}
+
+	private byte[] respond(byte[] requestBytes) throws Exception {
+		OCSPReq request = new OCSPReq(requestBytes);
+		Date now = new Date(clock.millis());
+		BasicOCSPRespBuilder builder = new BasicOCSPRespBuilder(new RespID(CA_NAME));
+		for (Req req : request.getRequestList()) {
+			CertificateStatus status = revokedSerials.contains(req.getCertID().getSerialNumber())
+					? new RevokedStatus(now, CRLReason.keyCompromise)
+					: CertificateStatus.GOOD;
+			builder.addResponse(req.getCertID(), status, now, new Date(now.getTime() + nextUpdateMillis));
+		}
+		BasicOCSPResp basicResponse = builder.build(new JcaContentSignerBuilder("SHA256withRSA").build(responderKey), null, now);
+		return new OCSPRespBuilder().build(OCSPRespBuilder.SUCCESSFUL, basicResponse).getEncoded();
+	}
+
+	private X509Certificate[] chain(String responderUrl) throws Exception {
+		return new X509Certificate[] { createCertificate(generateKeyPair(), responderUrl), caCertificate };
+	}
+
+	private X509Certificate createCaCertificate() throws Exception {
+		long now = System.currentTimeMillis();
+		X509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(CA_NAME, BigInteger.ONE,
+				new Date(now - TimeUnit.HOURS.toMillis(1)), new Date(now + TimeUnit.DAYS.toMillis(1)), CA_NAME, caKeys.getPublic());
+		builder.addExtension(Extension.basicConstraints, true, new BasicConstraints(true));
+		return new JcaX509CertificateConverter().getCertificate(
+				builder.build(new JcaContentSignerBuilder("SHA256withRSA").build(caKeys.getPrivate())));
+	}
+
+	private X509Certificate createCertificate(KeyPair keys, String responderUrl) throws Exception {
+		long now = System.currentTimeMillis();
+		X509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(caCertificate,
+				BigInteger.valueOf(serial.incrementAndGet()), new Date(now - TimeUnit.HOURS.toMillis(1)),
+				new Date(now + TimeUnit.DAYS.toMillis(1)), new X500Name("CN=localhost"), keys.getPublic());
+		if (responderUrl != null) {
+			builder.addExtension(Extension.authorityInfoAccess, false, new AuthorityInformationAccess(
+					AccessDescription.id_ad_ocsp, new GeneralName(GeneralName.uniformResourceIdentifier, responderUrl)));
+		}
+		return new JcaX509CertificateConverter().getCertificate(
+				builder.build(new JcaContentSignerBuilder("SHA256withRSA").build(caKeys.getPrivate())));
+	}
+
+	private int startTlsServer(PrivateKey key, X509Certificate certificate) throws Exception {
+		char[] password = "password".toCharArray();
+		KeyStore keyStore = KeyStore.getInstance("PKCS12");
+		keyStore.load(null, null);
+		keyStore.setKeyEntry("server", key, password, new Certificate[] { certificate, caCertificate });
+		KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+		keyManagerFactory.init(keyStore, password);
+		SSLContext sslContext = SSLContext.getInstance("TLS");
+		sslContext.init(keyManagerFactory.getKeyManagers(), null, null);
+		tlsServer = (SSLServerSocket) sslContext.getServerSocketFactory().createServerSocket(0);
+		Thread acceptor = new Thread(() -> {
+			while (!tlsServer.isClosed()) {
+				try (SSLSocket socket = (SSLSocket) tlsServer.accept()) {
+					socket.startHandshake();
+				} catch (IOException e) {
+					// client closes connection after handshake, server closed at the end of the test
+				}
+			}
+		});
+		acceptor.setDaemon(true);
+		acceptor.start();
+		return tlsServer.getLocalPort();
+	}
+
+	private KeyPair generateKeyPair() throws Exception {
+		KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+		generator.initialize(2048);
+		return generator.generateKeyPair();
+	}
+
+	private static class MutableClock extends Clock {
+
+		private volatile long millis;
+
+		MutableClock(long millis) {
+			this.millis = millis;
+		}
+
+		void advance(long delta) {
+			millis += delta;
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return Instant.ofEpochMilli(millis);
+		}
+	}
+}
@@ -16,6 +16,7 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpHeaders;
 
+import it.eng.idsa.businesslogic.configuration.HttpClientRegistry;
 import it.eng.idsa.businesslogic.util.MultipartMessageUtil;
 import it.eng.idsa.multipart.builder.MultipartMessageBuilder;
 import it.eng.idsa.multipart.domain.MultipartMessage;
@@ -32,6 +33,9 @@ public class OkHttpSenderClientServiceImplTest {
 	@InjectMocks
 	private OkHttpSenderClientServiceImpl okHttpSenderClientServiceImpl;
 	
+	@Mock
+	private HttpClientRegistry httpClientRegistry;
+	
 	@Mock
 	private OkHttpClient client;
 	
@@ -63,6 +67,7 @@ public class OkHttpSenderClientServiceImplTest {
 		targetURL = "http://someUrl.com";
 		httpHeaders = Headers.of("someKey", "someValue");
 		payload = "somePayload";
+		when(httpClientRegistry.clientFor(any())).thenReturn(client);
 	}
 	
 	
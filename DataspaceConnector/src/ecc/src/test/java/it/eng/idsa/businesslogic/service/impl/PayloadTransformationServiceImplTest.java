@@ -0,0 +1,177 @@
+package it.eng.idsa.businesslogic.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.ExtendedExchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import it.eng.idsa.businesslogic.util.MultipartMessageUtil;
+import it.eng.idsa.businesslogic.util.StreamingBase64;
+import it.eng.idsa.businesslogic.util.TrueConnectorConstants;
+import it.eng.idsa.multipart.builder.MultipartMessageBuilder;
+import it.eng.idsa.multipart.domain.MultipartMessage;
+import it.eng.idsa.multipart.util.UtilMessageService;
+
+public class PayloadTransformationServiceImplTest {
+
+	@TempDir
+	Path tempDir;
+
+	private CamelContext camelContext;
+	private PayloadTransformationServiceImpl service;
+
+	@BeforeEach
+	public void setup() {
+		camelContext = new DefaultCamelContext();
+		service = new PayloadTransformationServiceImpl(List.of("application/octet-stream", " image/*", ""), 1024,
+				tempDir.toString());
+	}
+
+	@AfterEach
+	public void tearDown() {
+		camelContext.stop();
+	}
+
+	@Test
+	public void codecMatchesJdkBase64() throws IOException {
+		for (String payload : new String[] { "", "a", "ab", "abc", "PAYLOAD Ä€ 😀", "x".repeat(100_000) + "Ä€" }) {
+			String encoded = StreamingBase64.encode(payload);
+			assertEquals(Base64.getEncoder().encodeToString(payload.getBytes(StandardCharsets.UTF_8)), encoded);
+			assertEquals(payload, StreamingBase64.decode(encoded));
+
+			ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+			StreamingBase64.encode(new ByteArrayInputStream(payload.getBytes(StandardCharsets.UTF_8)), streamed);
+			assertEquals(encoded, streamed.toString(StandardCharsets.US_ASCII));
+			ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+			StreamingBase64.decode(new ByteArrayInputStream(streamed.toByteArray()), decoded);
+			assertEquals(payload, decoded.toString(StandardCharsets.UTF_8));
+		}
+	}
+
+	@Test
+	public void invalidBase64IsRejected() {
+		assertThrows(IllegalArgumentException.class, () -> StreamingBase64.decode("not base64 €"));
+		Exchange exchange = new DefaultExchange(camelContext);
+		assertThrows(IllegalArgumentException.class, () -> service.decode(exchange, message("#PAYLOAD#", null)));
+		assertNull(exchange.getProperty(TrueConnectorConstants.ENCODED_PAYLOAD));
+	}
+
+	@Test
+	public void payloadIsEncodedAndDecoded() {
+		String payload = "PAYLOAD Ä€".repeat(100);
+		Exchange exchange = new DefaultExchange(camelContext);
+
+		MultipartMessage encoded = service.encode(exchange, message(payload, null));
+		MultipartMessage decoded = service.decode(exchange, encoded);
+
+		assertEquals(payload, decoded.getPayloadContent());
+		assertEquals(encoded.getHeaderContent().getId(), decoded.getHeaderContent().getId());
+	}
+
+	@Test
+	public void receivedEncodingIsReusedForUnchangedPayload() {
+		// valid without padding, encoder would add it
+		String received = "UEFZTE9BRA";
+		Exchange exchange = new DefaultExchange(camelContext);
+
+		MultipartMessage decoded = service.decode(exchange, message(received, null));
+		assertEquals("PAYLOAD", decoded.getPayloadContent());
+		assertNotNull(exchange.getProperty(TrueConnectorConstants.ENCODED_PAYLOAD));
+
+		assertEquals(received, service.encode(exchange, decoded).getPayloadContent());
+		assertNull(exchange.getProperty(TrueConnectorConstants.ENCODED_PAYLOAD));
+	}
+
+	@Test
+	public void changedPayloadIsEncodedAgain() {
+		Exchange exchange = new DefaultExchange(camelContext);
+		service.decode(exchange, message("UEFZTE9BRA", null));
+
+		MultipartMessage encoded = service.encode(exchange, message("CHANGED", null));
+
+		assertEquals(Base64.getEncoder().encodeToString("CHANGED".getBytes(StandardCharsets.UTF_8)),
+				encoded.getPayloadContent());
+	}
+
+	@Test
+	public void bigEncodedPayloadIsSpooledAndDeleted() throws IOException {
+		String payload = "x".repeat(10_000);
+		String received = StreamingBase64.encode(payload);
+		Exchange exchange = new DefaultExchange(camelContext);
+
+		MultipartMessage decoded = service.decode(exchange, message(received, null));
+		assertTrue(exchange.getProperty(TrueConnectorConstants.ENCODED_PAYLOAD,
+				PayloadTransformationServiceImpl.EncodedPayload.class).isSpooled());
+		assertEquals(1, spooledFiles());
+
+		assertEquals(received, service.encode(exchange, decoded).getPayloadContent());
+		assertEquals(0, spooledFiles());
+	}
+
+	@Test
+	public void spooledPayloadIsDeletedWhenExchangeCompletes() throws IOException {
+		Exchange exchange = new DefaultExchange(camelContext);
+		service.decode(exchange, message(StreamingBase64.encode("x".repeat(10_000)), null));
+		assertEquals(1, spooledFiles());
+
+		exchange.adapt(ExtendedExchange.class).handoverCompletions().forEach(s -> s.onComplete(exchange));
+
+		assertEquals(0, spooledFiles());
+	}
+
+	@Test
+	public void binaryContentTypeIsPassedThrough() {
+		Exchange exchange = new DefaultExchange(camelContext);
+		MultipartMessage octetStream = message("PAYLOAD", "application/octet-stream");
+		MultipartMessage image = message("PAYLOAD", "image/png");
+
+		assertTrue(service.isPassThrough(octetStream));
+		assertTrue(service.isPassThrough(image));
+		assertSame(octetStream, service.encode(exchange, octetStream));
+		assertSame(image, service.decode(exchange, image));
+		assertFalse(service.isPassThrough(message("PAYLOAD", "application/json")));
+		assertFalse(service.isPassThrough(message("PAYLOAD", null)));
+		assertFalse(service.isPassThrough(message("PAYLOAD", "not a content type")));
+	}
+
+	private long spooledFiles() throws IOException {
+		try (Stream<Path> files = Files.list(tempDir)) {
+			return files.count();
+		}
+	}
+
+	private static MultipartMessage message(String payload, String contentType) {
+		if (contentType == null) {
+			return MultipartMessageUtil.getMultipartMessage(UtilMessageService.getArtifactResponseMessage(), payload);
+		}
+		return new MultipartMessageBuilder()
+				.withHeaderContent(UtilMessageService.getArtifactResponseMessage())
+				.withPayloadHeader(Map.of("Content-Type", contentType))
+				.withPayloadContent(payload)
+				.build();
+	}
+}
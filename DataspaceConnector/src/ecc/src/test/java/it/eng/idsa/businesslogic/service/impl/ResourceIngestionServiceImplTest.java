@@ -0,0 +1,258 @@
+package it.eng.idsa.businesslogic.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import de.fraunhofer.iais.eis.Resource;
+import de.fraunhofer.iais.eis.ResourceBuilder;
+import it.eng.idsa.businesslogic.audit.TrueConnectorEvent;
+import it.eng.idsa.businesslogic.audit.TrueConnectorEventType;
+import it.eng.idsa.businesslogic.entity.ResourceIngestionJob;
+import it.eng.idsa.businesslogic.entity.ResourceIngestionJob.State;
+import it.eng.idsa.businesslogic.repository.ResourceIngestionJobRepository;
+import it.eng.idsa.businesslogic.service.impl.ResourceIngestionServiceImpl.Step;
+import it.eng.idsa.businesslogic.service.resources.OfferedResourceService;
+import it.eng.idsa.businesslogic.util.TensorECC;
+
+/**
+ * Indexer, encryptor and DSP are stubbed through {@link TensorECC}, job table is an in-memory repository and steps
+ * run on the calling thread, so every test is deterministic
+ */
+public class ResourceIngestionServiceImplTest {
+
+	private static final String JOB_ID = "6f1b3f43-3c59-4dd3-9a4d-3f3b1c1d0a11";
+	private static final URI CATALOG = URI.create("https://w3id.org/engrd/connector/catalog/1");
+	private static final URI RESOURCE_ID = URI.create("https://w3id.org/engrd/connector/offeredresource/profile1");
+	private static final byte[] ZIP = "zip content".getBytes(StandardCharsets.UTF_8);
+	private static final byte[] ENCRYPTED = "encrypted content".getBytes(StandardCharsets.UTF_8);
+
+	@Mock
+	private ResourceIngestionJobRepository repository;
+	@Mock
+	private TensorECC tensorECC;
+	@Mock
+	private OfferedResourceService offeredResourceService;
+	@Mock
+	private ApplicationEventPublisher publisher;
+
+	@TempDir
+	Path directory;
+
+	private final Map<String, ResourceIngestionJob> table = new ConcurrentHashMap<>();
+	private final List<byte[]> indexed = new ArrayList<>();
+	private Resource resource;
+	private MultipartFile suspectProfile;
+
+	@BeforeEach
+	public void setup() {
+		MockitoAnnotations.openMocks(this);
+		when(repository.save(any(ResourceIngestionJob.class))).thenAnswer(invocation -> {
+			ResourceIngestionJob job = invocation.getArgument(0);
+			table.put(job.getId(), job);
+			return job;
+		});
+		when(repository.findById(anyString())).thenAnswer(invocation -> Optional.ofNullable(table.get(invocation.getArgument(0))));
+		when(repository.findByFailedFalseAndStateNotOrderByCreatedAtAsc(any())).thenAnswer(invocation -> table.values().stream()
+				.filter(job -> !job.isFailed() && job.getState() != invocation.getArgument(0))
+				.sorted(Comparator.comparingLong(ResourceIngestionJob::getCreatedAt))
+				.collect(Collectors.toList()));
+
+		when(tensorECC.indexBiometricSamples(any(), anyString(), anyString(), anyBoolean(), any())).thenAnswer(invocation -> {
+			indexed.add(invocation.<MultipartFile>getArgument(0).getBytes());
+			return true;
+		});
+		when(tensorECC.queryEncryptor(eq("face"), any(), anyString(), anyString())).thenReturn(ENCRYPTED);
+		when(tensorECC.storeSuspectProfile(any(), anyString(), anyString(), any())).thenReturn(true);
+
+		resource = new ResourceBuilder(RESOURCE_ID).build();
+		suspectProfile = new MockMultipartFile("suspectProfileZip", "profile.zip", "application/zip", ZIP);
+	}
+
+	@Test
+	public void jobCompletesAllSteps() throws IOException {
+		ResourceIngestionServiceImpl service = service(3, directExecutors());
+
+		ResourceIngestionJob job = service.submit(JOB_ID, CATALOG, resource, suspectProfile, "user1", true, "token", "apiUser");
+
+		assertEquals(State.REGISTERED, job.getState());
+		assertEquals(100, job.getProgress());
+		assertFalse(job.isActive());
+		assertNull(job.getSolidToken());
+		InOrder steps = inOrder(tensorECC, offeredResourceService);
+		steps.verify(tensorECC).indexBiometricSamples(any(), eq("profile1"), eq("user1"), eq(true), eq("token"));
+		steps.verify(tensorECC).queryEncryptor(eq("face"), any(), eq("profile1.zip"), eq("user1"));
+		steps.verify(tensorECC).storeSuspectProfile("token", "user1", "profile1", ENCRYPTED);
+		steps.verify(offeredResourceService).addOfferedResource(CATALOG, resource);
+		assertArrayEquals(ZIP, indexed.get(0));
+		assertEquals(0, Files.list(directory).count());
+		assertEquals(TrueConnectorEventType.OFFERED_RESOURCE_CREATED.name(), publishedEvent().getAuditEvent().getType());
+	}
+
+	@Test
+	public void solidTokenIsStoredEncrypted() throws IOException {
+		Map<Step, Executor> executors = directExecutors();
+		executors.put(Step.INDEX, task -> { });
+		ResourceIngestionServiceImpl service = service(3, executors);
+
+		ResourceIngestionJob job = service.submit(JOB_ID, CATALOG, resource, suspectProfile, "user1", false, "token", "apiUser");
+
+		assertEquals(State.SUBMITTED, job.getState());
+		assertNotNull(job.getSolidToken());
+		assertFalse(job.getSolidToken().contains("token"));
+	}
+
+	@Test
+	public void jobResumesFromLastCompletedStepAfterRestart() throws IOException {
+		// store step never runs, as if connector was stopped after encryption
+		Map<Step, Executor> executors = directExecutors();
+		executors.put(Step.STORE, task -> { });
+		service(3, executors).submit(JOB_ID, CATALOG, resource, suspectProfile, "user1", false, "token", "apiUser");
+		assertEquals(State.ENCRYPTED, table.get(JOB_ID).getState());
+		assertEquals(50, table.get(JOB_ID).getProgress());
+
+		ResourceIngestionServiceImpl restarted = service(3, directExecutors());
+		restarted.resume();
+
+		assertEquals(State.REGISTERED, table.get(JOB_ID).getState());
+		verify(tensorECC, times(1)).indexBiometricSamples(any(), anyString(), anyString(), anyBoolean(), any());
+		verify(tensorECC, times(1)).queryEncryptor(anyString(), any(), anyString(), anyString());
+		verify(tensorECC).storeSuspectProfile("token", "user1", "profile1", ENCRYPTED);
+		verify(offeredResourceService).addOfferedResource(CATALOG, resource);
+	}
+
+	@Test
+	public void failedStepIsRetried() throws IOException {
+		when(tensorECC.indexBiometricSamples(any(), anyString(), anyString(), anyBoolean(), any())).thenReturn(false, true);
+		ResourceIngestionServiceImpl service = service(3, directExecutors());
+
+		service.submit(JOB_ID, CATALOG, resource, suspectProfile, "user1", false, "token", "apiUser");
+
+		ResourceIngestionJob job = table.get(JOB_ID);
+		assertEquals(State.SUBMITTED, job.getState());
+		assertEquals(1, job.getAttempts());
+		assertTrue(job.getLastError().startsWith("INDEX"));
+		assertTrue(job.isActive());
+
+		service.resume();
+
+		assertEquals(State.REGISTERED, job.getState());
+		assertEquals(0, job.getAttempts());
+		assertNull(job.getLastError());
+	}
+
+	@Test
+	public void jobFailsAfterMaxAttempts() throws IOException {
+		when(tensorECC.queryEncryptor(anyString(), any(), anyString(), anyString())).thenReturn(null);
+		ResourceIngestionServiceImpl service = service(2, directExecutors());
+
+		service.submit(JOB_ID, CATALOG, resource, suspectProfile, "user1", false, "token", "apiUser");
+		service.resume();
+		service.resume();
+
+		ResourceIngestionJob job = table.get(JOB_ID);
+		assertTrue(job.isFailed());
+		assertEquals(State.INDEXED, job.getState());
+		assertEquals(2, job.getAttempts());
+		assertNull(job.getSolidToken());
+		verify(tensorECC, times(2)).queryEncryptor(anyString(), any(), anyString(), anyString());
+		verify(tensorECC, times(0)).storeSuspectProfile(any(), anyString(), anyString(), any());
+		assertEquals(0, Files.list(directory).count());
+		assertEquals(TrueConnectorEventType.OFFERED_RESOURCE_CREATION_FAILED.name(), publishedEvent().getAuditEvent().getType());
+	}
+
+	@Test
+	public void jobWaitsForSweepWhenWorkersAreBusy() throws IOException {
+		Map<Step, Executor> executors = directExecutors();
+		boolean[] busy = { true };
+		executors.put(Step.ENCRYPT, task -> {
+			if (busy[0]) {
+				throw new RejectedExecutionException("queue full");
+			}
+			task.run();
+		});
+		ResourceIngestionServiceImpl service = service(3, executors);
+
+		service.submit(JOB_ID, CATALOG, resource, suspectProfile, "user1", false, "token", "apiUser");
+		assertEquals(State.INDEXED, table.get(JOB_ID).getState());
+		assertEquals(0, table.get(JOB_ID).getAttempts());
+
+		busy[0] = false;
+		service.resume();
+
+		assertEquals(State.REGISTERED, table.get(JOB_ID).getState());
+	}
+
+	@Test
+	public void activeJobsExcludeCompletedAndFailed() throws IOException {
+		Map<Step, Executor> executors = directExecutors();
+		executors.put(Step.REGISTER, task -> { });
+		ResourceIngestionServiceImpl service = service(3, executors);
+		service.submit(JOB_ID, CATALOG, resource, suspectProfile, "user1", false, "token", "apiUser");
+		service.submit("completed", CATALOG, resource, suspectProfile, "user1", false, "token", "apiUser");
+		table.get("completed").setState(State.REGISTERED);
+
+		List<ResourceIngestionJob> active = service.getActiveJobs();
+
+		assertEquals(1, active.size());
+		assertEquals(JOB_ID, active.get(0).getId());
+		assertEquals(75, active.get(0).getProgress());
+	}
+
+	private ResourceIngestionServiceImpl service(int maxAttempts, Map<Step, Executor> executors) {
+		return new ResourceIngestionServiceImpl(repository, tensorECC, offeredResourceService, publisher, directory,
+				maxAttempts, 0, 1000, executors);
+	}
+
+	private Map<Step, Executor> directExecutors() {
+		Map<Step, Executor> executors = new EnumMap<>(Step.class);
+		for (Step step : Step.values()) {
+			executors.put(step, Runnable::run);
+		}
+		return executors;
+	}
+
+	private TrueConnectorEvent publishedEvent() {
+		ArgumentCaptor<TrueConnectorEvent> event = ArgumentCaptor.forClass(TrueConnectorEvent.class);
+		verify(publisher).publishEvent(event.capture());
+		return event.getValue();
+	}
+}
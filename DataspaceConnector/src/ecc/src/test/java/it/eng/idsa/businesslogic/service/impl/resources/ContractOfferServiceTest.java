@@ -1,5 +1,6 @@
 package it.eng.idsa.businesslogic.service.impl.resources;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -9,6 +10,7 @@ import java.net.URI;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -18,6 +20,8 @@ import com.google.gson.JsonSyntaxException;
 import de.fraunhofer.iais.eis.Connector;
 import de.fraunhofer.iais.eis.ContractOffer;
 import it.eng.idsa.businesslogic.service.resources.ContractOfferService;
+import it.eng.idsa.businesslogic.service.resources.SelfDescriptionChange;
+import it.eng.idsa.businesslogic.service.resources.SelfDescriptionChange.Operation;
 import it.eng.idsa.businesslogic.service.resources.SelfDescriptionManager;
 
 public class ContractOfferServiceTest {
@@ -48,22 +52,31 @@ public class ContractOfferServiceTest {
 	
 	@Test
 	public void addContractOfferToResource() throws JsonSyntaxException, IOException {
-		when(sdManager.addContractOfferToResource(any(Connector.class), any(ContractOffer.class), any(URI.class))).thenReturn(connector);
-		service.addContractOfferToResource(contractOffer, contractOfferURI);
-		verify(sdManager).saveConnector();
+		when(sdManager.applyChange(any(SelfDescriptionChange.class))).thenReturn(connector);
+		assertEquals(connector, service.addContractOfferToResource(contractOffer, contractOfferURI));
+		ArgumentCaptor<SelfDescriptionChange> change = ArgumentCaptor.forClass(SelfDescriptionChange.class);
+		verify(sdManager).applyChange(change.capture());
+		assertEquals(Operation.ADD_CONTRACT_OFFER, change.getValue().getOperation());
+		assertEquals(contractOffer, change.getValue().getElement());
 	}
 	
 	@Test
 	public void updateContractOfferToResource() throws JsonSyntaxException, IOException {
-		when(sdManager.updateContractOfferToResource(any(Connector.class), any(ContractOffer.class), any(URI.class))).thenReturn(connector);
-		service.updateContractOfferToResource(contractOffer, contractOfferURI);
-		verify(sdManager).saveConnector();
+		when(sdManager.applyChange(any(SelfDescriptionChange.class))).thenReturn(connector);
+		assertEquals(connector, service.updateContractOfferToResource(contractOffer, contractOfferURI));
+		ArgumentCaptor<SelfDescriptionChange> change = ArgumentCaptor.forClass(SelfDescriptionChange.class);
+		verify(sdManager).applyChange(change.capture());
+		assertEquals(Operation.UPDATE_CONTRACT_OFFER, change.getValue().getOperation());
+		assertEquals(contractOffer, change.getValue().getElement());
 	}
 	
 	@Test
 	public void deleteContractOfferService() throws JsonSyntaxException, IOException {
-		when(sdManager.removeContractOfferFromResource(any(Connector.class), any(URI.class))).thenReturn(connector);
-		service.deleteContractOfferService(contractOfferURI);
-		verify(sdManager).saveConnector();
+		when(sdManager.applyChange(any(SelfDescriptionChange.class))).thenReturn(connector);
+		assertEquals(connector, service.deleteContractOfferService(contractOfferURI));
+		ArgumentCaptor<SelfDescriptionChange> change = ArgumentCaptor.forClass(SelfDescriptionChange.class);
+		verify(sdManager).applyChange(change.capture());
+		assertEquals(Operation.DELETE_CONTRACT_OFFER, change.getValue().getOperation());
+		assertEquals(null, change.getValue().getElement());
 	}
 }
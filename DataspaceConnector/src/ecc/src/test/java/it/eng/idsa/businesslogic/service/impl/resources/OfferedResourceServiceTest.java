@@ -1,5 +1,6 @@
 package it.eng.idsa.businesslogic.service.impl.resources;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -8,6 +9,7 @@ import java.net.URI;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -15,6 +17,8 @@ import org.mockito.MockitoAnnotations;
 import de.fraunhofer.iais.eis.Connector;
 import de.fraunhofer.iais.eis.Resource;
 import it.eng.idsa.businesslogic.service.resources.OfferedResourceService;
+import it.eng.idsa.businesslogic.service.resources.SelfDescriptionChange;
+import it.eng.idsa.businesslogic.service.resources.SelfDescriptionChange.Operation;
 import it.eng.idsa.businesslogic.service.resources.SelfDescriptionManager;
 
 public class OfferedResourceServiceTest {
@@ -45,22 +49,31 @@ public class OfferedResourceServiceTest {
 	
 	@Test
 	public void addOfferedResource() {
-		when(sdManager.addOfferedResource(any(Connector.class), any(URI.class), any(Resource.class))).thenReturn(connector);
-		service.addOfferedResource(offeredResource, resource);
-		verify(sdManager).saveConnector();
+		when(sdManager.applyChange(any(SelfDescriptionChange.class))).thenReturn(connector);
+		assertEquals(connector, service.addOfferedResource(offeredResource, resource));
+		ArgumentCaptor<SelfDescriptionChange> change = ArgumentCaptor.forClass(SelfDescriptionChange.class);
+		verify(sdManager).applyChange(change.capture());
+		assertEquals(Operation.ADD_RESOURCE, change.getValue().getOperation());
+		assertEquals(resource, change.getValue().getElement());
 	}
 	
 	@Test
 	public void updateOfferedResource() {
-		when(sdManager.updateOfferedResource(any(Connector.class), any(URI.class), any(Resource.class))).thenReturn(connector);
-		service.updateOfferedResource(offeredResource, resource);
-		verify(sdManager).saveConnector();
+		when(sdManager.applyChange(any(SelfDescriptionChange.class))).thenReturn(connector);
+		assertEquals(connector, service.updateOfferedResource(offeredResource, resource));
+		ArgumentCaptor<SelfDescriptionChange> change = ArgumentCaptor.forClass(SelfDescriptionChange.class);
+		verify(sdManager).applyChange(change.capture());
+		assertEquals(Operation.UPDATE_RESOURCE, change.getValue().getOperation());
+		assertEquals(resource, change.getValue().getElement());
 	}
 	
 	@Test
 	public void deleteOfferedResource() {
-		when(sdManager.deleteOfferedResource(any(Connector.class), any(URI.class))).thenReturn(connector);
-		service.deleteOfferedResource(offeredResource);
-		verify(sdManager).saveConnector();
+		when(sdManager.applyChange(any(SelfDescriptionChange.class))).thenReturn(connector);
+		assertEquals(connector, service.deleteOfferedResource(offeredResource));
+		ArgumentCaptor<SelfDescriptionChange> change = ArgumentCaptor.forClass(SelfDescriptionChange.class);
+		verify(sdManager).applyChange(change.capture());
+		assertEquals(Operation.DELETE_RESOURCE, change.getValue().getOperation());
+		assertEquals(null, change.getValue().getElement());
 	}
 }
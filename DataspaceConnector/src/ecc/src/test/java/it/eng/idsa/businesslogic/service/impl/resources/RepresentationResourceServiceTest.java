@@ -1,5 +1,6 @@
 package it.eng.idsa.businesslogic.service.impl.resources;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -9,6 +10,7 @@ import java.net.URI;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -19,6 +21,8 @@ import de.fraunhofer.iais.eis.Connector;
 import de.fraunhofer.iais.eis.Representation;
 import de.fraunhofer.iais.eis.Resource;
 import it.eng.idsa.businesslogic.service.resources.RepresentationResourceService;
+import it.eng.idsa.businesslogic.service.resources.SelfDescriptionChange;
+import it.eng.idsa.businesslogic.service.resources.SelfDescriptionChange.Operation;
 import it.eng.idsa.businesslogic.service.resources.SelfDescriptionManager;
 
 public class RepresentationResourceServiceTest {
@@ -52,25 +56,31 @@ public class RepresentationResourceServiceTest {
 	
 	@Test
 	public void addRepresentationToResource() throws JsonSyntaxException, IOException {
-		when(sdManager.addRepresentationToResource(any(Connector.class), any(Representation.class), any(URI.class)))
-			.thenReturn(connector);
-		service.addRepresentationToResource(representation, resourceId);
-		verify(sdManager).saveConnector();
+		when(sdManager.applyChange(any(SelfDescriptionChange.class))).thenReturn(connector);
+		assertEquals(connector, service.addRepresentationToResource(representation, resourceId));
+		ArgumentCaptor<SelfDescriptionChange> change = ArgumentCaptor.forClass(SelfDescriptionChange.class);
+		verify(sdManager).applyChange(change.capture());
+		assertEquals(Operation.ADD_REPRESENTATION, change.getValue().getOperation());
+		assertEquals(representation, change.getValue().getElement());
 	}
 	
 	@Test
 	public void updateRepresentationToResource() throws JsonSyntaxException, IOException {
-		when(sdManager.updateRepresentationToResource(any(Connector.class), any(Representation.class), any(URI.class)))
-			.thenReturn(connector);
-		service.updateRepresentationToResource(representation, resourceId);
-		verify(sdManager).saveConnector();
+		when(sdManager.applyChange(any(SelfDescriptionChange.class))).thenReturn(connector);
+		assertEquals(connector, service.updateRepresentationToResource(representation, resourceId));
+		ArgumentCaptor<SelfDescriptionChange> change = ArgumentCaptor.forClass(SelfDescriptionChange.class);
+		verify(sdManager).applyChange(change.capture());
+		assertEquals(Operation.UPDATE_REPRESENTATION, change.getValue().getOperation());
+		assertEquals(representation, change.getValue().getElement());
 	}
 	
 	@Test
 	public void deleteRepresentation() throws JsonSyntaxException, IOException {
-		when(sdManager.removeRepresentationFromResource(any(Connector.class), any(URI.class)))
-			.thenReturn(connector);
-		service.deleteRepresentation(representationURI);
-		verify(sdManager).saveConnector();
+		when(sdManager.applyChange(any(SelfDescriptionChange.class))).thenReturn(connector);
+		assertEquals(connector, service.deleteRepresentation(representationURI));
+		ArgumentCaptor<SelfDescriptionChange> change = ArgumentCaptor.forClass(SelfDescriptionChange.class);
+		verify(sdManager).applyChange(change.capture());
+		assertEquals(Operation.DELETE_REPRESENTATION, change.getValue().getOperation());
+		assertEquals(null, change.getValue().getElement());
 	}
 }
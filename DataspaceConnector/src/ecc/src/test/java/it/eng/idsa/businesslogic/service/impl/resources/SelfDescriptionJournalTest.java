@@ -0,0 +1,213 @@
+package it.eng.idsa.businesslogic.service.impl.resources;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import de.fraunhofer.iais.eis.Connector;
+import de.fraunhofer.iais.eis.ContractOffer;
+import de.fraunhofer.iais.eis.ImageResourceBuilder;
+import de.fraunhofer.iais.eis.Resource;
+import de.fraunhofer.iais.eis.util.TypedLiteral;
+import de.fraunhofer.iais.eis.util.Util;
+import it.eng.idsa.businesslogic.configuration.SelfDescriptionConfiguration;
+import it.eng.idsa.businesslogic.configuration.ShutdownConnector;
+import it.eng.idsa.businesslogic.service.resources.BadRequestException;
+import it.eng.idsa.businesslogic.service.resources.JsonException;
+import it.eng.idsa.businesslogic.service.resources.SelfDescription;
+import it.eng.idsa.businesslogic.service.resources.SelfDescriptionChange;
+import it.eng.idsa.businesslogic.service.resources.SelfDescriptionJournal;
+import it.eng.idsa.businesslogic.service.resources.SelfDescriptionManager;
+import it.eng.idsa.businesslogic.service.resources.SelfDescriptionSnapshot;
+
+public class SelfDescriptionJournalTest {
+
+	private static final URI CATALOG_1 = URI.create("http://catalog.com/1");
+
+	@TempDir
+	Path tempDir;
+
+	@Mock
+	private SelfDescriptionConfiguration selfDescriptionConfiguration;
+	@Mock
+	private ShutdownConnector shutdownConnector;
+
+	private Path documentFile;
+	private Path journalFile;
+
+	@BeforeEach
+	public void setup() {
+		MockitoAnnotations.openMocks(this);
+		when(selfDescriptionConfiguration.getFileLocation()).thenReturn(tempDir.toString());
+		documentFile = tempDir.resolve(SelfDescriptionConfiguration.SELF_DESCRIPTION_FILE_NAME);
+		journalFile = tempDir.resolve(SelfDescriptionConfiguration.SELF_DESCRIPTION_FILE_NAME + SelfDescriptionJournal.JOURNAL_SUFFIX);
+		SelfDescription.getInstance().setBaseConnector(SelfDescriptionUtil.getBaseConnector());
+	}
+
+	@Test
+	public void changeIsPublishedAsNewSnapshot() {
+		SelfDescriptionManager manager = manager(100);
+		SelfDescriptionSnapshot before = SelfDescription.getInstance().getSnapshot();
+		Resource resource = resource("http://resource.com/new");
+
+		Connector connector = manager.applyChange(SelfDescriptionChange.addOfferedResource(CATALOG_1, resource));
+
+		SelfDescriptionSnapshot after = SelfDescription.getInstance().getSnapshot();
+		assertNotSame(before.getConnector(), connector);
+		assertEquals(before.getVersion() + 1, after.getVersion());
+		assertNotNull(after.getResource(resource.getId()));
+		// previous version is left untouched for readers still holding it
+		assertEquals(null, before.getResource(resource.getId()));
+		assertEquals(2, before.getConnector().getResourceCatalog().get(0).getOfferedResource().size());
+		assertEquals(resource.getId(), manager.getOfferedResource(connector, resource.getId()).getId());
+	}
+
+	@Test
+	public void failedChangeIsNotPublished() {
+		SelfDescriptionManager manager = manager(100);
+		SelfDescriptionSnapshot before = SelfDescription.getInstance().getSnapshot();
+		Resource existing = before.getConnector().getResourceCatalog().get(0).getOfferedResource().get(0);
+
+		assertThrows(BadRequestException.class,
+				() -> manager.applyChange(SelfDescriptionChange.addOfferedResource(CATALOG_1, existing)));
+		assertEquals(before, SelfDescription.getInstance().getSnapshot());
+		assertFalse(Files.exists(journalFile));
+	}
+
+	@Test
+	public void indexesContainNestedElements() {
+		SelfDescriptionSnapshot snapshot = SelfDescription.getInstance().getSnapshot();
+
+		assertNotNull(snapshot.getRepresentation(
+				URI.create("https://w3id.org/idsa/autogen/representation/catalog/2/resource/1/representation/1")));
+		assertNotNull(snapshot.getArtifact(URI.create("http://w3id.org/engrd/connector/artifact/catalog/2/artifact/1")));
+		assertNotNull(snapshot.getContractOffer(
+				URI.create("https://w3id.org/idsa/autogen/contractOffer/catalog/1/resource/2/offer/1")));
+		assertEquals(4, snapshot.getResourceCount());
+	}
+
+	@Test
+	public void serializedFormIsCachedPerVersion() throws IOException {
+		SelfDescriptionManager manager = manager(100);
+		SelfDescriptionSnapshot snapshot = SelfDescription.getInstance().getSnapshot();
+		assertTrue(snapshot.getJsonLd() == snapshot.getJsonLd());
+
+		manager.applyChange(SelfDescriptionChange.deleteOfferedResource(
+				URI.create("http://w3id.org/engrd/connector/artifact/catalog/1/resource/1")));
+
+		assertFalse(SelfDescription.getInstance().getSnapshot().getJsonLd()
+				.contains("http://w3id.org/engrd/connector/artifact/catalog/1/resource/1\""));
+	}
+
+	@Test
+	public void journalIsReplayedOnLoad() throws IOException {
+		SelfDescriptionManager manager = manager(100);
+		manager.saveConnector();
+		Resource resource = resource("http://resource.com/journal");
+		manager.applyChange(SelfDescriptionChange.addOfferedResource(CATALOG_1, resource));
+		ContractOffer offer = SelfDescriptionUtil.createContractOffer(resource.getId(), "1", "3", "1");
+		manager.applyChange(SelfDescriptionChange.addContractOffer(resource.getId(), offer));
+
+		assertEquals(2, Files.readAllLines(journalFile).size());
+		assertFalse(Files.readString(documentFile).contains("http://resource.com/journal"));
+
+		SelfDescription.getInstance().setBaseConnector(null);
+		Connector loaded = manager(100).loadConnector();
+
+		assertNotNull(loaded);
+		assertEquals(offer.getId(), SelfDescription.getInstance().getSnapshot().getContractOffer(offer.getId()).getId());
+		// replayed journal is compacted into the document
+		assertFalse(Files.exists(journalFile));
+		assertTrue(Files.readString(documentFile).contains("http://resource.com/journal"));
+	}
+
+	@Test
+	public void incompleteJournalEntryIsIgnored() throws IOException {
+		SelfDescriptionManager manager = manager(100);
+		manager.saveConnector();
+		manager.applyChange(SelfDescriptionChange.addOfferedResource(CATALOG_1, resource("http://resource.com/complete")));
+		Files.write(journalFile, "{\"operation\":\"DELETE_RES".getBytes(StandardCharsets.UTF_8),
+				java.nio.file.StandardOpenOption.APPEND);
+
+		SelfDescription.getInstance().setBaseConnector(null);
+		manager(100).loadConnector();
+
+		assertNotNull(SelfDescription.getInstance().getSnapshot().getResource(URI.create("http://resource.com/complete")));
+	}
+
+	@Test
+	public void journalIsCompactedAfterThreshold() throws IOException {
+		SelfDescriptionManager manager = manager(3);
+		manager.saveConnector();
+		for (int i = 0; i < 2; i++) {
+			manager.applyChange(SelfDescriptionChange.addOfferedResource(CATALOG_1, resource("http://resource.com/" + i)));
+		}
+		assertEquals(2, Files.readAllLines(journalFile).size());
+
+		manager.applyChange(SelfDescriptionChange.addOfferedResource(CATALOG_1, resource("http://resource.com/2")));
+
+		assertFalse(Files.exists(journalFile));
+		assertTrue(Files.readString(documentFile).contains("http://resource.com/2"));
+	}
+
+	@Test
+	public void documentIsPersistedWhenJournalAppendFails() throws IOException {
+		SelfDescriptionManager manager = manager(100);
+		manager.saveConnector();
+		// journal can not be written while a directory is in its place
+		Files.createDirectory(journalFile);
+		Resource resource = resource("http://resource.com/no-journal");
+
+		manager.applyChange(SelfDescriptionChange.addOfferedResource(CATALOG_1, resource));
+
+		assertNotNull(SelfDescription.getInstance().getSnapshot().getResource(resource.getId()));
+		assertTrue(Files.readString(documentFile).contains("http://resource.com/no-journal"));
+		assertFalse(Files.exists(journalFile));
+	}
+
+	@Test
+	public void changeIsNotPublishedWhenItCanNotBePersisted() throws IOException {
+		SelfDescriptionManager manager = manager(100);
+		manager.saveConnector();
+		Files.createDirectory(journalFile);
+		Path tempFile = tempDir.resolve(SelfDescriptionConfiguration.SELF_DESCRIPTION_FILE_NAME + ".tmp");
+		Files.createDirectory(tempFile);
+		Files.createFile(tempFile.resolve("blocked"));
+		SelfDescriptionSnapshot before = SelfDescription.getInstance().getSnapshot();
+
+		assertThrows(JsonException.class, () -> manager.applyChange(
+				SelfDescriptionChange.addOfferedResource(CATALOG_1, resource("http://resource.com/lost"))));
+		assertEquals(before, SelfDescription.getInstance().getSnapshot());
+	}
+
+	private SelfDescriptionManager manager(int compactionThreshold) {
+		SelfDescriptionManager manager = new SelfDescriptionManager();
+		ReflectionTestUtils.setField(manager, "selfDescriptionConfiguration", selfDescriptionConfiguration);
+		ReflectionTestUtils.setField(manager, "shutdownConnector", shutdownConnector);
+		ReflectionTestUtils.setField(manager, "compactionThreshold", compactionThreshold);
+		return manager;
+	}
+
+	private Resource resource(String id) {
+		return new ImageResourceBuilder(URI.create(id))
+				._title_(Util.asList(new TypedLiteral("Image resource " + id)))
+				.build();
+	}
+}
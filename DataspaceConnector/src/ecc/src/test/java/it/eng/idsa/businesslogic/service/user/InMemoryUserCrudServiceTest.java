@@ -5,9 +5,14 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Collections;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -18,11 +23,20 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import it.eng.idsa.businesslogic.service.auth.AuthManager;
+import it.eng.idsa.businesslogic.service.auth.AuthenticationCache;
+import it.eng.idsa.businesslogic.service.impl.PasswordValidatorService;
 import it.eng.idsa.businesslogic.util.TrueConnectorConstants;
+import it.eng.idsa.businesslogic.web.rest.PasswordController;
 
 public class InMemoryUserCrudServiceTest {
 
@@ -34,6 +48,8 @@ public class InMemoryUserCrudServiceTest {
 	private LoginAttemptService loginAttemptService;
 	@Mock
 	private PasswordEncoder encoder;
+	@Mock
+	private AuthenticationCache authenticationCache;
 	
 	private User user;
 	
@@ -118,4 +134,60 @@ public class InMemoryUserCrudServiceTest {
 		 
 		 assertEquals(exception.getMessage(), "blocked");
 	}
+	
+	@Test
+	public void findUserByUsername_afterUsernameChange() {
+		userService.save(user);
+		userService.save(new User(user.getId(), "newUsername", "testPassword", TrueConnectorConstants.API_USER_ROLE));
+		
+		assertThrows(BadCredentialsException.class, () -> userService.loadCamelUserByUsername(user.getUsername()));
+		assertEquals(user.getId(), ((User) userService.loadCamelUserByUsername("newUsername")).getId());
+	}
+	
+	@Test
+	public void findUserByUsernameAndPassword_verifiedOnce() {
+		ReflectionTestUtils.setField(userService, "authenticationCache", new AuthenticationCache(60, 10));
+		userService.save(user);
+		when(encoder.matches("plainPassword", user.getPassword())).thenReturn(true);
+		
+		assertTrue(userService.findByUsernameAndPassword(user.getUsername(), "plainPassword").isPresent());
+		assertTrue(userService.findByUsernameAndPassword(user.getUsername(), "plainPassword").isPresent());
+		
+		verify(encoder, times(1)).matches("plainPassword", user.getPassword());
+	}
+	
+	@Test
+	public void passwordChangedWithPasswordControllerHashInvalidatesCachedAuthentication() {
+		PasswordEncoder bcrypt = new BCryptPasswordEncoder(4);
+		AuthenticationCache cache = new AuthenticationCache(60, 10);
+		ReflectionTestUtils.setField(userService, "encoder", bcrypt);
+		ReflectionTestUtils.setField(userService, "authenticationCache", cache);
+		PasswordValidatorService passwordValidatorService = mock(PasswordValidatorService.class);
+		when(passwordValidatorService.validate(any(String.class))).thenReturn(Collections.emptyList());
+		PasswordController passwordController = new PasswordController();
+		ReflectionTestUtils.setField(passwordController, "passwordEncoder", bcrypt);
+		ReflectionTestUtils.setField(passwordController, "passwordValidatorService", passwordValidatorService);
+		AuthManager authManager = new AuthManager(bcrypt, userService, cache, loginAttemptService);
+		
+		userService.save(new User(user.getId(), user.getUsername(), hash(passwordController, "OldPassword1!"),
+				TrueConnectorConstants.API_USER_ROLE));
+		assertNotNull(authManager.authenticate(credentials("OldPassword1!")));
+		assertTrue(userService.findByUsernameAndPassword(user.getUsername(), "OldPassword1!").isPresent());
+		
+		userService.save(new User(user.getId(), user.getUsername(), hash(passwordController, "NewPassword1!"),
+				TrueConnectorConstants.API_USER_ROLE));
+		
+		assertThrows(BadCredentialsException.class, () -> authManager.authenticate(credentials("OldPassword1!")));
+		assertFalse(userService.findByUsernameAndPassword(user.getUsername(), "OldPassword1!").isPresent());
+		assertNotNull(authManager.authenticate(credentials("NewPassword1!")));
+	}
+	
+	private String hash(PasswordController passwordController, String password) {
+		ResponseEntity<Object> response = passwordController.getPassword(password);
+		return (String) response.getBody();
+	}
+	
+	private UsernamePasswordAuthenticationToken credentials(String password) {
+		return new UsernamePasswordAuthenticationToken(user.getUsername(), password);
+	}
 }
@@ -0,0 +1,332 @@
+package it.eng.idsa.businesslogic.usagecontrol.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.eng.idsa.businesslogic.service.impl.CommunicationServiceImpl;
+import it.eng.idsa.businesslogic.usagecontrol.service.impl.PlatoonUsageControlServiceImpl;
+
+/**
+ * Enforces policies with {@link PlatoonUsageControlServiceImpl} against an embedded usage control app stub
+ */
+public class UsageControlDecisionCacheTest {
+
+	private static final String CONTRACT_AGREEMENT = "https://w3id.org/idsa/autogen/contractAgreement/b748af25-051b-43d4-9bc5-432ad7201549";
+	private static final String CONTRACT_AGREEMENT_UUID = "b748af25-051b-43d4-9bc5-432ad7201549";
+	private static final URI ARTIFACT = URI.create("http://w3id.org/engrd/connector/artifact/1");
+	private static final long STUB_DELAY_MILLIS = 20;
+
+	private MeterRegistry meterRegistry;
+	private MutableClock clock;
+
+	private HttpServer stub;
+	private final AtomicInteger enforcements = new AtomicInteger();
+	private volatile boolean deny;
+
+	@BeforeEach
+	public void setup() throws IOException {
+		meterRegistry = new SimpleMeterRegistry();
+		clock = new MutableClock(Instant.parse("2024-03-01T10:00:00Z").toEpochMilli());
+
+		stub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		stub.createContext("/enforce/usage/agreement", exchange -> {
+			enforcements.incrementAndGet();
+			try {
+				Thread.sleep(STUB_DELAY_MILLIS);
+				byte[] body = exchange.getRequestBody().readAllBytes();
+				exchange.sendResponseHeaders(deny ? 403 : 200, deny ? -1 : body.length);
+				if (!deny) {
+					try (OutputStream os = exchange.getResponseBody()) {
+						os.write(body);
+					}
+				}
+			} catch (InterruptedException e) {
+				exchange.sendResponseHeaders(500, -1);
+			} finally {
+				exchange.close();
+			}
+		});
+		stub.createContext("/contractAgreement/", exchange -> {
+			exchange.sendResponseHeaders(200, -1);
+			exchange.close();
+		});
+		stub.setExecutor(Executors.newCachedThreadPool());
+		stub.start();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		stub.stop(0);
+	}
+
+	@Test
+	public void repeatedEnforcementIsServedFromCache() throws Exception {
+		PlatoonUsageControlServiceImpl service = service(true);
+		service.uploadPolicy(contractAgreement(""));
+
+		for (int i = 0; i < 5; i++) {
+			assertEquals("payload", service.enforceUsageControl(URI.create(CONTRACT_AGREEMENT), ARTIFACT, "payload"));
+		}
+		assertEquals("other payload", service.enforceUsageControl(URI.create(CONTRACT_AGREEMENT), ARTIFACT, "other payload"));
+
+		assertEquals(2, enforcements.get());
+		assertEquals(4, meterRegistry.get("usagecontrol.cache.requests").tag("result", "hit").counter().count());
+		assertEquals(2, meterRegistry.get("usagecontrol.cache.requests").tag("result", "miss").counter().count());
+	}
+
+	@Test
+	public void unknownContractAgreementIsNotCached() throws Exception {
+		PlatoonUsageControlServiceImpl service = service(true);
+
+		service.enforceUsageControl(URI.create(CONTRACT_AGREEMENT), ARTIFACT, "payload");
+		service.enforceUsageControl(URI.create(CONTRACT_AGREEMENT), ARTIFACT, "payload");
+
+		assertEquals(2, enforcements.get());
+		assertEquals(2, meterRegistry.get("usagecontrol.cache.requests").tag("result", "bypass").counter().count());
+	}
+
+	@Test
+	public void countingPolicyBypassesCache() throws Exception {
+		PlatoonUsageControlServiceImpl service = service(true);
+		service.uploadPolicy(contractAgreement(constraint("COUNT", "\"5\"")));
+
+		service.enforceUsageControl(URI.create(CONTRACT_AGREEMENT), ARTIFACT, "payload");
+		service.enforceUsageControl(URI.create(CONTRACT_AGREEMENT), ARTIFACT, "payload");
+
+		assertEquals(2, enforcements.get());
+	}
+
+	@Test
+	public void incrementCounterDutyBypassesCache() throws Exception {
+		PlatoonUsageControlServiceImpl service = service(true);
+		service.uploadPolicy(contractAgreement("").replace("\"ids:postDuty\": []",
+				"\"ids:postDuty\": [{\"@type\": \"ids:Duty\", \"ids:action\": [{\"@id\": \"idsc:INCREMENT_COUNTER\"}]}]"));
+
+		service.enforceUsageControl(URI.create(CONTRACT_AGREEMENT), ARTIFACT, "payload");
+		service.enforceUsageControl(URI.create(CONTRACT_AGREEMENT), ARTIFACT, "payload");
+
+		assertEquals(2, enforcements.get());
+	}
+
+	@Test
+	public void entryExpiresAtTemporalConstraint() throws Exception {
+		PlatoonUsageControlServiceImpl service = service(true);
+		// usage allowed until 10:01, one minute after the first enforcement
+		service.uploadPolicy(contractAgreement(constraint("POLICY_EVALUATION_TIME",
+				"{\"@value\": \"2024-03-01T10:01:00Z\", \"@type\": \"xsd:dateTimeStamp\"}")));
+
+		service.enforceUsageControl(URI.create(CONTRACT_AGREEMENT), ARTIFACT, "payload");
+		clock.advance(TimeUnit.SECONDS.toMillis(59));
+		service.enforceUsageControl(URI.create(CONTRACT_AGREEMENT), ARTIFACT, "payload");
+		assertEquals(1, enforcements.get());
+
+		clock.advance(TimeUnit.SECONDS.toMillis(1));
+		service.enforceUsageControl(URI.create(CONTRACT_AGREEMENT), ARTIFACT, "payload");
+		assertEquals(2, enforcements.get());
+	}
+
+	@Test
+	public void entryExpiresAtTtl() throws Exception {
+		PlatoonUsageControlServiceImpl service = service(true);
+		service.uploadPolicy(contractAgreement(""));
+
+		service.enforceUsageControl(URI.create(CONTRACT_AGREEMENT), ARTIFACT, "payload");
+		clock.advance(TimeUnit.SECONDS.toMillis(300));
+		service.enforceUsageControl(URI.create(CONTRACT_AGREEMENT), ARTIFACT, "payload");
+
+		assertEquals(2, enforcements.get());
+	}
+
+	@Test
+	public void temporalConstraintWithoutDateBypassesCache() throws Exception {
+		PlatoonUsageControlServiceImpl service = service(true);
+		service.uploadPolicy(contractAgreement(constraint("ELAPSED_TIME", "{\"@value\": \"P1D\"}"))
+				.replaceAll(",\\s*\"ids:contractStart\": \\{[^}]*\\}", ""));
+
+		service.enforceUsageControl(URI.create(CONTRACT_AGREEMENT), ARTIFACT, "payload");
+		service.enforceUsageControl(URI.create(CONTRACT_AGREEMENT), ARTIFACT, "payload");
+
+		assertEquals(2, enforcements.get());
+	}
+
+	@Test
+	public void uploadAndRollbackInvalidateCache() throws Exception {
+		PlatoonUsageControlServiceImpl service = service(true);
+		service.uploadPolicy(contractAgreement(""));
+		service.enforceUsageControl(URI.create(CONTRACT_AGREEMENT), ARTIFACT, "payload");
+
+		service.uploadPolicy(contractAgreement(""));
+		service.enforceUsageControl(URI.create(CONTRACT_AGREEMENT), ARTIFACT, "payload");
+		assertEquals(2, enforcements.get());
+
+		service.rollbackPolicyUpload(CONTRACT_AGREEMENT_UUID);
+		service.enforceUsageControl(URI.create(CONTRACT_AGREEMENT), ARTIFACT, "payload");
+		service.enforceUsageControl(URI.create(CONTRACT_AGREEMENT), ARTIFACT, "payload");
+		assertEquals(4, enforcements.get());
+	}
+
+	@Test
+	public void deniedEnforcementIsNotCached() throws Exception {
+		PlatoonUsageControlServiceImpl service = service(true);
+		service.uploadPolicy(contractAgreement(""));
+		deny = true;
+
+		assertThrows(HttpClientErrorException.class,
+				() -> service.enforceUsageControl(URI.create(CONTRACT_AGREEMENT), ARTIFACT, "payload"));
+		deny = false;
+		assertEquals("payload", service.enforceUsageControl(URI.create(CONTRACT_AGREEMENT), ARTIFACT, "payload"));
+
+		assertEquals(2, enforcements.get());
+	}
+
+	@Test
+	public void usageControlIsCalledOnceWithCache() throws Exception {
+		int requests = 50;
+		enforce(service(false), requests);
+		enforce(service(true), requests);
+
+		assertEquals(requests + 1, enforcements.get());
+	}
+
+	/**
+	 * Policy is uploaded again while other threads enforce it; once an upload returned, no enforcement may be answered
+	 * with a result enforced under the previous policy
+	 */
+	@Test
+	public void resultOfReplacedPolicyIsNotServed() throws Exception {
+		UsageControlDecisionCache cache = new UsageControlDecisionCache(true, 300, 100, meterRegistry, clock);
+		URI contractAgreement = URI.create(CONTRACT_AGREEMENT);
+		ReadWriteLock upload = new ReentrantReadWriteLock();
+		AtomicInteger version = new AtomicInteger();
+		cache.policyUploaded(contractAgreement(""));
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Future<?>> enforcers = new ArrayList<>();
+		try {
+			for (int t = 0; t < 4; t++) {
+				enforcers.add(executor.submit(() -> {
+					for (int i = 0; i < 2000; i++) {
+						upload.readLock().lock();
+						int uploaded;
+						try {
+							uploaded = version.get();
+						} finally {
+							upload.readLock().unlock();
+						}
+						String result = cache.enforce(contractAgreement, ARTIFACT, null, "payload",
+								() -> String.valueOf(version.get()));
+						assertTrue(Integer.parseInt(result) >= uploaded, "result of version " + result
+								+ " served after upload of version " + uploaded);
+					}
+					return null;
+				}));
+			}
+			for (int i = 0; i < 200; i++) {
+				upload.writeLock().lock();
+				try {
+					version.incrementAndGet();
+					cache.policyUploaded(contractAgreement(""));
+				} finally {
+					upload.writeLock().unlock();
+				}
+				Thread.yield();
+			}
+			for (Future<?> enforcer : enforcers) {
+				enforcer.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void enforce(PlatoonUsageControlServiceImpl service, int requests) throws Exception {
+		service.uploadPolicy(contractAgreement(""));
+		for (int i = 0; i < requests; i++) {
+			service.enforceUsageControl(URI.create(CONTRACT_AGREEMENT), ARTIFACT, "payload");
+		}
+	}
+
+	private PlatoonUsageControlServiceImpl service(boolean cacheEnabled) {
+		PlatoonUsageControlServiceImpl service = new PlatoonUsageControlServiceImpl();
+		ReflectionTestUtils.setField(service, "platoonURL", "http://localhost:" + stub.getAddress().getPort() + "/");
+		ReflectionTestUtils.setField(service, "isEnabledUsageControl", true);
+		ReflectionTestUtils.setField(service, "communicationService", new CommunicationServiceImpl(new RestTemplate()));
+		ReflectionTestUtils.setField(service, "decisionCache",
+				new UsageControlDecisionCache(cacheEnabled, 300, 100, meterRegistry, clock));
+		return service;
+	}
+
+	private String constraint(String leftOperand, String rightOperand) {
+		return "{\"@type\": \"ids:Constraint\", \"ids:leftOperand\": {\"@id\": \"https://w3id.org/idsa/code/" + leftOperand
+				+ "\"}, \"ids:operator\": {\"@id\": \"https://w3id.org/idsa/code/BEFORE\"}, \"ids:rightOperand\": "
+				+ rightOperand + "}";
+	}
+
+	private String contractAgreement(String constraint) {
+		return "{\"@context\": {\"ids\": \"https://w3id.org/idsa/core/\", \"idsc\": \"https://w3id.org/idsa/code/\"},"
+				+ " \"@type\": \"ids:ContractAgreement\", \"@id\": \"" + CONTRACT_AGREEMENT + "\","
+				+ " \"ids:permission\": [{\"@type\": \"ids:Permission\", \"ids:target\": {\"@id\": \"" + ARTIFACT + "\"},"
+				+ " \"ids:constraint\": [" + constraint + "], \"ids:action\": [{\"@id\": \"https://w3id.org/idsa/code/USE\"}],"
+				+ " \"ids:postDuty\": [], \"ids:preDuty\": []}],"
+				+ " \"ids:contractStart\": {\"@value\": \"2024-01-01T00:00:00.000+01:00\", \"@type\": \"xsd:dateTimeStamp\"},"
+				+ " \"ids:contractEnd\": {\"@value\": \"2024-12-31T00:00:00.000+01:00\", \"@type\": \"xsd:dateTimeStamp\"}}";
+	}
+
+	private static class MutableClock extends Clock {
+
+		private volatile long millis;
+
+		MutableClock(long millis) {
+			this.millis = millis;
+		}
+
+		void advance(long delta) {
+			millis += delta;
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return Instant.ofEpochMilli(millis);
+		}
+	}
+}
@@ -3,6 +3,7 @@ package it.eng.idsa.businesslogic.usagecontrol.service.impl;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.lang.reflect.Type;
@@ -14,6 +15,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import com.google.gson.Gson;
@@ -21,12 +23,14 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.internal.LinkedTreeMap;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import it.eng.idsa.businesslogic.service.CommunicationService;
 import it.eng.idsa.businesslogic.usagecontrol.model.IdsUseObject;
 import it.eng.idsa.businesslogic.usagecontrol.model.Meta;
 import it.eng.idsa.businesslogic.usagecontrol.model.TargetArtifact;
 import it.eng.idsa.businesslogic.usagecontrol.model.UsageControlObject;
 import it.eng.idsa.businesslogic.usagecontrol.service.UcRestCallService;
+import it.eng.idsa.businesslogic.usagecontrol.service.UsageControlDecisionCache;
 import it.eng.idsa.businesslogic.util.MessagePart;
 import it.eng.idsa.multipart.util.UtilMessageService;
 import retrofit2.Call;
@@ -43,6 +47,9 @@ public class MyDataUsageControlServiceImplTest {
 	@Mock
 	private CommunicationService communicationService;
 	
+	@Spy
+	private UsageControlDecisionCache decisionCache = new UsageControlDecisionCache(true, 300, 100, new SimpleMeterRegistry());
+	
 	@Mock
 	private Call<Object> call;
 	
@@ -123,6 +130,7 @@ public class MyDataUsageControlServiceImplTest {
 		String response = myDataUsageControlServiceImpl.uploadPolicy(payload);
 		
 		assertEquals("Policy uploaded", response);
+		verify(decisionCache).policyUploaded(payload);
 
 	}
 }
@@ -5,7 +5,6 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-import java.io.IOException;
 import java.net.URI;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -13,9 +12,12 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import it.eng.idsa.businesslogic.service.CommunicationService;
+import it.eng.idsa.businesslogic.usagecontrol.service.UsageControlDecisionCache;
 import it.eng.idsa.multipart.util.UtilMessageService;
 
 public class PlatoonUsageControlServiceImplTest {
@@ -26,6 +28,9 @@ public class PlatoonUsageControlServiceImplTest {
 	@Mock
 	private CommunicationService communicationService;
 
+	@Spy
+	private UsageControlDecisionCache decisionCache = new UsageControlDecisionCache(true, 300, 100, new SimpleMeterRegistry());
+
 	private String platoonURL = "http://platoon.com";
 
 	@BeforeEach
@@ -36,7 +41,7 @@ public class PlatoonUsageControlServiceImplTest {
 	}
 
 	@Test
-	public void testEnforceUsageControl_Succesfull() throws IOException {
+	public void testEnforceUsageControl_Succesfull() throws Exception {
 		URI ucURI = URI.create("http://someContractAgreement.com/1");
 		URI requestedArtifact = URI.create("http://w3id.org/engrd/connector/artifact/1");
 		String ucObjet = "someUCObject";
@@ -56,7 +61,7 @@ public class PlatoonUsageControlServiceImplTest {
 	}
 
 	@Test
-	public void testEnforceUsageControl_Failed() throws IOException {
+	public void testEnforceUsageControl_Failed() throws Exception {
 		URI ucURI = URI.create("someInvalidContractAgreement");
 		URI requestedArtifact = URI.create("http://w3id.org/engrd/connector/artifact/1");
 		String ucObjet = "someUCObject";
@@ -117,5 +122,6 @@ public class PlatoonUsageControlServiceImplTest {
 				.rollbackPolicyUpload(UtilMessageService.getMessageAsString(UtilMessageService.getContractAgreement()));
 
 		verify(communicationService).deleteRequest(any());
+		verify(decisionCache).policyRemoved(any());
 	}
 }
@@ -1,8 +1,12 @@
 package it.eng.idsa.businesslogic.util;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
+import java.util.Arrays;
+import java.util.List;
+
 import org.junit.jupiter.api.Test;
 
 public class AES256Test {
@@ -17,5 +21,16 @@ public class AES256Test {
 		String decrypted = AES256.decrypt(encrypted);
 		assertEquals(originalString, decrypted);
 		System.out.println(decrypted);
-	}	
+	}
+
+	@Test
+	public void encryptBatchDecrypt() {
+		List<String> encrypted = AES256.encrypt(Arrays.asList(originalString, originalString, "second"));
+		assertEquals(3, encrypted.size());
+		// every value gets its own IV
+		assertNotEquals(encrypted.get(0), encrypted.get(1));
+		assertEquals(originalString, AES256.decrypt(encrypted.get(0)));
+		assertEquals(originalString, AES256.decrypt(encrypted.get(1)));
+		assertEquals("second", AES256.decrypt(encrypted.get(2)));
+	}
 }
@@ -0,0 +1,87 @@
+package it.eng.idsa.businesslogic.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+
+import org.junit.jupiter.api.Test;
+
+public class AesGcmCryptoTest {
+
+	private static final String SALT = "salt";
+
+	private String value = "String used to test AES256 encryption / decryption";
+
+	@Test
+	public void encryptedValueHasVersionAndKeyId() throws Exception {
+		AesGcmCrypto crypto = new AesGcmCrypto("1", Map.of("1", "secret1"), SALT);
+
+		String encrypted = crypto.encrypt(value);
+
+		assertTrue(encrypted.startsWith("v2:1:"), encrypted);
+		assertEquals(value, crypto.decrypt(encrypted));
+	}
+
+	@Test
+	public void valueInOriginalFormatIsReadable() throws Exception {
+		AesGcmCrypto crypto = new AesGcmCrypto("2", Map.of("1", "secret1", "2", "secret2"), SALT);
+
+		assertEquals(value, crypto.decrypt(encryptLegacy(value, "secret1")));
+		assertEquals(value, crypto.decrypt(encryptLegacy(value, "secret2")));
+	}
+
+	@Test
+	public void valuesOfPreviousKeyAreReadableAfterRotation() throws Exception {
+		String encrypted = new AesGcmCrypto("1", Map.of("1", "secret1"), SALT).encrypt(value);
+		AesGcmCrypto rotated = new AesGcmCrypto("2", Map.of("1", "secret1", "2", "secret2"), SALT);
+
+		assertEquals(value, rotated.decrypt(encrypted));
+		assertTrue(rotated.encrypt(value).startsWith("v2:2:"));
+	}
+
+	@Test
+	public void unknownKeyAndTamperedValueAreRejected() throws Exception {
+		String encrypted = new AesGcmCrypto("1", Map.of("1", "secret1"), SALT).encrypt(value);
+		AesGcmCrypto other = new AesGcmCrypto("2", Map.of("2", "secret2"), SALT);
+
+		assertThrows(GeneralSecurityException.class, () -> other.decrypt(encrypted));
+		assertThrows(GeneralSecurityException.class,
+				() -> other.decrypt(encryptLegacy(value, "secret1")));
+
+		AesGcmCrypto crypto = new AesGcmCrypto("1", Map.of("1", "secret1"), SALT);
+		byte[] bytes = Base64.getDecoder().decode(encrypted.substring("v2:1:".length()));
+		bytes[bytes.length - 1] ^= 1;
+		assertThrows(GeneralSecurityException.class,
+				() -> crypto.decrypt("v2:1:" + Base64.getEncoder().encodeToString(bytes)));
+	}
+
+	@Test
+	public void currentKeyMustHaveSecret() {
+		assertThrows(IllegalArgumentException.class, () -> new AesGcmCrypto("2", Map.of("1", "secret1"), SALT));
+		assertThrows(IllegalArgumentException.class, () -> new AesGcmCrypto("1:", Map.of("1:", "secret1"), SALT));
+	}
+
+	/**
+	 * Format used before key ids: 16 byte IV followed by ciphertext
+	 */
+	private String encryptLegacy(String value, String secret) throws GeneralSecurityException {
+		byte[] iv = new byte[16];
+		new SecureRandom().nextBytes(iv);
+		Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+		cipher.init(Cipher.ENCRYPT_MODE, AesGcmCrypto.deriveKey(secret, SALT), new GCMParameterSpec(128, iv));
+		byte[] cipherText = cipher.doFinal(value.getBytes(StandardCharsets.UTF_8));
+		byte[] encrypted = new byte[iv.length + cipherText.length];
+		System.arraycopy(iv, 0, encrypted, 0, iv.length);
+		System.arraycopy(cipherText, 0, encrypted, iv.length, cipherText.length);
+		return Base64.getEncoder().encodeToString(encrypted);
+	}
+}
@@ -1,18 +1,20 @@
 package it.eng.idsa.businesslogic.util;
 
-import java.net.MalformedURLException;
-
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
-import it.eng.idsa.businesslogic.util.exception.OCSPValidationException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.eng.idsa.businesslogic.service.OCSPValidationService;
+import it.eng.idsa.businesslogic.service.impl.OCSPValidationServiceImpl;
 
 public class OCSPValidationTest {
 
 	@Test
 	@Disabled("Should bot be run in build")
-	public void testOCSP() throws MalformedURLException, OCSPValidationException {
-		boolean validCert = OCSPValidation.checkOCSPCerificate("https://daps.aisec.fraunhofer.de", 
+	public void testOCSP() {
+		OCSPValidationService validationService = new OCSPValidationServiceImpl(5000, false, 3600, 86400, 30, 300, 1000,
+				new SimpleMeterRegistry());
+		boolean validCert = validationService.checkOCSPCertificate("https://daps.aisec.fraunhofer.de", 
 				OCSPValidation.OCSP_STATUS.good);
 		
 		System.out.println("Status of cert validation: " + validCert);
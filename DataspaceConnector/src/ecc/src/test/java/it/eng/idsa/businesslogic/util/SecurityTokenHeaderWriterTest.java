@@ -0,0 +1,84 @@
+package it.eng.idsa.businesslogic.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import de.fraunhofer.iais.eis.Message;
+import de.fraunhofer.iais.eis.TokenFormat;
+import it.eng.idsa.multipart.processor.MultipartMessageProcessor;
+import it.eng.idsa.multipart.util.UtilMessageService;
+
+public class SecurityTokenHeaderWriterTest {
+
+	private static final String TOKEN = "DUMMY_TOKEN_VALUE_UPDATE";
+
+	private SecurityTokenHeaderWriter writer;
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	@BeforeEach
+	public void setup() {
+		writer = new SecurityTokenHeaderWriter();
+	}
+
+	@Test
+	public void replaceToken() throws IOException {
+		Message message = UtilMessageService.getArtifactRequestMessage();
+
+		Message result = MultipartMessageProcessor.getMessage(writer.write(message, TOKEN));
+
+		assertEquals(TOKEN, result.getSecurityToken().getTokenValue());
+		assertEquals(TokenFormat.JWT, result.getSecurityToken().getTokenFormat());
+		assertEquals(message.getId(), result.getId());
+		assertEquals(message.getIssuerConnector(), result.getIssuerConnector());
+	}
+
+	@Test
+	public void addTokenWhenMissing() throws IOException {
+		Message message = UtilMessageService.getArtifactRequestMessage();
+		ObjectNode header = (ObjectNode) mapper.readTree(MultipartMessageProcessor.serializeToJsonLD(message));
+		header.remove("ids:securityToken");
+
+		String result = writer.write(mapper.writeValueAsString(header), TOKEN);
+
+		assertEquals(TOKEN, MultipartMessageProcessor.getMessage(result).getSecurityToken().getTokenValue());
+	}
+
+	@Test
+	public void sameHeaderAsFullParse() throws IOException {
+		Message message = UtilMessageService.getArtifactResponseMessage();
+		ObjectNode expected = (ObjectNode) mapper.readTree(MultipartMessageProcessor.serializeToJsonLD(message));
+		expected.remove("ids:securityToken");
+
+		ObjectNode result = (ObjectNode) mapper.readTree(writer.write(message, TOKEN));
+		ObjectNode token = (ObjectNode) result.remove("ids:securityToken");
+
+		assertEquals(expected, result);
+		assertEquals(TOKEN, token.get("ids:tokenValue").asText());
+	}
+
+	@Test
+	public void newTokenValue() throws IOException {
+		Message message = UtilMessageService.getArtifactRequestMessage();
+		writer.write(message, TOKEN);
+
+		String result = writer.write(message, "RENEWED_TOKEN");
+
+		assertTrue(result.contains("RENEWED_TOKEN"));
+		assertFalse(result.contains(TOKEN));
+	}
+
+	@Test
+	public void headerNotObject() {
+		assertThrows(IOException.class, () -> writer.write("[]", TOKEN));
+	}
+}
@@ -0,0 +1,158 @@
+package it.eng.idsa.businesslogic.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.fraunhofer.iais.eis.Message;
+import it.eng.idsa.businesslogic.service.impl.OkHttpSenderClientServiceImpl;
+import it.eng.idsa.multipart.domain.MultipartMessage;
+import it.eng.idsa.multipart.processor.MultipartMessageProcessor;
+import it.eng.idsa.multipart.util.UtilMessageService;
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+
+public class StreamingMultipartTest {
+
+	@TempDir
+	Path tempDir;
+
+	private OkHttpSenderClientServiceImpl senderClientService;
+	private StreamingMultipartReader reader;
+	private Message message;
+
+	@BeforeEach
+	public void setup() {
+		senderClientService = new OkHttpSenderClientServiceImpl();
+		reader = new StreamingMultipartReader(1024, 2048, tempDir.toString());
+		message = UtilMessageService.getArtifactResponseMessage();
+	}
+
+	@Test
+	public void textBodyHasUtf8Length() throws IOException {
+		String content = "payload Ä€ 😀";
+		RequestBody body = StreamingBodies.text(content, MediaType.get("text/plain"));
+		Buffer written = new Buffer();
+		body.writeTo(written);
+
+		assertEquals(content.getBytes(StandardCharsets.UTF_8).length, body.contentLength());
+		assertEquals(body.contentLength(), written.size());
+		assertEquals("text/plain; charset=utf-8", body.contentType().toString());
+	}
+
+	@Test
+	public void textBodyKeepsOtherCharset() throws IOException {
+		RequestBody body = StreamingBodies.text("Ä", MediaType.get("text/plain; charset=ISO-8859-1"));
+		Buffer written = new Buffer();
+		body.writeTo(written);
+
+		assertEquals(1, written.size());
+	}
+
+	@Test
+	public void sentMessageIsReadBack() throws IOException {
+		String payload = "payload Ä€".repeat(1000);
+		MultipartMessage received = reader.read(send(MultipartMessageUtil.getMultipartMessage(message, payload)));
+
+		assertEquals(payload, received.getPayloadContent());
+		assertEquals(message.getId(), received.getHeaderContent().getId());
+	}
+
+	@Test
+	public void messageWithoutPayloadIsReadBack() throws IOException {
+		MultipartMessage received = reader.read(send(MultipartMessageUtil.getMultipartMessage(message, null)));
+
+		assertNull(received.getPayloadContent());
+		assertEquals(message.getId(), received.getHeaderContent().getId());
+	}
+
+	@Test
+	public void bigPartIsSpilledToFile() throws IOException {
+		byte[] payload = new byte[64 * 1024];
+		for (int i = 0; i < payload.length; i++) {
+			payload[i] = (byte) i;
+		}
+		MultipartBody body = new MultipartBody.Builder()
+				.setType(MultipartBody.MIXED)
+				.addPart(Headers.of("Content-Disposition", "form-data; name=\"header\""),
+						StreamingBodies.text("{}", MediaType.get("application/ld+json")))
+				.addPart(Headers.of("Content-Disposition", "form-data; name=\"payload\""),
+						StreamingBodies.stream(new ByteArrayInputStream(payload), MediaType.get("application/octet-stream"),
+								payload.length))
+				.build();
+		Buffer written = new Buffer();
+		body.writeTo(written);
+
+		Path spilled;
+		try (StreamingMultipartReader.Parts parts = reader.readParts(ResponseBody.create(written, body.contentType(), -1))) {
+			StreamingMultipartReader.ReceivedPart header = parts.get(MessagePart.HEADER, 0);
+			StreamingMultipartReader.ReceivedPart payloadPart = parts.get(MessagePart.PAYLOAD, 1);
+			assertFalse(header.getContent().isSpilled());
+			assertTrue(payloadPart.getContent().isSpilled());
+			try (InputStream in = payloadPart.getContent().inputStream()) {
+				assertArrayEquals(payload, in.readAllBytes());
+			}
+			try (Stream<Path> files = Files.list(tempDir)) {
+				spilled = files.findFirst().orElseThrow();
+			}
+		}
+		assertFalse(Files.exists(spilled));
+	}
+
+	@Test
+	public void spilledPayloadUnderLimitIsRead() throws IOException {
+		String payload = "x".repeat(1536);
+		ResponseBody body = send(MultipartMessageUtil.getMultipartMessage(message, payload));
+
+		assertEquals(payload, reader.read(body).getPayloadContent());
+		try (Stream<Path> files = Files.list(tempDir)) {
+			assertEquals(0, files.count());
+		}
+	}
+
+	@Test
+	public void payloadOverLimitIsRejected() throws IOException {
+		ResponseBody body = send(MultipartMessageUtil.getMultipartMessage(message, "x".repeat(4096)));
+
+		assertThrows(StreamingMultipartReader.PayloadTooLargeException.class, () -> reader.read(body));
+		try (Stream<Path> files = Files.list(tempDir)) {
+			assertEquals(0, files.count());
+		}
+	}
+
+	@Test
+	public void bodyWithoutBoundaryIsParsedAsText() throws IOException {
+		String multipart = MultipartMessageProcessor.multipartMessagetoString(MultipartMessageUtil.getMultipartMessage());
+
+		MultipartMessage received = reader.read(ResponseBody.create(multipart, MediaType.get("application/json")));
+
+		assertEquals(MultipartMessageUtil.getMultipartMessage().getPayloadContent(), received.getPayloadContent());
+	}
+
+	private ResponseBody send(MultipartMessage multipartMessage) throws IOException {
+		RequestBody body = senderClientService.createMultipartMixRequest(multipartMessage, "text/plain");
+		Buffer written = new Buffer();
+		body.writeTo(written);
+		assertEquals(body.contentLength(), written.size());
+		return ResponseBody.create(written, body.contentType(), written.size());
+	}
+}
@@ -0,0 +1,142 @@
+package it.eng.idsa.businesslogic.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class TensorIndexingPipelineTest {
+
+  private HttpServer mockIndexer;
+  private MeterRegistry meterRegistry;
+  private TensorIndexingPipeline pipeline;
+
+  private AtomicInteger requests = new AtomicInteger();
+  private AtomicInteger inFlight = new AtomicInteger();
+  private AtomicInteger maxInFlight = new AtomicInteger();
+  private volatile int failFirst;
+  private volatile int failureCode = 503;
+  private volatile long latencyMillis = 20;
+
+  @BeforeEach
+  public void setup() throws IOException {
+    mockIndexer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    mockIndexer.setExecutor(Executors.newCachedThreadPool());
+    mockIndexer.createContext("/indexLocalData", exchange -> {
+      int current = inFlight.incrementAndGet();
+      maxInFlight.accumulateAndGet(current, Math::max);
+      try {
+        exchange.getRequestBody().readAllBytes();
+        Thread.sleep(latencyMillis);
+        int code = requests.incrementAndGet() <= failFirst ? failureCode : 200;
+        exchange.sendResponseHeaders(code, -1);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        inFlight.decrementAndGet();
+        exchange.close();
+      }
+    });
+    mockIndexer.start();
+    meterRegistry = new SimpleMeterRegistry();
+    pipeline = new TensorIndexingPipeline("http://localhost:" + mockIndexer.getAddress().getPort(),
+        4, 10, 1, 4, 1000, 3, 10, 100, 1000, 5000, meterRegistry);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    pipeline.shutdown();
+    mockIndexer.stop(0);
+  }
+
+  @Test
+  public void indexAllModalities() {
+    Map<String, List<TensorBiometricFile>> samples = new HashMap<>();
+    samples.put("image", samples(10));
+    samples.put("fingerprint", samples(10));
+    samples.put("voice", samples(10));
+
+    assertTrue(pipeline.indexAll(samples, "user", "suspect", true));
+
+    assertEquals(30, requests.get());
+    assertTrue(maxInFlight.get() <= 4);
+    Timer timer = meterRegistry.get("tensor.indexer.request").tag("modality", "image").tag("outcome", "success").timer();
+    assertEquals(10, timer.count());
+  }
+
+  @Test
+  public void concurrencyGrowsWhenIndexerIsFast() {
+    Map<String, List<TensorBiometricFile>> samples = new HashMap<>();
+    samples.put("image", samples(20));
+
+    assertTrue(pipeline.indexAll(samples, "user", "suspect", true));
+    assertEquals(4, pipeline.getConcurrencyLimit());
+  }
+
+  @Test
+  public void concurrencyShrinksWhenIndexerIsSlow() {
+    latencyMillis = 1200;
+    Map<String, List<TensorBiometricFile>> samples = new HashMap<>();
+    samples.put("image", samples(2));
+
+    assertTrue(pipeline.indexAll(samples, "user", "suspect", true));
+    assertEquals(1, pipeline.getConcurrencyLimit());
+  }
+
+  @Test
+  public void retryOnOverload() {
+    failFirst = 2;
+    Map<String, List<TensorBiometricFile>> samples = new HashMap<>();
+    samples.put("voice", samples(1));
+
+    assertTrue(pipeline.indexAll(samples, "user", "suspect", false));
+    assertEquals(3, requests.get());
+  }
+
+  @Test
+  public void giveUpAfterMaxAttempts() {
+    failFirst = 10;
+    Map<String, List<TensorBiometricFile>> samples = new HashMap<>();
+    samples.put("voice", samples(1));
+
+    assertFalse(pipeline.indexAll(samples, "user", "suspect", false));
+    assertEquals(3, requests.get());
+  }
+
+  @Test
+  public void noRetryOnClientError() {
+    failFirst = 10;
+    failureCode = 400;
+    Map<String, List<TensorBiometricFile>> samples = new HashMap<>();
+    samples.put("fingerprint", samples(1));
+
+    assertFalse(pipeline.indexAll(samples, "user", "suspect", false));
+    assertEquals(1, requests.get());
+  }
+
+  private List<TensorBiometricFile> samples(int count) {
+    List<TensorBiometricFile> files = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      files.add(new TensorBiometricFile("sample" + i + ".jpg", new byte[1024], "image/jpeg"));
+    }
+    return files;
+  }
+}
@@ -1,17 +1,29 @@
 package it.eng.idsa.businesslogic.web.rest;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import it.eng.idsa.businesslogic.service.SelfDescriptionService;
 
 public class SelfDescriptionTest {
 
+	private static final String ETAG = "\"abc-1\"";
+
 	@InjectMocks
 	private SelfDescription selfDescription;
 
@@ -21,12 +33,35 @@ public class SelfDescriptionTest {
 	@BeforeEach
 	public void init() {
 		MockitoAnnotations.openMocks(this);
+		when(selfDescriptionService.getConnectorSelfDescription()).thenReturn("{}");
+		when(selfDescriptionService.getConnectorSelfDescriptionETag()).thenReturn(ETAG);
 	}
-	
+
 	@Test
 	public void selfDescriptions() {
-		selfDescription.selfDescriptions();
-		
+		ResponseEntity<String> response = selfDescription.selfDescriptions();
+
 		verify(selfDescriptionService).getConnectorSelfDescription();
+		assertEquals("{}", response.getBody());
+		assertEquals(ETAG, response.getHeaders().getETag());
+	}
+
+	@Test
+	public void selfDescriptions_notModified() throws Exception {
+		MockMvc mockMvc = MockMvcBuilders.standaloneSetup(selfDescription).build();
+
+		mockMvc.perform(get("/").header(HttpHeaders.IF_NONE_MATCH, ETAG))
+			.andExpect(status().isNotModified())
+			.andExpect(header().string(HttpHeaders.ETAG, ETAG));
+	}
+
+	@Test
+	public void selfDescriptions_modified() throws Exception {
+		MockMvc mockMvc = MockMvcBuilders.standaloneSetup(selfDescription).build();
+
+		mockMvc.perform(get("/").header(HttpHeaders.IF_NONE_MATCH, "\"abc-0\""))
+			.andExpect(status().isOk())
+			.andExpect(header().string(HttpHeaders.ETAG, ETAG))
+			.andExpect(content().string("{}"));
 	}
 }
@@ -1,8 +1,12 @@
 package it.eng.idsa.businesslogic.web.rest.resources;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -12,6 +16,7 @@ import java.net.URI;
 import java.security.Principal;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
 import javax.servlet.http.HttpServletRequest;
 
@@ -22,12 +27,16 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockMultipartFile;
 
 import de.fraunhofer.iais.eis.Resource;
 import de.fraunhofer.iais.eis.ResourceBuilder;
 import de.fraunhofer.iais.eis.ids.jsonld.Serializer;
+import it.eng.idsa.businesslogic.entity.ResourceIngestionJob;
+import it.eng.idsa.businesslogic.service.ResourceIngestionService;
 import it.eng.idsa.businesslogic.service.resources.JsonException;
 import it.eng.idsa.businesslogic.service.resources.OfferedResourceService;
+import it.eng.idsa.businesslogic.service.resources.ResourceNotFoundException;
 
 public class OfferedResourceControllerTest {
 
@@ -43,6 +52,8 @@ public class OfferedResourceControllerTest {
   private ApplicationEventPublisher publisher;
   @Mock
   private Principal principal;
+  @Mock
+  private ResourceIngestionService ingestionService;
 
   private URI resourceURI = URI.create("resource.uri");
 
@@ -92,6 +103,57 @@ public class OfferedResourceControllerTest {
    * }
    */
 
+  @Test
+  public void addOrUpdateResource() throws IOException {
+    URI catalogURI = URI.create("catalog.uri");
+    Resource resource = new ResourceBuilder(resourceURI).build();
+    MockMultipartFile zip = new MockMultipartFile("suspectProfileZip", "profile.zip", "application/zip", new byte[] { 1 });
+    ResourceIngestionJob job = new ResourceIngestionJob("job1", catalogURI.toString(), resourceURI.toString(), "{}",
+        "resource.uri", "user1", "testUser", false, null, 0);
+    when(ingestionService.submit(anyString(), eq(catalogURI), eq(resource), eq(zip), eq("user1"), eq(false), eq("token"),
+        eq("testUser"))).thenReturn(job);
+
+    var response = controller.addOrUpdateResource(catalogURI, "token", zip, new Serializer().serialize(resource),
+        "user1", "false", request);
+
+    assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+    assertEquals("job1", response.getBody().get("jobId"));
+    assertEquals("IN_PROGRESS", response.getBody().get("status"));
+    assertEquals(URI.create("jobs/job1"), response.getHeaders().getLocation());
+  }
+
+  @Test
+  public void addOrUpdateResource_invalid_json() throws IOException {
+    URI catalogURI = URI.create("catalog.uri");
+    MockMultipartFile zip = new MockMultipartFile("suspectProfileZip", "profile.zip", "application/zip", new byte[] { 1 });
+
+    assertThrows(JsonException.class,
+        () -> controller.addOrUpdateResource(catalogURI, "token", zip, "RESOURCE", "user1", "false", request));
+
+    verify(ingestionService, times(0)).submit(anyString(), any(), any(), any(), anyString(), eq(false), anyString(),
+        anyString());
+  }
+
+  @Test
+  public void getJob() {
+    ResourceIngestionJob job = new ResourceIngestionJob("job1", "catalog.uri", resourceURI.toString(), "{}",
+        "resource.uri", "user1", "testUser", false, null, 0);
+    job.setState(ResourceIngestionJob.State.ENCRYPTED);
+    when(ingestionService.getJob("job1")).thenReturn(Optional.of(job));
+
+    var response = controller.getJob("job1");
+
+    assertEquals(50, response.getBody().get("progress"));
+    assertEquals(ResourceIngestionJob.State.ENCRYPTED, response.getBody().get("state"));
+  }
+
+  @Test
+  public void getJob_not_found() {
+    when(ingestionService.getJob("job1")).thenReturn(Optional.empty());
+
+    assertThrows(ResourceNotFoundException.class, () -> controller.getJob("job1"));
+  }
+
   @Test
   public void updateResource() throws IOException {
     URI catalogURI = URI.create("catalog.uri");